@@ -0,0 +1,302 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class generates synthetic graphs for the benchmarks.  The same type, size and seed always give the same graph
+ * (node ids, coordinates, links and disabled nodes), on any machine and JVM, so results of different runs and builds
+ * can be compared.  Nodes are named "N0", "N1", ... in id order, and each link has the straight line distance between
+ * its nodes as its length.
+ * @author Sean J. Barbeau
+ */
+public class GraphGenerator {
+
+    //Distance between neighbouring nodes of a grid, and about the mean distance between the nodes of the other graphs
+    public static final int SPACING = 10;
+
+    //Fraction of the nodes of a GRID that are disabled, as obstacles
+    public static final double GRID_OBSTACLES = 0.1;
+
+    //Mean number of links leaving a node of a GEOMETRIC graph
+    public static final double GEOMETRIC_DEGREE = 6;
+
+    /**
+     * This enumeration defines the kinds of graphs that can be generated
+     */
+    public enum GraphType {
+        GRID, //Grid of nodes connected to their 8 neighbours, with some nodes disabled as obstacles
+        GEOMETRIC //Random geometric graph - nodes placed at random and connected to every node within a fixed distance
+    }
+
+    /**
+     * Generates a graph of about numNodes nodes
+     * @param type kind of graph to generate
+     * @param numNodes number of nodes (a GRID is rounded up to a square)
+     * @param seed seed of the random numbers
+     * @return the graph
+     */
+    public static CsrGraph create(GraphType type, int numNodes, long seed) {
+        if (type == GraphType.GRID) {
+            int side = (int) Math.ceil(Math.sqrt(numNodes));
+            return grid(side, side, GRID_OBSTACLES, seed);
+        }
+        return geometric(numNodes, GEOMETRIC_DEGREE, seed);
+    }
+
+    /**
+     * Returns the width and height of the square that holds the nodes of a graph made by create()
+     * @param numNodes number of nodes the graph was created with
+     * @return the width and height of the square that holds the nodes
+     */
+    public static int getExtent(int numNodes) {
+        return (int) Math.ceil(Math.sqrt(numNodes)) * SPACING;
+    }
+
+    /**
+     * Generates a grid of nodes SPACING apart, each connected both ways to its horizontal, vertical and diagonal neighbours
+     * @param width number of columns
+     * @param height number of rows
+     * @param obstacles fraction of the nodes that are disabled
+     * @param seed seed of the random numbers
+     * @return the grid
+     */
+    public static CsrGraph grid(int width, int height, double obstacles, long seed) {
+        Random random = new Random(seed);
+        int numNodes = width * height;
+        int[] x = new int[numNodes];
+        int[] y = new int[numNodes];
+        boolean[] enabled = new boolean[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            x[i] = (i % width) * SPACING;
+            y[i] = (i / width) * SPACING;
+            enabled[i] = random.nextDouble() >= obstacles;
+        }
+
+        int[] offsets = new int[numNodes + 1];
+        int[] targets = new int[numNodes * 8];
+        int numEdges = 0;
+        for (int i = 0; i < numNodes; i++) {
+            offsets[i] = numEdges;
+            int column = i % width;
+            int row = i / width;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int c = column + dx;
+                    int r = row + dy;
+                    if ((dx != 0 || dy != 0) && c >= 0 && c < width && r >= 0 && r < height) {
+                        targets[numEdges++] = r * width + c;
+                    }
+                }
+            }
+        }
+        offsets[numNodes] = numEdges;
+        return build(offsets, Arrays.copyOf(targets, numEdges), x, y, enabled);
+    }
+
+    /**
+     * Generates a random geometric graph - nodes are placed uniformly at random in a square, and every pair of nodes
+     * closer than a fixed distance is connected both ways.  The distance is chosen so each node has degree links on average.
+     * @param numNodes number of nodes
+     * @param degree mean number of links leaving a node
+     * @param seed seed of the random numbers
+     * @return the graph
+     */
+    public static CsrGraph geometric(int numNodes, double degree, long seed) {
+        Random random = new Random(seed);
+        int extent = getExtent(numNodes);
+        int[] x = new int[numNodes];
+        int[] y = new int[numNodes];
+        boolean[] enabled = new boolean[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            x[i] = random.nextInt(extent);
+            y[i] = random.nextInt(extent);
+            enabled[i] = true;
+        }
+
+        //Sort the nodes into square cells as wide as the connection distance, so only neighbouring cells are compared
+        double radius = extent * Math.sqrt(degree / (Math.PI * numNodes));
+        int numCells = Math.max(1, (int) (extent / radius));
+        double cellSize = (double) extent / numCells;
+        int[] cellStart = new int[numCells * numCells + 1];
+        for (int i = 0; i < numNodes; i++) {
+            cellStart[cellOf(x[i], y[i], cellSize, numCells) + 1]++;
+        }
+        for (int c = 0; c < numCells * numCells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] cellNodes = new int[numNodes];
+        int[] fill = Arrays.copyOf(cellStart, numCells * numCells);
+        for (int i = 0; i < numNodes; i++) {
+            cellNodes[fill[cellOf(x[i], y[i], cellSize, numCells)]++] = i;
+        }
+
+        //Connect each node to the nodes within the radius, in id order so the graph doesn't depend on the cells
+        double radiusSquared = radius * radius;
+        int[] offsets = new int[numNodes + 1];
+        int[] targets = new int[Math.max(16, (int) (numNodes * degree * 1.25))];
+        int[] neighbours = new int[16];
+        int numEdges = 0;
+        for (int i = 0; i < numNodes; i++) {
+            offsets[i] = numEdges;
+            int column = Math.min(numCells - 1, (int) (x[i] / cellSize));
+            int row = Math.min(numCells - 1, (int) (y[i] / cellSize));
+            int numNeighbours = 0;
+            for (int r = Math.max(0, row - 1); r <= Math.min(numCells - 1, row + 1); r++) {
+                for (int c = Math.max(0, column - 1); c <= Math.min(numCells - 1, column + 1); c++) {
+                    int cell = r * numCells + c;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int j = cellNodes[k];
+                        double dx = x[j] - x[i];
+                        double dy = y[j] - y[i];
+                        if (j != i && dx * dx + dy * dy <= radiusSquared) {
+                            if (numNeighbours == neighbours.length) {
+                                neighbours = Arrays.copyOf(neighbours, numNeighbours * 2);
+                            }
+                            neighbours[numNeighbours++] = j;
+                        }
+                    }
+                }
+            }
+            Arrays.sort(neighbours, 0, numNeighbours);
+            if (numEdges + numNeighbours > targets.length) {
+                targets = Arrays.copyOf(targets, Math.max(targets.length * 2, numEdges + numNeighbours));
+            }
+            System.arraycopy(neighbours, 0, targets, numEdges, numNeighbours);
+            numEdges += numNeighbours;
+        }
+        offsets[numNodes] = numEdges;
+        return build(offsets, Arrays.copyOf(targets, numEdges), x, y, enabled);
+    }
+
+    /**
+     * Returns the cell of a point
+     */
+    private static int cellOf(int x, int y, double cellSize, int numCells) {
+        int column = Math.min(numCells - 1, (int) (x / cellSize));
+        int row = Math.min(numCells - 1, (int) (y / cellSize));
+        return row * numCells + column;
+    }
+
+    /**
+     * Creates the graph, with the straight line distance between its nodes as the length of each link
+     */
+    private static CsrGraph build(int[] offsets, int[] targets, int[] x, int[] y, boolean[] enabled) {
+        int numNodes = x.length;
+        float[] weights = new float[targets.length];
+        for (int i = 0; i < numNodes; i++) {
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                double dx = x[targets[e]] - x[i];
+                double dy = y[targets[e]] - y[i];
+                weights[e] = (float) Math.sqrt(dx * dx + dy * dy);
+            }
+        }
+        String[] labels = new String[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            labels[i] = "N" + i;
+        }
+        return new CsrGraph(offsets, targets, weights, x, y, enabled, labels);
+    }
+
+    /**
+     * Picks start and goal nodes for searches.  Both nodes of each pair are enabled and in the same part of the graph as
+     * the first enabled node, so a path always exists between them.
+     * @param graph graph to pick the nodes from
+     * @param numQueries number of pairs to pick
+     * @param seed seed of the random numbers
+     * @return the start node of query i at [i][0] and its goal node at [i][1]
+     */
+    public static int[][] queries(CsrGraph graph, int numQueries, long seed) {
+        //Find the nodes that can be reached from the first enabled node (the links of generated graphs go both ways)
+        int numNodes = graph.getNodeSize();
+        int first = 0;
+        while (first < numNodes && graph.isEnabled(first) == false) {
+            first++;
+        }
+        boolean[] reached = new boolean[numNodes];
+        int[] component = new int[numNodes];
+        int size = 0;
+        reached[first] = true;
+        component[size++] = first;
+        for (int k = 0; k < size; k++) {
+            int a = component[k];
+            for (int e = graph.getFirstEdge(a); e < graph.getFirstEdge(a + 1); e++) {
+                int b = graph.getTarget(e);
+                if (reached[b] == false && graph.isEnabled(b)) {
+                    reached[b] = true;
+                    component[size++] = b;
+                }
+            }
+        }
+
+        Random random = new Random(seed);
+        int[][] queries = new int[numQueries][];
+        for (int i = 0; i < numQueries; i++) {
+            queries[i] = new int[] {component[random.nextInt(size)], component[random.nextInt(size)]};
+        }
+        return queries;
+    }
+
+    /**
+     * Writes a graph to a location file ("label x y" on each line) and a connection file ("label count neighbour1
+     * neighbour2 ..." on each line) in the format of the sample files, so it can be loaded by TextGraphLoader or the GUI.
+     * NOTE:  the text files don't hold the enabled states, so disabled nodes are enabled again when the files are loaded.
+     * @param graph graph to write
+     * @param locationFile file to write the locations to
+     * @param connectionFile file to write the connections to
+     * @throws IOException if a file can't be written
+     */
+    public static void writeTextFiles(CsrGraph graph, File locationFile, File connectionFile) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(locationFile), StandardCharsets.UTF_8));
+        try {
+            for (int i = 0; i < graph.getNodeSize(); i++) {
+                out.write(graph.getLabel(i) + " " + graph.getX(i) + " " + graph.getY(i) + "\n");
+            }
+            out.write("END");
+        }
+        finally {
+            out.close();
+        }
+
+        out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(connectionFile), StandardCharsets.UTF_8));
+        try {
+            for (int i = 0; i < graph.getNodeSize(); i++) {
+                int first = graph.getFirstEdge(i);
+                int last = graph.getFirstEdge(i + 1);
+                out.write(graph.getLabel(i) + " " + (last - first));
+                for (int e = first; e < last; e++) {
+                    out.write(" " + graph.getLabel(graph.getTarget(e)));
+                }
+                out.write("\n");
+            }
+            out.write("END");
+        }
+        finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks loading a GEOMETRIC graph from the location and connection text files (TextGraphLoader) and
+ * from a binary graph file (GraphFile), and copying it into a search space of nodes and links as the GUI does.
+ * The files are written to a temporary directory before the benchmark and deleted after it.
+ * Each load is timed on its own (SingleShotTime), since a graph is loaded once rather than in a tight loop - the
+ * mapped graph files in particular are only unmapped when they are garbage collected.
+ * @author Sean J. Barbeau
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class LoadBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int numNodes;
+
+    private File directory;
+    private File locationFile;
+    private File connectionFile;
+    private File graphFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        CsrGraph graph = GraphGenerator.create(GraphGenerator.GraphType.GEOMETRIC, this.numNodes, 1);
+        this.directory = Files.createTempDirectory("astar-bench").toFile();
+        this.locationFile = new File(this.directory, "loc.txt");
+        this.connectionFile = new File(this.directory, "conn.txt");
+        this.graphFile = new File(this.directory, "graph.bin");
+        GraphGenerator.writeTextFiles(graph, this.locationFile, this.connectionFile);
+        GraphFile.write(graph, this.graphFile);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.locationFile.delete();
+        this.connectionFile.delete();
+        this.graphFile.delete();
+        this.directory.delete();
+    }
+
+    @Benchmark
+    public CsrGraph loadTextFiles() throws IOException {
+        return new TextGraphLoader().load(this.locationFile, this.connectionFile);
+    }
+
+    @Benchmark
+    public long loadGraphFile() throws IOException {
+        //The file is mapped, so read every node and edge to time reading it rather than only mapping it
+        CsrGraph graph = GraphFile.open(this.graphFile);
+        long sum = 0;
+        for (int i = 0; i < graph.getNodeSize(); i++) {
+            sum += graph.getX(i) + graph.getY(i);
+            for (int e = graph.getFirstEdge(i); e < graph.getFirstEdge(i + 1); e++) {
+                sum += graph.getTarget(e);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Object loadTextFilesToSearchSpace() throws IOException {
+        return new TextGraphLoader().load(this.locationFile, this.connectionFile).toSearchSpace();
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import com.barbeau.networks.Link;
+import com.barbeau.networks.Node;
+import com.barbeau.networks.SearchSpace;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks looking up nodes by label (SearchSpace.findNode()) and links by their nodes
+ * (SearchSpace.findLink() and CsrGraph.findEdge()) in a GEOMETRIC graph.  Each call looks up the next of a fixed list
+ * of random nodes or links.
+ * @author Sean J. Barbeau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class LookupBenchmark {
+
+    //Number of different nodes and links looked up (a power of 2)
+    private static final int NUM_LOOKUPS = 1024;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int numNodes;
+
+    private CsrGraph graph;
+    private SearchSpace searchSpace;
+    private final String[] labels = new String[NUM_LOOKUPS];
+    private final Node[] nodesA = new Node[NUM_LOOKUPS];
+    private final Node[] nodesB = new Node[NUM_LOOKUPS];
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        this.graph = GraphGenerator.create(GraphGenerator.GraphType.GEOMETRIC, this.numNodes, 1);
+        this.searchSpace = this.graph.toSearchSpace();
+
+        //Pick random nodes, and a random link leaving each of them
+        Random random = new Random(2);
+        for (int i = 0; i < NUM_LOOKUPS; i++) {
+            int a;
+            do {
+                a = random.nextInt(this.numNodes);
+            } while (this.graph.getFirstEdge(a) == this.graph.getFirstEdge(a + 1));
+            int first = this.graph.getFirstEdge(a);
+            int b = this.graph.getTarget(first + random.nextInt(this.graph.getFirstEdge(a + 1) - first));
+
+            //Look up copies of the labels, as labels read from a file or typed in would be
+            this.labels[i] = new String(this.graph.getLabel(a));
+            this.nodesA[i] = this.searchSpace.getNode(a);
+            this.nodesB[i] = this.searchSpace.getNode(b);
+        }
+    }
+
+    @Benchmark
+    public Node findNode() {
+        this.next = (this.next + 1) & (NUM_LOOKUPS - 1);
+        return this.searchSpace.findNode(this.labels[this.next]);
+    }
+
+    @Benchmark
+    public Link findLink() {
+        this.next = (this.next + 1) & (NUM_LOOKUPS - 1);
+        return this.searchSpace.findLink(this.nodesA[this.next], this.nodesB[this.next]);
+    }
+
+    @Benchmark
+    public int findEdge() {
+        this.next = (this.next + 1) & (NUM_LOOKUPS - 1);
+        return this.graph.findEdge(this.nodesA[this.next].id, this.nodesB[this.next].id);
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the open list (PriorityQueue).  Each call fills the queue with size nodes at random costs and
+ * removes them all again, so the score is the time of size adds and size removes (plus size decrease-keys for
+ * addDecreaseRemove).
+ * @author Sean J. Barbeau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PriorityQueueBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private PriorityQueue queue;
+    private double[] costs;  //Cost each node is added with
+    private double[] lowerCosts;  //Cost each node is lowered to by decreaseKey()
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        this.queue = new PriorityQueue(this.size);
+        this.costs = new double[this.size];
+        this.lowerCosts = new double[this.size];
+        for (int i = 0; i < this.size; i++) {
+            this.costs[i] = random.nextDouble() * 1000;
+            this.lowerCosts[i] = this.costs[i] * random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public long addRemove() {
+        for (int i = 0; i < this.size; i++) {
+            this.queue.add(i, this.costs[i]);
+        }
+        long sum = 0;
+        while (!this.queue.isEmpty()) {
+            sum += this.queue.removeFirst();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long addDecreaseRemove() {
+        for (int i = 0; i < this.size; i++) {
+            this.queue.add(i, this.costs[i]);
+        }
+        for (int i = 0; i < this.size; i++) {
+            this.queue.decreaseKey(i, this.lowerCosts[i]);
+        }
+        long sum = 0;
+        while (!this.queue.isEmpty()) {
+            sum += this.queue.removeFirst();
+        }
+        return sum;
+    }
+}
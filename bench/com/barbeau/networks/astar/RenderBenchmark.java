@@ -0,0 +1,100 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import com.barbeau.networks.SearchSpace;
+import com.barbeau.networks.visualization.MapDisplay;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks drawing a GEOMETRIC graph with MapDisplay to an offscreen image the size of the map in the GUI,
+ * with the path of a search drawn on top.  drawAll draws the static layer of all nodes and links again each time (as
+ * after loading or moving nodes), and drawOverlay only copies it and draws the path and colored nodes and links (as
+ * during a search).  Runs headless, so no display is needed.
+ * @author Sean J. Barbeau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    //Size the map is drawn at, as in the GUI (mainWindowAstar)
+    private static final int MAP_SIZE = (int) ((mainWindowAstar.SEARCH_SPACE_WIDTH + 30) * mainWindowAstar.SCALE);
+
+    @Param({"1000", "10000", "100000"})
+    public int numNodes;
+
+    private MapDisplay map;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setUp() {
+        CsrGraph graph = GraphGenerator.create(GraphGenerator.GraphType.GEOMETRIC, this.numNodes, 1);
+        SearchSpace searchSpace = graph.toSearchSpace();
+
+        //Scale the graph down to the size of the map
+        int extent = GraphGenerator.getExtent(this.numNodes);
+        this.map = new MapDisplay();
+        this.map.setSearchSpace(searchSpace, extent, extent, (double) mainWindowAstar.SEARCH_SPACE_WIDTH / extent * mainWindowAstar.SCALE,
+                mainWindowAstar.NORMAL_NODE_SIZE, mainWindowAstar.EXPANDED_NODE_SIZE);
+        this.map.setSize(MAP_SIZE, MAP_SIZE);
+
+        int[] query = GraphGenerator.queries(graph, 1, 2)[0];
+        PathResult result = new AstarEngine().search(graph, query[0], query[1], Heuristic.SHORTEST_DISTANCE);
+        this.map.setPath(result.getPath(searchSpace));
+
+        this.image = new BufferedImage(MAP_SIZE, MAP_SIZE, BufferedImage.TYPE_INT_RGB);
+        this.graphics = this.image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage drawAll() {
+        this.map.invalidateStaticLayer();
+        this.map.paintContents(this.graphics);
+        return this.image;
+    }
+
+    @Benchmark
+    public BufferedImage drawOverlay() {
+        this.map.paintContents(this.graphics);
+        return this.image;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks A* searches (AstarEngine) with each heuristic on generated graphs of 10^3 to 10^6 nodes.
+ * Each call runs the next of a fixed list of searches between random nodes, so the score is the mean time of a search.
+ * @author Sean J. Barbeau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    //Number of different searches run on each graph
+    private static final int NUM_QUERIES = 64;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int numNodes;
+
+    @Param({"GRID", "GEOMETRIC"})
+    public GraphGenerator.GraphType graphType;
+
+    @Param({"FEWEST_LINKS", "SHORTEST_DISTANCE", "LANDMARKS"})
+    public Heuristic heuristic;
+
+    private final AstarEngine engine = new AstarEngine();
+    private CsrGraph graph;
+    private int[][] queries;
+    private int nextQuery = 0;
+
+    @Setup
+    public void setUp() {
+        this.graph = GraphGenerator.create(this.graphType, this.numNodes, 1);
+        if (this.heuristic == Heuristic.LANDMARKS) {
+            this.graph = this.graph.withLandmarks(LandmarkTable.create(this.graph));
+        }
+        this.queries = GraphGenerator.queries(this.graph, NUM_QUERIES, 2);
+    }
+
+    @Benchmark
+    public PathResult search() {
+        int[] query = this.queries[this.nextQuery];
+        this.nextQuery = (this.nextQuery + 1) % NUM_QUERIES;
+        return this.engine.search(this.graph, query[0], query[1], this.heuristic);
+    }
+}
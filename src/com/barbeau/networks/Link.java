@@ -22,7 +22,6 @@ package com.barbeau.networks;
 public class Link {
     protected Node nodeA;  //Starting point of link
     protected Node nodeB;  //Ending point of link
-    public String label; //Name of Node
     public boolean enabled = true;  //Enabled state of link
     public boolean traveled = false;  //Whether the link has been traveled or not
 
@@ -30,9 +29,30 @@ public class Link {
         //Assign nodes
         this.nodeA = nodeA;
         this.nodeB = nodeB;
+    }
+
+    /**
+     * Returns the name of the link, "nodeA->nodeB".  It is built when asked for, since networks can have millions of links.
+     * @return the name of the link
+     */
+    public String getLabel() {
+        return this.nodeA.label + "->" + this.nodeB.label;
+    }
 
-        //Set label
-        this.label = nodeA.label + "->" + nodeB.label;
+    /**
+     * Returns the starting point of the link
+     * @return the node the link starts at
+     */
+    public Node getNodeA() {
+        return this.nodeA;
+    }
+
+    /**
+     * Returns the ending point of the link
+     * @return the node the link ends at
+     */
+    public Node getNodeB() {
+        return this.nodeB;
     }
 
     /**
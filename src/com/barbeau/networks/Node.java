@@ -25,9 +25,11 @@ public class Node {
     public String label; //Name of Node
     public int numConn;  //Number of one way connections to other nodes
     public boolean enabled;  //Sets node as enabled or disabled - allows user to disable certain nodes to reroute search algorithm.
+    public int id = -1;  //Dense index (0..n-1) of this node within its SearchSpace, assigned when the node is added.  Algorithms use it to keep per-node state in arrays.
 
     protected java.util.List children = new ArrayList();  //Holds nodes that this node is connected to (NOTE:  these are directed connections)
     protected java.util.List parents = new ArrayList();  //Holds parent nodes that are connected to this node (NOTE:  these are directed connections, and connections to parents are only required for transversing the graph "upstream", which is not done in algorithms such as Astar)
+    protected java.util.List outgoingLinks = new ArrayList();  //Holds the links that start at this node, so the link to a child can be found without searching every link in the search space
 
     public Node(String label) {
 
@@ -47,7 +49,6 @@ public class Node {
         {
             //Add node to list
             children.add(childNode);
-            System.out.println("Connected " + this.label + " (parent)----> " + childNode.label + "(child)");
         }
         catch (Exception e)
         {
@@ -72,7 +73,6 @@ public class Node {
         {
             //Add node to list
             parents.add(parentNode);
-            System.out.println("Connected " + this.label + " (child)----> " + parentNode.label + "(parent)");
         }
         catch (Exception e)
         {
@@ -87,4 +87,44 @@ public class Node {
     public java.util.List getParents() {
         return this.parents;
     }
+
+    /**
+     * This method records a link that starts at this node.  It is called by the SearchSpace when the link is added to it.
+     * @param link the link that starts at this node
+     */
+    public void addOutgoingLink(Link link) {
+        outgoingLinks.add(link);
+    }
+
+    /**
+     * This method removes a link that starts at this node.  It is called by the SearchSpace when the link is removed from it.
+     * @param link the link that starts at this node
+     */
+    public void removeOutgoingLink(Link link) {
+        outgoingLinks.remove(link);
+    }
+
+    /**
+     * This method returns a list of the links that start at this node
+     * @return a list of the links that start at this node
+     */
+    public java.util.List getOutgoingLinks() {
+        return this.outgoingLinks;
+    }
+
+    /**
+     * This method finds the link from this node to the given child node.  It only looks at the links that start at this node,
+     * so it is O(number of children) and does not create any objects.
+     * @param childNode the node at the end of the link
+     * @return the link from this node to childNode, or null if there is no such link
+     */
+    public Link getLinkTo(Node childNode) {
+        for (int i = 0; i < outgoingLinks.size(); i++) {
+            Link link = (Link) outgoingLinks.get(i);
+            if (link.nodeB == childNode) {
+                return link;  //found link!
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks;
+
+/**
+ * This class holds a set of nodes, identified by their dense ids (Node.id), with O(1) add, remove and contains.
+ * A node is in the set when its stamp equals the current generation, so clear() only has to start a new generation
+ * instead of touching every node.  This lets the same set be reused between searches at no cost.
+ * @author Sean J. Barbeau
+ */
+public class NodeSet {
+
+    private int[] stamps;  //Generation in which each node was last added to the set
+    private int generation = 1;  //Current generation - stamps equal to this value are in the set
+
+    /**
+     * Creates a new, empty NodeSet that can hold nodes with ids from 0 to capacity - 1 without growing
+     * @param capacity number of node ids the set can hold
+     */
+    public NodeSet(int capacity) {
+        this.stamps = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Adds a node id to the set
+     * @param id id of the node to add
+     */
+    public void add(int id) {
+        if (id >= this.stamps.length) {
+            int[] temp = new int[Math.max(id + 1, this.stamps.length * 2)];
+            System.arraycopy(this.stamps, 0, temp, 0, this.stamps.length);
+            this.stamps = temp;
+        }
+        this.stamps[id] = this.generation;
+    }
+
+    /**
+     * Removes a node id from the set
+     * @param id id of the node to remove
+     */
+    public void remove(int id) {
+        if (id < this.stamps.length) {
+            this.stamps[id] = 0;
+        }
+    }
+
+    /**
+     * Returns true if the node id is in the set
+     * @param id id of the node to look for
+     * @return true if the node id is in the set
+     */
+    public boolean contains(int id) {
+        return id < this.stamps.length && this.stamps[id] == this.generation;
+    }
+
+    /**
+     * Removes all node ids from the set in O(1) by starting a new generation
+     */
+    public void clear() {
+        this.generation++;
+        if (this.generation == Integer.MAX_VALUE) {
+            //Generations wrapped around, so old stamps could look current again - wipe them once
+            java.util.Arrays.fill(this.stamps, 0);
+            this.generation = 1;
+        }
+    }
+}
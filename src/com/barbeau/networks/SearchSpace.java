@@ -25,6 +25,8 @@ import java.util.*;
        
     private java.util.List nodes; //A list of all nodes that are loaded into memory from the info in the text files
     private java.util.List links;  //A list of all links that connect the nodes
+    private java.util.Map nodesByLabel;  //Index of the nodes by their label, kept in sync with the nodes list so findNode() is O(1)
+    private java.util.Map duplicateLabels;  //Number of nodes that share a label with the indexed node, for the labels that are shared
     
     /**
      * Default constructor for SearchSpace
@@ -32,6 +34,8 @@ import java.util.*;
     public SearchSpace() {
         nodes = new ArrayList();
         links = new ArrayList();
+        nodesByLabel = new HashMap();
+        duplicateLabels = new HashMap();
     }
     
     //*****************************************************
@@ -39,19 +43,73 @@ import java.util.*;
     //*****************************************************
     
     /**
-     * Add node to search space
+     * Add node to search space.  The node is given the next free id, so ids stay dense (0 to getNodeSize() - 1).
      * @param n node to be added to search space
      */
     public void add(Node n){
+        n.id = this.nodes.size();
         this.nodes.add(n);
+        
+        //Index node by label (if two nodes share a label the first one added is found, as with a linear search)
+        if (!this.nodesByLabel.containsKey(n.label)) {
+            this.nodesByLabel.put(n.label, n);
+        }
+        else {
+            Integer count = (Integer) this.duplicateLabels.get(n.label);
+            this.duplicateLabels.put(n.label, count == null ? 1 : count + 1);
+        }
     }
     
     /**
-     * Remove node from search space
+     * Remove node from search space.  The last node in the search space takes over the id of the removed node so ids stay dense.
      * @param n node to be removed from the search space
      */
     public void remove(Node n){
-        this.nodes.remove(n);
+        int index = n.id;
+        if (index < 0 || index >= this.nodes.size() || this.nodes.get(index) != n) {
+            //Node isn't part of this search space
+            return;
+        }
+        
+        Node last = (Node) this.nodes.remove(this.nodes.size() - 1);
+        if (last != n) {
+            //Move the last node into the hole left by the removed node
+            this.nodes.set(index, last);
+            last.id = index;
+        }
+        n.id = -1;
+        
+        //Remove node from label index
+        Integer count = (Integer) this.duplicateLabels.get(n.label);
+        if (count == null) {
+            this.nodesByLabel.remove(n.label);
+            return;
+        }
+        if (count == 1) {
+            this.duplicateLabels.remove(n.label);
+        }
+        else {
+            this.duplicateLabels.put(n.label, count - 1);
+        }
+        if (this.nodesByLabel.get(n.label) == n) {
+            //Another node has the same label, so index the first of them instead (only labels that are shared are searched for)
+            for (int i = 0; i < this.nodes.size(); i++) {
+                Node other = (Node) this.nodes.get(i);
+                if (Objects.equals(other.label, n.label)) {
+                    this.nodesByLabel.put(n.label, other);
+                    break;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get the node with the given id
+     * @param id id of the node, between 0 and getNodeSize() - 1
+     * @return the node with the given id
+     */
+    public Node getNode(int id) {
+        return (Node) this.nodes.get(id);
     }
     
     /**
@@ -75,11 +133,12 @@ import java.util.*;
     //**********************************************
     
     /**
-     * Add a link to the search space
+     * Add a link to the search space.  The link is also recorded on its starting node so findLink() doesn't have to search all links.
      * @param l link to be added to the search space
      */
     public void add(Link l){
         this.links.add(l);
+        l.nodeA.addOutgoingLink(l);
     }
 
     /**
@@ -87,7 +146,9 @@ import java.util.*;
      * @param l link to be removed from the search space
      */
     public void remove(Link l){
-        this.links.remove(l);
+        if (this.links.remove(l)) {
+            l.nodeA.removeOutgoingLink(l);
+        }
     }
     
     /**
@@ -108,54 +169,24 @@ import java.util.*;
 
     /**
      * This function finds and returns a node within the search space with a particular label, or returns NULL if it couldn't be found
+     * Nodes are looked up in a hash index by label, so this is O(1).  NOTE:  the label of a node must not be changed after it is added.
      * @param label the label of the node to search for
      * @return a node represented by the input label, or null if the node isn't found
      */
-   public Node findNode(String label){        
-        //Temp node used to loop through search_space
-        Node tempNode;
-        
-        //Get iterator to loop through search_space
-        Iterator i = this.nodes.iterator();
-        
-        while (i.hasNext()) {
-            //Get next node
-            tempNode = (Node)i.next();
-            //Compare two strings - NOTE:  THIS IS CASE-SENSITIVE!!!!!
-            if(tempNode.label.equals(label)) {
-                return tempNode;  //found node!
-            }        
-        }
-
-        //If it reaches this return statement then the node wasn't found
-        return null;
+   public Node findNode(String label){
+        //Look up label - NOTE:  THIS IS CASE-SENSITIVE!!!!!
+        return (Node) this.nodesByLabel.get(label);
     }
 
    /**
     * This function finds and returns a link within the search space from nodeA to nodeB, or returns NULL if it couldn't be found
+    * Only the links starting at nodeA are examined, so this is O(number of children of nodeA)
     * @param nodeA
     * @param nodeB
     * @return a link within the search space from nodeA to nodeB, or returns NULL if it couldn't be found
     */
    public Link findLink(Node nodeA, Node nodeB){
-        
-        //Temp link used to loop through search_space
-        Link temp_link;
-        
-        //Get iterator to loop through search_space
-        Iterator i = this.links.iterator();
-        
-        while (i.hasNext()) {
-            //Get next node
-            temp_link = (Link)i.next();
-            //Compare two strings - NOTE:  THIS IS CASE-SENSITIVE!!!!!
-            if((nodeA.label + "->" + nodeB.label).equals(temp_link.label)) {
-                return temp_link;  //found link!
-            }        
-        }
-
-        //If it reaches this return statement then the link wasn't found
-        return null;
+        return nodeA.getLinkTo(nodeB);
     }
     
 }
@@ -0,0 +1,306 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import java.util.Arrays;
+
+/**
+ * This class is the Anytime Repairing A* (ARA*) routing engine.  It first runs weighted A* with a large weight, which
+ * quickly finds a path that costs at most weight times the least expensive one, then lowers the weight step by step,
+ * improving the path each time, until the weight reaches 1 (the path is the least expensive) or the deadline passes.
+ * Each improvement reuses the costs found so far: only the nodes whose cost from the start went down since they were
+ * expanded (kept on an "inconsistent" list) are searched again, so later passes are much cheaper than new searches.
+ * Each path found is published to SearchListener.solutionImproved() together with a bound on how much more it can cost
+ * than the least expensive path, and the best path found before the deadline is returned.
+ * The deadline only stops the improvement - the first path is always searched for, since a late path is better than none.
+ * @author Sean J. Barbeau
+ */
+public class AraStarEngine implements RoutingEngine {
+
+    public static final double DEFAULT_INITIAL_WEIGHT = 2.5;  //Default weight of the first search
+    public static final double DEFAULT_WEIGHT_STEP = 0.5;  //Default amount the weight is lowered by after each search
+
+    //Listener used when the caller doesn't want to receive search events
+    private static final SearchListener NO_LISTENER = new SearchAdapter() {};
+
+    private final double initialWeight;  //Weight of the first search
+    private final double weightStep;  //Amount the weight is lowered by after each search
+    private final long timeLimitNanos;  //Time each search may take to improve its path, or Long.MAX_VALUE for no limit
+
+    /**
+     * Creates a new AraStarEngine with the default weights and no time limit (it improves its path until it is the least expensive)
+     */
+    public AraStarEngine() {
+        this(DEFAULT_INITIAL_WEIGHT, DEFAULT_WEIGHT_STEP, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new AraStarEngine
+     * @param initialWeight weight of the first search (at least 1)
+     * @param weightStep amount the weight is lowered by after each search (more than 0)
+     * @param timeLimitNanos time each search may take to improve its path (in nanoseconds), or Long.MAX_VALUE for no limit
+     */
+    public AraStarEngine(double initialWeight, double weightStep, long timeLimitNanos) {
+        if (initialWeight < 1 || weightStep <= 0) {
+            throw new IllegalArgumentException("Weight must be at least 1 and the step more than 0, not " + initialWeight + " and " + weightStep);
+        }
+        this.initialWeight = initialWeight;
+        this.weightStep = weightStep;
+        this.timeLimitNanos = timeLimitNanos;
+    }
+
+    /**
+     * Searches for a path from start to goal, improving it until the time limit of this engine passes
+     * @param graph graph to run the search on
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param costModel cost model that measures the cost of each link and estimates the cost to the goal
+     * @param listener listener that receives the progress of the search and each improved path, or null
+     * @return the best path found
+     */
+    @Override
+    public PathResult search(CsrGraph graph, int start, int goal, CostModel costModel, SearchListener listener) {
+        if (this.timeLimitNanos == Long.MAX_VALUE) {
+            return new Search(graph, start, goal, costModel, listener, false, 0).run();
+        }
+        return search(graph, start, goal, costModel, listener, System.nanoTime() + this.timeLimitNanos);
+    }
+
+    /**
+     * Searches for a path from start to goal, improving it until a deadline
+     * @param graph graph to run the search on
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param costModel cost model that measures the cost of each link and estimates the cost to the goal
+     * @param listener listener that receives the progress of the search and each improved path, or null
+     * @param deadlineNanos time (a value of System.nanoTime()) after which the path is no longer improved
+     * @return the best path found
+     */
+    public PathResult search(CsrGraph graph, int start, int goal, CostModel costModel, SearchListener listener, long deadlineNanos) {
+        return new Search(graph, start, goal, costModel, listener, true, deadlineNanos).run();
+    }
+
+    /**
+     * The state of one search
+     */
+    private class Search {
+
+        private final CsrGraph graph;
+        private final int start;
+        private final int goal;
+        private final CostModel costModel;
+        private final SearchListener listener;
+        private final boolean hasDeadline;
+        private final long deadlineNanos;
+
+        private final SearchWorkspace workspace;  //Costs of the nodes - the visited list holds the nodes expanded by the current pass
+        private int[] inconsistent = new int[16];  //Visited nodes whose cost from the start went down after they were expanded
+        private int numInconsistent = 0;
+        private int[] available = new int[0];  //Nodes left on the available list by the last pass
+        private int numAvailable = 0;
+
+        private double weight;  //Weight of the current pass
+        private int numIterations = 0;
+        private int numReached = 0;
+        private PathResult best = null;  //Best path found so far
+
+        Search(CsrGraph graph, int start, int goal, CostModel costModel, SearchListener listener, boolean hasDeadline, long deadlineNanos) {
+            this.graph = graph;
+            this.start = start;
+            this.goal = goal;
+            this.costModel = costModel;
+            this.listener = listener == null ? NO_LISTENER : listener;
+            this.hasDeadline = hasDeadline;
+            this.deadlineNanos = deadlineNanos;
+            this.workspace = SearchWorkspace.forCurrentThread(graph.getNodeSize());
+            this.weight = AraStarEngine.this.initialWeight;
+        }
+
+        PathResult run() {
+            if (this.start == this.goal || this.graph.isEnabled(this.goal) == true) {
+                //(A DISABLED goal can't be reached, so it isn't searched for)
+                this.workspace.setNode(this.start, 0, this.costModel.getEstimatedCostToGoal(this.graph, this.start, this.goal), -1);
+                this.workspace.available.add(this.start, key(this.start));
+                this.numReached = 1;
+
+                //Find the first path, then improve it with lower weights while there is time
+                double bound = Double.POSITIVE_INFINITY;
+                while (improvePath() == true && this.workspace.isReached(this.goal)) {
+                    bound = publish();
+                    if (this.weight == 1 || bound <= 1 || isPastDeadline()) {
+                        break;
+                    }
+                    this.weight = Math.max(1, this.weight - AraStarEngine.this.weightStep);
+                    startNextPass();
+                }
+            }
+
+            PathResult result = this.best != null ? this.best : PathResult.notFound(this.numIterations, this.numReached);
+            this.listener.searchFinished(result);
+            return result;
+        }
+
+        /**
+         * Expands nodes until no available node can lead to a path cheaper (with the current weight) than the one to the goal
+         * @return false if the deadline passed before the pass finished
+         */
+        private boolean improvePath() {
+            SearchWorkspace ws = this.workspace;
+            while (!ws.available.isEmpty() && goalKey() > ws.available.peekCost()) {
+                if (this.best != null && isPastDeadline()) {
+                    return false;
+                }
+
+                int a = ws.available.removeFirst();
+                this.numIterations++;
+                ws.visited.add(a);
+                this.listener.nodeExpanded(a, ws.costFromStart[a], ws.estCostToGoal[a]);
+
+                int lastEdge = this.graph.getFirstEdge(a + 1);
+                for (int e = this.graph.getFirstEdge(a); e < lastEdge; e++) {
+                    int b = this.graph.getTarget(e);
+                    this.listener.linkTraveled(a, b);
+
+                    if (this.graph.isEnabled(b) == false) {
+                        //Node has been DISABLED, so it cannot be part of the path
+                        this.listener.nodeDisabled(a, b);
+                        continue;
+                    }
+
+                    double tempCostFromStart = ws.costFromStart[a] + this.costModel.getCost(this.graph, a, e);
+                    if (ws.isReached(b) == false) {
+                        ws.setNode(b, tempCostFromStart, this.costModel.getEstimatedCostToGoal(this.graph, b, this.goal), a);
+                        ws.available.add(b, key(b));
+                        this.numReached++;
+                        this.listener.nodeAdded(b, tempCostFromStart, ws.estCostToGoal[b]);
+                    }
+                    else if (tempCostFromStart < ws.costFromStart[b]) {
+                        ws.costFromStart[b] = tempCostFromStart;
+                        ws.pathParent[b] = a;
+                        if (ws.visited.contains(b)) {
+                            //Already expanded in this pass - search it again in the next pass instead of reopening it
+                            addInconsistent(b);
+                        }
+                        else if (ws.available.contains(b)) {
+                            ws.available.decreaseKey(b, key(b));
+                        }
+                        else {
+                            //Expanded in an earlier pass
+                            ws.available.add(b, key(b));
+                        }
+                        this.listener.nodeImproved(b, tempCostFromStart, ws.estCostToGoal[b]);
+                    }
+                    else {
+                        this.listener.nodeRejected(b);
+                    }
+                }
+
+                this.listener.nodeClosed(a);
+            }
+            return true;
+        }
+
+        /**
+         * Publishes the path to the goal found by the last pass
+         * @return the bound on how much more the path can cost than the least expensive path
+         */
+        private double publish() {
+            SearchWorkspace ws = this.workspace;
+            double cost = ws.costFromStart[this.goal];
+
+            //Keep the nodes left on the available list for the next pass.  The least expensive path has to go through one of
+            //them or an inconsistent node, so the lowest g(n) + h(n) of those nodes is a lower bound on its cost.
+            if (this.available.length < ws.available.size()) {
+                this.available = new int[ws.available.size()];
+            }
+            this.numAvailable = 0;
+            double lowerBound = cost;
+            while (!ws.available.isEmpty()) {
+                int node = ws.available.removeFirst();
+                this.available[this.numAvailable++] = node;
+                lowerBound = Math.min(lowerBound, lowerBound(node));
+            }
+            for (int i = 0; i < this.numInconsistent; i++) {
+                lowerBound = Math.min(lowerBound, lowerBound(this.inconsistent[i]));
+            }
+            double bound = cost == 0 ? 1 : Math.max(1, Math.min(this.weight, cost / lowerBound));
+
+            //The cost from the start of a node never goes up, so this path is at least as good as the last one
+            this.best = new PathResult(ws.getPath(this.goal), cost, this.numIterations, this.numReached);
+            this.listener.solutionImproved(this.best, this.weight, bound);
+            return bound;
+        }
+
+        /**
+         * Starts a pass with a lower weight: the available and inconsistent nodes are sorted by the new weight, and the visited list is cleared
+         */
+        private void startNextPass() {
+            SearchWorkspace ws = this.workspace;
+            for (int i = 0; i < this.numAvailable; i++) {
+                ws.available.add(this.available[i], key(this.available[i]));
+            }
+            for (int i = 0; i < this.numInconsistent; i++) {
+                int node = this.inconsistent[i];
+                if (ws.available.contains(node) == false) {
+                    ws.available.add(node, key(node));
+                }
+            }
+            this.numAvailable = 0;
+            this.numInconsistent = 0;
+            ws.visited.clear();
+        }
+
+        /**
+         * Adds a node to the inconsistent list
+         */
+        private void addInconsistent(int node) {
+            if (this.numInconsistent == this.inconsistent.length) {
+                this.inconsistent = Arrays.copyOf(this.inconsistent, this.numInconsistent * 2);
+            }
+            this.inconsistent[this.numInconsistent++] = node;
+        }
+
+        /**
+         * Returns the key a node is sorted by on the available list, f(n) = g(n) + weight * h(n)
+         */
+        private double key(int node) {
+            return this.workspace.costFromStart[node] + this.weight * this.workspace.estCostToGoal[node];
+        }
+
+        /**
+         * Returns the key of the goal, or infinity if it hasn't been reached
+         */
+        private double goalKey() {
+            return this.workspace.isReached(this.goal) ? key(this.goal) : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Returns a lower bound on the cost of a path to the goal through a node, g(n) + h(n)
+         */
+        private double lowerBound(int node) {
+            //The estimate at the goal itself isn't always 0 (e.g. Fewest Links), but the cost to reach it is known
+            return node == this.goal ? this.workspace.costFromStart[node] : this.workspace.costFromStart[node] + this.workspace.estCostToGoal[node];
+        }
+
+        /**
+         * Returns true if the search has a deadline and it has passed
+         */
+        private boolean isPastDeadline() {
+            return this.hasDeadline && System.nanoTime() - this.deadlineNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import com.barbeau.networks.SearchSpace;
+
+/**
+ * This class is the A* routing engine.  It only does the search - it does not draw or print anything, and has no
+ * dependencies on Swing, so it can be run on a server or in a benchmark.  Progress of the search is reported to an
+ * optional SearchListener (the GUI in AstarSearch is one such listener).
+ * The search runs on a CsrGraph, and the per-search state of the nodes is kept in the SearchWorkspace of the calling
+ * thread, so the graph is not modified and one AstarEngine can run searches from many threads at the same time.
+ * See BidirectionalAstarEngine for a search that also works back from the goal.
+ * A weight above 1 makes it weighted A*, which sorts the available nodes by f(n) = g(n) + weight * h(n).  Trusting the
+ * estimate more steers the search straight at the goal and expands far fewer nodes, and the path found costs at most
+ * weight times the least expensive one.  Visited nodes are not reopened when the weight is above 1.  See AraStarEngine to keep improving such a path while time allows.
+ * @author Sean J. Barbeau
+ */
+public class AstarEngine implements RoutingEngine {
+
+    //Listener used when the caller doesn't want to receive search events
+    private static final SearchListener NO_LISTENER = new SearchAdapter() {};
+
+    private final double weight;  //Inflation factor of the estimated cost to the goal (1 for plain A*)
+
+    /**
+     * Creates a new AstarEngine that finds the least expensive path (plain A*)
+     */
+    public AstarEngine() {
+        this(1);
+    }
+
+    /**
+     * Creates a new weighted AstarEngine
+     * @param weight inflation factor of the estimated cost to the goal (at least 1) - the path found costs at most weight
+     * times the least expensive path
+     */
+    public AstarEngine(double weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("Weight must be at least 1, not " + weight);
+        }
+        this.weight = weight;
+    }
+
+    /**
+     * Returns the inflation factor of the estimated cost to the goal
+     * @return the inflation factor of the estimated cost to the goal (1 for plain A*)
+     */
+    public double getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Searches for the least expensive path from startNode to goalNode.
+     * NOTE:  this takes a CsrGraph snapshot of the search space first, which is O(nodes + links).  To run many searches on the
+     * same network, create the CsrGraph once with CsrGraph.fromSearchSpace() and call search(CsrGraph, int, int, Heuristic).
+     * @param searchSpace search space to run the search on
+     * @param startNode node to start the search from
+     * @param goalNode node to find
+     * @param heuristic heuristic to use to measure costs
+     * @return the result of the search
+     */
+    public PathResult search(SearchSpace searchSpace, NodeXY startNode, NodeXY goalNode, Heuristic heuristic) {
+        return search(searchSpace, startNode, goalNode, heuristic, null);
+    }
+
+    /**
+     * Searches for the least expensive path from startNode to goalNode, reporting progress to a listener.
+     * NOTE:  this takes a CsrGraph snapshot of the search space first, which is O(nodes + links).
+     * @param searchSpace search space to run the search on
+     * @param startNode node to start the search from
+     * @param goalNode node to find
+     * @param heuristic heuristic to use to measure costs
+     * @param listener listener that receives the progress of the search, or null
+     * @return the result of the search
+     */
+    public PathResult search(SearchSpace searchSpace, NodeXY startNode, NodeXY goalNode, Heuristic heuristic, SearchListener listener) {
+        return search(CsrGraph.fromSearchSpace(searchSpace), startNode.id, goalNode.id, heuristic, listener);
+    }
+
+    /**
+     * Searches for the least expensive path from start to goal
+     * @param graph graph to run the search on
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param heuristic heuristic to use to measure costs
+     * @return the result of the search
+     */
+    public PathResult search(CsrGraph graph, int start, int goal, Heuristic heuristic) {
+        return search(graph, start, goal, heuristic, null);
+    }
+
+    /**
+     * Searches for the least expensive path from start to goal, reporting progress to a listener
+     * @param graph graph to run the search on
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param costModel cost model that measures the cost of each link and estimates the cost to the goal
+     * @param listener listener that receives the progress of the search, or null
+     * @return the result of the search
+     */
+    @Override
+    public PathResult search(CsrGraph graph, int start, int goal, CostModel costModel, SearchListener listener) {
+
+        if (listener == null) {
+            listener = NO_LISTENER;
+        }
+
+        //Get this thread's workspace, which holds the open and visited lists and the costs of each node
+        SearchWorkspace workspace = SearchWorkspace.forCurrentThread(graph.getNodeSize());
+        PriorityQueue available = workspace.available;
+        double[] costFromStart = workspace.costFromStart;
+        double[] estCostToGoal = workspace.estCostToGoal;
+
+        int numIterations = 0;
+        int numReached = 1;  //Nodes reached so far (on the available or visited list), which is the memory the search uses
+
+        //Set start node variables and add Start Node to available list
+        workspace.setNode(start, 0, costModel.getEstimatedCostToGoal(graph, start, goal), -1);
+        available.add(start, this.weight * estCostToGoal[start]);
+
+        //Loop through all the available searchable nodes while there are still nodes available
+        while (!available.isEmpty()) {
+            //Get the "least expensive" node on list and deletes it from the available queue
+            int a = available.removeFirst();
+
+            //Increment the number of iterations for the algorithm
+            numIterations++;
+
+            //If this is the goal then the algorithm is done
+            if (a == goal) {
+                PathResult result = new PathResult(workspace.getPath(goal), costFromStart[goal], numIterations, numReached);
+                listener.searchFinished(result);
+                return result;
+            }
+
+            listener.nodeExpanded(a, costFromStart[a], estCostToGoal[a]);
+
+            /* Loop through each node "b" that node "a" is connected to, and examine it
+             * to see if it has been visited or if a shorter path has been found to it
+             */
+            int lastEdge = graph.getFirstEdge(a + 1);
+            for (int e = graph.getFirstEdge(a); e < lastEdge; e++) {
+                int b = graph.getTarget(e);
+
+                listener.linkTraveled(a, b);
+
+                if (graph.isEnabled(b) == false) {
+                    //Node has been DISABLED, so it cannot be part of the path
+                    listener.nodeDisabled(a, b);
+                    continue;
+                }
+
+                //Calculate cost from start for b from this path = cost from start to a + cost from a to b
+                double tempCostFromStart = costFromStart[a] + costModel.getCost(graph, a, e);
+
+                /* If b hasn't been reached yet or if the total cost from the start to b
+                 * is less than the one that is already been found to b
+                 * THEN recalculate the costs and assign new parent node
+                 */
+                if (workspace.isReached(b) == false) {
+                    workspace.setNode(b, tempCostFromStart, costModel.getEstimatedCostToGoal(graph, b, goal), a);
+                    numReached++;
+                    available.add(b, tempCostFromStart + this.weight * estCostToGoal[b]);
+                    listener.nodeAdded(b, tempCostFromStart, estCostToGoal[b]);
+                }
+                else if (this.weight > 1 && workspace.visited.contains(b)) {
+                    //Weighted A* doesn't reopen visited nodes - the path found still costs at most weight times the least
+                    //expensive one, and reopening them would expand many nodes again
+                    listener.nodeRejected(b);
+                }
+                else if (tempCostFromStart < costFromStart[b]) {
+                    //The estimated cost to the goal of a node doesn't change, so only the cost from the start and parent are updated
+                    costFromStart[b] = tempCostFromStart;
+                    workspace.pathParent[b] = a;
+
+                    /* Make sure 'available' and 'visited' lists correctly reflect b's conditions */
+                    if (workspace.visited.contains(b)) {
+                        //Remove b from the visited list so it can be considered again as part of a new path to the goal
+                        workspace.visited.remove(b);
+                        available.add(b, tempCostFromStart + this.weight * estCostToGoal[b]);
+                        listener.nodeReopened(b, tempCostFromStart, estCostToGoal[b]);
+                    }
+                    else {
+                        //A shorter path to b was found, so move it up in the available queue (decrease-key)
+                        available.decreaseKey(b, tempCostFromStart + this.weight * estCostToGoal[b]);
+                        listener.nodeImproved(b, tempCostFromStart, estCostToGoal[b]);
+                    }
+                }
+                else {
+                    listener.nodeRejected(b);
+                }
+            }
+
+            //Put this node on the visited list since it has now been visited
+            workspace.visited.add(a);
+
+            listener.nodeClosed(a);
+        }
+
+        //If execution reaches this point then the goal was not found
+        PathResult result = PathResult.notFound(numIterations, numReached);
+        listener.searchFinished(result);
+        return result;
+    }
+}
@@ -16,11 +16,16 @@
 
 package com.barbeau.networks.astar;
 
+import com.barbeau.networks.visualization.MapAnimator;
 import com.barbeau.networks.visualization.MapDisplay;
+import com.barbeau.networks.visualization.TracePlayer;
 import com.barbeau.networks.SearchSpace;
 import java.util.*;
 import java.awt.*;
 import java.util.Collections.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
 
 /**
 
@@ -55,8 +60,8 @@ The output from the algorithm (path from start to goal node) should be shown in
 Start and goal nodes are shown in blue, current node being processed is in green, and any disabled nodes are red.
 Links are shown as light blue if they are traveled, and as dark blue if they are part of the path after the algorithm finds a path.
 
-To add more heuristics, modify the "getCost(Node nodeB, int heuristic)" and "getEstimatedCostToGoal(Node goalNode, int heuristic)" functions in the class "Heuristics_Node" to add a new heuristic calculation as part of the 'switch' statement.
-Then pass the integer used for that 'switch' statement into the "heuristic" argument of the AstarSearch object when it is created.
+To add more heuristics, implement the "CostModel" interface (see "EuclideanCostModel" for an example), which measures the cost of each link and estimates the cost to the goal.
+Then pass it to setCostModel() of the AstarSearch object before it is started.
 
 References used for A* algorithm:
 Russel, Norvig.  "Artificial Intelligence:  A Modern Approach".  Prentice Hall 2003.
@@ -71,10 +76,17 @@ Sun Microsystems.  "How to Use File Choosers", available online at http://java.s
 Sun Microsystems.  "Maintaining a Priority Queue and Displaying Text in Multiple Styles", available online at http://java.sun.com/developer/JDCTechTips/2002/tt0821.html.
 Sun Microsystems.  "Java Forums - Drawing arrows", available online at http://forum.java.sun.com/thread.jspa?threadID=378460&tstart=135.
 
+The search itself is done by AstarEngine, which has no GUI dependencies.  This thread runs the engine and listens
+to its progress to draw the search on the map and print it to the log.  The changes to the map are published to a
+MapAnimator, which applies them and repaints the map on the Event Dispatch Thread once per frame.  The progress is
+written to the text log by a SearchLog, which only logs the events of the selected LogLevel and formats and appends
+them on a background thread.  If a trace file is set, the search is also recorded by a TraceRecorder, and once it has
+finished the map can replay it with a TracePlayer.
+
  * @author Sean Barbeau
  */
 
-public class AstarSearch extends Thread
+public class AstarSearch extends Thread implements SearchListener
 {
     /** Declares variables necessary for the search **/
     private SearchSpace searchSpace = new SearchSpace();  //Search space for algorithm
@@ -82,14 +94,30 @@ public class AstarSearch extends Thread
     private HeuristicsNode goalNode;  //Goal node for search algorithm
     private HeuristicsNode currentNode = null; //Current node being examined
     private Heuristic heuristic = Heuristic.FEWEST_LINKS;  //Selected Heuristic to use to measure cost.  Default = Fewest Links
+    private CostModel costModel = null;  //Cost model of a heuristic that isn't built in, used instead of the selected Heuristic if it isn't null
+    private CostModel boundCostModel = null;  //Cost model the search measured costs with
     private LinkedList path = new LinkedList(); //Variable that holds the path if the goal node is found   
-    private int numIterations = 0; //Counter to count the iterations of algorithm
+    private SearchMode searchMode = SearchMode.UNIDIRECTIONAL;  //Selected way to search for the path.  Default = Unidirectional
+    private int maxNodes = SmaStarEngine.DEFAULT_MAX_NODES;  //Number of search nodes the memory-bounded search mode (SMA*) may hold in memory
+    private double weight = AraStarEngine.DEFAULT_INITIAL_WEIGHT;  //Inflation factor of the estimates in the weighted and anytime search modes
+    private long timeLimitNanos = Long.MAX_VALUE;  //Time the anytime search mode (ARA*) may take to improve its path, or Long.MAX_VALUE for no limit
+    private RoutingEngine engine = new InstrumentedEngine(new AstarEngine()); //Routing engine that does the actual search, measured so its costs can be printed
+    private CsrGraph graph = null; //Graph the search ran on
+    private boolean gaveUp = false; //True if the search ran out of node expansions (IDA*) before it could find a path
+    private LandmarkTable landmarkTable = null;  //Landmark table of the LANDMARKS heuristic, reused if it still matches the graph
+    private File landmarkFile = null;  //File the landmark table is loaded from and saved to, or null to only keep it in memory
     //Variables to show text to the user in the main interface
     private javax.swing.JTextArea textLog;
-    private static String NEW_LINE = "\n";
+    private LogLevel logLevel = LogLevel.EDGES;  //Most detailed level of search events printed to the text log.  Default = every neighbor examined
+    private Writer logFile = null;  //Writer the log is also written to, or null
+    private SearchLog log = null;  //Log of the search, created when the search starts
+    private File traceFile = null;  //File the search is recorded to, or null if it isn't recorded
+    private TracePlayer tracePlayer = null;  //Player that replays the recorded search on the map
     
     //Variable to show the map of the search space graphically to the user
     private MapDisplay map;
+    //Animates the search on the map from the Event Dispatch Thread
+    private MapAnimator animator;
     
     //Variable defines whether application runs quickly through (default) or step-by-step
     private boolean stepByStep = false;
@@ -114,12 +142,12 @@ public class AstarSearch extends Thread
        this.startNode = startNode;
        this.goalNode = goalNode;
        this.heuristic = heuristic;
-       this.numIterations = 0;
        this.path = null;
        //Set text log to print messages to the user
        this.textLog = text_log;       
        //Set map display to show search space and nodes
        this.map = map;
+       this.animator = new MapAnimator(map);
     }
     
    /**
@@ -128,9 +156,14 @@ public class AstarSearch extends Thread
     @Override
    public void run()
     {
+        this.log = new SearchLog(this.searchSpace, this.logLevel, this.textLog, this.logFile);
+        
         //Print header
         this.printToLog("****************************************************************");
         this.printToLog("Starting A* search...");
+        
+        //Start drawing the search on the map
+        this.animator.start();
                 
         try
         {
@@ -146,11 +179,21 @@ public class AstarSearch extends Thread
             //Print out the path & set the MapDisplays path
             if(path != null) {                
                 this.printPath(this.path);
-                this.map.setPath(this.path);
+                final LinkedList foundPath = this.path;
+                this.animator.post(new Runnable() {
+                    public void run() {
+                        map.setPath(foundPath);
+                    }
+                });
             }
             else {
                this.printToLog("****************************************************************");
-               this.printToLog("Algorithm couldn't find path to goal, and therefore one does NOT exist.");
+               if(this.gaveUp == true) {
+                   this.printToLog("Algorithm gave up after " + IdaStarEngine.DEFAULT_MAX_EXPANSIONS + " node expansions, so a path may still exist.");
+               }
+               else {
+                   this.printToLog("Algorithm couldn't find path to goal, and therefore one does NOT exist.");
+               }
             }
                                
             System.out.println("Finished run method in AstarSearch");
@@ -158,6 +201,20 @@ public class AstarSearch extends Thread
             //Print footer
             this.printToLog("Ended A* search.");
             this.printToLog("****************************************************************");
+            
+            if(this.graph != null && this.boundCostModel != null) {
+                //Let the map repair the path with D* Lite when the user enables or disables nodes, instead of searching again.
+                //The planner makes its first plan here on the search thread, so the first repair is already incremental
+                final DStarLitePlanner replanner = new DStarLitePlanner(this.graph, this.startNode.id, this.goalNode.id, this.boundCostModel);
+                replanner.plan();
+                this.animator.post(new Runnable() {
+                    public void run() {
+                        map.setReplanner(replanner);
+                        map.setAllowClicks(true);
+                    }
+                });
+                this.printToLog("Click on nodes to disable or enable them, and the path will be repaired.");
+            }
             this.printToLog("Please press the 'Reset' button to re-initialize the application.");
             
         }
@@ -165,6 +222,17 @@ public class AstarSearch extends Thread
         {
             System.out.println(e);
         }
+        
+        //Stop drawing frames once the map shows the end of the search
+        this.animator.finish();
+        
+        //Write the rest of the log
+        try {
+            this.log.close();
+        }
+        catch(IOException e) {
+            System.out.println("Error writing the search log: " + e);
+        }
     }
 
    /**
@@ -173,187 +241,80 @@ public class AstarSearch extends Thread
     */
     public LinkedList aStarSearch() {
        
-        //Variable to hold nodes to still be searched       
-        PriorityQueue available = new PriorityQueue();
-        
-        //Variable to hold nodes that have already been explored
-        LinkedList visited = new LinkedList();
-        
         try {
-            //Print Heuristic that is being used
-            switch(this.heuristic) {
-                case FEWEST_LINKS:
-                    //Fewest Links
-                    this.printToLog("The 'Fewest Links' Heuristic is being used.");
-                    break;
-                case SHORTEST_DISTANCE:
-                    //Shortest Distance
-                    this.printToLog("The 'Shortest Distance' Heuristic is being used.");
-                    break;
-                //case 3:
-                    //XXXXXXXXXXXXX
-                    //this.printToLog("The 'XXXXXXXXXXXX' Heuristic is being used.");
-                    //break;
-                //  To print a new heuristic to the text box, uncomment the above 3 lines and replace XXXXXXXXXX with the name of the heuristic
-                default:
-                    //Use Fewest links as the default
-                    this.printToLog("The 'Fewest Links' Heuristic is being used.");
-                    break;
+            //Take a snapshot of the search space to search, and bind the cost model of the heuristic to it
+            long prepareStart = System.nanoTime();
+            long prepareCpuStart = SearchStats.getCurrentThreadCpuNanos();
+            this.graph = CsrGraph.fromSearchSpace(this.searchSpace);
+            if (this.costModel != null) {
+                this.boundCostModel = this.costModel;
             }
-            
-            //Set start node variables
-            this.startNode.costFromStart = 0;
-            //this.startNode.estCostToGoal = this.startNode.getCost(this.goalNode, this.heuristic);  //Changed to below line to reflect better generalized version
-            this.startNode.estCostToGoal = this.startNode.getEstimatedCostToGoal(this.goalNode, this.heuristic);  
-            this.startNode.pathParent = null;
-        
-            //Add Start Node to available list
-            available.add(this.startNode);
-        
-            //Loop through all the available searchable nodes while there are still nodes available
-            while (!available.isEmpty()) {
-                //Get the "least expensive" node on list and deletes it from the available queue
-                HeuristicsNode nodeA = (HeuristicsNode) available.removeFirst();
-                
-                //Set current node for access from outside
-                this.currentNode = nodeA;
-            
-                //Draw nodeA on map as node that is currently being expanded
-                nodeA.drawNode(map, Color.GREEN, map.getExpandedNodeSize());
-                
-                //Increment the number of iterations for the algorithm
-                numIterations++;
-            
-                //If this is the goal then the algorithm is done
-                if (nodeA == this.goalNode) 
-                {
-                    //Print node's label
-                    this.printToLog("Found goal!! => " + nodeA.label + " (after " + numIterations + " iterations, total cost = " + nodeA.costFromStart + ")");
-                
-                    //Set found_goal variable
-                    //found_goal = true;
-                    
-                    //Deemphasize the goal node in the graphic display
-                    nodeA.deemphasizeCurrentNode(map);
-                
-                    //returns path
-                    return getPath();
+            else {
+                if (this.heuristic == Heuristic.LANDMARKS) {
+                    //The landmark distances have to match the current nodes and links of the search space
+                    this.landmarkTable = prepareLandmarkTable(this.graph);
+                    this.graph = this.graph.withLandmarks(this.landmarkTable);
                 }
+                this.boundCostModel = this.heuristic.getCostModel(this.graph);
+            }
+            long prepareWall = System.nanoTime() - prepareStart;
+            long prepareCpu = SearchStats.getCurrentThreadCpuNanos() - prepareCpuStart;
+
+            //Print Heuristic that is being used
+            this.printToLog("The '" + this.boundCostModel + "' Heuristic is being used.");
             
-                //Print node's label
-                this.printToLog("Expanding " + nodeA.label + ".  Checking neighbors & costs--------->");
-            
-                //Get a list of this node's neighbors
-                java.util.List tempList = nodeA.getChildren();
-            
-                //Get iterator to loop through nodes neighbors
-                Iterator i = tempList.iterator();
-            
-                /* Loop through each node "nodeB" that nodeA is connected to, and examine it
-                * to see if it has been visited or if a shorter path has been found to it
-                */        
-                while (i.hasNext()) {
-                    //Get next node that nodeA is connected to
-                    HeuristicsNode nodeB = (HeuristicsNode)i.next();
-                    
-                    //Get link that defines that connection
-                    LinkXY tempLink = (LinkXY) this.searchSpace.findLink(nodeA, nodeB);
-                    
-                    //Define this link as traveled
-                    tempLink.traveled = true;
-                    
-                    //Have thread sleep to pause execution
-                    if(this.stepByStep == true) {
-                        AstarSearch.sleep(this.stepTimeDelay);
-                    }
-                    
-                    //Draw line to next node
-                    //node_A.draw_Arrow_to(nodeB, Color.CYAN, map);  //Removed in favor of using the link objects to draw                    
-                    tempLink.drawLink(map, Color.CYAN);
-                                                        
-                    //Find out whether this node is already available
-                    boolean isAvailable = available.contains(nodeB);                
-                
-                    //Find out whether this node has been visited
-                    boolean wasVisited = visited.contains(nodeB);
-                
-                    //Calculate cost from start for nodeB from this path = cost from start to nodeA + cost from nodeA to nodeB
-                    double tempCostFromStart = nodeA.costFromStart + nodeB.getCost(nodeA, this.heuristic);
-                    
-                    //If this node is enabled
-                    if(nodeB.enabled == true) {
-                            
-                    /*If nodeB hasn't already been visited or if the total cost from the startNode to nodeB
-                     is less than the one that is already been found to nodeB
-                     * THEN recalculate the costs and assign new parent node
-                     */                
-                        if (  (isAvailable == false && wasVisited == false) || (tempCostFromStart < nodeB.costFromStart)   )
-                        {
-                            //Set nodeB's parent for this path as nodeA
-                            nodeB.pathParent = nodeA;
-                    
-                            //Set new cost from start by copying the newly calculated value
-                            nodeB.costFromStart = tempCostFromStart;
-                    
-                            //Calculate cost from nodeB to goal
-                            nodeB.estCostToGoal = nodeB.getEstimatedCostToGoal(this.goalNode, this.heuristic);
-                    
-                            /* Make sure 'available' and 'visited' lists correctly reflect nodeB's conditions */
-                            if (isAvailable == false)
-                            {
-                                //Add it to the available list so it can be considered as part of a path to the goal
-                                available.add(nodeB);
-                                this.printToLog("     " + nodeB.label + " was added to the list of available nodes.");
-                            }
-                    
-                            if (wasVisited == true)
-                            {
-                                //Remove nodeB from the visited list so it can be considered again as part of a new path to the goal
-                                visited.remove(nodeB);
-                                this.printToLog("     " + nodeB.label + " was previously visited but has been added back to the search because it appears a path with lesser cost exists.");
-                            }
-                                             
-                            //Print info on the currently considered nodeB to user
-                            this.printToLog("     " + nodeB.label + " Costs--> from_start = " + nodeB.costFromStart + ", est_to_goal = " + nodeB.estCostToGoal + ", total = " + nodeB.get_total_heuristic_cost());
-                    
-                        }//End of IF statement to see if nodeB was previously visited or if a shorter path to nodeB had been found
-                
-                        else {
-                            //Print info to the user that nodeB is no longer considered
-                            this.printToLog("     " + nodeB.label + " has already been visited and doesn't appear to be lesser cost to the goal, so it has been removed from the list of considered nodes.");
-                        }
-                    
-                    } //End of IF to see if node is enabled
-                    else
-                    {
-                        //Node has been DISABLED!!!!  Print message to user
-                        this.printToLog("     " + nodeB.label + " has been DISABLED.  It cannot be considered in the path to the goal.");
-                        //Redraw line to next node to show that its not considered
-                        //node_A.draw_Arrow_to(nodeB, Color.RED, map);  //Removed in favor of using the link object to draw
-                        tempLink.drawLink(map, Color.RED);
-                        //Set link as disabled
-                        tempLink.enabled = false;
-                    }
-                    
-                }// End of examination of nodeB, a node that nodeA is connected to                
-          
-                //Put this node on the visited list since it has now been visited
-                visited.add(nodeA);
+            if (this.searchMode == SearchMode.BIDIRECTIONAL) {
+                this.printToLog("Searching from the start and goal nodes at the same time (bidirectional search).");
+            }
+            else if (this.searchMode == SearchMode.IDA_STAR) {
+                this.printToLog("Searching depth-first within a rising cost bound, for at most " + IdaStarEngine.DEFAULT_MAX_EXPANSIONS + " node expansions (IDA* search).");
+            }
+            else if (this.searchMode == SearchMode.SMA_STAR) {
+                this.printToLog("Searching with at most " + this.maxNodes + " nodes in memory (SMA* search).");
+            }
+            else if (this.searchMode == SearchMode.WEIGHTED_ASTAR) {
+                this.printToLog("Searching with the estimates inflated by " + this.weight + " (weighted A* search).");
+            }
+            else if (this.searchMode == SearchMode.ARA_STAR) {
+                if (this.timeLimitNanos == Long.MAX_VALUE) {
+                    this.printToLog("Searching with weights lowered from " + this.weight + " to 1 (anytime ARA* search).");
+                }
+                else {
+                    this.printToLog("Searching with weights lowered from " + this.weight + " to 1 for at most " + this.timeLimitNanos / 1000000 + " ms (anytime ARA* search).");
+                }
+            }
+            else if (this.searchMode == SearchMode.JUMP_POINT || this.searchMode == SearchMode.JUMP_POINT_PLUS) {
+                this.printToLog("Searching the grid from jump point to jump point (" + (this.searchMode == SearchMode.JUMP_POINT ? "JPS" : "JPS+") + " search).");
+            }
             
-                //Have thread sleep to pause execution if requested
-                if(this.stepByStep == true) {
-                    AstarSearch.sleep(stepTimeDelay);
+            //Run the search, with this object listening to its progress to show it to the user
+            PathResult result;
+            if (this.traceFile == null) {
+                result = this.engine.search(this.graph, this.startNode.id, this.goalNode.id, this.boundCostModel, this);
+            }
+            else {
+                //Record the events of the search as they are passed on to this object
+                TraceRecorder recorder = new TraceRecorder(this.traceFile, this.graph, this);
+                try {
+                    result = this.engine.search(this.graph, this.startNode.id, this.goalNode.id, this.boundCostModel, recorder);
                 }
-                           
-                //Deemphasize the current node in the graphic display
-                nodeA.deemphasizeCurrentNode(map);
-                
-                //Sort Priority Queue for available nodes so if a shorter path from start was found to a node, the list order reflects it
-                Collections.sort(available);
+                finally {
+                    recorder.close();
+                }
+                if (recorder.isTruncated() == true) {
+                    this.printToLog("Warning: the search had too many events for the trace file, so only the first "
+                            + recorder.getEventCount() + " events and the final path were recorded.");
+                }
+                showTrace(SearchTrace.open(this.traceFile));
             }
-        
-            //If execution reaches this point then the goal was not found, so return null
-         return null;
+            
+            //Print what the search cost
+            SearchStats stats = result.getStats().withPhase(SearchStats.Phase.PREPARE, prepareWall, prepareCpu);
+            this.printToLog("Search statistics: " + stats + ".");
+            this.gaveUp = this.searchMode == SearchMode.IDA_STAR && result.isFound() == false
+                    && result.getNumIterations() >= IdaStarEngine.DEFAULT_MAX_EXPANSIONS;
+            
+            return result.getPath(this.searchSpace);
      }
 
      catch(Exception e) {
@@ -362,35 +323,182 @@ public class AstarSearch extends Thread
      }
                          
 }    
+    
     /**
-     * Calculates and returns the path traversed as a list
-     * @return the path traversed as a list
+     * Returns a landmark table for the graph - the table set with setLandmarkTable() or saved in the landmark file if it
+     * was computed for the same nodes and links, or else a new table, which is saved to the landmark file
+     * @param graph graph to search
+     * @return the landmark table of the graph
      */
-    public LinkedList getPath() {
+    private LandmarkTable prepareLandmarkTable(CsrGraph graph) {
+        if (this.landmarkTable != null && this.landmarkTable.isFor(graph)) {
+            return this.landmarkTable;
+        }
+        if (this.landmarkFile != null && this.landmarkFile.exists()) {
+            try {
+                LandmarkTable table = LandmarkTable.load(this.landmarkFile, graph);
+                this.printToLog("Loaded the landmark table from '" + this.landmarkFile + "'.");
+                return table;
+            }
+            catch (IOException e) {
+                this.printToLog("The landmark table will be computed again: " + e.getMessage());
+            }
+        }
+
+        LandmarkTable table = LandmarkTable.create(graph);
+        if (this.landmarkFile != null) {
+            try {
+                table.save(this.landmarkFile);
+                this.printToLog("Saved the landmark table to '" + this.landmarkFile + "'.");
+            }
+            catch (IOException e) {
+                this.printToLog("Warning - the landmark table can't be saved: " + e);
+            }
+        }
+        return table;
+    }
+
+    //************************************************************************
+    //* SearchListener methods used to show the progress of the search engine *
+    //************************************************************************
+    
+    public void nodeExpanded(int node, double costFromStart, double estCostToGoal) {
+        HeuristicsNode nodeA = (HeuristicsNode) this.searchSpace.getNode(node);
         
-        NodeXY tempNode;
+        //Set current node for access from outside
+        this.currentNode = nodeA;
         
-        LinkedList path = new LinkedList();//Variable to hold path
+        //Draw nodeA on map as node that is currently being expanded
+        this.animator.setNode(nodeA, Color.GREEN, map.getExpandedNodeSize());
         
-        //Get goalNode to start
-        tempNode = this.goalNode;
+        //Print node's label
+        this.log.nodeExpanded(node, costFromStart, estCostToGoal);
+    }
+    
+    public void linkTraveled(int nodeA, int nodeB) {
+        //Get link that defines that connection
+        LinkXY tempLink = (LinkXY) this.searchSpace.findLink(this.searchSpace.getNode(nodeA), this.searchSpace.getNode(nodeB));
         
-        //Go backwards through the path but add each node to the front of the list (a stack implementation)
-        while(tempNode.pathParent != null)
-        {
-            //Add node to front of the list
-            path.addFirst(tempNode);
-            
-            //Go to parent node of temp_node
-            tempNode = tempNode.pathParent;
+        //Have thread sleep to pause execution
+        pause();
+        
+        //Define this link as traveled and draw line to next node
+        this.animator.setLinkTraveled(tempLink, Color.CYAN);
+    }
+    
+    public void nodeAdded(int node, double costFromStart, double estCostToGoal) {
+        this.log.nodeAdded(node, costFromStart, estCostToGoal);
+    }
+    
+    public void nodeImproved(int node, double costFromStart, double estCostToGoal) {
+        this.log.nodeImproved(node, costFromStart, estCostToGoal);
+    }
+    
+    public void nodeReopened(int node, double costFromStart, double estCostToGoal) {
+        this.log.nodeReopened(node, costFromStart, estCostToGoal);
+    }
+    
+    public void nodeRejected(int node) {
+        //Print info to the user that nodeB is no longer considered
+        this.log.nodeRejected(node);
+    }
+    
+    public void nodeDisabled(int nodeA, int nodeB) {
+        //Node has been DISABLED!!!!  Print message to user
+        this.log.nodeDisabled(nodeA, nodeB);
+        //Redraw line to next node to show that its not considered (the link runs from nodeB to nodeA when searching back from the goal)
+        LinkXY tempLink = (LinkXY) this.searchSpace.findLink(this.searchSpace.getNode(nodeA), this.searchSpace.getNode(nodeB));
+        if (tempLink == null) {
+            tempLink = (LinkXY) this.searchSpace.findLink(this.searchSpace.getNode(nodeB), this.searchSpace.getNode(nodeA));
         }
+        //Set link as disabled
+        this.animator.setLinkDisabled(tempLink, Color.RED);
+    }
+    
+    public void nodeClosed(int node) {
+        //Have thread sleep to pause execution if requested
+        pause();
         
-        //Add the first node
-        path.addFirst(this.startNode);
-                
-        //Return the list
-        return path;
-                
+        //Deemphasize the current node in the graphic display
+        this.animator.restoreNode((NodeXY) this.searchSpace.getNode(node), map.getExpandedNodeSize());
+    }
+    
+    public void solutionImproved(PathResult result, double weight, double suboptimalityBound) {
+        //Print the path found so far by an anytime search, which goes on to improve it
+        this.log.solutionImproved(result, weight, suboptimalityBound);
+    }
+    
+    public void searchFinished(PathResult result) {
+        if (result.isFound()) {
+            //Draw the goal on map as the node that is currently being expanded
+            this.currentNode = this.goalNode;
+            this.animator.setNode(this.goalNode, Color.GREEN, map.getExpandedNodeSize());
+            
+            //Deemphasize the goal node in the graphic display
+            this.animator.restoreNode(this.goalNode, map.getExpandedNodeSize());
+        }
+        //Print the goal's label and the memory used
+        this.log.searchFinished(result);
+    }
+    
+    /**
+     * Has the thread sleep to pause execution if the algorithm is in step-by-step mode
+     */
+    private void pause() {
+        if(this.stepByStep == true) {
+            try {
+                AstarSearch.sleep(this.stepTimeDelay);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Stops animating the search on the map, dropping the changes that haven't been drawn yet (e.g. when the search is
+     * reset).  This must be called from the Event Dispatch Thread.
+     */
+    public void stopAnimation() {
+        this.animator.stop();
+    }
+    
+    /**
+     * Lets the map replay the recorded search once the animation of the search has caught up
+     */
+    private void showTrace(final SearchTrace trace) {
+        final TracePlayer player = this.tracePlayer;
+        this.animator.post(new Runnable() {
+            public void run() {
+                try {
+                    player.setTrace(trace);
+                }
+                catch (IllegalArgumentException e) {
+                    printToLog("The recorded search can't be replayed: " + e.getMessage());
+                    return;
+                }
+                map.setTracePlayer(player);
+            }
+        });
+        this.printToLog("The search was recorded (" + trace.getEventCount() + " events).  Turn the mouse wheel over the map to step back and forth through it (hold Shift for larger steps).");
+    }
+    
+    /**
+     * Stops printing the log of the search, dropping the events that haven't been printed yet (e.g. when the search is
+     * reset)
+     */
+    public void stopLog() {
+        if (this.log != null) {
+            this.log.discard();
+        }
+    }
+    
+    /**
+     * Returns the path found by the last search
+     * @return the path found by the last search, or null if no path was found
+     */
+    public LinkedList getPath() {
+        return this.path;
     }
     /**
      * Prints the found path from the start to the goal
@@ -406,7 +514,7 @@ public class AstarSearch extends Thread
         //Print intro statement
         this.printToLogNoNewLine("PATH ");
         
-        //Print path with no NEW_LINE between node labels
+        //Print path with no newline between node labels
         while (i.hasNext()) {
             //Get next node
             tempNode = (NodeXY)i.next();
@@ -421,14 +529,14 @@ public class AstarSearch extends Thread
                 //Get link that defines that connection
                 LinkXY tempLink = (LinkXY) this.searchSpace.findLink(previousNode, tempNode);
                 //previous_node.draw_Arrow_to(temp_node, Color.BLUE, this.map); //Removed in favor of using link objects to draw lines
-                tempLink.drawLink(map, Color.BLUE);
+                this.animator.setLink(tempLink, Color.BLUE);
                 
             }
             //Set previous node
             previousNode = tempNode;
             
             //Redraw the node to show as part of path
-            previousNode.drawNode(this.map, previousNode.color, map.getNormalNodeSize());
+            this.animator.setNode(previousNode, null, map.getNormalNodeSize());
         }
         
         //print blank space to advance to the next line for next print message
@@ -437,45 +545,19 @@ public class AstarSearch extends Thread
     }
     
     /**
-     * Prints output shown to the user in the textbox on the screen & prints to System.out as well
-     * @param text text to be printed to screen and system.out 
+     * Prints output shown to the user in the textbox on the screen (as a SUMMARY event of the search log)
+     * @param text text to be printed to screen 
      */
     public void printToLog(String text) {
-        
-        try 
-        {
-            
-            this.textLog.append(text + NEW_LINE); //Adds NEW_LINE character so each entry is a new line
-       
-            //Moves cursor to the end of the text area to keep new text in view
-            this.textLog.setCaretPosition(textLog.getDocument().getLength());
-
-            //Print out to output screen also
-            System.out.println(text);     
+        if (this.log != null) {
+            this.log.print(LogLevel.SUMMARY, text);
         }
-        catch (Exception e)
-        {
-            System.out.println("Error in print_to_log:" + e);     
-        }      
    }
     
     public void printToLogNoNewLine(String text) {
-        
-        try 
-        {
-            //This method prints output shown to the user in the textbox on the screen & prints to System.out as well
-            this.textLog.append(text); //Adds NEW_LINE character so each entry is a new line
-       
-            //Moves cursor to the end of the text area to keep new text in view
-            this.textLog.setCaretPosition(textLog.getDocument().getLength());
-
-            //Print out to output screen also
-            System.out.println(text);     
+        if (this.log != null) {
+            this.log.printNoNewLine(LogLevel.SUMMARY, text);
         }
-        catch (Exception e)
-        {
-            System.out.println("Error in printToLogNoNewLine:" + e);     
-        }      
    }
     
     /**
@@ -492,6 +574,83 @@ public class AstarSearch extends Thread
     public void setStepByStep(boolean value) {
         this.stepByStep = value;        
     }
+    /**
+     * Returns the cost model used instead of the selected heuristic
+     * @return the cost model used instead of the selected heuristic, or null if the selected heuristic is used
+     */
+    public CostModel getCostModel() {
+        return this.costModel;
+    }
+    /**
+     * Sets a cost model to measure costs with instead of the selected heuristic, e.g. to use a heuristic that isn't built
+     * in (see CostModel).  This must be called before the thread is started.
+     * @param costModel the cost model to use, or null to use the selected heuristic
+     */
+    public void setCostModel(CostModel costModel) {
+        this.costModel = costModel;
+    }
+    /**
+     * Returns the way the path is searched for
+     * @return the way the path is searched for
+     */
+    public SearchMode getSearchMode() {
+        return this.searchMode;
+    }
+    /**
+     * Sets the way the path is searched for.  This must be called before the thread is started.
+     * @param searchMode the way the path should be searched for
+     */
+    public void setSearchMode(SearchMode searchMode) {
+        this.searchMode = searchMode;
+        this.engine = new InstrumentedEngine(searchMode.createEngine(this.maxNodes, this.weight, this.timeLimitNanos));
+    }
+    /**
+     * Returns the number of search nodes the memory-bounded search mode (SMA*) may hold in memory
+     * @return the number of search nodes SMA* may hold in memory
+     */
+    public int getMaxNodes() {
+        return this.maxNodes;
+    }
+    /**
+     * Sets the number of search nodes the memory-bounded search mode (SMA*) may hold in memory.  This must be called before the thread is started.
+     * @param maxNodes the number of search nodes SMA* may hold in memory
+     */
+    public void setMaxNodes(int maxNodes) {
+        this.maxNodes = maxNodes;
+        this.engine = new InstrumentedEngine(this.searchMode.createEngine(maxNodes, this.weight, this.timeLimitNanos));
+    }
+    /**
+     * Returns the inflation factor of the estimates in the weighted and anytime search modes
+     * @return the inflation factor of the estimates
+     */
+    public double getWeight() {
+        return this.weight;
+    }
+    /**
+     * Sets the inflation factor of the estimates in the weighted (WEIGHTED_ASTAR) and anytime (ARA_STAR, the weight of the first
+     * search) search modes.  This must be called before the thread is started.
+     * @param weight the inflation factor of the estimates (at least 1)
+     */
+    public void setWeight(double weight) {
+        this.weight = weight;
+        this.engine = new InstrumentedEngine(this.searchMode.createEngine(this.maxNodes, weight, this.timeLimitNanos));
+    }
+    /**
+     * Returns the time the anytime search mode (ARA*) may take to improve its path
+     * @return the time ARA* may take to improve its path (in nanoseconds), or Long.MAX_VALUE for no limit
+     */
+    public long getTimeLimitNanos() {
+        return this.timeLimitNanos;
+    }
+    /**
+     * Sets the time the anytime search mode (ARA_STAR) may take to improve its path - the best path found when it runs out
+     * is returned.  This must be called before the thread is started.
+     * @param timeLimitNanos the time ARA* may take to improve its path (in nanoseconds), or Long.MAX_VALUE for no limit
+     */
+    public void setTimeLimitNanos(long timeLimitNanos) {
+        this.timeLimitNanos = timeLimitNanos;
+        this.engine = new InstrumentedEngine(this.searchMode.createEngine(this.maxNodes, this.weight, timeLimitNanos));
+    }
     /**
      * Returns the length of step time in between each step of the algorithm (in milliseconds)
      * @return the length of step time in between each step of the algorithm (in milliseconds)
@@ -500,6 +659,67 @@ public class AstarSearch extends Thread
         return this.stepTimeDelay;        
     }
     
+    /**
+     * Returns the most detailed level of search events printed to the text log
+     * @return the most detailed level of search events printed to the text log
+     */
+    public LogLevel getLogLevel() {
+        return this.logLevel;
+    }
+    
+    /**
+     * Sets the most detailed level of search events printed to the text log.  This must be set before the search starts.
+     * @param logLevel most detailed level of search events to print (OFF to print nothing)
+     */
+    public void setLogLevel(LogLevel logLevel) {
+        this.logLevel = logLevel;
+    }
+    
+    /**
+     * Sets a writer the log is also written to (it is flushed but not closed at the end of the search).  This must be set
+     * before the search starts.
+     * @param logFile writer to write the log to, or null
+     */
+    public void setLogFile(Writer logFile) {
+        this.logFile = logFile;
+    }
+    
+    /**
+     * Sets a file to record the search to, so the map can replay it after the search.  This must be called from the Event
+     * Dispatch Thread before the search starts, since the current colors of the map are saved to replay the search from.
+     * @param traceFile file to record the search to, or null to not record it
+     */
+    public void setTraceFile(File traceFile) {
+        this.traceFile = traceFile;
+        this.tracePlayer = traceFile != null ? new TracePlayer(this.map, this.searchSpace) : null;
+    }
+    
+    /**
+     * Returns the landmark table the LANDMARKS heuristic used, so the next search on the same graph can reuse it
+     * @return the landmark table of the last LANDMARKS search (or the table that was set), or null if there is none
+     */
+    public LandmarkTable getLandmarkTable() {
+        return this.landmarkTable;
+    }
+    
+    /**
+     * Sets a landmark table for the LANDMARKS heuristic to use instead of computing one.  It is only used if it was computed
+     * for the same nodes and links as the search space.  This must be called before the thread is started.
+     * @param landmarkTable landmark table to reuse, or null
+     */
+    public void setLandmarkTable(LandmarkTable landmarkTable) {
+        this.landmarkTable = landmarkTable;
+    }
+    
+    /**
+     * Sets a file the LANDMARKS heuristic loads its landmark table from, and saves the table to when it has to be computed,
+     * so it isn't computed again each time the application starts.  This must be called before the thread is started.
+     * @param landmarkFile file to keep the landmark table in, or null to not keep it in a file
+     */
+    public void setLandmarkFile(File landmarkFile) {
+        this.landmarkFile = landmarkFile;
+    }
+    
     /**
      * Sets the length of step time in between each step of the algorithm (in milliseconds)
      * @param time the length of step time in between each step of the algorithm(in milliseconds)
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+/**
+ * This class is a snapshot of the throughput and latency of the searches run by a BatchSearch
+ * @author Sean J. Barbeau
+ */
+public class BatchReport {
+
+    private final long numQueries;  //Number of searches run
+    private final long elapsedNanos;  //Time from the start of the first search to the end of the last one
+    private final long p50Nanos;  //Median latency of a search
+    private final long p99Nanos;  //99th percentile latency of a search
+    private final long maxNanos;  //Longest latency of a search
+
+    /**
+     * Creates a snapshot of the latencies recorded in a histogram
+     * @param histogram latencies of the searches
+     */
+    public BatchReport(LatencyHistogram histogram) {
+        this.numQueries = histogram.getCount();
+        this.elapsedNanos = histogram.getElapsedNanos();
+        this.p50Nanos = histogram.getPercentileNanos(0.50);
+        this.p99Nanos = histogram.getPercentileNanos(0.99);
+        this.maxNanos = histogram.getMaxNanos();
+    }
+
+    /**
+     * Returns the number of searches run
+     * @return the number of searches run
+     */
+    public long getNumQueries() {
+        return this.numQueries;
+    }
+
+    /**
+     * Returns the time from the start of the first search to the end of the last one
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Returns the number of searches completed per second
+     * @return the number of searches completed per second
+     */
+    public double getQueriesPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.numQueries * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * Returns the median latency of a search
+     * @return the median latency in nanoseconds
+     */
+    public long getP50Nanos() {
+        return this.p50Nanos;
+    }
+
+    /**
+     * Returns the 99th percentile latency of a search
+     * @return the 99th percentile latency in nanoseconds
+     */
+    public long getP99Nanos() {
+        return this.p99Nanos;
+    }
+
+    /**
+     * Returns the longest latency of a search
+     * @return the longest latency in nanoseconds
+     */
+    public long getMaxNanos() {
+        return this.maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d queries in %.3f s (%.1f queries/sec), latency p50 = %.3f ms, p99 = %.3f ms, max = %.3f ms",
+                this.numQueries, this.elapsedNanos / 1e9, getQueriesPerSecond(),
+                this.p50Nanos / 1e6, this.p99Nanos / 1e6, this.maxNanos / 1e6);
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+/**
+ * This class runs many searches (start/goal pairs) on one shared, read-only CsrGraph in parallel on a ForkJoinPool.
+ * Each worker thread runs its searches in its own SearchWorkspace, so workers never wait on each other.
+ * The latency of every search is recorded, and getReport() gives the throughput and latency percentiles so far.
+ * The SearchStats of each search are returned with its PathResult and added to the default SearchMetrics.
+ * @author Sean J. Barbeau
+ */
+public class BatchSearch {
+
+    //Number of queries a worker runs before the rest of its range is split off for other workers
+    private static final int SPLIT_THRESHOLD = 16;
+
+    private final CsrGraph graph;  //Graph searched by every query
+    private final ForkJoinPool pool;  //Pool that runs the searches
+    private final RoutingEngine engine;  //Engine used by every worker (it keeps no state)
+    private final LatencyHistogram latencies = new LatencyHistogram();  //Latency of each search run so far
+
+    /**
+     * Creates a new BatchSearch that runs its searches on the common ForkJoinPool
+     * @param graph graph to search
+     */
+    public BatchSearch(CsrGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new BatchSearch that runs its searches on the given pool
+     * @param graph graph to search
+     * @param pool pool that runs the searches (e.g. new ForkJoinPool(8) to use 8 threads)
+     */
+    public BatchSearch(CsrGraph graph, ForkJoinPool pool) {
+        this(graph, pool, SearchMode.UNIDIRECTIONAL);
+    }
+
+    /**
+     * Creates a new BatchSearch that runs its searches on the given pool in the given mode
+     * @param graph graph to search
+     * @param pool pool that runs the searches
+     * @param searchMode way each path is searched for
+     */
+    public BatchSearch(CsrGraph graph, ForkJoinPool pool, SearchMode searchMode) {
+        this(graph, pool, searchMode, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new BatchSearch that runs its searches on the given pool in the given mode, giving each search of an
+     * anytime mode (ARA_STAR) a time limit
+     * @param graph graph to search
+     * @param pool pool that runs the searches
+     * @param searchMode way each path is searched for
+     * @param timeLimitNanos time each ARA* search may take to improve its path (in nanoseconds), or Long.MAX_VALUE for no limit
+     */
+    public BatchSearch(CsrGraph graph, ForkJoinPool pool, SearchMode searchMode, long timeLimitNanos) {
+        this.graph = graph;
+        this.pool = pool;
+        //Publish what each search costs through JMX and the Flight Recorder.  CPU time isn't measured, since asking for it
+        //takes about as long as a short search
+        this.engine = new InstrumentedEngine(searchMode.createEngine(SmaStarEngine.DEFAULT_MAX_NODES, AraStarEngine.DEFAULT_INITIAL_WEIGHT,
+                timeLimitNanos), SearchMetrics.getDefault(), false);
+    }
+
+    /**
+     * Runs all queries in parallel and waits for them to finish
+     * @param queries searches to run
+     * @return the result of each query, in the same order as the queries
+     */
+    public List<PathResult> searchAll(List<SearchQuery> queries) {
+        SearchQuery[] queryArray = queries.toArray(new SearchQuery[queries.size()]);
+        PathResult[] results = new PathResult[queryArray.length];
+        this.pool.invoke(new SearchRange(queryArray, results, 0, queryArray.length));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Starts all queries in parallel and returns their results as a stream.  The stream is in the same order as the queries,
+     * and each result is waited for only when the stream reaches it, so results can be consumed while later queries still run.
+     * @param queries searches to run
+     * @return stream of the result of each query, in the same order as the queries
+     */
+    public Stream<PathResult> stream(List<SearchQuery> queries) {
+        final List<ForkJoinTask<PathResult>> tasks = new ArrayList<ForkJoinTask<PathResult>>(queries.size());
+        for (final SearchQuery query : queries) {
+            tasks.add(this.pool.submit(() -> run(query)));
+        }
+        return tasks.stream().map(ForkJoinTask::join);
+    }
+
+    /**
+     * Returns the throughput and latency of all searches run since this BatchSearch was created or resetReport() was called
+     * @return the throughput and latency of the searches
+     */
+    public BatchReport getReport() {
+        return new BatchReport(this.latencies);
+    }
+
+    /**
+     * Clears the recorded latencies, so the next report only covers the searches run from now on
+     */
+    public void resetReport() {
+        this.latencies.reset();
+    }
+
+    /**
+     * Runs one query on the calling thread and records its latency
+     */
+    private PathResult run(SearchQuery query) {
+        long start = System.nanoTime();
+        PathResult result = this.engine.search(this.graph, query.getStart(), query.getGoal(), query.getCostModel(this.graph), null);
+        this.latencies.record(start, System.nanoTime());
+        return result;
+    }
+
+    /**
+     * Task that runs a range of queries, splitting it in half for other workers while it is large
+     */
+    private class SearchRange extends RecursiveAction {
+
+        private final SearchQuery[] queries;
+        private final PathResult[] results;
+        private final int from;  //First query of the range
+        private final int to;  //One past the last query of the range
+
+        SearchRange(SearchQuery[] queries, PathResult[] results, int from, int to) {
+            this.queries = queries;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= SPLIT_THRESHOLD) {
+                for (int i = this.from; i < this.to; i++) {
+                    this.results[i] = run(this.queries[i]);
+                }
+            }
+            else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new SearchRange(this.queries, this.results, this.from, middle),
+                          new SearchRange(this.queries, this.results, middle, this.to));
+            }
+        }
+    }
+}
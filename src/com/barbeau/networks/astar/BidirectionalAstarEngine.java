@@ -0,0 +1,248 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import java.util.Arrays;
+
+/**
+ * This class is the bidirectional A* routing engine.  It runs two A* searches at the same time - one forward from the
+ * start node over the links leaving each node (Node.children), and one backward from the goal node over the links
+ * entering each node (Node.parents) - and stops once the best path where they meet can no longer be improved.
+ * On long paths each search only has to get about half way, so far fewer nodes are expanded than by AstarEngine.
+ *
+ * Both searches use the same "average" potential p(n) = (h(n, goal) - h(start, n)) / 2, so the forward search sorts its
+ * nodes by g(n) + p(n) and the backward search by g(n) - p(n).  This keeps the estimates of the two searches consistent
+ * with each other, so the search can stop as soon as the smallest cost on the forward list plus the smallest cost on the
+ * backward list is at least the cost of the best path found.
+ *
+ * The forward search uses the PRIMARY SearchWorkspace of the calling thread and the backward search the SECONDARY one,
+ * so like AstarEngine one BidirectionalAstarEngine can run searches from many threads at the same time.
+ * @author Sean J. Barbeau
+ */
+public class BidirectionalAstarEngine implements RoutingEngine {
+
+    //Listener used when the caller doesn't want to receive search events
+    private static final SearchListener NO_LISTENER = new SearchAdapter() {};
+
+    /**
+     * Searches for the least expensive path from start to goal
+     * @param graph graph to run the search on
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param heuristic heuristic to use to measure costs
+     * @return the result of the search
+     */
+    public PathResult search(CsrGraph graph, int start, int goal, Heuristic heuristic) {
+        return search(graph, start, goal, heuristic, null);
+    }
+
+    /**
+     * Searches for the least expensive path from start to goal, reporting progress to a listener.  Events of both searches
+     * are sent to the same listener - for the backward search "cost from start" is the cost from the node to the goal.
+     * @param graph graph to run the search on
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param costModel cost model that measures the cost of each link and estimates the cost to the goal
+     * @param listener listener that receives the progress of the search, or null
+     * @return the result of the search
+     */
+    @Override
+    public PathResult search(CsrGraph graph, int start, int goal, CostModel costModel, SearchListener listener) {
+        if (listener == null) {
+            listener = NO_LISTENER;
+        }
+        return new Search(graph, start, goal, costModel, listener).run();
+    }
+
+    /**
+     * The state of one bidirectional search
+     */
+    private static class Search {
+
+        private final CsrGraph graph;
+        private final int start;
+        private final int goal;
+        private final CostModel costModel;
+        private final SearchListener listener;
+        private final SearchWorkspace forward;  //State of the search from the start node
+        private final SearchWorkspace backward;  //State of the search from the goal node - "cost from start" is the cost to the goal
+
+        private double bestCost = Double.POSITIVE_INFINITY;  //Cost of the best path found from the start to the goal
+        private int meetingNode = -1;  //Node where the two searches meet on the best path found, or -1 if none has been found
+        private int numIterations = 0;
+        private int numReached = 0;  //Nodes reached so far by both searches, which is the memory the search uses
+
+        Search(CsrGraph graph, int start, int goal, CostModel costModel, SearchListener listener) {
+            this.graph = graph;
+            this.start = start;
+            this.goal = goal;
+            this.costModel = costModel;
+            this.listener = listener;
+            this.forward = SearchWorkspace.forCurrentThread(graph.getNodeSize(), SearchWorkspace.PRIMARY);
+            this.backward = SearchWorkspace.forCurrentThread(graph.getNodeSize(), SearchWorkspace.SECONDARY);
+        }
+
+        PathResult run() {
+            if (this.start != this.goal && this.graph.isEnabled(this.goal) == false) {
+                //The goal has been DISABLED, so no path can reach it
+                PathResult result = PathResult.notFound(0);
+                this.listener.searchFinished(result);
+                return result;
+            }
+
+            //Start the forward search from the start node and the backward search from the goal node
+            double startPotential = potential(this.start);
+            this.forward.setNode(this.start, 0, startPotential, -1);
+            this.forward.available.add(this.start, startPotential);
+            double goalPotential = -potential(this.goal);
+            this.backward.setNode(this.goal, 0, goalPotential, -1);
+            this.backward.available.add(this.goal, goalPotential);
+            this.numReached = 2;
+            if (this.start == this.goal) {
+                this.bestCost = 0;
+                this.meetingNode = this.start;
+            }
+
+            while (!this.forward.available.isEmpty() && !this.backward.available.isEmpty()) {
+                //Stop when no path through a node that is still available can be cheaper than the best path found
+                if (this.forward.available.peekCost() + this.backward.available.peekCost() >= this.bestCost) {
+                    break;
+                }
+
+                this.numIterations++;
+
+                //Expand a node of the search with the shorter list of available nodes, to keep the two searches balanced
+                if (this.forward.available.size() <= this.backward.available.size()) {
+                    expand(this.forward, this.backward, true);
+                }
+                else {
+                    expand(this.backward, this.forward, false);
+                }
+            }
+
+            PathResult result;
+            if (this.meetingNode == -1) {
+                //The searches never met, so there is no path from the start to the goal
+                result = PathResult.notFound(this.numIterations, this.numReached);
+            }
+            else {
+                result = new PathResult(getPath(), this.bestCost, this.numIterations, this.numReached);
+            }
+            this.listener.searchFinished(result);
+            return result;
+        }
+
+        /**
+         * Expands the least expensive available node of one of the searches
+         * @param own workspace of the search that expands a node
+         * @param other workspace of the search in the other direction
+         * @param isForward true if own is the forward search
+         */
+        private void expand(SearchWorkspace own, SearchWorkspace other, boolean isForward) {
+            int a = own.available.removeFirst();
+
+            this.listener.nodeExpanded(a, own.costFromStart[a], own.estCostToGoal[a]);
+
+            //The forward search follows the links leaving a, and the backward search the links entering a
+            int first = isForward ? this.graph.getFirstEdge(a) : this.graph.getFirstInEdge(a);
+            int last = isForward ? this.graph.getFirstEdge(a + 1) : this.graph.getFirstInEdge(a + 1);
+            for (int i = first; i < last; i++) {
+                int b;
+                int e;
+                if (isForward) {
+                    e = i;
+                    b = this.graph.getTarget(e);
+                    this.listener.linkTraveled(a, b);
+                }
+                else {
+                    e = this.graph.getInEdge(i);
+                    b = this.graph.getInSource(i);
+                    this.listener.linkTraveled(b, a);
+                }
+
+                if (this.graph.isEnabled(b) == false) {
+                    //Node has been DISABLED, so it cannot be part of the path
+                    this.listener.nodeDisabled(a, b);
+                    continue;
+                }
+
+                double tempCost = own.costFromStart[a] + this.costModel.getCost(this.graph, isForward ? a : b, e);
+
+                if (own.isReached(b) == false) {
+                    double h = isForward ? potential(b) : -potential(b);
+                    own.setNode(b, tempCost, h, a);
+                    this.numReached++;
+                    own.available.add(b, tempCost + h);
+                    this.listener.nodeAdded(b, tempCost, h);
+                }
+                else if (tempCost < own.costFromStart[b]) {
+                    own.costFromStart[b] = tempCost;
+                    own.pathParent[b] = a;
+                    if (own.visited.contains(b)) {
+                        own.visited.remove(b);
+                        own.available.add(b, tempCost + own.estCostToGoal[b]);
+                        this.listener.nodeReopened(b, tempCost, own.estCostToGoal[b]);
+                    }
+                    else {
+                        own.available.decreaseKey(b, tempCost + own.estCostToGoal[b]);
+                        this.listener.nodeImproved(b, tempCost, own.estCostToGoal[b]);
+                    }
+                }
+                else {
+                    this.listener.nodeRejected(b);
+                    continue;
+                }
+
+                //A cheaper path to b was found, so check if it makes a cheaper path to the goal with the other search
+                if (other.isReached(b) && tempCost + other.costFromStart[b] < this.bestCost) {
+                    this.bestCost = tempCost + other.costFromStart[b];
+                    this.meetingNode = b;
+                }
+            }
+
+            own.visited.add(a);
+
+            this.listener.nodeClosed(a);
+        }
+
+        /**
+         * Returns the potential of a node, p(n) = (h(n, goal) - h(start, n)) / 2
+         */
+        private double potential(int node) {
+            return (this.costModel.getEstimatedCostToGoal(this.graph, node, this.goal)
+                    - this.costModel.getEstimatedCostToGoal(this.graph, this.start, node)) / 2;
+        }
+
+        /**
+         * Joins the path from the start to the meeting node with the path from the meeting node to the goal
+         */
+        private int[] getPath() {
+            int[] head = this.forward.getPath(this.meetingNode);
+            int length = head.length;
+            for (int node = this.backward.pathParent[this.meetingNode]; node != -1; node = this.backward.pathParent[node]) {
+                length++;
+            }
+
+            int[] path = Arrays.copyOf(head, length);
+            int i = head.length;
+            for (int node = this.backward.pathParent[this.meetingNode]; node != -1; node = this.backward.pathParent[node]) {
+                path[i++] = node;
+            }
+            return path;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+/**
+ * This interface measures the cost of traveling each link of a graph, and estimates the cost to the goal in the same
+ * units (so the estimate can be checked against the real costs).  The routing engines take the CostModel to search with,
+ * and call it for every link and node they look at, so implementations should do as little as possible - see
+ * EuclideanCostModel, ManhattanCostModel, OctileCostModel, HaversineCostModel, FewestLinksCostModel and
+ * LandmarkCostModel.  The cost model of one of the built-in heuristics is returned by Heuristic.getCostModel(), which
+ * the engines call once per search.  To use a new heuristic, implement this interface and pass it to
+ * RoutingEngine.search() (or AstarSearch.setCostModel() in the GUI).
+ * @author Sean J. Barbeau
+ */
+public interface CostModel extends HeuristicFunction {
+
+    /**
+     * Returns the cost of traveling a link
+     * @param graph graph being searched
+     * @param node id of the node the link leaves
+     * @param edge number of the edge of the link in the graph
+     * @return cost of traveling the link, at least 0
+     */
+    public double getCost(CsrGraph graph, int node, int edge);
+}
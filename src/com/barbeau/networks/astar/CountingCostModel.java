@@ -0,0 +1,78 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+/**
+ * This class passes the calls of a search on to another CostModel and counts the estimates of the cost to the goal it
+ * computes, for InstrumentedEngine.  Engines that compute their own estimates instead of asking the cost model (like
+ * JumpPointEngine, which uses the octile distance of its grid) count them with countEstimate(), and look at the type of
+ * the cost model underneath with unwrap().
+ *
+ * A CountingCostModel counts the estimates of one search, from one thread.
+ * @author Sean J. Barbeau
+ */
+final class CountingCostModel implements CostModel {
+
+    private final CostModel costModel;
+    private long numEstimates = 0;
+
+    /**
+     * Creates a new CountingCostModel
+     * @param costModel cost model the calls are passed on to
+     */
+    CountingCostModel(CostModel costModel) {
+        this.costModel = costModel;
+    }
+
+    /**
+     * Returns the cost model underneath a cost model that may be counting its estimates
+     * @param costModel cost model passed to a search
+     * @return the cost model the calls are passed on to if costModel is a CountingCostModel, costModel otherwise
+     */
+    static CostModel unwrap(CostModel costModel) {
+        return costModel instanceof CountingCostModel ? ((CountingCostModel) costModel).costModel : costModel;
+    }
+
+    /**
+     * Returns the number of estimates of the cost to the goal computed so far
+     * @return the number of estimates computed
+     */
+    long getNumEstimates() {
+        return this.numEstimates;
+    }
+
+    /**
+     * Counts an estimate the engine computed without asking the cost model
+     */
+    void countEstimate() {
+        this.numEstimates++;
+    }
+
+    public double getCost(CsrGraph graph, int node, int edge) {
+        return this.costModel.getCost(graph, node, edge);
+    }
+
+    public double getEstimatedCostToGoal(CsrGraph graph, int node, int goal) {
+        this.numEstimates++;
+        return this.costModel.getEstimatedCostToGoal(graph, node, goal);
+    }
+
+    @Override
+    public String toString() {
+        return this.costModel.toString();
+    }
+}
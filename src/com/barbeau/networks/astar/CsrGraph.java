@@ -0,0 +1,426 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import com.barbeau.networks.SearchSpace;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class is an immutable, compact copy of a network in compressed sparse row (CSR) form.  The links leaving node v
+ * are the edges getFirstEdge(v) to getFirstEdge(v + 1) - 1, and edge e goes to node getTarget(e) with length getWeight(e).
+ * Everything is held in a few primitive arrays indexed by node id (Node.id) or edge number, so algorithms can run on it
+ * without following references between objects, and many threads can search it at the same time.
+ * The links entering each node (used to search "upstream", e.g. by bidirectional search) are indexed the same way the
+ * first time they are needed: the links entering node v are the in-edges getFirstInEdge(v) to getFirstInEdge(v + 1) - 1.
+ * The arrays are held in java.nio buffers, which either wrap arrays on the heap or are mapped straight from a graph file
+ * (see GraphFile), so a graph opened from a file is searched without copying or parsing it first.
+ * @author Sean J. Barbeau
+ */
+public class CsrGraph {
+
+    private final IntBuffer offsets;  //First edge of each node, with offsets[numNodes] = number of edges
+    private final IntBuffer targets;  //Node at the end of each edge
+    private final FloatBuffer weights;  //Length of each edge (straight line distance between its nodes)
+    private final IntBuffer x;  //X coordinate of each node
+    private final IntBuffer y;  //Y coordinate of each node
+    private final ByteBuffer enabled;  //Enabled state of each node (1 = enabled, 0 = disabled) - disabled nodes can't be part of a path
+    private final String[] labels;  //Name of each node, or null if the names are read from labelOffsets and labelBytes
+    private final IntBuffer labelOffsets;  //First byte of the name of each node in labelBytes, with one extra entry at the end
+    private final ByteBuffer labelBytes;  //UTF-8 bytes of the names of the nodes, one after the other
+    private final LandmarkTable landmarks;  //Distance tables used by the LANDMARKS heuristic, or null if there are none
+    private volatile InEdges inEdges = null;  //Links entering each node, created the first time they are needed
+    private volatile long fingerprint = 0;  //Checksum of the nodes and links, or 0 if it hasn't been computed yet
+
+    /**
+     * Creates a new CsrGraph from its arrays.  The arrays are used directly, not copied (except for the enabled states),
+     * so they must not be changed afterwards.
+     * @param offsets first edge of each node, with one extra entry at the end holding the number of edges
+     * @param targets node at the end of each edge
+     * @param weights length of each edge
+     * @param x X coordinate of each node
+     * @param y Y coordinate of each node
+     * @param enabled enabled state of each node
+     * @param labels name of each node
+     */
+    public CsrGraph(int[] offsets, int[] targets, float[] weights, int[] x, int[] y, boolean[] enabled, String[] labels) {
+        this(IntBuffer.wrap(offsets), IntBuffer.wrap(targets), FloatBuffer.wrap(weights), IntBuffer.wrap(x), IntBuffer.wrap(y),
+             toBytes(enabled), labels, null, null, null);
+    }
+
+    /**
+     * Creates a new CsrGraph from buffers holding its arrays (e.g. mapped from a graph file by GraphFile), with the names
+     * of the nodes held as UTF-8 bytes.  The buffers are used directly, not copied.
+     * @param offsets first edge of each node, with one extra entry at the end holding the number of edges
+     * @param targets node at the end of each edge
+     * @param weights length of each edge
+     * @param x X coordinate of each node
+     * @param y Y coordinate of each node
+     * @param enabled enabled state of each node, 1 for enabled and 0 for disabled
+     * @param labelOffsets first byte of the name of each node in labelBytes, with one extra entry at the end
+     * @param labelBytes UTF-8 bytes of the names of the nodes
+     */
+    CsrGraph(IntBuffer offsets, IntBuffer targets, FloatBuffer weights, IntBuffer x, IntBuffer y, ByteBuffer enabled,
+             IntBuffer labelOffsets, ByteBuffer labelBytes) {
+        this(offsets, targets, weights, x, y, enabled, null, labelOffsets, labelBytes, null);
+    }
+
+    private CsrGraph(IntBuffer offsets, IntBuffer targets, FloatBuffer weights, IntBuffer x, IntBuffer y, ByteBuffer enabled,
+                     String[] labels, IntBuffer labelOffsets, ByteBuffer labelBytes, LandmarkTable landmarks) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.x = x;
+        this.y = y;
+        this.enabled = enabled;
+        this.labels = labels;
+        this.labelOffsets = labelOffsets;
+        this.labelBytes = labelBytes;
+        this.landmarks = landmarks;
+    }
+
+    /**
+     * Packs the enabled states into a buffer of one byte per node
+     */
+    private static ByteBuffer toBytes(boolean[] enabled) {
+        byte[] bytes = new byte[enabled.length];
+        for (int i = 0; i < enabled.length; i++) {
+            bytes[i] = enabled[i] ? (byte) 1 : (byte) 0;
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Returns a copy of this graph that uses a landmark table for the LANDMARKS heuristic.  The copy shares the arrays
+     * of this graph, so this is O(1).
+     * @param landmarks landmark table computed for this graph (e.g. with LandmarkTable.create()), or null for none
+     * @return a copy of this graph with the landmark table
+     * @throws IllegalArgumentException if the landmark table was computed for a different graph
+     */
+    public CsrGraph withLandmarks(LandmarkTable landmarks) {
+        if (landmarks != null && landmarks.isFor(this) == false) {
+            throw new IllegalArgumentException("Landmark table was computed for a different graph (" + landmarks.getNodeSize()
+                                               + " nodes, fingerprint " + Long.toHexString(landmarks.getGraphFingerprint()) + ")");
+        }
+        CsrGraph graph = new CsrGraph(this.offsets, this.targets, this.weights, this.x, this.y, this.enabled, this.labels,
+                                      this.labelOffsets, this.labelBytes, landmarks);
+        graph.inEdges = this.inEdges;
+        graph.fingerprint = this.fingerprint;
+        return graph;
+    }
+
+    /**
+     * Returns the landmark table used by the LANDMARKS heuristic
+     * @return the landmark table, or null if the graph has none
+     */
+    public LandmarkTable getLandmarks() {
+        return this.landmarks;
+    }
+
+    /**
+     * Creates a search space of HeuristicsNodes and LinkXYs with the nodes, locations, enabled states and links of this
+     * graph, e.g. to show the graph in the GUI.  Nodes keep their ids, so the search space can be drawn from this graph.
+     * @return a new search space holding a copy of this graph
+     */
+    public SearchSpace toSearchSpace() {
+        SearchSpace searchSpace = new SearchSpace();
+        int numNodes = getNodeSize();
+        for (int i = 0; i < numNodes; i++) {
+            HeuristicsNode node = new HeuristicsNode(getLabel(i), getX(i), getY(i));
+            node.enabled = isEnabled(i);
+            searchSpace.add(node);
+        }
+        for (int i = 0; i < numNodes; i++) {
+            NodeXY nodeA = (NodeXY) searchSpace.getNode(i);
+            int last = getFirstEdge(i + 1);
+            for (int e = getFirstEdge(i); e < last; e++) {
+                NodeXY nodeB = (NodeXY) searchSpace.getNode(getTarget(e));
+                nodeA.addConnToChild(nodeB);
+                searchSpace.add(new LinkXY(nodeA, nodeB));
+            }
+        }
+        return searchSpace;
+    }
+
+    /**
+     * Creates a CsrGraph holding the current nodes, connections, locations and enabled states of a search space.
+     * Nodes keep their ids, so results on the CsrGraph can be mapped back with SearchSpace.getNode().
+     * @param searchSpace search space of NodeXY nodes
+     * @return a CsrGraph copy of the search space
+     */
+    public static CsrGraph fromSearchSpace(SearchSpace searchSpace) {
+        int numNodes = searchSpace.getNodeSize();
+
+        int[] offsets = new int[numNodes + 1];
+        int[] x = new int[numNodes];
+        int[] y = new int[numNodes];
+        boolean[] enabled = new boolean[numNodes];
+        String[] labels = new String[numNodes];
+
+        //First pass - count the links leaving each node and copy the node properties
+        for (int i = 0; i < numNodes; i++) {
+            NodeXY node = (NodeXY) searchSpace.getNode(i);
+            offsets[i + 1] = offsets[i] + node.getChildren().size();
+            x[i] = node.location.x;
+            y[i] = node.location.y;
+            enabled[i] = node.enabled;
+            labels[i] = node.label;
+        }
+
+        //Second pass - fill in the edges
+        int[] targets = new int[offsets[numNodes]];
+        float[] weights = new float[offsets[numNodes]];
+        for (int i = 0; i < numNodes; i++) {
+            java.util.List children = searchSpace.getNode(i).getChildren();
+            int edge = offsets[i];
+            for (int j = 0; j < children.size(); j++) {
+                int target = ((NodeXY) children.get(j)).id;
+                targets[edge] = target;
+                weights[edge] = (float) distance(x[i], y[i], x[target], y[target]);
+                edge++;
+            }
+        }
+
+        return new CsrGraph(offsets, targets, weights, x, y, enabled, labels);
+    }
+
+    /**
+     * Returns the number of nodes in the graph
+     * @return the number of nodes in the graph
+     */
+    public int getNodeSize() {
+        return this.x.limit();
+    }
+
+    /**
+     * Returns the number of edges (one-way links) in the graph
+     * @return the number of edges in the graph
+     */
+    public int getEdgeSize() {
+        return this.targets.limit();
+    }
+
+    /**
+     * Returns the first edge leaving a node.  The edges leaving node v are getFirstEdge(v) to getFirstEdge(v + 1) - 1.
+     * @param node id of the node, or getNodeSize() to get the number of edges
+     * @return the first edge leaving the node
+     */
+    public int getFirstEdge(int node) {
+        return this.offsets.get(node);
+    }
+
+    /**
+     * Returns the node at the end of an edge
+     * @param edge number of the edge
+     * @return id of the node at the end of the edge
+     */
+    public int getTarget(int edge) {
+        return this.targets.get(edge);
+    }
+
+    /**
+     * Returns the length of an edge
+     * @param edge number of the edge
+     * @return the straight line distance between the nodes of the edge
+     */
+    public float getWeight(int edge) {
+        return this.weights.get(edge);
+    }
+
+    /**
+     * Returns the X coordinate of a node
+     * @param node id of the node
+     * @return the X coordinate of the node
+     */
+    public int getX(int node) {
+        return this.x.get(node);
+    }
+
+    /**
+     * Returns the Y coordinate of a node
+     * @param node id of the node
+     * @return the Y coordinate of the node
+     */
+    public int getY(int node) {
+        return this.y.get(node);
+    }
+
+    /**
+     * Returns true if the node is enabled, so it can be part of a path
+     * @param node id of the node
+     * @return true if the node is enabled
+     */
+    public boolean isEnabled(int node) {
+        return this.enabled.get(node) != 0;
+    }
+
+    /**
+     * Returns the name of a node
+     * @param node id of the node
+     * @return the name of the node
+     */
+    public String getLabel(int node) {
+        if (this.labels != null) {
+            return this.labels[node];
+        }
+        int first = this.labelOffsets.get(node);
+        byte[] bytes = new byte[this.labelOffsets.get(node + 1) - first];
+        ByteBuffer label = this.labelBytes.duplicate();
+        label.position(first);
+        label.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds the edge from nodeA to nodeB
+     * @param nodeA id of the node the edge starts at
+     * @param nodeB id of the node the edge ends at
+     * @return number of the edge, or -1 if there is no edge from nodeA to nodeB
+     */
+    public int findEdge(int nodeA, int nodeB) {
+        int lastEdge = this.offsets.get(nodeA + 1);
+        for (int e = this.offsets.get(nodeA); e < lastEdge; e++) {
+            if (this.targets.get(e) == nodeB) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a checksum of the nodes and links of the graph - the number of nodes and edges, the first edge of each node
+     * and the target and length of each edge.  Graphs with the same nodes and links have the same fingerprint, so it tells
+     * whether data computed for a graph (e.g. a LandmarkTable saved to a file) still matches it.  The enabled states, names
+     * and locations of the nodes are not part of it, since the lengths of the links already reflect the locations.
+     * It is computed the first time it is needed, which is O(nodes + links).
+     * @return the fingerprint of the graph
+     */
+    public long getFingerprint() {
+        long result = this.fingerprint;
+        if (result == 0) {
+            //FNV-1a hash of the counts and arrays
+            result = 0xcbf29ce484222325L;
+            result = (result ^ getNodeSize()) * 0x100000001b3L;
+            result = (result ^ getEdgeSize()) * 0x100000001b3L;
+            for (int i = 0; i <= getNodeSize(); i++) {
+                result = (result ^ this.offsets.get(i)) * 0x100000001b3L;
+            }
+            for (int e = 0; e < getEdgeSize(); e++) {
+                result = (result ^ this.targets.get(e)) * 0x100000001b3L;
+                result = (result ^ Float.floatToIntBits(this.weights.get(e))) * 0x100000001b3L;
+            }
+            if (result == 0) {
+                result = 1;
+            }
+            this.fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first in-edge (link entering) of a node.  The in-edges of node v are getFirstInEdge(v) to getFirstInEdge(v + 1) - 1.
+     * @param node id of the node, or getNodeSize() to get the number of edges
+     * @return the first in-edge of the node
+     */
+    public int getFirstInEdge(int node) {
+        return getInEdges().offsets[node];
+    }
+
+    /**
+     * Returns the node at the start of an in-edge
+     * @param inEdge number of the in-edge
+     * @return id of the node the link starts at
+     */
+    public int getInSource(int inEdge) {
+        return getInEdges().sources[inEdge];
+    }
+
+    /**
+     * Returns the (forward) edge number of an in-edge, which can be passed to getWeight() and getCost()
+     * @param inEdge number of the in-edge
+     * @return the edge number of the link
+     */
+    public int getInEdge(int inEdge) {
+        return getInEdges().edges[inEdge];
+    }
+
+    /**
+     * Returns the index of the links entering each node, creating it the first time it is needed
+     */
+    private InEdges getInEdges() {
+        InEdges result = this.inEdges;
+        if (result == null) {
+            synchronized (this) {
+                result = this.inEdges;
+                if (result == null) {
+                    result = new InEdges(this);
+                    this.inEdges = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Measures the straight line distance between (x1, y1) and (x2, y2)
+     */
+    private static double distance(int x1, int y1, int x2, int y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * The links entering each node, in the same compressed sparse row form as the links leaving each node
+     */
+    private static class InEdges {
+
+        final int[] offsets;  //First in-edge of each node, with offsets[numNodes] = number of edges
+        final int[] sources;  //Node at the start of each in-edge
+        final int[] edges;  //Edge number of each in-edge
+
+        InEdges(CsrGraph graph) {
+            int numNodes = graph.getNodeSize();
+            int numEdges = graph.getEdgeSize();
+            this.offsets = new int[numNodes + 1];
+            this.sources = new int[numEdges];
+            this.edges = new int[numEdges];
+
+            //Count the links entering each node
+            for (int e = 0; e < numEdges; e++) {
+                this.offsets[graph.getTarget(e) + 1]++;
+            }
+            for (int v = 0; v < numNodes; v++) {
+                this.offsets[v + 1] += this.offsets[v];
+            }
+
+            //Place each link in the slots of the node it enters
+            int[] next = new int[numNodes];
+            System.arraycopy(this.offsets, 0, next, 0, numNodes);
+            for (int u = 0; u < numNodes; u++) {
+                int lastEdge = graph.getFirstEdge(u + 1);
+                for (int e = graph.getFirstEdge(u); e < lastEdge; e++) {
+                    int slot = next[graph.getTarget(e)]++;
+                    this.sources[slot] = u;
+                    this.edges[slot] = e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,529 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import java.util.Arrays;
+
+/**
+ * This class plans the least expensive path from a start node to a goal node with D* Lite, and repairs the plan when
+ * nodes or links are enabled or disabled (e.g. road closures) instead of searching again from scratch.
+ *
+ * D* Lite searches backward from the goal.  It keeps for each node g(n), the cost of the best path found from n to the
+ * goal, and rhs(n), the cost through the best neighbor of n (the minimum of cost(n, n') + g(n') over the links leaving n).
+ * A node is "consistent" when g(n) = rhs(n), and plan() only expands the inconsistent nodes that can affect the path from
+ * the start.  When a node or link changes, only the rhs of the nodes with links into it is updated, so the next plan()
+ * expands just the nodes whose cost to the goal actually changed - usually a tiny part of the network compared with a new
+ * A* search.  The start may also be moved along the path (setStart()) without losing the values already computed.
+ *
+ * D* Lite needs every link to cost more than nothing, but links between nodes at the same location cost 0 - two such
+ * nodes could keep each other's out of date costs alive.  So costs are compared as (cost, number of links) pairs: of two
+ * paths with the same cost the one with fewer links is cheaper, which makes every link cost more than nothing without
+ * changing the cost of any path.  g and rhs each keep the number of links of their path, and the keys use it to break ties.
+ *
+ * The planner keeps its own copy of the enabled state of each node and link, starting from the enabled nodes of the
+ * graph, so changes must be made through setNodeEnabled() and setLinkEnabled().  Unlike the engines, a planner holds
+ * the state of one start/goal pair and must only be used by one thread at a time.
+ * @author Sean J. Barbeau
+ */
+public class DStarLitePlanner {
+
+    private final CsrGraph graph;
+    private final CostModel costModel;
+    private final int goal;
+    private int start;
+    private int lastStart;  //Start when km was last updated
+    private double km = 0;  //Sum of the heuristic distances the start has moved, added to keys so they don't have to be recomputed
+
+    private final boolean[] nodeEnabled;  //Enabled state of each node
+    private final boolean[] linkEnabled;  //Enabled state of each link (edge number)
+    private final double[] g;  //g(n) - cost of the best path found from each node to the goal
+    private final int[] gLinks;  //Number of links on the path of g(n), or 0 if g(n) is infinite
+    private final double[] rhs;  //rhs(n) - cost of the best path from each node through its best neighbor
+    private final int[] rhsLinks;  //Number of links on the path of rhs(n), or 0 if rhs(n) is infinite
+    private final KeyQueue open;  //Inconsistent nodes, sorted by key
+
+    /**
+     * Creates a new DStarLitePlanner.  No search is done until plan() is called.
+     * @param graph graph to plan on
+     * @param start id of the node to start from
+     * @param goal id of the node to find
+     * @param heuristic heuristic used to measure costs
+     */
+    public DStarLitePlanner(CsrGraph graph, int start, int goal, Heuristic heuristic) {
+        this(graph, start, goal, heuristic.getCostModel(graph));
+    }
+
+    /**
+     * Creates a new DStarLitePlanner.  No search is done until plan() is called.
+     * @param graph graph to plan on
+     * @param start id of the node to start from
+     * @param goal id of the node to find
+     * @param costModel cost model that measures the cost of each link and estimates the cost between nodes
+     */
+    public DStarLitePlanner(CsrGraph graph, int start, int goal, CostModel costModel) {
+        int numNodes = graph.getNodeSize();
+        this.graph = graph;
+        this.costModel = costModel;
+        this.start = start;
+        this.lastStart = start;
+        this.goal = goal;
+
+        this.nodeEnabled = new boolean[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            this.nodeEnabled[i] = graph.isEnabled(i);
+        }
+        this.linkEnabled = new boolean[graph.getEdgeSize()];
+        Arrays.fill(this.linkEnabled, true);
+
+        this.g = new double[numNodes];
+        this.gLinks = new int[numNodes];
+        this.rhs = new double[numNodes];
+        this.rhsLinks = new int[numNodes];
+        Arrays.fill(this.g, Double.POSITIVE_INFINITY);
+        Arrays.fill(this.rhs, Double.POSITIVE_INFINITY);
+        this.open = new KeyQueue(numNodes);
+
+        //The goal is the only node with a known cost to the goal
+        this.rhs[goal] = 0;
+        this.open.insert(goal, estimate(goal), 0, 0);
+    }
+
+    /**
+     * Computes (or repairs) the least expensive path from the start to the goal
+     * @return the result of the search - the number of iterations is the number of nodes expanded by this call
+     */
+    public PathResult plan() {
+        int numIterations = 0;
+        while (true) {
+            //Expand inconsistent nodes until the start is consistent and no node in the queue can give it a cheaper path
+            while (!this.open.isEmpty() && (compareToKey(this.open.topKey1(), this.open.topLinks(), this.open.topKey2(), this.start) < 0
+                    || isConsistent(this.start) == false)) {
+                expandFirst();
+                numIterations++;
+            }
+            if (this.g[this.start] == Double.POSITIVE_INFINITY) {
+                return PathResult.notFound(numIterations);
+            }
+
+            int[] path = getPath();
+            int last = path[path.length - 1];
+            if (last == this.goal) {
+                return new PathResult(path, this.g[this.start], numIterations);
+            }
+            //The link lengths are floats, so rounding can make an estimate a tiny bit larger than the cost it estimates,
+            //which can stop the search while a node on the path is out of date - keep expanding until it is consistent
+            while (!this.open.isEmpty() && isConsistent(last) == false) {
+                expandFirst();
+                numIterations++;
+            }
+        }
+    }
+
+    /**
+     * Removes the node with the lowest key from the queue and makes it consistent (or, if its key is out of date,
+     * puts it back with its new key)
+     */
+    private void expandFirst() {
+        double oldKey1 = this.open.topKey1();
+        int oldLinks = this.open.topLinks();
+        double oldKey2 = this.open.topKey2();
+        int u = this.open.removeFirst();
+
+        if (compareToKey(oldKey1, oldLinks, oldKey2, u) < 0) {
+            //The key of u is out of date (the start has moved), so put it back with its new key
+            insert(u);
+        }
+        else if (compare(this.g[u], this.gLinks[u], this.rhs[u], this.rhsLinks[u]) > 0) {
+            //A cheaper path from u was found - make u consistent and update the nodes with links into u
+            this.g[u] = this.rhs[u];
+            this.gLinks[u] = this.rhsLinks[u];
+            updatePredecessors(u);
+        }
+        else {
+            //The path from u got more expensive - reset u, then update u and the nodes with links into u
+            this.g[u] = Double.POSITIVE_INFINITY;
+            this.gLinks[u] = 0;
+            updateNode(u);
+            updatePredecessors(u);
+        }
+    }
+
+    /**
+     * Enables or disables a node.  The path is repaired by the next call to plan().
+     * @param node id of the node
+     * @param enabled true to enable the node, false to disable it (no path may go through it)
+     */
+    public void setNodeEnabled(int node, boolean enabled) {
+        if (this.nodeEnabled[node] != enabled) {
+            this.nodeEnabled[node] = enabled;
+            //The cost of every link into the node changed
+            updatePredecessors(node);
+        }
+    }
+
+    /**
+     * Enables or disables the link from nodeA to nodeB.  The path is repaired by the next call to plan().
+     * @param nodeA id of the node the link starts at
+     * @param nodeB id of the node the link ends at
+     * @param enabled true to enable the link, false to disable it (no path may use it)
+     */
+    public void setLinkEnabled(int nodeA, int nodeB, boolean enabled) {
+        int e = this.graph.findEdge(nodeA, nodeB);
+        if (e != -1 && this.linkEnabled[e] != enabled) {
+            this.linkEnabled[e] = enabled;
+            updateNode(nodeA);
+        }
+    }
+
+    /**
+     * Returns true if the node is enabled
+     * @param node id of the node
+     * @return true if the node is enabled
+     */
+    public boolean isNodeEnabled(int node) {
+        return this.nodeEnabled[node];
+    }
+
+    /**
+     * Returns true if the link from nodeA to nodeB is enabled
+     * @param nodeA id of the node the link starts at
+     * @param nodeB id of the node the link ends at
+     * @return true if the link exists and is enabled
+     */
+    public boolean isLinkEnabled(int nodeA, int nodeB) {
+        int e = this.graph.findEdge(nodeA, nodeB);
+        return e != -1 && this.linkEnabled[e];
+    }
+
+    /**
+     * Moves the start, e.g. as a vehicle travels along the path.  The values computed so far stay valid.
+     * @param start id of the new start node
+     */
+    public void setStart(int start) {
+        if (start != this.start) {
+            this.km += this.costModel.getEstimatedCostToGoal(this.graph, this.lastStart, start);
+            this.lastStart = start;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Returns the node the path starts from
+     * @return id of the start node
+     */
+    public int getStart() {
+        return this.start;
+    }
+
+    /**
+     * Returns the node the path goes to
+     * @return id of the goal node
+     */
+    public int getGoal() {
+        return this.goal;
+    }
+
+    /**
+     * Recomputes rhs(u) from the links leaving u, and puts u in the queue if it is inconsistent
+     */
+    private void updateNode(int u) {
+        if (u != this.goal) {
+            double best = Double.POSITIVE_INFINITY;
+            int bestLinks = 0;
+            int last = this.graph.getFirstEdge(u + 1);
+            for (int e = this.graph.getFirstEdge(u); e < last; e++) {
+                int v = this.graph.getTarget(e);
+                double total = cost(u, e) + this.g[v];
+                if (total != Double.POSITIVE_INFINITY && compare(total, this.gLinks[v] + 1, best, bestLinks) < 0) {
+                    best = total;
+                    bestLinks = this.gLinks[v] + 1;
+                }
+            }
+            this.rhs[u] = best;
+            this.rhsLinks[u] = bestLinks;
+        }
+
+        if (this.open.contains(u)) {
+            this.open.remove(u);
+        }
+        if (isConsistent(u) == false) {
+            insert(u);
+        }
+    }
+
+    /**
+     * Returns true if g(n) = rhs(n)
+     */
+    private boolean isConsistent(int node) {
+        return this.g[node] == this.rhs[node] && this.gLinks[node] == this.rhsLinks[node];
+    }
+
+    /**
+     * Puts a node in the queue with its current key
+     */
+    private void insert(int node) {
+        this.open.insert(node, key1(node), keyLinks(node), key2(node));
+    }
+
+    /**
+     * Updates the nodes with links into v
+     */
+    private void updatePredecessors(int v) {
+        int last = this.graph.getFirstInEdge(v + 1);
+        for (int i = this.graph.getFirstInEdge(v); i < last; i++) {
+            updateNode(this.graph.getInSource(i));
+        }
+    }
+
+    /**
+     * Returns the cost of traveling an edge leaving a node, or infinity if the link or the node it goes to is disabled
+     */
+    private double cost(int node, int e) {
+        if (this.linkEnabled[e] == false || this.nodeEnabled[this.graph.getTarget(e)] == false) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return this.costModel.getCost(this.graph, node, e);
+    }
+
+    /**
+     * Returns the estimated cost from the start to a node
+     */
+    private double estimate(int node) {
+        return this.costModel.getEstimatedCostToGoal(this.graph, this.start, node);
+    }
+
+    /**
+     * Returns true if g(n) is less than rhs(n), i.e. min(g, rhs) is g(n)
+     */
+    private boolean isGLess(int node) {
+        return compare(this.g[node], this.gLinks[node], this.rhs[node], this.rhsLinks[node]) < 0;
+    }
+
+    /**
+     * Returns the first part of the key of a node, min(g, rhs) + h(start, n) + km
+     */
+    private double key1(int node) {
+        return key2(node) + estimate(node) + this.km;
+    }
+
+    /**
+     * Returns the number of links of min(g, rhs), which breaks ties between keys with the same first part
+     */
+    private int keyLinks(int node) {
+        return isGLess(node) ? this.gLinks[node] : this.rhsLinks[node];
+    }
+
+    /**
+     * Returns the last part of the key of a node (used to break ties), min(g, rhs)
+     */
+    private double key2(int node) {
+        return isGLess(node) ? this.g[node] : this.rhs[node];
+    }
+
+    /**
+     * Compares the key (key1, links, key2) with the current key of a node
+     * @return a negative number, zero or a positive number if the key is less than, equal to or greater than the node's key
+     */
+    private int compareToKey(double key1, int links, double key2, int node) {
+        int result = Double.compare(key1, key1(node));
+        if (result == 0) {
+            result = Integer.compare(links, keyLinks(node));
+        }
+        return result != 0 ? result : Double.compare(key2, key2(node));
+    }
+
+    /**
+     * Compares two costs, each with the number of links of its path (an infinite cost has 0 links)
+     * @return a negative number, zero or a positive number if the first cost is less than, equal to or greater than the second
+     */
+    private static int compare(double cost1, int links1, double cost2, int links2) {
+        int result = Double.compare(cost1, cost2);
+        return result != 0 ? result : Integer.compare(links1, links2);
+    }
+
+    /**
+     * Follows the best neighbors from the start towards the goal.  Each step goes to a node with a strictly lower
+     * (g, number of links), so the walk always ends.
+     * @return the nodes of the path, which ends early at the first node that is out of date (inconsistent)
+     * @throws IllegalStateException if a consistent node has no neighbor to go to, which would be a bug in the planner
+     */
+    private int[] getPath() {
+        int[] path = new int[16];
+        int length = 0;
+        int node = this.start;
+        path[length++] = node;
+        while (node != this.goal && isConsistent(node)) {
+            int next = -1;
+            double best = Double.POSITIVE_INFINITY;
+            int bestLinks = 0;
+            int last = this.graph.getFirstEdge(node + 1);
+            for (int e = this.graph.getFirstEdge(node); e < last; e++) {
+                int v = this.graph.getTarget(e);
+                double total = cost(node, e) + this.g[v];
+                if (total != Double.POSITIVE_INFINITY && compare(total, this.gLinks[v] + 1, best, bestLinks) < 0
+                        && compare(this.g[v], this.gLinks[v], this.g[node], this.gLinks[node]) < 0) {
+                    best = total;
+                    bestLinks = this.gLinks[v] + 1;
+                    next = v;
+                }
+            }
+            if (next == -1) {
+                throw new IllegalStateException("D* Lite lost the path from " + this.start + " to " + this.goal + " at node " + node);
+            }
+            node = next;
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = node;
+        }
+        return Arrays.copyOf(path, length);
+    }
+
+    /**
+     * Indexed binary min-heap of node ids sorted by a three part key (key1, then the number of links and key2 to break ties)
+     */
+    private static class KeyQueue {
+
+        private int[] heap;  //Node ids, in heap order
+        private double[] keys1;  //First part of the key of each heap slot
+        private int[] links;  //Number of links of each heap slot, which breaks ties between equal first parts
+        private double[] keys2;  //Last part of the key of each heap slot
+        private final int[] positions;  //Heap slot of each node id, or -1 if it isn't in the queue
+        private int size = 0;
+
+        KeyQueue(int numNodes) {
+            this.heap = new int[16];
+            this.keys1 = new double[16];
+            this.links = new int[16];
+            this.keys2 = new double[16];
+            this.positions = new int[numNodes];
+            Arrays.fill(this.positions, -1);
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        boolean contains(int node) {
+            return this.positions[node] != -1;
+        }
+
+        double topKey1() {
+            return this.keys1[0];
+        }
+
+        int topLinks() {
+            return this.links[0];
+        }
+
+        double topKey2() {
+            return this.keys2[0];
+        }
+
+        void insert(int node, double key1, int links, double key2) {
+            if (this.size == this.heap.length) {
+                this.heap = Arrays.copyOf(this.heap, this.size * 2);
+                this.keys1 = Arrays.copyOf(this.keys1, this.size * 2);
+                this.links = Arrays.copyOf(this.links, this.size * 2);
+                this.keys2 = Arrays.copyOf(this.keys2, this.size * 2);
+            }
+            siftUp(this.size++, node, key1, links, key2);
+        }
+
+        int removeFirst() {
+            int first = this.heap[0];
+            remove(first);
+            return first;
+        }
+
+        void remove(int node) {
+            int index = this.positions[node];
+            this.positions[node] = -1;
+            this.size--;
+            if (index < this.size) {
+                //Move the last node into the empty slot and let it find its place
+                int last = this.heap[this.size];
+                double key1 = this.keys1[this.size];
+                int links = this.links[this.size];
+                double key2 = this.keys2[this.size];
+                if (index > 0 && compareTo(key1, links, key2, (index - 1) >>> 1) < 0) {
+                    siftUp(index, last, key1, links, key2);
+                }
+                else {
+                    siftDown(index, last, key1, links, key2);
+                }
+            }
+        }
+
+        /**
+         * Compares the key (key1, links, key2) with the key of a heap slot
+         * @return a negative number, zero or a positive number if the key is less than, equal to or greater than the slot's key
+         */
+        private int compareTo(double key1, int links, double key2, int index) {
+            int result = Double.compare(key1, this.keys1[index]);
+            if (result == 0) {
+                result = Integer.compare(links, this.links[index]);
+            }
+            return result != 0 ? result : Double.compare(key2, this.keys2[index]);
+        }
+
+        private void siftUp(int index, int node, double key1, int links, double key2) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (compareTo(key1, links, key2, parent) >= 0) {
+                    break;
+                }
+                move(parent, index);
+                index = parent;
+            }
+            set(index, node, key1, links, key2);
+        }
+
+        private void siftDown(int index, int node, double key1, int links, double key2) {
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= this.size) {
+                    break;
+                }
+                if (child + 1 < this.size && compareTo(this.keys1[child + 1], this.links[child + 1], this.keys2[child + 1], child) < 0) {
+                    child++;
+                }
+                if (compareTo(key1, links, key2, child) <= 0) {
+                    break;
+                }
+                move(child, index);
+                index = child;
+            }
+            set(index, node, key1, links, key2);
+        }
+
+        /**
+         * Moves the node in heap slot from to heap slot to
+         */
+        private void move(int from, int to) {
+            set(to, this.heap[from], this.keys1[from], this.links[from], this.keys2[from]);
+        }
+
+        private void set(int index, int node, double key1, int links, double key2) {
+            this.heap[index] = node;
+            this.keys1[index] = key1;
+            this.links[index] = links;
+            this.keys2[index] = key2;
+            this.positions[node] = index;
+        }
+    }
+}
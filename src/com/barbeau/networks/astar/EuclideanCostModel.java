@@ -0,0 +1,44 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+/**
+ * This class measures the cost of a path as its length (the SHORTEST_DISTANCE heuristic).  Each link costs its length,
+ * and the estimated cost to the goal is the straight line distance D = sqrt( (x2-x1)squared + (y2-y1)squared ), which
+ * is an underestimate of the total distance to the goal.
+ * @author Sean J. Barbeau
+ */
+public final class EuclideanCostModel implements CostModel {
+
+    @Override
+    public double getCost(CsrGraph graph, int node, int edge) {
+        return graph.getWeight(edge);
+    }
+
+    @Override
+    public double getEstimatedCostToGoal(CsrGraph graph, int node, int goal) {
+        double dx = graph.getX(node) - graph.getX(goal);
+        double dy = graph.getY(node) - graph.getY(goal);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    @Override
+    public String toString() {
+        return "Shortest Distance";
+    }
+}
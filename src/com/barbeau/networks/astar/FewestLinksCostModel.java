@@ -0,0 +1,46 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+/**
+ * This class measures the cost of a path as the number of links on it (the FEWEST_LINKS heuristic)
+ * @author Sean J. Barbeau
+ */
+public final class FewestLinksCostModel implements CostModel {
+
+    /**
+     * Returns the cost of traveling a link, which is 1 for every link
+     */
+    @Override
+    public double getCost(CsrGraph graph, int node, int edge) {
+        return 1;
+    }
+
+    /**
+     * Estimates the cost from a node to the goal - it is known that 1 will definitely be an underestimate, so 1 is used
+     */
+    @Override
+    public double getEstimatedCostToGoal(CsrGraph graph, int node, int goal) {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "Fewest Links";
+    }
+}
@@ -0,0 +1,282 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import com.barbeau.networks.SearchSpace;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class reads and writes graphs in a compact binary file format, so large networks don't have to be parsed from
+ * the location and connection text files each time the application starts.  A file holds a header followed by the
+ * arrays of a CsrGraph, each starting on an 8 byte boundary:
+ *
+ *   header        - magic number, version, number of nodes, number of edges and number of bytes of node names
+ *   offsets       - int per node + 1, the first edge of each node
+ *   targets       - int per edge, the node at the end of each edge
+ *   weights       - float per edge, the length of each edge
+ *   x, y          - int per node each, the coordinates of each node
+ *   label offsets - int per node + 1, the first byte of the name of each node in the name bytes
+ *   enabled       - byte per node, 1 if the node is enabled and 0 if it is disabled
+ *   names         - the UTF-8 bytes of the names of the nodes, one after the other
+ *
+ * All values are little-endian.  open() maps each array into memory with FileChannel.map() and the CsrGraph reads them
+ * in place, so opening a file is O(1) no matter how large it is - the operating system pages the arrays in as the searches
+ * touch them.  The file should not be changed while a graph opened from it is in use.
+ * @author Sean J. Barbeau
+ */
+public class GraphFile {
+
+    //Identifies graph files, and the version of their format
+    private static final int FILE_MAGIC = 0x47524631;  //"GRF1"
+    private static final int FILE_VERSION = 1;
+
+    private static final int HEADER_SIZE = 24;  //Bytes before the first array
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;  //Bytes written to the file at a time
+
+    private GraphFile() {
+    }
+
+    /**
+     * Writes the current nodes, connections, locations and enabled states of a search space to a graph file
+     * @param searchSpace search space of NodeXY nodes
+     * @param file file to write to
+     * @throws IOException if the file can't be written
+     */
+    public static void write(SearchSpace searchSpace, File file) throws IOException {
+        write(CsrGraph.fromSearchSpace(searchSpace), file);
+    }
+
+    /**
+     * Writes a graph to a graph file
+     * @param graph graph to write
+     * @param file file to write to
+     * @throws IOException if the file can't be written
+     */
+    public static void write(CsrGraph graph, File file) throws IOException {
+        int numNodes = graph.getNodeSize();
+        int numEdges = graph.getEdgeSize();
+
+        //Encode the names first, since their total size is part of the header
+        byte[][] labels = new byte[numNodes][];
+        long labelSize = 0;
+        for (int i = 0; i < numNodes; i++) {
+            labels[i] = graph.getLabel(i).getBytes(StandardCharsets.UTF_8);
+            labelSize += labels[i].length;
+        }
+        if (labelSize > Integer.MAX_VALUE) {
+            throw new IOException("Node names take " + labelSize + " bytes, which is too many for a graph file");
+        }
+
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            FileChannel channel = out.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(FILE_MAGIC);
+            buffer.putInt(FILE_VERSION);
+            buffer.putInt(numNodes);
+            buffer.putInt(numEdges);
+            buffer.putLong(labelSize);
+
+            for (int i = 0; i <= numNodes; i++) {
+                putInt(channel, buffer, graph.getFirstEdge(i));
+            }
+            pad(channel, buffer);
+            for (int e = 0; e < numEdges; e++) {
+                putInt(channel, buffer, graph.getTarget(e));
+            }
+            pad(channel, buffer);
+            for (int e = 0; e < numEdges; e++) {
+                if (buffer.remaining() < 4) {
+                    flush(channel, buffer);
+                }
+                buffer.putFloat(graph.getWeight(e));
+            }
+            pad(channel, buffer);
+            for (int i = 0; i < numNodes; i++) {
+                putInt(channel, buffer, graph.getX(i));
+            }
+            pad(channel, buffer);
+            for (int i = 0; i < numNodes; i++) {
+                putInt(channel, buffer, graph.getY(i));
+            }
+            pad(channel, buffer);
+            int labelOffset = 0;
+            for (int i = 0; i < numNodes; i++) {
+                putInt(channel, buffer, labelOffset);
+                labelOffset += labels[i].length;
+            }
+            putInt(channel, buffer, labelOffset);
+            pad(channel, buffer);
+            for (int i = 0; i < numNodes; i++) {
+                if (buffer.remaining() < 1) {
+                    flush(channel, buffer);
+                }
+                buffer.put(graph.isEnabled(i) ? (byte) 1 : (byte) 0);
+            }
+            pad(channel, buffer);
+            for (int i = 0; i < numNodes; i++) {
+                for (int j = 0; j < labels[i].length; j++) {
+                    if (buffer.remaining() < 1) {
+                        flush(channel, buffer);
+                    }
+                    buffer.put(labels[i][j]);
+                }
+            }
+            flush(channel, buffer);
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Opens a graph file by mapping its arrays into memory.  Only the header is read, so this is O(1) - the arrays are
+     * read by the searches directly from the mapped file.
+     * @param file file to open
+     * @return the graph held in the file
+     * @throws IOException if the file can't be read or is not a graph file
+     */
+    public static CsrGraph open(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = in.getChannel();
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file + " is not a graph file");
+            }
+            ByteBuffer header = map(channel, 0, HEADER_SIZE);
+            if (header.getInt() != FILE_MAGIC || header.getInt() != FILE_VERSION) {
+                throw new IOException(file + " is not a graph file");
+            }
+            int numNodes = header.getInt();
+            int numEdges = header.getInt();
+            long labelSize = header.getLong();
+            if (numNodes < 0 || numEdges < 0 || labelSize < 0 || labelSize > Integer.MAX_VALUE) {
+                throw new IOException(file + " has a corrupt header");
+            }
+
+            //Find where each array starts
+            long offsetsStart = HEADER_SIZE;
+            long targetsStart = align(offsetsStart + 4L * (numNodes + 1));
+            long weightsStart = align(targetsStart + 4L * numEdges);
+            long xStart = align(weightsStart + 4L * numEdges);
+            long yStart = align(xStart + 4L * numNodes);
+            long labelOffsetsStart = align(yStart + 4L * numNodes);
+            long enabledStart = align(labelOffsetsStart + 4L * (numNodes + 1));
+            long labelsStart = align(enabledStart + numNodes);
+            if (channel.size() < labelsStart + labelSize) {
+                throw new IOException(file + " is truncated - it has " + channel.size() + " bytes, but should have " + (labelsStart + labelSize));
+            }
+
+            //The mappings stay valid after the file is closed
+            return new CsrGraph(map(channel, offsetsStart, 4L * (numNodes + 1)).asIntBuffer(),
+                                map(channel, targetsStart, 4L * numEdges).asIntBuffer(),
+                                map(channel, weightsStart, 4L * numEdges).asFloatBuffer(),
+                                map(channel, xStart, 4L * numNodes).asIntBuffer(),
+                                map(channel, yStart, 4L * numNodes).asIntBuffer(),
+                                map(channel, enabledStart, numNodes),
+                                map(channel, labelOffsetsStart, 4L * (numNodes + 1)).asIntBuffer(),
+                                map(channel, labelsStart, labelSize));
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns true if a file is a graph file (it starts with the magic number of graph files)
+     * @param file file to check
+     * @return true if the file is a graph file, false if it isn't or can't be read
+     */
+    public static boolean isGraphFile(File file) {
+        if (file.isFile() == false || file.length() < HEADER_SIZE) {
+            return false;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new FileInputStream(file));
+            try {
+                return Integer.reverseBytes(in.readInt()) == FILE_MAGIC;
+            }
+            finally {
+                in.close();
+            }
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Maps part of a file into memory as a little-endian buffer
+     */
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Array of " + size + " bytes is too large to map");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Rounds a file position up to the next 8 byte boundary
+     */
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Adds an int to the write buffer, writing the buffer to the file first if it is full
+     */
+    private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            flush(channel, buffer);
+        }
+        buffer.putInt(value);
+    }
+
+    /**
+     * Adds zero bytes to the write buffer until the file position is on an 8 byte boundary.  The buffer size is a multiple
+     * of 8, so the position in the buffer is on the same boundary as the position in the file.
+     */
+    private static void pad(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while ((buffer.position() & 7) != 0) {
+            buffer.put((byte) 0);
+        }
+        if (buffer.remaining() == 0) {
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Writes the contents of the write buffer to the file and empties it
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,418 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import java.util.Arrays;
+
+/**
+ * This class is a uniform-cost grid view of a CsrGraph whose nodes sit on a regular lattice (every node at
+ * (minX + column * stepX, minY + row * stepY)) and whose links join each node to all of its 8 neighbours, e.g. a
+ * warehouse map loaded from the usual location and connection files.  Each cell of the grid maps to the node at that
+ * location, and a dense bitmap marks the blocked cells - cells with no node, or whose node is disabled (Node.enabled).
+ * Like the links of the CsrGraph, a diagonal move only needs the cell it enters to be open.
+ *
+ * Moving straight costs stepX or stepY and moving diagonally sqrt(stepX^2 + stepY^2) (every move costs 1 for the
+ * FEWEST_LINKS heuristic), which is the length of the links of the CsrGraph, so paths found on the grid cost the same
+ * as on the graph.  The octile distance (diagonal moves until the goal is in the same row or column, then straight
+ * moves) is the cost of the best path between two cells when nothing is blocked, so it never overestimates.
+ *
+ * The jump distances used by JPS+ (see JumpPointEngine) are computed the first time they are needed.
+ * @author Sean J. Barbeau
+ */
+public class GridGraph {
+
+    //Number of directions a cell can be left in
+    public static final int NUM_DIRECTIONS = 8;
+
+    //Column and row step of each direction - east, south-east, south, south-west, west, north-west, north, north-east
+    private static final int[] DIRECTION_X = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] DIRECTION_Y = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    private final CsrGraph graph;  //Graph the grid was created from
+    private final int width;  //Number of columns
+    private final int height;  //Number of rows
+    private final int minX;  //X coordinate of column 0
+    private final int minY;  //Y coordinate of row 0
+    private final int stepX;  //Distance between columns
+    private final int stepY;  //Distance between rows
+    private final int[] cellNodes;  //Id of the node in each cell (row * width + column), or -1 if the cell has none
+    private final int[] nodeCells;  //Cell of each node
+    private final long[] blocked;  //Bitmap of the blocked cells, 64 cells per word
+    private volatile int[] jumpDistances = null;  //JPS+ jump distance of each cell and direction, created the first time they are needed
+
+    private GridGraph(CsrGraph graph, int width, int height, int minX, int minY, int stepX, int stepY, int[] cellNodes, int[] nodeCells) {
+        this.graph = graph;
+        this.width = width;
+        this.height = height;
+        this.minX = minX;
+        this.minY = minY;
+        this.stepX = stepX;
+        this.stepY = stepY;
+        this.cellNodes = cellNodes;
+        this.nodeCells = nodeCells;
+        this.blocked = new long[(width * height + 63) >>> 6];
+        for (int cell = 0; cell < cellNodes.length; cell++) {
+            if (cellNodes[cell] == -1 || graph.isEnabled(cellNodes[cell]) == false) {
+                this.blocked[cell >>> 6] |= 1L << cell;
+            }
+        }
+    }
+
+    /**
+     * Creates the grid view of a graph.  This is O(nodes + links), so it should be done once per graph.
+     * @param graph graph whose nodes sit on a regular lattice, with links from each node to all of its 8 neighbours
+     * @return the grid view of the graph
+     * @throws IllegalArgumentException if the nodes aren't on a regular lattice or aren't linked to all 8 neighbours
+     */
+    public static GridGraph fromCsrGraph(CsrGraph graph) {
+        int numNodes = graph.getNodeSize();
+        if (numNodes == 0) {
+            throw new IllegalArgumentException("Graph has no nodes");
+        }
+
+        //The lattice steps are the smallest gaps between the different X and Y coordinates
+        int[] xs = new int[numNodes];
+        int[] ys = new int[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            xs[i] = graph.getX(i);
+            ys[i] = graph.getY(i);
+        }
+        int stepX = getStep(xs);
+        int stepY = getStep(ys);
+        int minX = xs[0];
+        int minY = ys[0];
+        long width = (xs[numNodes - 1] - minX) / stepX + 1;
+        long height = (ys[numNodes - 1] - minY) / stepY + 1;
+        if (width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid of " + width + " x " + height + " cells is too large");
+        }
+
+        //Place each node in its cell
+        int[] cellNodes = new int[(int) (width * height)];
+        Arrays.fill(cellNodes, -1);
+        int[] nodeCells = new int[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            int dx = graph.getX(i) - minX;
+            int dy = graph.getY(i) - minY;
+            if (dx % stepX != 0 || dy % stepY != 0) {
+                throw new IllegalArgumentException("Node " + graph.getLabel(i) + " isn't on a regular grid");
+            }
+            int cell = (dy / stepY) * (int) width + dx / stepX;
+            if (cellNodes[cell] != -1) {
+                throw new IllegalArgumentException("Nodes " + graph.getLabel(cellNodes[cell]) + " and " + graph.getLabel(i) + " are at the same location");
+            }
+            cellNodes[cell] = i;
+            nodeCells[i] = cell;
+        }
+
+        //Each node must be linked to exactly the nodes in its 8 neighbouring cells
+        GridGraph grid = new GridGraph(graph, (int) width, (int) height, minX, minY, stepX, stepY, cellNodes, nodeCells);
+        for (int i = 0; i < numNodes; i++) {
+            int column = grid.getColumn(nodeCells[i]);
+            int row = grid.getRow(nodeCells[i]);
+            int numNeighbours = 0;
+            for (int d = 0; d < NUM_DIRECTIONS; d++) {
+                if (grid.getNode(column + DIRECTION_X[d], row + DIRECTION_Y[d]) != -1) {
+                    numNeighbours++;
+                }
+            }
+            int lastEdge = graph.getFirstEdge(i + 1);
+            for (int e = graph.getFirstEdge(i); e < lastEdge; e++) {
+                int target = nodeCells[graph.getTarget(e)];
+                if (Math.abs(grid.getColumn(target) - column) > 1 || Math.abs(grid.getRow(target) - row) > 1 || target == nodeCells[i]) {
+                    throw new IllegalArgumentException("Link from " + graph.getLabel(i) + " to " + graph.getLabel(graph.getTarget(e)) + " doesn't join neighbouring cells");
+                }
+            }
+            if (lastEdge - graph.getFirstEdge(i) != numNeighbours) {
+                throw new IllegalArgumentException("Node " + graph.getLabel(i) + " isn't linked to each of its " + numNeighbours + " neighbours once");
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Sorts the coordinates and returns the smallest gap between two different ones (1 if they are all the same)
+     */
+    private static int getStep(int[] coordinates) {
+        Arrays.sort(coordinates);
+        int step = 0;
+        for (int i = 1; i < coordinates.length; i++) {
+            int gap = coordinates[i] - coordinates[i - 1];
+            if (gap > 0 && (step == 0 || gap < step)) {
+                step = gap;
+            }
+        }
+        return step == 0 ? 1 : step;
+    }
+
+    /**
+     * Returns the graph the grid was created from
+     * @return the graph the grid was created from
+     */
+    public CsrGraph getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * Returns the number of columns of the grid
+     * @return the number of columns
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Returns the number of rows of the grid
+     * @return the number of rows
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Returns the cell of a node.  Cells are numbered row * getWidth() + column.
+     * @param node id of the node
+     * @return the cell of the node
+     */
+    public int getCell(int node) {
+        return this.nodeCells[node];
+    }
+
+    /**
+     * Returns the column of a cell
+     * @param cell number of the cell
+     * @return the column of the cell
+     */
+    public int getColumn(int cell) {
+        return cell % this.width;
+    }
+
+    /**
+     * Returns the row of a cell
+     * @param cell number of the cell
+     * @return the row of the cell
+     */
+    public int getRow(int cell) {
+        return cell / this.width;
+    }
+
+    /**
+     * Returns the node in a cell
+     * @param column column of the cell
+     * @param row row of the cell
+     * @return id of the node in the cell, or -1 if the cell is outside the grid or has no node
+     */
+    public int getNode(int column, int row) {
+        if (column < 0 || row < 0 || column >= this.width || row >= this.height) {
+            return -1;
+        }
+        return this.cellNodes[row * this.width + column];
+    }
+
+    /**
+     * Returns true if a cell can be entered - it is inside the grid, and has a node that is enabled
+     * @param column column of the cell
+     * @param row row of the cell
+     * @return true if the cell can be entered
+     */
+    public boolean isOpen(int column, int row) {
+        if (column < 0 || row < 0 || column >= this.width || row >= this.height) {
+            return false;
+        }
+        int cell = row * this.width + column;
+        return (this.blocked[cell >>> 6] & (1L << cell)) == 0;
+    }
+
+    /**
+     * Returns the column step of a direction
+     * @param direction direction, from 0 (east) clockwise to 7 (north-east) with rows growing to the south
+     * @return -1, 0 or 1
+     */
+    public static int getDirectionX(int direction) {
+        return DIRECTION_X[direction];
+    }
+
+    /**
+     * Returns the row step of a direction
+     * @param direction direction, from 0 (east) clockwise to 7 (north-east) with rows growing to the south
+     * @return -1, 0 or 1
+     */
+    public static int getDirectionY(int direction) {
+        return DIRECTION_Y[direction];
+    }
+
+    /**
+     * Returns the direction with the given column and row steps
+     * @param dx column step (-1, 0 or 1)
+     * @param dy row step (-1, 0 or 1)
+     * @return the direction, or -1 if both steps are 0
+     */
+    public static int getDirection(int dx, int dy) {
+        for (int d = 0; d < NUM_DIRECTIONS; d++) {
+            if (DIRECTION_X[d] == dx && DIRECTION_Y[d] == dy) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the cost of moving a number of cells in a straight line according to a heuristic
+     * @param steps number of cells moved
+     * @param direction direction of the moves
+     * @param fewestLinks true to count the links moved over (Fewest Links), false to measure their length
+     * @return the cost of the moves
+     */
+    public double getMoveCost(int steps, int direction, boolean fewestLinks) {
+        if (fewestLinks) {
+            //Fewest Links - every link costs 1
+            return steps;
+        }
+        if (DIRECTION_X[direction] == 0) {
+            return steps * (double) this.stepY;
+        }
+        if (DIRECTION_Y[direction] == 0) {
+            return steps * (double) this.stepX;
+        }
+        return steps * getDiagonalCost();
+    }
+
+    /**
+     * Returns the octile distance between two cells according to a heuristic - the cost of the best path between them
+     * if no cell is blocked, which is never an overestimate
+     * @param cellA number of the first cell
+     * @param cellB number of the second cell
+     * @param fewestLinks true to count the links on the path (Fewest Links), false to measure its length
+     * @return the octile distance between the cells
+     */
+    public double getOctileDistance(int cellA, int cellB, boolean fewestLinks) {
+        int dx = Math.abs(getColumn(cellA) - getColumn(cellB));
+        int dy = Math.abs(getRow(cellA) - getRow(cellB));
+        int diagonal = Math.min(dx, dy);
+        if (fewestLinks) {
+            //Fewest Links - a diagonal move covers a column and a row for the cost of 1
+            return Math.max(dx, dy);
+        }
+        return diagonal * getDiagonalCost() + (dx - diagonal) * (double) this.stepX + (dy - diagonal) * (double) this.stepY;
+    }
+
+    /**
+     * Returns the length of a diagonal move, rounded like the link lengths of the CsrGraph
+     */
+    private double getDiagonalCost() {
+        return (float) Math.sqrt((double) this.stepX * this.stepX + (double) this.stepY * this.stepY);
+    }
+
+    /**
+     * Returns the JPS+ jump distance of a cell in a direction, ignoring the goal.  A positive distance d means moving
+     * from the cell in that direction reaches a jump point (a cell where the best path may turn) after d moves.  Zero or
+     * a negative distance -d means no jump point is reached, and the last open cell in that direction is d moves away.
+     * @param cell number of the cell
+     * @param direction direction of the moves
+     * @return the jump distance
+     */
+    public int getJumpDistance(int cell, int direction) {
+        int[] result = this.jumpDistances;
+        if (result == null) {
+            synchronized (this) {
+                result = this.jumpDistances;
+                if (result == null) {
+                    result = computeJumpDistances();
+                    this.jumpDistances = result;
+                }
+            }
+        }
+        return result[cell * NUM_DIRECTIONS + direction];
+    }
+
+    /**
+     * Returns true if cell (column, row) has a forced neighbour when it is entered moving in a direction - an open
+     * neighbour that the best path can only reach through this cell, because the cell beside it is blocked
+     * @param column column of the cell
+     * @param row row of the cell
+     * @param direction direction the cell is entered in
+     * @return true if the cell has a forced neighbour
+     */
+    public boolean hasForcedNeighbour(int column, int row, int direction) {
+        int dx = DIRECTION_X[direction];
+        int dy = DIRECTION_Y[direction];
+        if (dx != 0 && dy != 0) {
+            return (isOpen(column - dx, row + dy) && isOpen(column - dx, row) == false)
+                    || (isOpen(column + dx, row - dy) && isOpen(column, row - dy) == false);
+        }
+        if (dx != 0) {
+            return (isOpen(column + dx, row + 1) && isOpen(column, row + 1) == false)
+                    || (isOpen(column + dx, row - 1) && isOpen(column, row - 1) == false);
+        }
+        return (isOpen(column + 1, row + dy) && isOpen(column + 1, row) == false)
+                || (isOpen(column - 1, row + dy) && isOpen(column - 1, row) == false);
+    }
+
+    /**
+     * Returns true if cell (column, row) is a jump point when it is entered moving in a direction, ignoring the goal -
+     * it has a forced neighbour, or it is entered diagonally and a straight move from it reaches a jump point
+     * @param distances jump distances, which must already hold the straight directions for a diagonal direction
+     */
+    private boolean isJumpPoint(int column, int row, int direction, int[] distances) {
+        if (hasForcedNeighbour(column, row, direction)) {
+            return true;
+        }
+        int dx = DIRECTION_X[direction];
+        int dy = DIRECTION_Y[direction];
+        if (dx != 0 && dy != 0) {
+            int cell = row * this.width + column;
+            return distances[cell * NUM_DIRECTIONS + getDirection(dx, 0)] > 0 || distances[cell * NUM_DIRECTIONS + getDirection(0, dy)] > 0;
+        }
+        return false;
+    }
+
+    /**
+     * Computes the jump distances of every cell, the straight directions first since the diagonal ones depend on them.
+     * The cells of each direction are visited from the far side, so the next cell in the direction is always done first.
+     */
+    private int[] computeJumpDistances() {
+        int[] distances = new int[this.width * this.height * NUM_DIRECTIONS];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int d = 0; d < NUM_DIRECTIONS; d++) {
+                int dx = DIRECTION_X[d];
+                int dy = DIRECTION_Y[d];
+                if ((dx != 0 && dy != 0) != (pass == 1)) {
+                    continue;
+                }
+                for (int i = 0; i < this.height; i++) {
+                    int row = dy > 0 ? this.height - 1 - i : i;
+                    for (int j = 0; j < this.width; j++) {
+                        int column = dx > 0 ? this.width - 1 - j : j;
+                        int distance;
+                        if (isOpen(column + dx, row + dy) == false) {
+                            distance = 0;
+                        }
+                        else if (isJumpPoint(column + dx, row + dy, d, distances)) {
+                            distance = 1;
+                        }
+                        else {
+                            int next = distances[((row + dy) * this.width + column + dx) * NUM_DIRECTIONS + d];
+                            distance = next > 0 ? next + 1 : next - 1;
+                        }
+                        distances[(row * this.width + column) * NUM_DIRECTIONS + d] = distance;
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+}
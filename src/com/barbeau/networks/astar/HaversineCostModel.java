@@ -0,0 +1,62 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+/**
+ * This class measures the cost of a path as its length in meters over the surface of the Earth, for graphs whose node
+ * coordinates are longitudes (X) and latitudes (Y).  Each link costs the great circle distance between its nodes,
+ * measured with the haversine formula, and the estimated cost to the goal is the great circle distance to the goal,
+ * which is never more than the cost of any path to it.
+ * @author Sean J. Barbeau
+ */
+public final class HaversineCostModel implements CostModel {
+
+    //Mean radius of the Earth in meters
+    public static final double EARTH_RADIUS = 6371008.8;
+
+    private final double radiansPerUnit;  //Angle of one unit of the node coordinates, in radians
+
+    /**
+     * Creates a new HaversineCostModel
+     * @param degreesPerUnit degrees of longitude or latitude in one unit of the node coordinates (e.g. 0.000001 if the
+     * coordinates are in millionths of a degree)
+     */
+    public HaversineCostModel(double degreesPerUnit) {
+        this.radiansPerUnit = Math.toRadians(degreesPerUnit);
+    }
+
+    @Override
+    public double getCost(CsrGraph graph, int node, int edge) {
+        return getEstimatedCostToGoal(graph, node, graph.getTarget(edge));
+    }
+
+    @Override
+    public double getEstimatedCostToGoal(CsrGraph graph, int node, int goal) {
+        double latitudeA = graph.getY(node) * this.radiansPerUnit;
+        double latitudeB = graph.getY(goal) * this.radiansPerUnit;
+        double sinLatitude = Math.sin((latitudeB - latitudeA) / 2);
+        double sinLongitude = Math.sin((graph.getX(goal) - graph.getX(node)) * this.radiansPerUnit / 2);
+        double a = sinLatitude * sinLatitude + Math.cos(latitudeA) * Math.cos(latitudeB) * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    @Override
+    public String toString() {
+        return "Great Circle Distance";
+    }
+}
@@ -16,11 +16,31 @@
 package com.barbeau.networks.astar;
 
 /**
- * This enumeration defines heuristics that can be used with the A* algorithm.
+ * This enumeration defines the built-in heuristics that can be chosen for the A* algorithm.  Each one is measured by a
+ * CostModel, returned by getCostModel().  Other heuristics can be used by passing a CostModel to the engines directly.
  * 
  * @author Sean J. Barbeau
  */
 public enum Heuristic {
     FEWEST_LINKS, 
-    SHORTEST_DISTANCE //Shortest Distance - measure the distance between nodes using D = sqrt( (x2-x1)squared + (y2-y1)squared )
+    SHORTEST_DISTANCE, //Shortest Distance - measure the distance between nodes using D = sqrt( (x2-x1)squared + (y2-y1)squared )
+    LANDMARKS; //Landmarks (ALT) - cost is the distance between nodes, estimated using precomputed distances to and from landmark nodes (see LandmarkTable)
+
+    /**
+     * Returns the cost model that measures this heuristic on a graph.  Engines call this once per search and then call
+     * the cost model directly for each link and node.
+     * @param graph graph that will be searched
+     * @return the cost model of this heuristic for the graph
+     */
+    public CostModel getCostModel(CsrGraph graph) {
+        switch (this) {
+            case SHORTEST_DISTANCE:
+                return new EuclideanCostModel();
+            case LANDMARKS:
+                return new LandmarkCostModel(graph.getLandmarks());
+            case FEWEST_LINKS:
+            default:
+                return new FewestLinksCostModel();
+        }
+    }
 }
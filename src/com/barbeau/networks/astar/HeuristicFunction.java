@@ -0,0 +1,35 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+/**
+ * This interface estimates the cost of the least expensive path from a node of a graph to the goal node (h(n) in A*).
+ * For the engines to find the least expensive path, an estimate must never be more than the real cost of the path.
+ * @author Sean J. Barbeau
+ */
+public interface HeuristicFunction {
+
+    /**
+     * Estimates the cost of the least expensive path from a node to the goal
+     * @param graph graph being searched
+     * @param node id of the node
+     * @param goal id of the goal node
+     * @return estimated cost from the node to the goal, which must not be more than the real cost
+     */
+    public double getEstimatedCostToGoal(CsrGraph graph, int node, int goal);
+}
@@ -0,0 +1,238 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import java.util.Arrays;
+
+/**
+ * This class is the iterative deepening A* (IDA*) routing engine.  Instead of lists of available and visited nodes, it
+ * runs depth-first searches that follow a path only while its total cost f(n) = g(n) + h(n) stays within a bound, and
+ * raises the bound to the smallest f(n) that went over it when a search ends without finding the goal.  The only memory
+ * it needs is the current path, so it can search graphs far too large for the lists of A*, at the price of expanding
+ * nodes again in each iteration (and on each path that reaches them).
+ * When the costs are real numbers (e.g. the Shortest Distance heuristic), nearly every iteration would only let in one
+ * more node, so the bound is raised by at least boundGrowth each time.  Once a path is found, the rest of the iteration
+ * only looks for cheaper ones, so the path found is still the least expensive.
+ * NOTE:  IDA* doesn't remember the nodes it has expanded, so the number of paths it tries can grow exponentially with the
+ * bound - on a network with many crossing paths even a reachable goal can take hours, and an unreachable one means every
+ * path has to be tried.  So the search gives up (and reports that no path was found) once it has expanded maxExpansions
+ * nodes, or once the bound is larger than maxBound.
+ * @author Sean J. Barbeau
+ */
+public class IdaStarEngine implements RoutingEngine {
+
+    //Default fraction the bound is raised by (at least) after each iteration
+    public static final double DEFAULT_BOUND_GROWTH = 0.01;
+
+    //Default number of node expansions before the search gives up
+    public static final int DEFAULT_MAX_EXPANSIONS = 1000000;
+
+    //Listener used when the caller doesn't want to receive search events
+    private static final SearchListener NO_LISTENER = new SearchAdapter() {};
+
+    private final double boundGrowth;  //Fraction the bound is raised by (at least) after each iteration
+    private final double maxBound;  //Largest bound searched before giving up
+    private final int maxExpansions;  //Number of node expansions before the search gives up
+
+    /**
+     * Creates a new IdaStarEngine that raises the bound by DEFAULT_BOUND_GROWTH and gives up after DEFAULT_MAX_EXPANSIONS
+     * node expansions
+     */
+    public IdaStarEngine() {
+        this(DEFAULT_BOUND_GROWTH, Double.POSITIVE_INFINITY, DEFAULT_MAX_EXPANSIONS);
+    }
+
+    /**
+     * Creates a new IdaStarEngine
+     * @param boundGrowth fraction the bound is raised by (at least) after each iteration, e.g. 0 to raise it only as far as needed
+     * @param maxBound largest bound searched before giving up, or infinity for no limit on the bound
+     * @param maxExpansions number of node expansions before the search gives up, or Integer.MAX_VALUE for no limit
+     */
+    public IdaStarEngine(double boundGrowth, double maxBound, int maxExpansions) {
+        if (maxExpansions < 1) {
+            throw new IllegalArgumentException("IDA* needs at least 1 node expansion, not " + maxExpansions);
+        }
+        this.boundGrowth = boundGrowth;
+        this.maxBound = maxBound;
+        this.maxExpansions = maxExpansions;
+    }
+
+    /**
+     * Returns the number of node expansions before the search gives up
+     * @return the number of node expansions
+     */
+    public int getMaxExpansions() {
+        return this.maxExpansions;
+    }
+
+    /**
+     * Searches for the least expensive path from start to goal, reporting progress to a listener
+     * @param graph graph to run the search on
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param costModel cost model that measures the cost of each link and estimates the cost to the goal
+     * @param listener listener that receives the progress of the search, or null
+     * @return the result of the search
+     */
+    @Override
+    public PathResult search(CsrGraph graph, int start, int goal, CostModel costModel, SearchListener listener) {
+
+        if (listener == null) {
+            listener = NO_LISTENER;
+        }
+
+        //The current path - node, cost from the start and next edge to follow of each node on it
+        int[] pathNodes = new int[16];
+        double[] pathCosts = new double[16];
+        int[] nextEdges = new int[16];
+
+        int numIterations = 0;
+        int peakNodes = 1;
+        int[] bestPath = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+
+        if (start == goal) {
+            bestPath = new int[] {start};
+            bestCost = 0;
+        }
+        else if (graph.isEnabled(goal) == true) {
+            //(A DISABLED goal can't be reached, so it isn't searched for)
+            double bound = costModel.getEstimatedCostToGoal(graph, start, goal);
+
+            boolean givenUp = false;
+            while (bestPath == null && bound <= this.maxBound && givenUp == false) {
+                if (numIterations >= this.maxExpansions) {
+                    //Out of expansions before the next iteration
+                    break;
+                }
+
+                //Smallest f(n) that went over the bound in this iteration
+                double nextBound = Double.POSITIVE_INFINITY;
+
+                //Start a depth-first search from the start node
+                int depth = 1;
+                pathNodes[0] = start;
+                pathCosts[0] = 0;
+                nextEdges[0] = graph.getFirstEdge(start);
+                numIterations++;
+                listener.nodeExpanded(start, 0, costModel.getEstimatedCostToGoal(graph, start, goal));
+
+                while (depth > 0) {
+                    int a = pathNodes[depth - 1];
+                    int e = nextEdges[depth - 1];
+
+                    if (e == graph.getFirstEdge(a + 1)) {
+                        //All links leaving a have been followed, so go back to the node before it
+                        depth--;
+                        listener.nodeClosed(a);
+                        continue;
+                    }
+                    nextEdges[depth - 1]++;
+
+                    int b = graph.getTarget(e);
+                    listener.linkTraveled(a, b);
+
+                    if (graph.isEnabled(b) == false) {
+                        //Node has been DISABLED, so it cannot be part of the path
+                        listener.nodeDisabled(a, b);
+                        continue;
+                    }
+                    if (isOnPath(pathNodes, depth, b)) {
+                        //Going back to a node already on the path can't lead to a cheaper path
+                        listener.nodeRejected(b);
+                        continue;
+                    }
+
+                    double costFromStart = pathCosts[depth - 1] + costModel.getCost(graph, a, e);
+                    double estCostToGoal = costModel.getEstimatedCostToGoal(graph, b, goal);
+                    double totalCost = costFromStart + estCostToGoal;
+
+                    if (totalCost >= bestCost) {
+                        //Can't be cheaper than the path already found
+                        listener.nodeRejected(b);
+                        continue;
+                    }
+                    if (totalCost > bound) {
+                        //Over the bound - this node will be searched in a later iteration
+                        nextBound = Math.min(nextBound, totalCost);
+                        listener.nodeRejected(b);
+                        continue;
+                    }
+
+                    if (b == goal) {
+                        //Found a path - keep searching this iteration for a cheaper one
+                        bestCost = costFromStart;
+                        bestPath = Arrays.copyOf(pathNodes, depth + 1);
+                        bestPath[depth] = b;
+                        peakNodes = Math.max(peakNodes, depth + 1);
+                        continue;
+                    }
+
+                    if (numIterations >= this.maxExpansions) {
+                        //Out of expansions - a path found in this iteration might not be the least expensive, so drop it
+                        givenUp = true;
+                        bestPath = null;
+                        break;
+                    }
+
+                    //Follow the path to b
+                    if (depth == pathNodes.length) {
+                        pathNodes = Arrays.copyOf(pathNodes, depth * 2);
+                        pathCosts = Arrays.copyOf(pathCosts, depth * 2);
+                        nextEdges = Arrays.copyOf(nextEdges, depth * 2);
+                    }
+                    pathNodes[depth] = b;
+                    pathCosts[depth] = costFromStart;
+                    nextEdges[depth] = graph.getFirstEdge(b);
+                    depth++;
+                    peakNodes = Math.max(peakNodes, depth);
+                    numIterations++;
+                    listener.nodeAdded(b, costFromStart, estCostToGoal);
+                    listener.nodeExpanded(b, costFromStart, estCostToGoal);
+                }
+
+                if (nextBound == Double.POSITIVE_INFINITY) {
+                    //Nothing went over the bound, so every path has been tried
+                    break;
+                }
+                bound = Math.max(nextBound, bound * (1 + this.boundGrowth));
+            }
+        }
+
+        PathResult result;
+        if (bestPath == null) {
+            result = PathResult.notFound(numIterations, peakNodes);
+        }
+        else {
+            result = new PathResult(bestPath, bestCost, numIterations, peakNodes);
+        }
+        listener.searchFinished(result);
+        return result;
+    }
+
+    /**
+     * Returns true if a node is one of the first depth nodes of the path
+     */
+    private static boolean isOnPath(int[] pathNodes, int depth, int node) {
+        for (int i = 0; i < depth; i++) {
+            if (pathNodes[i] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
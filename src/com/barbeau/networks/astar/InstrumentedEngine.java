@@ -0,0 +1,233 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+/**
+ * This class measures what the searches of another RoutingEngine cost.  Each PathResult it returns holds the SearchStats
+ * of the search (see PathResult.getStats()), the stats are added to a SearchMetrics (published through JMX), and a
+ * SearchEvent is committed to the JDK Flight Recorder if a recording is running.
+ *
+ * The nodes expanded, links relaxed and nodes reopened are counted from the events the engine sends to its listener, the
+ * estimates of the cost to the goal by a CountingCostModel around the cost model, and the operations on the available
+ * list from the PriorityQueues of the thread's SearchWorkspaces, so the engine itself isn't changed.  Engines that
+ * don't use the SearchWorkspaces (IdaStarEngine and SmaStarEngine) get SearchStats.UNAVAILABLE for the available list.  Like the engines, one InstrumentedEngine can run searches from many threads at the same time.
+ * @author Sean J. Barbeau
+ */
+public class InstrumentedEngine implements RoutingEngine {
+
+    private final RoutingEngine engine;
+    private final SearchMetrics metrics;
+    private final boolean measureCpuTime;
+
+    /**
+     * Creates a new InstrumentedEngine that adds its stats to the default SearchMetrics and measures CPU time
+     * @param engine engine to measure
+     */
+    public InstrumentedEngine(RoutingEngine engine) {
+        this(engine, SearchMetrics.getDefault(), true);
+    }
+
+    /**
+     * Creates a new InstrumentedEngine
+     * @param engine engine to measure
+     * @param metrics metrics to add the stats of each search to, or null
+     * @param measureCpuTime true to measure the CPU time of each search - this asks the operating system for the time
+     * of the thread, which takes about a microsecond, so turn it off for very short searches
+     */
+    public InstrumentedEngine(RoutingEngine engine, SearchMetrics metrics, boolean measureCpuTime) {
+        this.engine = engine;
+        this.metrics = metrics;
+        this.measureCpuTime = measureCpuTime;
+    }
+
+    /**
+     * Returns the engine whose searches are measured
+     * @return the engine whose searches are measured
+     */
+    public RoutingEngine getEngine() {
+        return this.engine;
+    }
+
+    /**
+     * Searches for the least expensive path from start to goal
+     * @param graph graph to run the search on
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param heuristic heuristic to use to measure costs
+     * @return the result of the search, with its SearchStats
+     */
+    public PathResult search(CsrGraph graph, int start, int goal, Heuristic heuristic) {
+        return search(graph, start, goal, heuristic, null);
+    }
+
+    @Override
+    public PathResult search(CsrGraph graph, int start, int goal, CostModel costModel, SearchListener listener) {
+        Counter counter = new Counter(listener);
+        CountingCostModel countingCostModel = new CountingCostModel(costModel);
+        SearchEvent event = new SearchEvent();
+
+        //Note the counters of the available lists, so the operations of this search can be told apart (a workspace is
+        //reset, which clears its peak size, by each search that uses it)
+        long[] numSearches = new long[2];
+        long[] queueCounts = new long[3];
+        for (int slot = SearchWorkspace.PRIMARY; slot <= SearchWorkspace.SECONDARY; slot++) {
+            SearchWorkspace workspace = SearchWorkspace.peekCurrentThread(slot);
+            if (workspace != null) {
+                numSearches[slot] = workspace.getNumSearches();
+                queueCounts[0] -= workspace.available.getNumAdds();
+                queueCounts[1] -= workspace.available.getNumRemoves();
+                queueCounts[2] -= workspace.available.getNumDecreaseKeys();
+            }
+        }
+
+        event.begin();
+        long cpuStart = this.measureCpuTime ? SearchStats.getCurrentThreadCpuNanos() : 0;
+        long wallStart = System.nanoTime();
+        PathResult result = this.engine.search(graph, start, goal, countingCostModel, counter);
+        long wallEnd = System.nanoTime();
+        long cpuEnd = this.measureCpuTime ? SearchStats.getCurrentThreadCpuNanos() : 0;
+        event.end();
+
+        //The peaks of the two lists of a bidirectional search are reached at different times, so they are kept apart
+        long[] peakOpenSizes = {SearchStats.UNAVAILABLE, SearchStats.UNAVAILABLE};
+        for (int slot = SearchWorkspace.PRIMARY; slot <= SearchWorkspace.SECONDARY; slot++) {
+            SearchWorkspace workspace = SearchWorkspace.peekCurrentThread(slot);
+            if (workspace != null) {
+                queueCounts[0] += workspace.available.getNumAdds();
+                queueCounts[1] += workspace.available.getNumRemoves();
+                queueCounts[2] += workspace.available.getNumDecreaseKeys();
+                if (workspace.getNumSearches() != numSearches[slot]) {
+                    peakOpenSizes[slot] = workspace.available.getPeakSize();
+                }
+            }
+        }
+        if (peakOpenSizes[SearchWorkspace.PRIMARY] == SearchStats.UNAVAILABLE) {
+            //The engine keeps its own lists
+            queueCounts[0] = SearchStats.UNAVAILABLE;
+            queueCounts[1] = SearchStats.UNAVAILABLE;
+            queueCounts[2] = SearchStats.UNAVAILABLE;
+        }
+
+        SearchStats stats = new SearchStats(counter.nodesExpanded, counter.edgesRelaxed, queueCounts[0], queueCounts[1], queueCounts[2],
+                peakOpenSizes[SearchWorkspace.PRIMARY], peakOpenSizes[SearchWorkspace.SECONDARY], counter.reopens,
+                countingCostModel.getNumEstimates(), wallEnd - wallStart, cpuEnd - cpuStart);
+        result = result.withStats(stats);
+
+        if (this.metrics != null) {
+            this.metrics.record(stats, result.isFound(), wallStart, wallEnd);
+        }
+        if (event.shouldCommit()) {
+            event.engine = this.engine.getClass().getSimpleName();
+            event.heuristic = costModel.toString();
+            event.start = start;
+            event.goal = goal;
+            event.found = result.isFound();
+            event.cost = result.getTotalCost();
+            event.nodesExpanded = stats.getNodesExpanded();
+            event.edgesRelaxed = stats.getEdgesRelaxed();
+            event.openPushes = stats.getOpenPushes();
+            event.openPops = stats.getOpenPops();
+            event.decreaseKeys = stats.getDecreaseKeys();
+            event.peakOpenSize = stats.getPeakOpenSize();
+            event.peakBackwardOpenSize = stats.getPeakBackwardOpenSize();
+            event.reopens = stats.getReopens();
+            event.heuristicEvaluations = stats.getHeuristicEvaluations();
+            event.cpuTime = cpuEnd - cpuStart;
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Counts the events of one search and passes them on to the caller's listener
+     */
+    private static class Counter implements SearchListener {
+
+        private final SearchListener listener;
+        long nodesExpanded = 0;
+        long edgesRelaxed = 0;
+        long reopens = 0;
+
+        Counter(SearchListener listener) {
+            this.listener = listener;
+        }
+
+        public void nodeExpanded(int node, double costFromStart, double estCostToGoal) {
+            this.nodesExpanded++;
+            if (this.listener != null) {
+                this.listener.nodeExpanded(node, costFromStart, estCostToGoal);
+            }
+        }
+
+        public void linkTraveled(int nodeA, int nodeB) {
+            this.edgesRelaxed++;
+            if (this.listener != null) {
+                this.listener.linkTraveled(nodeA, nodeB);
+            }
+        }
+
+        public void nodeAdded(int node, double costFromStart, double estCostToGoal) {
+            if (this.listener != null) {
+                this.listener.nodeAdded(node, costFromStart, estCostToGoal);
+            }
+        }
+
+        public void nodeImproved(int node, double costFromStart, double estCostToGoal) {
+            if (this.listener != null) {
+                this.listener.nodeImproved(node, costFromStart, estCostToGoal);
+            }
+        }
+
+        public void nodeReopened(int node, double costFromStart, double estCostToGoal) {
+            this.reopens++;
+            if (this.listener != null) {
+                this.listener.nodeReopened(node, costFromStart, estCostToGoal);
+            }
+        }
+
+        public void nodeRejected(int node) {
+            if (this.listener != null) {
+                this.listener.nodeRejected(node);
+            }
+        }
+
+        public void nodeDisabled(int nodeA, int nodeB) {
+            if (this.listener != null) {
+                this.listener.nodeDisabled(nodeA, nodeB);
+            }
+        }
+
+        public void nodeClosed(int node) {
+            if (this.listener != null) {
+                this.listener.nodeClosed(node);
+            }
+        }
+
+        public void solutionImproved(PathResult result, double weight, double suboptimalityBound) {
+            if (this.listener != null) {
+                this.listener.solutionImproved(result, weight, suboptimalityBound);
+            }
+        }
+
+        public void searchFinished(PathResult result) {
+            if (this.listener != null) {
+                this.listener.searchFinished(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,403 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+/**
+ * This class is the Jump Point Search (JPS) routing engine for uniform-cost 8-connected grids (see GridGraph).
+ * On a grid many paths of the same cost differ only in the order of their moves, and plain A* expands all of them.
+ * JPS only expands jump points: from each expanded cell it moves in a straight line (and, for a diagonal, checks the
+ * straight lines leaving each cell on the way) until it reaches the goal or a cell with a forced neighbour - an open
+ * cell that can only be reached without extra cost through it because the cell beside it is blocked.  The cells passed
+ * over are never put on the available list, so far fewer nodes are expanded, and the path found is still the least
+ * expensive one.  Each expanded cell is only left in the directions that can't be reached as cheaply from its parent.
+ *
+ * JPS+ does the same search, but reads how far each move goes from the jump distances precomputed by GridGraph
+ * instead of scanning the cells, so each move is O(1).  The distances ignore the goal, so a move that passes the row or
+ * column of the goal also stops there.
+ *
+ * The estimated cost to the goal is the octile distance (GridGraph.getOctileDistance()), raised to the landmark
+ * estimate for the LANDMARKS heuristic.  Since a move covers many links at once, only the cost models that count the
+ * links (FewestLinksCostModel) or measure their length (EuclideanCostModel, OctileCostModel and LandmarkCostModel)
+ * can be used.  Start and goal are node ids of the CsrGraph as for the other engines, and the
+ * path returned holds every node passed over, not just the jump points.  The grid view of the last graph searched is
+ * kept, so it is only created again when a different graph is searched.
+ * @author Sean J. Barbeau
+ */
+public class JumpPointEngine implements RoutingEngine {
+
+    //Listener used when the caller doesn't want to receive search events
+    private static final SearchListener NO_LISTENER = new SearchAdapter() {};
+
+    private final boolean precomputed;  //true to read the moves from the precomputed jump distances (JPS+)
+    private volatile GridGraph lastGrid = null;  //Grid view of the last graph searched
+
+    /**
+     * Creates a new JumpPointEngine that scans the cells of each move (JPS)
+     */
+    public JumpPointEngine() {
+        this(false);
+    }
+
+    /**
+     * Creates a new JumpPointEngine
+     * @param precomputed true to read the moves from the jump distances precomputed by GridGraph (JPS+), false to scan
+     * the cells of each move (JPS)
+     */
+    public JumpPointEngine(boolean precomputed) {
+        this.precomputed = precomputed;
+    }
+
+    /**
+     * Creates a new JumpPointEngine for a grid that has already been created
+     * @param grid grid view of the graph that will be searched
+     * @param precomputed true to read the moves from the precomputed jump distances (JPS+), false to scan the cells (JPS)
+     */
+    public JumpPointEngine(GridGraph grid, boolean precomputed) {
+        this(precomputed);
+        this.lastGrid = grid;
+    }
+
+    /**
+     * Returns true if the moves are read from the precomputed jump distances (JPS+)
+     * @return true for JPS+, false for JPS
+     */
+    public boolean isPrecomputed() {
+        return this.precomputed;
+    }
+
+    /**
+     * Searches for the least expensive path from start to goal
+     * @param graph graph to run the search on, which must be an 8-connected grid (see GridGraph.fromCsrGraph())
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param heuristic heuristic to use to measure costs
+     * @return the result of the search
+     */
+    public PathResult search(CsrGraph graph, int start, int goal, Heuristic heuristic) {
+        return search(graph, start, goal, heuristic, null);
+    }
+
+    /**
+     * Searches for the least expensive path from start to goal, reporting progress to a listener.  Only jump points are
+     * expanded, and each move between them is reported as the links it travels.
+     * @param graph graph to run the search on, which must be an 8-connected grid (see GridGraph.fromCsrGraph())
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param costModel cost model that measures the cost of each link and estimates the cost to the goal
+     * @param listener listener that receives the progress of the search, or null
+     * @return the result of the search
+     * @throws IllegalArgumentException if the graph isn't an 8-connected grid, or the cost model doesn't count or measure
+     * the length of the links
+     */
+    @Override
+    public PathResult search(CsrGraph graph, int start, int goal, CostModel costModel, SearchListener listener) {
+        CostModel model = CountingCostModel.unwrap(costModel);
+        if (!(model instanceof FewestLinksCostModel || model instanceof EuclideanCostModel
+                || model instanceof OctileCostModel || model instanceof LandmarkCostModel)) {
+            throw new IllegalArgumentException("Jump point search can't measure costs by " + costModel);
+        }
+        if (listener == null) {
+            listener = NO_LISTENER;
+        }
+        return new Search(getGrid(graph), start, goal, costModel, listener, this.precomputed).run();
+    }
+
+    /**
+     * Returns the grid view of a graph, creating it if it isn't the last graph searched
+     */
+    private GridGraph getGrid(CsrGraph graph) {
+        GridGraph grid = this.lastGrid;
+        if (grid == null || grid.getGraph() != graph) {
+            grid = GridGraph.fromCsrGraph(graph);
+            this.lastGrid = grid;
+        }
+        return grid;
+    }
+
+    /**
+     * The state of one jump point search
+     */
+    private static class Search {
+
+        private final GridGraph grid;
+        private final CsrGraph graph;
+        private final int start;
+        private final int goal;
+        private final int goalColumn;
+        private final int goalRow;
+        private final boolean fewestLinks;  //true if the cost of a move is the number of links, false if it is their length
+        private final LandmarkCostModel landmarks;  //Cost model that raises the estimates to the landmark estimates, or null
+        private final CountingCostModel counter;  //Counter of the estimates computed (when the search is measured), or null
+        private final SearchListener listener;
+        private final boolean precomputed;
+        private final SearchWorkspace workspace;
+
+        private int numIterations = 0;
+        private int numReached = 0;  //Nodes reached so far (on the available or visited list), which is the memory the search uses
+
+        Search(GridGraph grid, int start, int goal, CostModel costModel, SearchListener listener, boolean precomputed) {
+            this.grid = grid;
+            this.graph = grid.getGraph();
+            this.start = start;
+            this.goal = goal;
+            this.goalColumn = grid.getColumn(grid.getCell(goal));
+            this.goalRow = grid.getRow(grid.getCell(goal));
+            CostModel model = CountingCostModel.unwrap(costModel);
+            this.fewestLinks = model instanceof FewestLinksCostModel;
+            this.landmarks = model instanceof LandmarkCostModel ? (LandmarkCostModel) model : null;
+            this.counter = costModel instanceof CountingCostModel ? (CountingCostModel) costModel : null;
+            this.listener = listener;
+            this.precomputed = precomputed;
+            this.workspace = SearchWorkspace.forCurrentThread(this.graph.getNodeSize());
+        }
+
+        PathResult run() {
+            if (this.start != this.goal && this.graph.isEnabled(this.goal) == false) {
+                //The goal has been DISABLED, so no path can reach it
+                PathResult result = PathResult.notFound(0);
+                this.listener.searchFinished(result);
+                return result;
+            }
+
+            SearchWorkspace ws = this.workspace;
+            ws.setNode(this.start, 0, estimate(this.start), -1);
+            ws.available.add(this.start, ws.estCostToGoal[this.start]);
+            this.numReached = 1;
+
+            while (!ws.available.isEmpty()) {
+                int a = ws.available.removeFirst();
+                this.numIterations++;
+
+                if (a == this.goal) {
+                    PathResult result = new PathResult(getPath(), ws.costFromStart[a], this.numIterations, this.numReached);
+                    this.listener.searchFinished(result);
+                    return result;
+                }
+
+                this.listener.nodeExpanded(a, ws.costFromStart[a], ws.estCostToGoal[a]);
+
+                //Jump from a in each direction that can't be reached as cheaply from its parent
+                int cell = this.grid.getCell(a);
+                int column = this.grid.getColumn(cell);
+                int row = this.grid.getRow(cell);
+                for (int d = 0; d < GridGraph.NUM_DIRECTIONS; d++) {
+                    if (isSuccessorDirection(a, column, row, d)) {
+                        if (this.precomputed) {
+                            jumpPrecomputed(a, column, row, d);
+                        }
+                        else {
+                            int steps = jump(column, row, d);
+                            if (steps > 0) {
+                                addSuccessor(a, column, row, d, steps);
+                            }
+                        }
+                    }
+                }
+
+                ws.visited.add(a);
+                this.listener.nodeClosed(a);
+            }
+
+            //If execution reaches this point then the goal was not found
+            PathResult result = PathResult.notFound(this.numIterations, this.numReached);
+            this.listener.searchFinished(result);
+            return result;
+        }
+
+        /**
+         * Returns true if a path through node a should be continued in a direction.  The start is left in every direction.
+         * Other nodes only continue the move from their parent (and its straight parts, for a diagonal move) and turn
+         * towards their forced neighbours.
+         */
+        private boolean isSuccessorDirection(int a, int column, int row, int direction) {
+            int parent = this.workspace.pathParent[a];
+            if (parent == -1) {
+                return true;
+            }
+            int parentCell = this.grid.getCell(parent);
+            int px = Integer.signum(column - this.grid.getColumn(parentCell));
+            int py = Integer.signum(row - this.grid.getRow(parentCell));
+            int dx = GridGraph.getDirectionX(direction);
+            int dy = GridGraph.getDirectionY(direction);
+            if (px != 0 && py != 0) {
+                return (dx == px && dy == py) || (dx == px && dy == 0) || (dx == 0 && dy == py)
+                        || (dx == -px && dy == py && this.grid.isOpen(column - px, row) == false)
+                        || (dx == px && dy == -py && this.grid.isOpen(column, row - py) == false);
+            }
+            if (px != 0) {
+                return dx == px && (dy == 0 || this.grid.isOpen(column, row + dy) == false);
+            }
+            return dy == py && (dx == 0 || this.grid.isOpen(column + dx, row) == false);
+        }
+
+        /**
+         * Moves from cell (column, row) in a direction by scanning the cells (JPS)
+         * @return the number of moves to the jump point reached, or 0 if a blocked cell is reached first
+         */
+        private int jump(int column, int row, int direction) {
+            int dx = GridGraph.getDirectionX(direction);
+            int dy = GridGraph.getDirectionY(direction);
+            int x = column;
+            int y = row;
+            int steps = 0;
+            while (true) {
+                x += dx;
+                y += dy;
+                steps++;
+                if (this.grid.isOpen(x, y) == false) {
+                    return 0;
+                }
+                if ((x == this.goalColumn && y == this.goalRow) || this.grid.hasForcedNeighbour(x, y, direction)) {
+                    return steps;
+                }
+                if (dx != 0 && dy != 0
+                        && (jump(x, y, GridGraph.getDirection(dx, 0)) > 0 || jump(x, y, GridGraph.getDirection(0, dy)) > 0)) {
+                    //A straight move from here reaches a jump point, so the path may turn here
+                    return steps;
+                }
+            }
+        }
+
+        /**
+         * Moves from cell (column, row) in a direction using the precomputed jump distances (JPS+), adding the jump
+         * point reached and the cell where the move passes the goal (if it does) as successors of node a
+         */
+        private void jumpPrecomputed(int a, int column, int row, int direction) {
+            int distance = this.grid.getJumpDistance(this.grid.getCell(a), direction);
+            int reach = Math.abs(distance);  //Number of moves that stay on open cells
+            int dx = GridGraph.getDirectionX(direction);
+            int dy = GridGraph.getDirectionY(direction);
+            int toGoalX = this.goalColumn - column;
+            int toGoalY = this.goalRow - row;
+
+            int goalSteps = 0;  //Moves to the cell where this move passes the goal, or 0 if it doesn't
+            if (dx != 0 && dy != 0) {
+                //Stop where the goal is in the same row or column, so the straight moves from there can reach it
+                if (Integer.signum(toGoalX) == dx && Integer.signum(toGoalY) == dy) {
+                    goalSteps = Math.min(Math.abs(toGoalX), Math.abs(toGoalY));
+                }
+            }
+            else if ((dx != 0 && toGoalY == 0 && Integer.signum(toGoalX) == dx) || (dy != 0 && toGoalX == 0 && Integer.signum(toGoalY) == dy)) {
+                goalSteps = Math.abs(toGoalX + toGoalY);
+            }
+
+            if (goalSteps > 0 && goalSteps <= reach) {
+                addSuccessor(a, column, row, direction, goalSteps);
+                if (dx == 0 || dy == 0) {
+                    //The goal itself has been reached
+                    return;
+                }
+            }
+            if (distance > 0 && distance != goalSteps) {
+                addSuccessor(a, column, row, direction, distance);
+            }
+        }
+
+        /**
+         * Reaches the node a number of moves from node a (in cell (column, row)) in a direction
+         */
+        private void addSuccessor(int a, int column, int row, int direction, int steps) {
+            SearchWorkspace ws = this.workspace;
+            int dx = GridGraph.getDirectionX(direction);
+            int dy = GridGraph.getDirectionY(direction);
+            int previous = a;
+            for (int i = 1; i <= steps; i++) {
+                int node = this.grid.getNode(column + i * dx, row + i * dy);
+                this.listener.linkTraveled(previous, node);
+                previous = node;
+            }
+            int b = previous;
+
+            double tempCostFromStart = ws.costFromStart[a] + this.grid.getMoveCost(steps, direction, this.fewestLinks);
+
+            if (ws.isReached(b) == false) {
+                ws.setNode(b, tempCostFromStart, estimate(b), a);
+                this.numReached++;
+                ws.available.add(b, tempCostFromStart + ws.estCostToGoal[b]);
+                this.listener.nodeAdded(b, tempCostFromStart, ws.estCostToGoal[b]);
+            }
+            else if (tempCostFromStart < ws.costFromStart[b]) {
+                ws.costFromStart[b] = tempCostFromStart;
+                ws.pathParent[b] = a;
+                if (ws.visited.contains(b)) {
+                    ws.visited.remove(b);
+                    ws.available.add(b, tempCostFromStart + ws.estCostToGoal[b]);
+                    this.listener.nodeReopened(b, tempCostFromStart, ws.estCostToGoal[b]);
+                }
+                else {
+                    ws.available.decreaseKey(b, tempCostFromStart + ws.estCostToGoal[b]);
+                    this.listener.nodeImproved(b, tempCostFromStart, ws.estCostToGoal[b]);
+                }
+            }
+            else {
+                this.listener.nodeRejected(b);
+            }
+        }
+
+        /**
+         * Returns the estimated cost from a node to the goal - the octile distance, or the landmark estimate if it is larger
+         */
+        private double estimate(int node) {
+            if (this.counter != null) {
+                this.counter.countEstimate();
+            }
+            double estimate = this.grid.getOctileDistance(this.grid.getCell(node), this.grid.getCell(this.goal), this.fewestLinks);
+            if (this.landmarks != null) {
+                estimate = Math.max(estimate, this.landmarks.getEstimatedCostToGoal(this.graph, node, this.goal));
+            }
+            return estimate;
+        }
+
+        /**
+         * Returns every node on the path from the start to the goal, filling in the cells between the jump points
+         */
+        private int[] getPath() {
+            int[] jumpPoints = this.workspace.getPath(this.goal);
+            int length = 1;
+            for (int i = 1; i < jumpPoints.length; i++) {
+                length += getSteps(jumpPoints[i - 1], jumpPoints[i]);
+            }
+
+            int[] path = new int[length];
+            path[0] = jumpPoints[0];
+            int next = 1;
+            for (int i = 1; i < jumpPoints.length; i++) {
+                int from = this.grid.getCell(jumpPoints[i - 1]);
+                int to = this.grid.getCell(jumpPoints[i]);
+                int column = this.grid.getColumn(from);
+                int row = this.grid.getRow(from);
+                int dx = Integer.signum(this.grid.getColumn(to) - column);
+                int dy = Integer.signum(this.grid.getRow(to) - row);
+                int steps = getSteps(jumpPoints[i - 1], jumpPoints[i]);
+                for (int j = 1; j <= steps; j++) {
+                    path[next++] = this.grid.getNode(column + j * dx, row + j * dy);
+                }
+            }
+            return path;
+        }
+
+        /**
+         * Returns the number of moves between two jump points, which are always in a straight or diagonal line
+         */
+        private int getSteps(int nodeA, int nodeB) {
+            int cellA = this.grid.getCell(nodeA);
+            int cellB = this.grid.getCell(nodeB);
+            return Math.max(Math.abs(this.grid.getColumn(cellA) - this.grid.getColumn(cellB)),
+                            Math.abs(this.grid.getRow(cellA) - this.grid.getRow(cellB)));
+        }
+    }
+}
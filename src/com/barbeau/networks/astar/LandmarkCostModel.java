@@ -0,0 +1,59 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+/**
+ * This class measures the cost of a path as its length, with the estimated cost to the goal read from a LandmarkTable
+ * (the LANDMARKS heuristic).  The estimate is the best lower bound given by the landmark table or the straight line
+ * distance, which is also a lower bound.
+ * @author Sean J. Barbeau
+ */
+public final class LandmarkCostModel implements CostModel {
+
+    private final LandmarkTable landmarks;  //Distance tables of the landmarks, or null to use the straight line distance only
+
+    /**
+     * Creates a new LandmarkCostModel
+     * @param landmarks landmark table computed for the graph that will be searched, or null to use the straight line
+     * distance only
+     */
+    public LandmarkCostModel(LandmarkTable landmarks) {
+        this.landmarks = landmarks;
+    }
+
+    @Override
+    public double getCost(CsrGraph graph, int node, int edge) {
+        return graph.getWeight(edge);
+    }
+
+    @Override
+    public double getEstimatedCostToGoal(CsrGraph graph, int node, int goal) {
+        double dx = graph.getX(node) - graph.getX(goal);
+        double dy = graph.getY(node) - graph.getY(goal);
+        double estimate = Math.sqrt(dx * dx + dy * dy);
+        if (this.landmarks != null) {
+            estimate = Math.max(estimate, this.landmarks.getEstimatedCost(node, goal));
+        }
+        return estimate;
+    }
+
+    @Override
+    public String toString() {
+        return "Landmarks";
+    }
+}
@@ -0,0 +1,346 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * This class holds the distance tables of the LANDMARKS (ALT - A*, Landmarks, Triangle inequality) heuristic.
+ * For a few landmark nodes L the length of the shortest path from L to every node, d(L, n), and from every node to L,
+ * d(n, L), is computed once.  By the triangle inequality the cost of any path from n to the goal g is at least
+ * d(L, g) - d(L, n) and d(n, L) - d(g, L), so the largest of these over all landmarks is an estimate that never
+ * overestimates and is usually much closer to the real cost than the straight line distance.
+ *
+ * The distances are the lengths of the links (as used by the SHORTEST_DISTANCE and LANDMARKS heuristics) over all nodes,
+ * whether or not they are enabled.  Disabling a node can only make paths longer, so the table stays valid when nodes are
+ * enabled or disabled and only has to be computed again when nodes or links are added, removed or moved.
+ *
+ * The distances are stored as floats in two arrays with the entries of each node next to each other, so an estimate
+ * reads two short runs of memory.  Tables can be saved with save() and loaded with load() so they don't have to be
+ * computed each time the application starts, and are attached to a graph with CsrGraph.withLandmarks().  Each table
+ * holds the fingerprint of the graph it was computed for (CsrGraph.getFingerprint()), so a table saved for a graph whose
+ * nodes or links have since changed is rejected instead of giving wrong estimates.
+ * @author Sean J. Barbeau
+ */
+public class LandmarkTable {
+
+    //Number of landmarks used by create(CsrGraph)
+    public static final int DEFAULT_NUM_LANDMARKS = 8;
+
+    //Identifies landmark table files, and the version of their format
+    private static final int FILE_MAGIC = 0x414c5431;  //"ALT1"
+    private static final int FILE_VERSION = 2;
+
+    private final long graphFingerprint;  //Fingerprint of the graph the table was computed for
+    private final int numNodes;  //Number of nodes in the graph the table was computed for
+    private final int[] landmarks;  //Id of each landmark
+    private final float[] fromLandmark;  //d(L, n) - distance from landmark i to node n is at [n * numLandmarks + i]
+    private final float[] toLandmark;  //d(n, L) - distance from node n to landmark i is at [n * numLandmarks + i]
+
+    /**
+     * Creates a new LandmarkTable from its arrays.  The arrays are used directly, not copied.
+     * @param graphFingerprint fingerprint of the graph the table was computed for (see CsrGraph.getFingerprint())
+     * @param numNodes number of nodes in the graph
+     * @param landmarks id of each landmark
+     * @param fromLandmark distance from landmark i to node n at [n * landmarks.length + i], infinite if there is no path
+     * @param toLandmark distance from node n to landmark i at [n * landmarks.length + i], infinite if there is no path
+     */
+    public LandmarkTable(long graphFingerprint, int numNodes, int[] landmarks, float[] fromLandmark, float[] toLandmark) {
+        this.graphFingerprint = graphFingerprint;
+        this.numNodes = numNodes;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    /**
+     * Selects DEFAULT_NUM_LANDMARKS landmarks far apart from each other and computes their tables on the common ForkJoinPool
+     * @param graph graph to compute the table for
+     * @return the landmark table of the graph
+     */
+    public static LandmarkTable create(CsrGraph graph) {
+        return create(graph, selectFarthest(graph, DEFAULT_NUM_LANDMARKS), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the tables of the given landmarks.  The two shortest path searches of each landmark (from and to the
+     * landmark) run in parallel on the pool.
+     * @param graph graph to compute the table for
+     * @param landmarks ids of the landmarks
+     * @param pool pool that runs the searches
+     * @return the landmark table of the graph
+     */
+    public static LandmarkTable create(final CsrGraph graph, final int[] landmarks, ForkJoinPool pool) {
+        final int numNodes = graph.getNodeSize();
+        final int numLandmarks = landmarks.length;
+        final float[] fromLandmark = new float[numNodes * numLandmarks];
+        final float[] toLandmark = new float[numNodes * numLandmarks];
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < numLandmarks; i++) {
+            final int index = i;
+            tasks.add(() -> {
+                copyColumn(shortestDistances(graph, landmarks[index], true), fromLandmark, index, numLandmarks);
+                return null;
+            });
+            tasks.add(() -> {
+                copyColumn(shortestDistances(graph, landmarks[index], false), toLandmark, index, numLandmarks);
+                return null;
+            });
+        }
+        for (Future<Void> task : pool.invokeAll(tasks)) {
+            try {
+                task.get();
+            }
+            catch (Exception e) {
+                throw new IllegalStateException("Error computing landmark table: " + e, e);
+            }
+        }
+
+        return new LandmarkTable(graph.getFingerprint(), numNodes, landmarks.clone(), fromLandmark, toLandmark);
+    }
+
+    /**
+     * Selects landmarks that are far apart from each other ("farthest" selection).  The first landmark is the node
+     * farthest from node 0, and each next landmark is the node farthest from all landmarks selected so far, which puts
+     * the landmarks around the edges of the network where they give the best estimates.
+     * @param graph graph to select the landmarks in
+     * @param numLandmarks number of landmarks to select
+     * @return ids of the landmarks (fewer than numLandmarks if the graph is smaller)
+     */
+    public static int[] selectFarthest(CsrGraph graph, int numLandmarks) {
+        int numNodes = graph.getNodeSize();
+        numLandmarks = Math.min(numLandmarks, numNodes);
+        int[] landmarks = new int[numLandmarks];
+        if (numLandmarks == 0) {
+            return landmarks;
+        }
+
+        //Distance from the closest landmark selected so far to each node
+        double[] closest = shortestDistances(graph, 0, true);
+        for (int i = 0; i < numLandmarks; i++) {
+            //Pick the node farthest from the landmarks so far (nodes that can't be reached from them are the farthest)
+            int farthest = -1;
+            for (int n = 0; n < numNodes; n++) {
+                if (closest[n] > 0 && (farthest == -1 || closest[n] > closest[farthest])) {
+                    farthest = n;
+                }
+            }
+            if (farthest == -1) {
+                //Every node left is at distance 0 from a landmark, so no more landmarks can be found
+                return Arrays.copyOf(landmarks, i);
+            }
+            landmarks[i] = farthest;
+
+            double[] distances = shortestDistances(graph, farthest, true);
+            if (i == 0) {
+                //Node 0 was only used to find the first landmark
+                closest = distances;
+            }
+            else {
+                for (int n = 0; n < numNodes; n++) {
+                    closest[n] = Math.min(closest[n], distances[n]);
+                }
+            }
+        }
+        return landmarks;
+    }
+
+    /**
+     * Returns the estimated (never overestimated) cost of the cheapest path from node to goal
+     * @param node id of the node
+     * @param goal id of the goal node
+     * @return the estimated cost from node to goal
+     */
+    public double getEstimatedCost(int node, int goal) {
+        int numLandmarks = this.landmarks.length;
+        int n = node * numLandmarks;
+        int g = goal * numLandmarks;
+        float best = 0;
+        for (int i = 0; i < numLandmarks; i++) {
+            //d(node, goal) >= d(L, goal) - d(L, node)
+            float estimate = this.fromLandmark[g + i] - this.fromLandmark[n + i];
+            if (estimate > best && estimate != Float.POSITIVE_INFINITY) {
+                best = estimate;
+            }
+            //d(node, goal) >= d(node, L) - d(goal, L)
+            estimate = this.toLandmark[n + i] - this.toLandmark[g + i];
+            if (estimate > best && estimate != Float.POSITIVE_INFINITY) {
+                best = estimate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the number of nodes in the graph the table was computed for
+     * @return the number of nodes
+     */
+    public int getNodeSize() {
+        return this.numNodes;
+    }
+
+    /**
+     * Returns the fingerprint of the graph the table was computed for
+     * @return the fingerprint of the graph (see CsrGraph.getFingerprint())
+     */
+    public long getGraphFingerprint() {
+        return this.graphFingerprint;
+    }
+
+    /**
+     * Returns true if the table was computed for a graph with the same nodes and links as the given graph
+     * @param graph graph to check
+     * @return true if the table can be used with the graph
+     */
+    public boolean isFor(CsrGraph graph) {
+        return this.numNodes == graph.getNodeSize() && this.graphFingerprint == graph.getFingerprint();
+    }
+
+    /**
+     * Returns the ids of the landmarks
+     * @return the ids of the landmarks
+     */
+    public int[] getLandmarks() {
+        return this.landmarks.clone();
+    }
+
+    /**
+     * Saves the table to a file, so it can be loaded with load() instead of being computed again
+     * @param file file to save to
+     * @throws IOException if the file can't be written
+     */
+    public void save(File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeLong(this.graphFingerprint);
+            out.writeInt(this.numNodes);
+            out.writeInt(this.landmarks.length);
+            for (int i = 0; i < this.landmarks.length; i++) {
+                out.writeInt(this.landmarks[i]);
+            }
+            for (int i = 0; i < this.fromLandmark.length; i++) {
+                out.writeFloat(this.fromLandmark[i]);
+            }
+            for (int i = 0; i < this.toLandmark.length; i++) {
+                out.writeFloat(this.toLandmark[i]);
+            }
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Loads a table saved with save() for a graph
+     * @param file file to load from
+     * @param graph graph the table must have been computed for
+     * @return the landmark table in the file
+     * @throws IOException if the file can't be read, is not a landmark table or holds the table of a different graph
+     */
+    public static LandmarkTable load(File file, CsrGraph graph) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException(file + " is not a landmark table file");
+            }
+            long graphFingerprint = in.readLong();
+            int numNodes = in.readInt();
+            if (numNodes != graph.getNodeSize() || graphFingerprint != graph.getFingerprint()) {
+                //Don't read the rest of a table that was computed for a different graph
+                throw new IOException(file + " holds the landmark table of a different graph");
+            }
+            int[] landmarks = new int[in.readInt()];
+            for (int i = 0; i < landmarks.length; i++) {
+                landmarks[i] = in.readInt();
+            }
+            float[] fromLandmark = new float[numNodes * landmarks.length];
+            for (int i = 0; i < fromLandmark.length; i++) {
+                fromLandmark[i] = in.readFloat();
+            }
+            float[] toLandmark = new float[numNodes * landmarks.length];
+            for (int i = 0; i < toLandmark.length; i++) {
+                toLandmark[i] = in.readFloat();
+            }
+            return new LandmarkTable(graphFingerprint, numNodes, landmarks, fromLandmark, toLandmark);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Copies the distances of one landmark into its column of a table
+     */
+    private static void copyColumn(double[] distances, float[] table, int index, int numLandmarks) {
+        for (int n = 0; n < distances.length; n++) {
+            table[n * numLandmarks + index] = (float) distances[n];
+        }
+    }
+
+    /**
+     * Finds the length of the shortest path between a landmark and every node (Dijkstra's algorithm)
+     * @param graph graph to search
+     * @param landmark id of the landmark
+     * @param fromLandmark true for the distances from the landmark to each node, false for the distances from each node to the landmark
+     * @return the distance of each node, infinite if there is no path
+     */
+    private static double[] shortestDistances(CsrGraph graph, int landmark, boolean fromLandmark) {
+        int numNodes = graph.getNodeSize();
+        double[] distances = new double[numNodes];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        PriorityQueue available = new PriorityQueue(numNodes);
+
+        distances[landmark] = 0;
+        available.add(landmark, 0);
+        while (!available.isEmpty()) {
+            int a = available.removeFirst();
+            int first = fromLandmark ? graph.getFirstEdge(a) : graph.getFirstInEdge(a);
+            int last = fromLandmark ? graph.getFirstEdge(a + 1) : graph.getFirstInEdge(a + 1);
+            for (int i = first; i < last; i++) {
+                int b = fromLandmark ? graph.getTarget(i) : graph.getInSource(i);
+                int e = fromLandmark ? i : graph.getInEdge(i);
+                double distance = distances[a] + graph.getWeight(e);
+                if (distance < distances[b]) {
+                    if (distances[b] == Double.POSITIVE_INFINITY) {
+                        available.add(b, distance);
+                    }
+                    else {
+                        available.decreaseKey(b, distance);
+                    }
+                    distances[b] = distance;
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class records the latencies (in nanoseconds) of many searches so throughput and percentiles can be reported.
+ * Latencies are counted in buckets whose width grows with the value (32 buckets per power of two, so each bucket is
+ * within about 3% of the values it holds), which keeps the memory fixed no matter how many searches are recorded.
+ * Any number of threads can record at the same time.
+ * @author Sean J. Barbeau
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;  //log2 of the number of buckets per power of two
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();  //Number of latencies recorded
+    private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);  //Earliest start time recorded
+    private final AtomicLong lastEnd = new AtomicLong(Long.MIN_VALUE);  //Latest end time recorded
+    private final AtomicLong max = new AtomicLong();  //Longest latency recorded
+
+    /**
+     * Records one search that ran from startNanos to endNanos (values of System.nanoTime())
+     * @param startNanos time the search started
+     * @param endNanos time the search ended
+     */
+    public void record(long startNanos, long endNanos) {
+        long latency = Math.max(endNanos - startNanos, 0);
+        this.counts.incrementAndGet(bucket(latency));
+        this.count.incrementAndGet();
+        this.firstStart.accumulateAndGet(startNanos, Math::min);
+        this.lastEnd.accumulateAndGet(endNanos, Math::max);
+        this.max.accumulateAndGet(latency, Math::max);
+    }
+
+    /**
+     * Returns the number of latencies recorded
+     * @return the number of latencies recorded
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Returns the time from the start of the first search to the end of the last search recorded
+     * @return the elapsed time in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getElapsedNanos() {
+        return getCount() == 0 ? 0 : this.lastEnd.get() - this.firstStart.get();
+    }
+
+    /**
+     * Returns the longest latency recorded
+     * @return the longest latency in nanoseconds
+     */
+    public long getMaxNanos() {
+        return this.max.get();
+    }
+
+    /**
+     * Returns the latency below which the given fraction of the recorded latencies fall
+     * @param fraction fraction of the recorded latencies, e.g. 0.5 for the median and 0.99 for the 99th percentile
+     * @return the latency in nanoseconds (accurate to about 3%), or 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double fraction) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length(); i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) {
+                return Math.min(middleOf(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Clears all recorded latencies
+     */
+    public void reset() {
+        for (int i = 0; i < this.counts.length(); i++) {
+            this.counts.set(i, 0);
+        }
+        this.count.set(0);
+        this.firstStart.set(Long.MAX_VALUE);
+        this.lastEnd.set(Long.MIN_VALUE);
+        this.max.set(0);
+    }
+
+    /**
+     * Finds the bucket that holds a value
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the value in the middle of a bucket
+     */
+    private static long middleOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width / 2;
+    }
+}
@@ -28,8 +28,12 @@ import java.awt.*;
 public class LinkXY extends Link{
         
         
+    //Color of links that haven't been traveled or drawn in another color by the algorithm
+    public static final Color DEFAULT_COLOR = Color.LIGHT_GRAY;
+
     //Graphics characteristics of this link
     private Color color;
+    private MapDisplay map = null;  //Map the link is shown on, which is told when the color of the link changes (null if none)
     
     /**
      * Creates a new instance of Link between two nodes
@@ -40,7 +44,15 @@ public class LinkXY extends Link{
         super(nodeA, nodeB);        
         
         //Set default color
-        this.color = Color.LIGHT_GRAY;        
+        this.color = DEFAULT_COLOR;        
+    }
+    
+    /**
+     * Returns the color the link is drawn in when the map is refreshed
+     * @return the color of the link
+     */
+    public Color getColor() {
+        return this.color;
     }
     
     /**
@@ -49,15 +61,39 @@ public class LinkXY extends Link{
      * @param map map to use when drawing
      */
     public void draw_Link(Graphics g, MapDisplay map) {        
+        draw_Link(g, map, this.color);
+    }
+    
+    /**
+     * This function draws an arrow from this.nodeA to this.nodeB with an arrow head pointing at nodeB in the given color,
+     * without changing the color of the link (e.g. to draw the links in their default color into a cached image)
+     * @param g graphics to use when drawing
+     * @param map map to use when drawing
+     * @param color color to draw the link in
+     */
+    public void draw_Link(Graphics g, MapDisplay map, Color color) {        
+        drawArrow(g, map, (NodeXY) this.nodeA, (NodeXY) this.nodeB, color);
+    }
+    
+    /**
+     * This function draws an arrow from nodeA to nodeB with an arrow head pointing at nodeB in the given color, without
+     * needing a LinkXY (e.g. to draw the links of a CsrGraph into a cached image)
+     * @param g graphics to use when drawing
+     * @param map map to use when drawing
+     * @param nodeA node the arrow starts at
+     * @param nodeB node the arrow points at
+     * @param color color to draw the arrow in
+     */
+    public static void drawArrow(Graphics g, MapDisplay map, NodeXY nodeA, NodeXY nodeB, Color color) {
         
         //Set color for graphics
-        g.setColor(this.color);
+        g.setColor(color);
         
         //Get coordinates of nodes (takes into account the size of node and scale of map
-        int nodeAx = (int)((((NodeXY) nodeA).location.x + ((NodeXY) nodeA).size/2) * map.SCALE);
-        int nodeAy = (int)((((NodeXY) nodeA).location.y + ((NodeXY) nodeA).size/2) * map.SCALE);
-        int nodeBx = (int)((((NodeXY) nodeB).location.x + ((NodeXY) nodeB).size/2) * map.SCALE);
-        int nodeBy = (int)((((NodeXY) nodeB).location.y + ((NodeXY) nodeB).size/2) * map.SCALE);
+        int nodeAx = (int)((nodeA.location.x + nodeA.size/2) * map.SCALE);
+        int nodeAy = (int)((nodeA.location.y + nodeA.size/2) * map.SCALE);
+        int nodeBx = (int)((nodeB.location.x + nodeB.size/2) * map.SCALE);
+        int nodeBy = (int)((nodeB.location.y + nodeB.size/2) * map.SCALE);
         
         double stroke = .1;
         
@@ -90,49 +126,33 @@ public class LinkXY extends Link{
      * @param color color of link
      */
     public void drawLink(MapDisplay map, Color color) {
-          
-        //Graphic object
-        Graphics g;
-        
-        //Set graphics object
-        g = map.getGraphics();
-        
-        //Set color of graphic object
-        g.setColor(color);
         
         //Set color for link
-        this.color = color;
-        
-        //Get coordinates of nodes (takes into account the size of node and scale of map
-        int nodeAx = (int)((((NodeXY) nodeA).location.x + ((NodeXY) nodeA).size/2) * map.SCALE);
-        int nodeAy = (int)((((NodeXY) nodeA).location.y + ((NodeXY) nodeA).size/2) * map.SCALE);
-        int nodeBx = (int)((((NodeXY) nodeB).location.x + ((NodeXY) nodeB).size/2) * map.SCALE);
-        int nodeBy = (int)((((NodeXY) nodeB).location.y + ((NodeXY) nodeB).size/2) * map.SCALE);
-        
-        double stroke = .1;
-        
-        //Get direction of line      
-        double tempDirection = Math.atan2(nodeAx-nodeBx,nodeAy-nodeBy);
-                
-        //Build Arrow head
-        Polygon tempHead = new Polygon();
-        int i1=12+(int)(stroke*2);
-        int i2=6+(int)stroke;
-        
-        //Add points to polygon
-        tempHead.addPoint(nodeBx,nodeBy);
-        tempHead.addPoint(nodeBx+getX(i1,tempDirection+.5),nodeBy+getY(i1,tempDirection+.5));
-        tempHead.addPoint(nodeBx+getX(i2,tempDirection),nodeBy+getY(i2,tempDirection));
-        tempHead.addPoint(nodeBx+getX(i1,tempDirection-.5),nodeBy+getY(i1,tempDirection-.5));
-        tempHead.addPoint(nodeBx,nodeBy);
-        
-        //Draw line to nodeB from nodeA
-        g.drawLine(nodeBx,nodeBy,nodeAx,nodeAy);
-        
-        //Draw and fill arrow head
-        g.drawPolygon(tempHead);
-        g.fillPolygon(tempHead);
+        setColor(color);
         
+        //Draw it straight onto the map
+        draw_Link(map.getGraphics(), map, color);
+    }
+    
+    /**
+     * Sets the color the link is drawn in without drawing it (e.g. so a search can be animated by the map on the Event
+     * Dispatch Thread)
+     * @param color color to draw the link in
+     */
+    public void setColor(Color color) {
+        this.color = color;
+        if (this.map != null && color != DEFAULT_COLOR) {
+            this.map.addOverlayLink(this);
+        }
+    }
+    
+    /**
+     * Sets the map the link is shown on, which is told whenever the link is drawn in another color than its default one,
+     * so it only has to draw those links on top of its static layer
+     * @param map map the link is shown on, or null if it isn't shown
+     */
+    public void setMap(MapDisplay map) {
+        this.map = map;
     }
     
    private static int getY(int length, double direction) {return (int)(length * Math.cos(direction));}
@@ -145,7 +165,7 @@ public class LinkXY extends Link{
     @Override
    public void resetToDefault() {
        super.resetToDefault();              
-       this.color = Color.LIGHT_GRAY;      
+       this.color = DEFAULT_COLOR;      
    }
     
 }
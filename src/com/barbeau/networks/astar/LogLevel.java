@@ -0,0 +1,31 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+/**
+ * This enumeration defines how much of a search is written to the SearchLog.  Each level also logs everything the
+ * levels before it log.
+ * 
+ * @author Sean J. Barbeau
+ */
+public enum LogLevel {
+    OFF, //Nothing is logged
+    SUMMARY, //The search settings, the path found and its cost
+    EXPANSIONS, //Each node expanded by the search
+    EDGES; //Each neighbor examined while expanding a node, with its costs
+}
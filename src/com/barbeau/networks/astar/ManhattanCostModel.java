@@ -0,0 +1,42 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+/**
+ * This class measures the cost of a path as its length when moving only along the X and Y axes (e.g. on a street grid).
+ * Each link costs |x2-x1| + |y2-y1| between its nodes, and the estimated cost to the goal is the same distance to the goal,
+ * which is never more than the cost of any path to it.
+ * @author Sean J. Barbeau
+ */
+public final class ManhattanCostModel implements CostModel {
+
+    @Override
+    public double getCost(CsrGraph graph, int node, int edge) {
+        return getEstimatedCostToGoal(graph, node, graph.getTarget(edge));
+    }
+
+    @Override
+    public double getEstimatedCostToGoal(CsrGraph graph, int node, int goal) {
+        return Math.abs(graph.getX(node) - graph.getX(goal)) + Math.abs(graph.getY(node) - graph.getY(goal));
+    }
+
+    @Override
+    public String toString() {
+        return "Manhattan Distance";
+    }
+}
@@ -10,19 +10,21 @@ import java.awt.*;
  * 
  * @author Sean Barbeau
  */
-public abstract class NodeXY extends Node implements Comparable {
+public abstract class NodeXY extends Node {
            
-    public NodeXY pathParent;  //This reference to a node will serve as the link to its parent when tracing a path to the goal node.  This way
-                              //the path from start to goal can easily be reconstructed when reaching the goal
-    public double costFromStart;  //Distance traveled from start node to get to this node
-    public double estCostToGoal;  //Estimated distance from this node to the goal, estimated by a heuristic (either # of links or distance traveled
+    //NOTE:  the state of a node during a search (cost from start, estimated cost to goal, path parent) is not kept in the node,
+    //but in the SearchWorkspace of the thread running the search, so many searches can run on the same nodes at once
     public Location location;  //Location of node in (x,y)
 
+    //Color of nodes that the algorithm hasn't drawn in another color
+    public static final Color DEFAULT_COLOR = Color.DARK_GRAY;
+
     //*** Properties of the node used for the graphic MapDisplay ***
     public Color color;  //Variable that holds the current color of the node for the graphic map (used when traversing the path)
     public Color previousColor; //Variable holds the previous color of the node for the graphic map (used when traversing the path)
     public int size; //Defines the current size of the node for the graphic map
     public int previous_size; //Defines the previous size of the node for the graphic map
+    private MapDisplay map = null; //Map the node is shown on, which is told when the appearance of the node changes (null if none)
 
     /**
      * Creates a new instance of Node with a location to be used for Astar search
@@ -34,14 +36,10 @@ public abstract class NodeXY extends Node implements Comparable {
         super(label);
         //Create location property with coords
         this.location = new Location(x, y);
-                          
-        //Initialize costs
-        this.costFromStart = 0;
-        this.estCostToGoal = 0;
         
         //Set graphic properties of node
-        this.color = Color.DARK_GRAY;
-        this.previousColor = Color.DARK_GRAY;
+        this.color = DEFAULT_COLOR;
+        this.previousColor = DEFAULT_COLOR;
         this.size = 7;
         this.previous_size = 7;
         
@@ -49,46 +47,6 @@ public abstract class NodeXY extends Node implements Comparable {
         //System.out.println("Initialized Node '" + this.label + "' to location (" + this.location.x + ", " + this.location.y + ")");
         }
 
-    /**
-     * This method calculates the heuristic value f(n) = h(n) + i(n) where h(n) is the cost of the trip from the start node  *
-     * to this node "n" and i(n) is the estimated cost to travel from this node "n" to the goal node.  This class will       *
-     * be extended to use different heuristics to implement f(n).
-     * @return total heuristics cost to the goal
-     */
-    public double get_total_heuristic_cost() {
-               
-        return (this.costFromStart + this.estCostToGoal);
-    }
-    
-
-    /**
-     * This function compares two node's costs and returns 1 if this node is greater than, 0 if it is equal to and -1 if it is less than node_B. *
-     */
-    @Override
-    public int compareTo (Object node_B){        
-        double cost = this.get_total_heuristic_cost();
-        double node_B_Cost = ((NodeXY)node_B).get_total_heuristic_cost();
-        
-        //Calculate difference in costs
-        double temp = cost - node_B_Cost;
-        
-        if (temp > 0){
-            //this node is greater than node_B
-            return 1;            
-        }
-        else {
-            if (temp < 0) {
-                //this node is less then node_B
-                return -1;
-            }
-            else {
-                //this node is equal to node_B
-                return 0;
-            }
-        } 
-        
-    }
-    
     //******************************************************
     //* Graphic methods used to draw nodes on a visual map *
     //******************************************************
@@ -101,13 +59,8 @@ public abstract class NodeXY extends Node implements Comparable {
         Graphics g;       
         //Set graphics object
         g = map.getGraphics();
-        //Set previous graphic node properties
-        this.previousColor = this.color;
-        this.previous_size = this.size;
-        
         //Set current graphic node properties
-        this.color = color;
-        this.size = size;
+        setAppearance(color, size);
         
         //Set color of graphic object
         g.setColor(color);
@@ -121,15 +74,63 @@ public abstract class NodeXY extends Node implements Comparable {
         //*****************************************************************************************
         //* This function draws the node on the map and is called by the map when it is refreshed *
         //*****************************************************************************************
+        
+        drawNode(g, map, this.color, this.size);
+    }
+    
+    public void drawNode(Graphics g, MapDisplay map, Color color, int size) {
+        //***************************************************************************************************************
+        //* This function draws the node in the given color and size without changing its properties (e.g. to draw the *
+        //* nodes in their default color into a cached image of the map)                                                *
+        //***************************************************************************************************************
                      
         //Set color of graphic object
-        g.setColor(this.color);
+        g.setColor(color);
         //Draw circle
-        g.fillOval((int)(this.location.x * map.SCALE), (int)(this.location.y * map.SCALE), this.size, this.size);                    
+        g.fillOval((int)(this.location.x * map.SCALE), (int)(this.location.y * map.SCALE), size, size);                    
         //Draw text Label
         g.drawString(this.label, (int)(this.location.x * map.SCALE), (int)(this.location.y * map.SCALE));
     }
     
+    public void setAppearance(Color color, int size) {
+        //*********************************************************************************************************
+        //* This function sets the color and size the node is drawn in without drawing it, remembering the        *
+        //* previous ones (e.g. so a search can be animated by the map on the Event Dispatch Thread)              *
+        //*********************************************************************************************************
+        
+        //Set previous graphic node properties
+        this.previousColor = this.color;
+        this.previous_size = this.size;
+        
+        //Set current graphic node properties
+        this.color = color;
+        this.size = size;
+        appearanceChanged();
+    }
+    
+    public void setAppearance(Color color, Color previousColor, int size, int previous_size) {
+        //This function sets the current and previous color and size of the node without drawing it (e.g. to put back the
+        //appearance the node had at some point of a recorded search)
+        this.color = color;
+        this.previousColor = previousColor;
+        this.size = size;
+        this.previous_size = previous_size;
+        appearanceChanged();
+    }
+    
+    public void setMap(MapDisplay map) {
+        //This function sets the map the node is shown on, which is told whenever the appearance of the node changes so it
+        //only has to draw the nodes that may not look like they do in its static layer (null if the node isn't shown)
+        this.map = map;
+    }
+    
+    private void appearanceChanged() {
+        //Let the map draw the node on top of its static layer
+        if (this.map != null) {
+            this.map.addOverlayNode(this);
+        }
+    }
+    
     public void emphasizeCurrentNode(MapDisplay map) {
         //This function emphasizes the current node by showing it as expanded and green
         
@@ -145,6 +146,7 @@ public abstract class NodeXY extends Node implements Comparable {
         //Set current graphic node properties
         this.color = Color.GREEN;
         this.size = map.getExpandedNodeSize();
+        appearanceChanged();
         
         //Set color of graphic object
         g.setColor(color);
@@ -164,44 +166,47 @@ public abstract class NodeXY extends Node implements Comparable {
         g = map.getGraphics();        
         
         //Set current graphic node properties
+        restoreAppearance(map.getExpandedNodeSize());
+        
+        //Set color of graphic object
+        g.setColor(color);
+        //Draw circle
+        g.fillOval((int)(this.location.x * map.SCALE), (int)(this.location.y * map.SCALE), this.size, this.size);                    
+        //Draw text Label
+        g.drawString(this.label, (int)(this.location.x * map.SCALE), (int)(this.location.y * map.SCALE));
+    }
+    
+    public void restoreAppearance(int size) {
+        //This function sets the color of the node back to the one it had before it was the current node without drawing it
+        
         //this.color = this.previousColor;
+        this.color = restoredColor(this.previousColor, this.enabled);
+               
+        this.size = size;
+        appearanceChanged();
+    }
+    
+    public static Color restoredColor(Color previousColor, boolean enabled) {
+        //This function returns the color restoreAppearance() gives a node with this previous color (e.g. so the map animator
+        //can work out the color a node will end up in before it changes the node)
+        
         //If this node wasn't a start or goal node, then paint it the right color (enabled/disabled)
-        if (this.previousColor != Color.BLUE) {
-            if(this.enabled == true) {
-                this.color = Color.BLACK;
+        if (previousColor != Color.BLUE) {
+            if(enabled == true) {
+                return Color.BLACK;
             }
             else {
-                this.color = Color.RED;
+                return Color.RED;
             }
         }
         else {
-            this.color = this.previousColor;
+            return previousColor;
         }
-               
-        this.size = map.getExpandedNodeSize();
-        
-        //Set color of graphic object
-        g.setColor(color);
-        //Draw circle
-        g.fillOval((int)(this.location.x * map.SCALE), (int)(this.location.y * map.SCALE), this.size, this.size);                    
-        //Draw text Label
-        g.drawString(this.label, (int)(this.location.x * map.SCALE), (int)(this.location.y * map.SCALE));
     }
     
     public void setLocation (Location location) {
         this.location.x = location.x;
         this.location.y = location.y;
     }
- 
-  
-    //**************************************************************************************
-    //* Abstract methods to be implemented in the extended class for specific Heuristics   *
-    //**************************************************************************************
-    
-    //This function gets the real cost betweeen this node and node_B
-    public abstract double getCost(NodeXY node_B, Heuristic heuristic);
-    
-    //This function gets the estimated cost between this ndoe and the goal node
-    public abstract double getEstimatedCostToGoal(NodeXY goal_node, Heuristic heuristic);
-        
+
 }
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+/**
+ * This class measures the cost of a path as its length when moving along the X and Y axes and diagonally (e.g. on a grid
+ * where each cell is connected to its 8 neighbours).  Each link costs the octile distance between its nodes -
+ * max(|dx|, |dy|) + (sqrt(2) - 1) * min(|dx|, |dy|), which is its length on such a grid - and the estimated cost to the
+ * goal is the octile distance to the goal, which is never more than the cost of any path to it.
+ * @author Sean J. Barbeau
+ */
+public final class OctileCostModel implements CostModel {
+
+    //Extra cost of a diagonal step over a straight one
+    private static final double DIAGONAL = Math.sqrt(2) - 1;
+
+    @Override
+    public double getCost(CsrGraph graph, int node, int edge) {
+        return getEstimatedCostToGoal(graph, node, graph.getTarget(edge));
+    }
+
+    @Override
+    public double getEstimatedCostToGoal(CsrGraph graph, int node, int goal) {
+        int dx = Math.abs(graph.getX(node) - graph.getX(goal));
+        int dy = Math.abs(graph.getY(node) - graph.getY(goal));
+        return Math.max(dx, dy) + DIAGONAL * Math.min(dx, dy);
+    }
+
+    @Override
+    public String toString() {
+        return "Octile Distance";
+    }
+}
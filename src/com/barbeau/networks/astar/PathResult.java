@@ -0,0 +1,158 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import com.barbeau.networks.Node;
+import com.barbeau.networks.SearchSpace;
+import java.util.LinkedList;
+
+/**
+ * This class holds the result of a search: the path from the start to the goal (if one was found), its cost,
+ * the number of iterations the algorithm needed and the most nodes it held in memory at once.  The path is held as
+ * node ids (Node.id).
+ * @author Sean J. Barbeau
+ */
+public class PathResult {
+
+    private final int[] path;  //Ids of the nodes on the path from start to goal, or null if no path exists
+    private final double totalCost;  //Cost of the path from start to goal
+    private final int numIterations;  //Number of nodes expanded by the algorithm
+    private final int peakNodes;  //Most search nodes held in memory at the same time, or 0 if it wasn't measured
+    private final SearchStats stats;  //What the search cost, or null if it wasn't measured
+
+    /**
+     * Creates a new PathResult
+     * @param path ids of the nodes on the path from start to goal, or null if no path was found
+     * @param totalCost cost of the path
+     * @param numIterations number of iterations of the algorithm
+     */
+    public PathResult(int[] path, double totalCost, int numIterations) {
+        this(path, totalCost, numIterations, 0);
+    }
+
+    /**
+     * Creates a new PathResult
+     * @param path ids of the nodes on the path from start to goal, or null if no path was found
+     * @param totalCost cost of the path
+     * @param numIterations number of iterations of the algorithm
+     * @param peakNodes most search nodes held in memory at the same time
+     */
+    public PathResult(int[] path, double totalCost, int numIterations, int peakNodes) {
+        this(path, totalCost, numIterations, peakNodes, null);
+    }
+
+    private PathResult(int[] path, double totalCost, int numIterations, int peakNodes, SearchStats stats) {
+        this.path = path;
+        this.totalCost = totalCost;
+        this.numIterations = numIterations;
+        this.peakNodes = peakNodes;
+        this.stats = stats;
+    }
+
+    /**
+     * Creates a PathResult for a search that didn't find a path to the goal
+     * @param numIterations number of iterations of the algorithm
+     * @return a PathResult for a search that didn't find a path to the goal
+     */
+    public static PathResult notFound(int numIterations) {
+        return notFound(numIterations, 0);
+    }
+
+    /**
+     * Creates a PathResult for a search that didn't find a path to the goal
+     * @param numIterations number of iterations of the algorithm
+     * @param peakNodes most search nodes held in memory at the same time
+     * @return a PathResult for a search that didn't find a path to the goal
+     */
+    public static PathResult notFound(int numIterations, int peakNodes) {
+        return new PathResult(null, Double.POSITIVE_INFINITY, numIterations, peakNodes);
+    }
+
+    /**
+     * Returns true if a path from the start to the goal was found
+     * @return true if a path from the start to the goal was found
+     */
+    public boolean isFound() {
+        return this.path != null;
+    }
+
+    /**
+     * Returns the ids of the nodes on the path, from the start to the goal
+     * @return the ids of the nodes on the path, or null if no path was found
+     */
+    public int[] getNodeIds() {
+        return this.path;
+    }
+
+    /**
+     * Returns the cost of the path from the start to the goal
+     * @return the cost of the path, or infinity if no path was found
+     */
+    public double getTotalCost() {
+        return this.totalCost;
+    }
+
+    /**
+     * Returns the number of iterations (node expansions) the algorithm needed
+     * @return the number of iterations the algorithm needed
+     */
+    public int getNumIterations() {
+        return this.numIterations;
+    }
+
+    /**
+     * Returns the most search nodes the algorithm held in memory at the same time (e.g. the nodes on the open and visited
+     * lists of A*, or the nodes on the current path of IDA*), which is what limits the size of the graphs it can search
+     * @return the most search nodes held in memory at the same time, or 0 if it wasn't measured
+     */
+    public int getPeakNodes() {
+        return this.peakNodes;
+    }
+
+    /**
+     * Returns what the search cost (nodes expanded, queue operations, time, ...), if it was measured
+     * @return what the search cost, or null if it wasn't measured (see InstrumentedEngine)
+     */
+    public SearchStats getStats() {
+        return this.stats;
+    }
+
+    /**
+     * Returns a copy of this result with the given search statistics
+     * @param stats what the search cost
+     * @return a copy of this result with the given search statistics
+     */
+    public PathResult withStats(SearchStats stats) {
+        return new PathResult(this.path, this.totalCost, this.numIterations, this.peakNodes, stats);
+    }
+
+    /**
+     * Returns the path as a list of nodes from the given search space
+     * @param searchSpace the search space that was searched
+     * @return the list of nodes from the start to the goal, or null if no path was found
+     */
+    public LinkedList<Node> getPath(SearchSpace searchSpace) {
+        if (this.path == null) {
+            return null;
+        }
+        LinkedList<Node> nodes = new LinkedList<Node>();
+        for (int i = 0; i < this.path.length; i++) {
+            nodes.add(searchSpace.getNode(this.path[i]));
+        }
+        return nodes;
+    }
+}
@@ -15,87 +15,247 @@
  */
 
 package com.barbeau.networks.astar;
-import java.util.*;
 
 /**
  * This object is used to hold nodes and sort them by the estimated cost to get to the goal, estimated by a heuristic
+ * It is implemented as an indexed binary min-heap of node ids (Node.id) keyed by the total heuristic cost f(n) of each node,
+ * so inserting a node, removing the least expensive node and lowering the cost of a node already in the queue (decrease-key)
+ * are all O(log n).  The queue remembers the heap position of every node id, which makes contains() O(1).
  * @author Sean J. Barbeau
  */
-public class PriorityQueue extends LinkedList {
-    
-    /** Creates a new instance of PriorityQueue */
-    public PriorityQueue() {
-        super();
-    }
-    
-    /**
-     * This method finds the appropriate location to store the new node that is being added to the queue, and adds it to the queue
-     * NOTE:  uses the "Comparable" extention to the Node class and function "compare_To" to find where it should be inserted into the queue.
-     * @param newNode node to be added to the queue
-     */
-    public void add(Comparable newNode) {
-        //*****************************************************************************************************
-        //* 
-        
-        try
-        {
-            for (int i = 0 ; i < this.size() ; i++)  {
-                if (newNode.compareTo(get(i)) <= 0) {
-                    add(i, newNode);  //Add this new node to the list
-                    return;
-                }
-            }
-            //If execution reaches this point then add it as the last node in the list
-            addLast(newNode);
+public class PriorityQueue {
+
+    private int[] heap;  //Node ids in the queue, arranged as a binary heap with the least expensive node at index 0
+    private double[] keys;  //Total heuristic cost of the node at the same index of the heap
+    private int[] positions;  //Index in the heap of each node id (only valid while the node is in the queue)
+    private int size = 0;  //Number of nodes currently in the queue
+
+    //Counts of the operations on the queue since it was created, read by InstrumentedEngine to measure each search
+    private long numAdds = 0;
+    private long numRemoves = 0;
+    private long numDecreaseKeys = 0;
+    private int peakSize = 0;  //Most nodes in the queue at once since it was last cleared or resetPeakSize() was called
+
+    /**
+     * Creates a new instance of PriorityQueue for node ids from 0 to numNodes - 1
+     * @param numNodes number of node ids the queue must be able to hold
+     */
+    public PriorityQueue(int numNodes) {
+        numNodes = Math.max(numNodes, 1);
+        this.heap = new int[Math.min(numNodes, 16)];
+        this.keys = new double[this.heap.length];
+        this.positions = new int[numNodes];
+    }
+
+    /**
+     * Makes sure the queue can hold node ids from 0 to numNodes - 1
+     * @param numNodes number of node ids the queue must be able to hold
+     */
+    public void ensureCapacity(int numNodes) {
+        if (numNodes > this.positions.length) {
+            int[] temp = new int[numNodes];
+            System.arraycopy(this.positions, 0, temp, 0, this.positions.length);
+            this.positions = temp;
         }
-        catch (Exception e)
-        {
-         System.out.println("Error in adding element in PriorityQueue object:" + e)   ;
+    }
+
+    /**
+     * This method adds the new node to the queue in the position defined by its total heuristic cost
+     * @param node id of the node to be added to the queue
+     * @param cost total heuristic cost f(n) of the node
+     */
+    public void add(int node, double cost) {
+        if (this.size == this.heap.length) {
+            int capacity = this.heap.length * 2;
+            int[] tempHeap = new int[capacity];
+            double[] tempKeys = new double[capacity];
+            System.arraycopy(this.heap, 0, tempHeap, 0, this.size);
+            System.arraycopy(this.keys, 0, tempKeys, 0, this.size);
+            this.heap = tempHeap;
+            this.keys = tempKeys;
         }
-        
-}
 
-/* public void sort() {
-    //This function sorts the Priority Queue in case any elements comparable features have changed
-    try {
-        for (int i = 0 ; i < this.size() ; i++)  {
-            for (int j = 0 ; j < this.size() ; j++)  {
-                if (((Comparable)get(j)).compareTo(get(i)) >= 0) {                    
-                    if(i == 0) {
-                        this.addFirst(this.remove(j)); //Move to beginning
-                    }
-                    else {
-                        if(i == this.size()) {
-                            this.addLast(this.remove(j));  //Move to end
-                        }
-                        else {
-                            this.add(i, this.remove(j)); //Move to current position
-                        }
-                    }                  
-                }
+        //Place the node at the bottom of the heap and move it up to where it belongs
+        siftUp(this.size++, node, cost);
+        this.numAdds++;
+        if (this.size > this.peakSize) {
+            this.peakSize = this.size;
+        }
+    }
+
+    /**
+     * Removes and returns the node with the least total heuristic cost
+     * @return id of the node with the least total heuristic cost
+     */
+    public int removeFirst() {
+        if (this.size == 0) {
+            throw new java.util.NoSuchElementException();
+        }
+
+        int first = this.heap[0];
+        this.numRemoves++;
+
+        //Move the last node to the top and let it sink to where it belongs
+        this.size--;
+        if (this.size > 0) {
+            siftDown(0, this.heap[this.size], this.keys[this.size]);
+        }
+        return first;
+    }
+
+    /**
+     * Returns the total heuristic cost of the least expensive node in the queue without removing it
+     * @return the least total heuristic cost in the queue, or infinity if the queue is empty
+     */
+    public double peekCost() {
+        return this.size == 0 ? Double.POSITIVE_INFINITY : this.keys[0];
+    }
+
+    /**
+     * Lowers the total heuristic cost of a node in the queue and restores the heap order (decrease-key)
+     * @param node id of a node in the queue
+     * @param cost new, lower total heuristic cost of the node
+     */
+    public void decreaseKey(int node, double cost) {
+        siftUp(this.positions[node], node, cost);
+        this.numDecreaseKeys++;
+    }
+
+    /**
+     * Returns true if the node is currently in the queue.  This is O(1) since the queue tracks the heap position of each node.
+     * @param node id of the node to look for
+     * @return true if the node is currently in the queue
+     */
+    public boolean contains(int node) {
+        int index = this.positions[node];
+        //The position could be left over from a node that has since been removed, so check the slot as well
+        return index < this.size && this.heap[index] == node;
+    }
+
+    /**
+     * Returns true if there are no nodes in the queue
+     * @return true if there are no nodes in the queue
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns the number of nodes in the queue
+     * @return the number of nodes in the queue
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of nodes added to the queue since it was created
+     * @return the number of nodes added to the queue
+     */
+    public long getNumAdds() {
+        return this.numAdds;
+    }
+
+    /**
+     * Returns the number of nodes removed from the queue by removeFirst() since it was created
+     * @return the number of nodes removed from the queue
+     */
+    public long getNumRemoves() {
+        return this.numRemoves;
+    }
+
+    /**
+     * Returns the number of decrease-key operations since the queue was created
+     * @return the number of decrease-key operations
+     */
+    public long getNumDecreaseKeys() {
+        return this.numDecreaseKeys;
+    }
+
+    /**
+     * Returns the most nodes that were in the queue at once since it was last cleared or resetPeakSize() was called
+     * @return the most nodes that were in the queue at once
+     */
+    public int getPeakSize() {
+        return this.peakSize;
+    }
+
+    /**
+     * Starts measuring the most nodes in the queue at once again from the current size
+     */
+    public void resetPeakSize() {
+        this.peakSize = this.size;
+    }
+
+    /**
+     * Removes all nodes from the queue.  This is O(1), since stale positions are detected by contains().
+     */
+    public void clear() {
+        this.size = 0;
+        this.peakSize = 0;
+    }
+
+    /**
+     * Moves a node up the heap from the given index until its parent is not more expensive than it
+     */
+    private void siftUp(int index, int node, double cost) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (this.keys[parent] <= cost) {
+                break;
             }
+            this.heap[index] = this.heap[parent];
+            this.keys[index] = this.keys[parent];
+            this.positions[this.heap[index]] = index;
+            index = parent;
         }
+        this.heap[index] = node;
+        this.keys[index] = cost;
+        this.positions[node] = index;
     }
-    catch (Exception e) {
-        System.out.println("Error sorting PriorityQueue object:" + e)   ;
+
+    /**
+     * Moves a node down the heap from the given index until neither of its children is less expensive than it
+     */
+    private void siftDown(int index, int node, double cost) {
+        int half = this.size >>> 1;
+
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < this.size && this.keys[right] < this.keys[child]) {
+                child = right;
+            }
+            if (cost <= this.keys[child]) {
+                break;
+            }
+            this.heap[index] = this.heap[child];
+            this.keys[index] = this.keys[child];
+            this.positions[this.heap[index]] = index;
+            index = child;
+        }
+        this.heap[index] = node;
+        this.keys[index] = cost;
+        this.positions[node] = index;
     }
-} */
+
     /**
-     * This is a test method to print the current contents of the Priority Queue in order from lowest (first) to highest (last) 
+     * This is a test method to print the current contents of the Priority Queue in order from lowest (first) to highest (last)
      */
     public void printContents() {
-        
+
         try
         {
             System.out.println("------------------------");
             System.out.println("PriorityQueue Contents:");
             System.out.println(this.size() + " elements.");
             while (!this.isEmpty())  {
-                HeuristicsNode test = (HeuristicsNode)removeFirst();
-                System.out.println(test.label + " at cost of " + test.get_total_heuristic_cost());
+                double cost = peekCost();
+                int test = removeFirst();
+                System.out.println(test + " at cost of " + cost);
                 }
-            
-        } 
+
+        }
         catch (Exception e)
         {
          System.out.println("Error in printing PriorityQueue contents:" + e)   ;
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+/**
+ * This interface is implemented by the routing engines, which search a CsrGraph for the least expensive path between
+ * two nodes.  Engines keep no state between searches, so one engine can run searches from many threads at the same time.
+ * SearchMode lists the engines that can be chosen for a search.
+ * @author Sean J. Barbeau
+ */
+public interface RoutingEngine {
+
+    /**
+     * Searches for the least expensive path from start to goal, reporting progress to a listener
+     * @param graph graph to run the search on
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param costModel cost model that measures the cost of each link and estimates the cost to the goal
+     * @param listener listener that receives the progress of the search, or null
+     * @return the result of the search
+     */
+    public PathResult search(CsrGraph graph, int start, int goal, CostModel costModel, SearchListener listener);
+
+    /**
+     * Searches for the least expensive path from start to goal with one of the built-in heuristics, reporting progress
+     * to a listener
+     * @param graph graph to run the search on
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param heuristic heuristic to use to measure costs
+     * @param listener listener that receives the progress of the search, or null
+     * @return the result of the search
+     */
+    public default PathResult search(CsrGraph graph, int start, int goal, Heuristic heuristic, SearchListener listener) {
+        return search(graph, start, goal, heuristic.getCostModel(graph), listener);
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+/**
+ * An empty implementation of SearchListener.  Extend this class to only receive the search events you are interested in.
+ * @author Sean J. Barbeau
+ */
+public abstract class SearchAdapter implements SearchListener {
+
+    public void nodeExpanded(int node, double costFromStart, double estCostToGoal) {}
+
+    public void linkTraveled(int nodeA, int nodeB) {}
+
+    public void nodeAdded(int node, double costFromStart, double estCostToGoal) {}
+
+    public void nodeImproved(int node, double costFromStart, double estCostToGoal) {}
+
+    public void nodeReopened(int node, double costFromStart, double estCostToGoal) {}
+
+    public void nodeRejected(int node) {}
+
+    public void nodeDisabled(int nodeA, int nodeB) {}
+
+    public void nodeClosed(int node) {}
+
+    public void solutionImproved(PathResult result, double weight, double suboptimalityBound) {}
+
+    public void searchFinished(PathResult result) {}
+}
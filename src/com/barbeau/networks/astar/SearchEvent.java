@@ -0,0 +1,94 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The JDK Flight Recorder event of one search, committed by InstrumentedEngine.  It is only filled in and written when
+ * a recording with this event enabled is running, so it costs next to nothing otherwise.  Record it with e.g.
+ * -XX:StartFlightRecording and view it in JDK Mission Control under "A* Visualizer".
+ * @author Sean J. Barbeau
+ */
+@Name("com.barbeau.networks.astar.Search")
+@Label("Search")
+@Category({"A* Visualizer", "Search"})
+@Description("A path search run by a RoutingEngine")
+@StackTrace(false)
+class SearchEvent extends Event {
+
+    @Label("Engine")
+    String engine;
+
+    @Label("Heuristic")
+    String heuristic;
+
+    @Label("Start Node")
+    int start;
+
+    @Label("Goal Node")
+    int goal;
+
+    @Label("Path Found")
+    boolean found;
+
+    @Label("Path Cost")
+    double cost;
+
+    @Label("Nodes Expanded")
+    long nodesExpanded;
+
+    @Label("Edges Relaxed")
+    long edgesRelaxed;
+
+    @Label("Open List Pushes")
+    @Description("Nodes added to the open lists, or -1 if the engine keeps its own lists")
+    long openPushes;
+
+    @Label("Open List Pops")
+    @Description("Nodes removed from the open lists, or -1 if the engine keeps its own lists")
+    long openPops;
+
+    @Label("Decrease-Keys")
+    @Description("Nodes moved up the open lists, or -1 if the engine keeps its own lists")
+    long decreaseKeys;
+
+    @Label("Peak Open List Size")
+    @Description("Most nodes on the (forward) open list at once, or -1 if the engine keeps its own lists")
+    long peakOpenSize;
+
+    @Label("Peak Backward Open List Size")
+    @Description("Most nodes on the backward open list of a bidirectional search at once, or -1")
+    long peakBackwardOpenSize;
+
+    @Label("Reopens")
+    long reopens;
+
+    @Label("Heuristic Evaluations")
+    long heuristicEvaluations;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+}
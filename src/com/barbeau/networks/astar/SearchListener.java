@@ -0,0 +1,101 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+/**
+ * This interface receives the progress of a search from the routing engine.  Nodes are identified by their
+ * dense ids (Node.id).  All methods are called on the thread running the search.
+ * Extend SearchAdapter to only receive the events you are interested in.
+ * @author Sean J. Barbeau
+ */
+public interface SearchListener {
+
+    /**
+     * Called when a node is taken off the list of available nodes and its neighbors are about to be examined
+     * @param node id of the node being expanded
+     * @param costFromStart cost of the best path found from the start node to this node
+     * @param estCostToGoal estimated cost from this node to the goal
+     */
+    public void nodeExpanded(int node, double costFromStart, double estCostToGoal);
+
+    /**
+     * Called when the link from nodeA to nodeB is examined.  The nodes are given in the direction of the link, so when a
+     * search works back from the goal (BidirectionalAstarEngine) nodeB is the node being expanded.
+     * @param nodeA id of the node at the start of the link
+     * @param nodeB id of the node at the end of the link
+     */
+    public void linkTraveled(int nodeA, int nodeB);
+
+    /**
+     * Called when a node is reached for the first time and added to the list of available nodes
+     * @param node id of the node
+     * @param costFromStart cost of the path found from the start node to this node
+     * @param estCostToGoal estimated cost from this node to the goal
+     */
+    public void nodeAdded(int node, double costFromStart, double estCostToGoal);
+
+    /**
+     * Called when a cheaper path is found to a node that is already in the list of available nodes
+     * @param node id of the node
+     * @param costFromStart new cost of the path from the start node to this node
+     * @param estCostToGoal estimated cost from this node to the goal
+     */
+    public void nodeImproved(int node, double costFromStart, double estCostToGoal);
+
+    /**
+     * Called when a cheaper path is found to a node that was already visited, so it is added back to the search
+     * @param node id of the node
+     * @param costFromStart new cost of the path from the start node to this node
+     * @param estCostToGoal estimated cost from this node to the goal
+     */
+    public void nodeReopened(int node, double costFromStart, double estCostToGoal);
+
+    /**
+     * Called when the path through the node being expanded is not cheaper than the one already found to a node
+     * @param node id of the node
+     */
+    public void nodeRejected(int node);
+
+    /**
+     * Called when the neighbor of the node being expanded is disabled, so it cannot be part of the path.  When a search
+     * works back from the goal the link runs from nodeB to nodeA.
+     * @param nodeA id of the node being expanded
+     * @param nodeB id of the disabled node
+     */
+    public void nodeDisabled(int nodeA, int nodeB);
+
+    /**
+     * Called when all neighbors of a node have been examined and the node is put on the visited list
+     * @param node id of the node
+     */
+    public void nodeClosed(int node);
+
+    /**
+     * Called by anytime engines (AraStarEngine) each time they have improved their path (or the bound on how good it is),
+     * while the search goes on to improve it further
+     * @param result the best path found so far
+     * @param weight inflation factor of the estimated cost to the goal used to find the path
+     * @param suboptimalityBound the path costs at most this many times the least expensive path (1 if it is the least expensive)
+     */
+    public void solutionImproved(PathResult result, double weight, double suboptimalityBound);
+
+    /**
+     * Called once when the search ends, whether or not a path was found
+     * @param result result of the search
+     */
+    public void searchFinished(PathResult result);
+}
@@ -0,0 +1,448 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import com.barbeau.networks.SearchSpace;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+
+/**
+ * This class logs the progress of a search without slowing it down.  It is a SearchListener, so it can listen to an
+ * engine directly, and also logs lines of text.  Each event is only logged if its LogLevel is enabled, and is then
+ * stored as numbers (node id and costs) in a bounded lock-free ring buffer.  A background writer thread drains the buffer,
+ * formats the events into lines of text and appends them in batches to a text area (on the Event Dispatch Thread)
+ * and/or a file.  At LogLevel.OFF nothing is stored and no writer thread is started.
+ *
+ * If the writer can't keep up, EXPANSIONS and EDGES events that don't fit in the buffer are dropped (and the number
+ * dropped is logged), while SUMMARY events wait for room so they are never lost.
+ * @author Sean J. Barbeau
+ */
+public class SearchLog extends SearchAdapter {
+
+    //Number of events the ring buffer holds by default
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    //Time the writer waits for new events when the buffer is empty (in nanoseconds)
+    private static final long FLUSH_INTERVAL = 20000000L;
+
+    //Time a thread logging a SUMMARY event waits for room when the buffer is full (in nanoseconds)
+    private static final long FULL_WAIT = 100000L;
+
+    private static final String NEW_LINE = "\n";
+
+    //Kinds of events
+    private static final int TEXT = 0;
+    private static final int TEXT_NO_NEW_LINE = 1;
+    private static final int EXPANDED = 2;
+    private static final int ADDED = 3;
+    private static final int IMPROVED = 4;
+    private static final int REOPENED = 5;
+    private static final int REJECTED = 6;
+    private static final int DISABLED = 7;
+
+    private final SearchSpace searchSpace;  //Search space the node ids refer to, used for the node labels
+    private final LogLevel level;
+    private final int maxLevel;  //Ordinal of the most detailed level that is logged (0 if nothing is logged)
+    private final JTextArea textLog;
+    private final Writer file;
+
+    //Ring buffer of events.  A slot can be written when its sequence equals the position being claimed, and read when it
+    //equals the position + 1 - so any number of threads can log at the same time while the writer reads
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final int[] kinds;
+    private final int[] nodes;
+    private final double[] costs;
+    private final double[] estimates;
+    private final String[] texts;
+    private final AtomicLong tail = new AtomicLong();  //Next position to be claimed by a logging thread
+    private long head = 0;  //Next position to be read by the writer
+    private final AtomicLong dropped = new AtomicLong();  //Number of events dropped because the buffer was full
+
+    private final Thread writer;
+    private volatile boolean closed = false;  //True once no more events will be logged
+    private volatile boolean discarded = false;  //True if the events that haven't been written yet should be dropped
+    private IOException fileError = null;
+
+    /**
+     * Creates a new SearchLog with a buffer of DEFAULT_CAPACITY events
+     * @param searchSpace search space the node ids of the events refer to
+     * @param level most detailed level to log
+     * @param textLog text area to append the log to, or null
+     * @param file writer to write the log to, or null - it is flushed but not closed by close()
+     */
+    public SearchLog(SearchSpace searchSpace, LogLevel level, JTextArea textLog, Writer file) {
+        this(searchSpace, level, textLog, file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new SearchLog
+     * @param searchSpace search space the node ids of the events refer to
+     * @param level most detailed level to log
+     * @param textLog text area to append the log to, or null
+     * @param file writer to write the log to, or null - it is flushed but not closed by close()
+     * @param capacity number of events the buffer holds (rounded up to a power of 2)
+     */
+    public SearchLog(SearchSpace searchSpace, LogLevel level, JTextArea textLog, Writer file, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1, not " + capacity);
+        }
+        this.searchSpace = searchSpace;
+        this.level = level;
+        this.maxLevel = (textLog == null && file == null) ? 0 : level.ordinal();
+        this.textLog = textLog;
+        this.file = file;
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+        this.kinds = new int[size];
+        this.nodes = new int[size];
+        this.costs = new double[size];
+        this.estimates = new double[size];
+        this.texts = new String[size];
+
+        if (this.maxLevel > 0) {
+            this.writer = new Thread(new Runnable() {
+                public void run() {
+                    write();
+                }
+            }, "Search log writer");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        }
+        else {
+            this.writer = null;
+        }
+    }
+
+    /**
+     * Returns the most detailed level that is logged
+     * @return the most detailed level that is logged
+     */
+    public LogLevel getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Returns true if events of the given level are logged.  Check this before building a message that is expensive
+     * to build.
+     * @param level level of the events
+     * @return true if events of the given level are logged
+     */
+    public boolean isEnabled(LogLevel level) {
+        int ordinal = level.ordinal();
+        return ordinal > 0 && ordinal <= this.maxLevel;
+    }
+
+    /**
+     * Returns the number of events that were dropped because the writer couldn't keep up
+     * @return the number of events that were dropped
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Logs a line of text
+     * @param level level of the line
+     * @param text text to log
+     */
+    public void print(LogLevel level, String text) {
+        if (isEnabled(level)) {
+            offer(level, TEXT, 0, 0, 0, text);
+        }
+    }
+
+    /**
+     * Logs text without ending the line
+     * @param level level of the text
+     * @param text text to log
+     */
+    public void printNoNewLine(LogLevel level, String text) {
+        if (isEnabled(level)) {
+            offer(level, TEXT_NO_NEW_LINE, 0, 0, 0, text);
+        }
+    }
+
+    //*******************************************************************
+    //* SearchListener methods - the events are formatted by the writer *
+    //*******************************************************************
+
+    @Override
+    public void nodeExpanded(int node, double costFromStart, double estCostToGoal) {
+        if (isEnabled(LogLevel.EXPANSIONS)) {
+            offer(LogLevel.EXPANSIONS, EXPANDED, node, costFromStart, estCostToGoal, null);
+        }
+    }
+
+    @Override
+    public void nodeAdded(int node, double costFromStart, double estCostToGoal) {
+        if (isEnabled(LogLevel.EDGES)) {
+            offer(LogLevel.EDGES, ADDED, node, costFromStart, estCostToGoal, null);
+        }
+    }
+
+    @Override
+    public void nodeImproved(int node, double costFromStart, double estCostToGoal) {
+        if (isEnabled(LogLevel.EDGES)) {
+            offer(LogLevel.EDGES, IMPROVED, node, costFromStart, estCostToGoal, null);
+        }
+    }
+
+    @Override
+    public void nodeReopened(int node, double costFromStart, double estCostToGoal) {
+        if (isEnabled(LogLevel.EDGES)) {
+            offer(LogLevel.EDGES, REOPENED, node, costFromStart, estCostToGoal, null);
+        }
+    }
+
+    @Override
+    public void nodeRejected(int node) {
+        if (isEnabled(LogLevel.EDGES)) {
+            offer(LogLevel.EDGES, REJECTED, node, 0, 0, null);
+        }
+    }
+
+    @Override
+    public void nodeDisabled(int nodeA, int nodeB) {
+        if (isEnabled(LogLevel.EDGES)) {
+            offer(LogLevel.EDGES, DISABLED, nodeB, 0, 0, null);
+        }
+    }
+
+    @Override
+    public void solutionImproved(PathResult result, double weight, double suboptimalityBound) {
+        if (isEnabled(LogLevel.SUMMARY)) {
+            //Print the path found so far by an anytime search, which goes on to improve it
+            offer(LogLevel.SUMMARY, TEXT, 0, 0, 0, "Found a path with total cost = " + result.getTotalCost() + " using weight " + weight
+                    + " (at most " + suboptimalityBound + " times the least expensive path).");
+        }
+    }
+
+    @Override
+    public void searchFinished(PathResult result) {
+        if (isEnabled(LogLevel.SUMMARY)) {
+            if (result.isFound()) {
+                int[] path = result.getNodeIds();
+                offer(LogLevel.SUMMARY, TEXT, 0, 0, 0, "Found goal!! => " + getLabel(path[path.length - 1]) + " (after "
+                        + result.getNumIterations() + " iterations, total cost = " + result.getTotalCost() + ")");
+            }
+            if (result.getPeakNodes() > 0) {
+                //Print the memory used, to compare the search modes
+                offer(LogLevel.SUMMARY, TEXT, 0, 0, 0, "Peak memory used = " + result.getPeakNodes() + " nodes.");
+            }
+        }
+    }
+
+    /**
+     * Waits until the events logged so far have been written, and stops the writer.  Nothing can be logged afterwards.
+     * @throws IOException if the events couldn't be written to the file
+     */
+    public void close() throws IOException {
+        stopWriter();
+        if (this.file != null) {
+            this.file.flush();
+        }
+        if (this.fileError != null) {
+            throw this.fileError;
+        }
+    }
+
+    /**
+     * Stops the writer without writing the events that haven't been written yet (e.g. when the search is reset).
+     * Nothing can be logged afterwards.
+     */
+    public void discard() {
+        this.discarded = true;
+        stopWriter();
+    }
+
+    private void stopWriter() {
+        this.closed = true;
+        if (this.writer != null && this.writer != Thread.currentThread()) {
+            LockSupport.unpark(this.writer);
+            try {
+                this.writer.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Stores an event in the ring buffer, dropping it if the buffer is full and it isn't a SUMMARY event
+     */
+    private void offer(LogLevel level, int kind, int node, double cost, double estimate, String text) {
+        while (this.closed == false) {
+            long position = this.tail.get();
+            int slot = (int) position & this.mask;
+            long sequence = this.sequences.get(slot);
+            if (sequence == position) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.kinds[slot] = kind;
+                    this.nodes[slot] = node;
+                    this.costs[slot] = cost;
+                    this.estimates[slot] = estimate;
+                    this.texts[slot] = text;
+                    //Publish the event to the writer
+                    this.sequences.lazySet(slot, position + 1);
+                    return;
+                }
+            }
+            else if (sequence < position) {
+                //The buffer is full
+                if (level != LogLevel.SUMMARY) {
+                    this.dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.parkNanos(FULL_WAIT);
+            }
+        }
+    }
+
+    /**
+     * Runs on the writer thread - formats the events in the buffer and writes them in batches until the log is closed
+     */
+    private void write() {
+        StringBuilder batch = new StringBuilder();
+        long reportedDropped = 0;
+        while (true) {
+            //Read closed before draining, so events logged before the log was closed are always written
+            boolean last = this.closed;
+            if (this.discarded == true) {
+                return;
+            }
+
+            int size = this.mask + 1;
+            for (int i = 0; i < size; i++) {
+                int slot = (int) this.head & this.mask;
+                if (this.sequences.get(slot) != this.head + 1) {
+                    break;
+                }
+                format(batch, slot);
+                this.texts[slot] = null;
+                //Give the slot back to the logging threads
+                this.sequences.lazySet(slot, this.head + size);
+                this.head++;
+            }
+
+            long droppedNow = this.dropped.get();
+            if (droppedNow > reportedDropped) {
+                batch.append("     (").append(droppedNow - reportedDropped).append(" search events were not logged because the log couldn't keep up)").append(NEW_LINE);
+                reportedDropped = droppedNow;
+            }
+
+            if (batch.length() > 0) {
+                flush(batch.toString());
+                batch.setLength(0);
+            }
+            else if (last) {
+                return;
+            }
+            if (last == false) {
+                LockSupport.parkNanos(FLUSH_INTERVAL);
+            }
+        }
+    }
+
+    /**
+     * Formats an event as the text shown to the user
+     */
+    private void format(StringBuilder batch, int slot) {
+        int node = this.nodes[slot];
+        switch (this.kinds[slot]) {
+            case TEXT:
+                batch.append(this.texts[slot]).append(NEW_LINE);
+                break;
+            case TEXT_NO_NEW_LINE:
+                batch.append(this.texts[slot]);
+                break;
+            case EXPANDED:
+                batch.append("Expanding ").append(getLabel(node)).append(".  Checking neighbors & costs--------->").append(NEW_LINE);
+                break;
+            case ADDED:
+                batch.append("     ").append(getLabel(node)).append(" was added to the list of available nodes.").append(NEW_LINE);
+                formatCosts(batch, slot);
+                break;
+            case IMPROVED:
+                formatCosts(batch, slot);
+                break;
+            case REOPENED:
+                batch.append("     ").append(getLabel(node)).append(" was added to the list of available nodes.").append(NEW_LINE);
+                batch.append("     ").append(getLabel(node)).append(" was previously visited but has been added back to the search because it appears a path with lesser cost exists.").append(NEW_LINE);
+                formatCosts(batch, slot);
+                break;
+            case REJECTED:
+                //Print info to the user that the node is no longer considered
+                batch.append("     ").append(getLabel(node)).append(" has already been visited and doesn't appear to be lesser cost to the goal, so it has been removed from the list of considered nodes.").append(NEW_LINE);
+                break;
+            case DISABLED:
+                batch.append("     ").append(getLabel(node)).append(" has been DISABLED.  It cannot be considered in the path to the goal.").append(NEW_LINE);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void formatCosts(StringBuilder batch, int slot) {
+        double cost = this.costs[slot];
+        double estimate = this.estimates[slot];
+        batch.append("     ").append(getLabel(this.nodes[slot])).append(" Costs--> from_start = ").append(cost)
+                .append(", est_to_goal = ").append(estimate).append(", total = ").append(cost + estimate).append(NEW_LINE);
+    }
+
+    private String getLabel(int node) {
+        return this.searchSpace.getNode(node).label;
+    }
+
+    /**
+     * Writes a batch of formatted text to the file and appends it to the text area
+     */
+    private void flush(final String text) {
+        if (this.file != null && this.fileError == null) {
+            try {
+                this.file.write(text);
+            }
+            catch (IOException e) {
+                this.fileError = e;
+            }
+        }
+        if (this.textLog != null) {
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    textLog.append(text);
+                    //Moves cursor to the end of the text area to keep new text in view
+                    textLog.setCaretPosition(textLog.getDocument().getLength());
+                }
+            });
+        }
+    }
+}
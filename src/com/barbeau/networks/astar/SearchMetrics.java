@@ -0,0 +1,190 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class adds up the SearchStats of many searches, and publishes the totals through JMX (see SearchMetricsMXBean).
+ * The latency of each search is kept in a LatencyHistogram for the percentiles.  Any number of threads can record
+ * searches at the same time.
+ * @author Sean J. Barbeau
+ */
+public class SearchMetrics implements SearchMetricsMXBean {
+
+    //Name the default metrics are published under
+    public static final String OBJECT_NAME = "com.barbeau.networks.astar:type=SearchMetrics";
+
+    private static SearchMetrics defaultMetrics = null;
+
+    private final LongAdder searchCount = new LongAdder();
+    private final LongAdder queueSearchCount = new LongAdder();
+    private final LongAdder pathsFound = new LongAdder();
+    private final LongAdder nodesExpanded = new LongAdder();
+    private final LongAdder edgesRelaxed = new LongAdder();
+    private final LongAdder openPushes = new LongAdder();
+    private final LongAdder openPops = new LongAdder();
+    private final LongAdder decreaseKeys = new LongAdder();
+    private final LongAdder reopens = new LongAdder();
+    private final LongAdder heuristicEvaluations = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final AtomicLong maxPeakOpenSize = new AtomicLong();
+    private final AtomicLong maxPeakBackwardOpenSize = new AtomicLong();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Returns the metrics shared by the whole application, publishing them through JMX the first time
+     * @return the default metrics
+     */
+    public static synchronized SearchMetrics getDefault() {
+        if (defaultMetrics == null) {
+            defaultMetrics = new SearchMetrics();
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (server.isRegistered(name) == false) {
+                    server.registerMBean(defaultMetrics, name);
+                }
+            }
+            catch (JMException e) {
+                //The metrics still work, they just can't be watched through JMX
+                System.out.println("Error publishing the search metrics through JMX: " + e);
+            }
+        }
+        return defaultMetrics;
+    }
+
+    /**
+     * Adds the statistics of one search to the totals
+     * @param stats statistics of the search
+     * @param found true if the search found a path
+     * @param startNanos time the search started (System.nanoTime())
+     * @param endNanos time the search ended (System.nanoTime())
+     */
+    public void record(SearchStats stats, boolean found, long startNanos, long endNanos) {
+        this.searchCount.increment();
+        if (found) {
+            this.pathsFound.increment();
+        }
+        this.nodesExpanded.add(stats.getNodesExpanded());
+        this.edgesRelaxed.add(stats.getEdgesRelaxed());
+        if (stats.hasQueueStats()) {
+            this.queueSearchCount.increment();
+            this.openPushes.add(stats.getOpenPushes());
+            this.openPops.add(stats.getOpenPops());
+            this.decreaseKeys.add(stats.getDecreaseKeys());
+            this.maxPeakOpenSize.accumulateAndGet(stats.getPeakOpenSize(), Math::max);
+            this.maxPeakBackwardOpenSize.accumulateAndGet(stats.getPeakBackwardOpenSize(), Math::max);
+        }
+        this.reopens.add(stats.getReopens());
+        this.heuristicEvaluations.add(stats.getHeuristicEvaluations());
+        this.cpuNanos.add(stats.getCpuNanos(SearchStats.Phase.SEARCH));
+        this.latencies.record(startNanos, endNanos);
+    }
+
+    public long getSearchCount() {
+        return this.searchCount.sum();
+    }
+
+    public long getQueueSearchCount() {
+        return this.queueSearchCount.sum();
+    }
+
+    public long getPathsFound() {
+        return this.pathsFound.sum();
+    }
+
+    public long getNodesExpanded() {
+        return this.nodesExpanded.sum();
+    }
+
+    public long getEdgesRelaxed() {
+        return this.edgesRelaxed.sum();
+    }
+
+    public long getOpenPushes() {
+        return this.openPushes.sum();
+    }
+
+    public long getOpenPops() {
+        return this.openPops.sum();
+    }
+
+    public long getDecreaseKeys() {
+        return this.decreaseKeys.sum();
+    }
+
+    public long getReopens() {
+        return this.reopens.sum();
+    }
+
+    public long getHeuristicEvaluations() {
+        return this.heuristicEvaluations.sum();
+    }
+
+    public long getMaxPeakOpenSize() {
+        return this.maxPeakOpenSize.get();
+    }
+
+    public long getMaxPeakBackwardOpenSize() {
+        return this.maxPeakBackwardOpenSize.get();
+    }
+
+    public long getTotalCpuNanos() {
+        return this.cpuNanos.sum();
+    }
+
+    public long getMedianLatencyNanos() {
+        return this.latencies.getPercentileNanos(0.50);
+    }
+
+    public long getP99LatencyNanos() {
+        return this.latencies.getPercentileNanos(0.99);
+    }
+
+    public long getMaxLatencyNanos() {
+        return this.latencies.getMaxNanos();
+    }
+
+    public double getSearchesPerSecond() {
+        long elapsed = this.latencies.getElapsedNanos();
+        return elapsed == 0 ? 0 : this.latencies.getCount() * 1e9 / elapsed;
+    }
+
+    public void reset() {
+        this.searchCount.reset();
+        this.queueSearchCount.reset();
+        this.pathsFound.reset();
+        this.nodesExpanded.reset();
+        this.edgesRelaxed.reset();
+        this.openPushes.reset();
+        this.openPops.reset();
+        this.decreaseKeys.reset();
+        this.reopens.reset();
+        this.heuristicEvaluations.reset();
+        this.cpuNanos.reset();
+        this.maxPeakOpenSize.set(0);
+        this.maxPeakBackwardOpenSize.set(0);
+        this.latencies.reset();
+    }
+}
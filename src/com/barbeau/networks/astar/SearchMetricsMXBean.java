@@ -0,0 +1,68 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+/**
+ * The management interface of SearchMetrics, published through JMX as com.barbeau.networks.astar:type=SearchMetrics
+ * so the searches of a running application can be watched with JConsole or VisualVM.  All values are totals over the
+ * searches run since the metrics were created or reset.  The available list totals and peaks only cover the searches
+ * whose engines use the SearchWorkspace lists (getQueueSearchCount() of them), since the other engines can't measure
+ * them.
+ * @author Sean J. Barbeau
+ */
+public interface SearchMetricsMXBean {
+
+    public long getSearchCount();
+
+    public long getQueueSearchCount();
+
+    public long getPathsFound();
+
+    public long getNodesExpanded();
+
+    public long getEdgesRelaxed();
+
+    public long getOpenPushes();
+
+    public long getOpenPops();
+
+    public long getDecreaseKeys();
+
+    public long getReopens();
+
+    public long getHeuristicEvaluations();
+
+    public long getMaxPeakOpenSize();
+
+    public long getMaxPeakBackwardOpenSize();
+
+    public long getTotalCpuNanos();
+
+    public long getMedianLatencyNanos();
+
+    public long getP99LatencyNanos();
+
+    public long getMaxLatencyNanos();
+
+    public double getSearchesPerSecond();
+
+    /**
+     * Clears all totals
+     */
+    public void reset();
+}
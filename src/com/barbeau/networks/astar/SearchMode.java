@@ -0,0 +1,71 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+/**
+ * This enumeration defines the ways a path can be searched for.
+ * 
+ * @author Sean J. Barbeau
+ */
+public enum SearchMode {
+    UNIDIRECTIONAL, //Unidirectional - A* from the start node towards the goal node (AstarEngine)
+    BIDIRECTIONAL, //Bidirectional - A* from the start node and from the goal node at the same time, until the searches meet (BidirectionalAstarEngine)
+    IDA_STAR, //Iterative deepening A* - depth-first searches within a rising cost bound, holding only the current path in memory, for at most IdaStarEngine.DEFAULT_MAX_EXPANSIONS node expansions (IdaStarEngine)
+    SMA_STAR, //Simplified memory-bounded A* - A* that forgets its worst nodes to stay within a fixed number of nodes (SmaStarEngine)
+    WEIGHTED_ASTAR, //Weighted A* - A* with the estimates inflated by a weight, finding a path at most weight times the least expensive much faster (AstarEngine)
+    ARA_STAR, //Anytime Repairing A* - weighted A* whose path is improved with lower weights until the weight reaches 1 or time runs out (AraStarEngine)
+    JUMP_POINT, //Jump Point Search - A* on an 8-connected grid that only expands the cells where the path may turn (JumpPointEngine)
+    JUMP_POINT_PLUS; //JPS+ - Jump Point Search reading its moves from precomputed jump distances (JumpPointEngine)
+
+    /**
+     * Creates the routing engine that searches in this mode
+     * @return a new routing engine
+     */
+    public RoutingEngine createEngine() {
+        return createEngine(SmaStarEngine.DEFAULT_MAX_NODES, AraStarEngine.DEFAULT_INITIAL_WEIGHT, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates the routing engine that searches in this mode
+     * @param maxNodes number of search nodes a memory-bounded engine (SMA_STAR) may hold in memory - ignored by the other modes
+     * @param weight inflation factor of the estimates (WEIGHTED_ASTAR) or of the first search (ARA_STAR) - ignored by the other modes
+     * @param timeLimitNanos time an anytime engine (ARA_STAR) may take to improve its path (in nanoseconds), or Long.MAX_VALUE
+     * to improve it until it is the least expensive - ignored by the other modes
+     * @return a new routing engine
+     */
+    public RoutingEngine createEngine(int maxNodes, double weight, long timeLimitNanos) {
+        switch (this) {
+            case BIDIRECTIONAL:
+                return new BidirectionalAstarEngine();
+            case IDA_STAR:
+                return new IdaStarEngine();
+            case SMA_STAR:
+                return new SmaStarEngine(maxNodes);
+            case WEIGHTED_ASTAR:
+                return new AstarEngine(weight);
+            case ARA_STAR:
+                return new AraStarEngine(weight, AraStarEngine.DEFAULT_WEIGHT_STEP, timeLimitNanos);
+            case JUMP_POINT:
+                return new JumpPointEngine(false);
+            case JUMP_POINT_PLUS:
+                return new JumpPointEngine(true);
+            case UNIDIRECTIONAL:
+            default:
+                return new AstarEngine();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+/**
+ * This class holds one search to run as part of a batch: the start node, the goal node and the heuristic (or cost model) to use
+ * @author Sean J. Barbeau
+ */
+public class SearchQuery {
+
+    private final int start;  //Id of the node to start the search from
+    private final int goal;  //Id of the node to find
+    private final Heuristic heuristic;  //Heuristic to use to measure costs, or null if costModel is used
+    private final CostModel costModel;  //Cost model to use to measure costs, or null if the cost model of the heuristic is used
+
+    /**
+     * Creates a new SearchQuery
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param heuristic heuristic to use to measure costs
+     */
+    public SearchQuery(int start, int goal, Heuristic heuristic) {
+        this.start = start;
+        this.goal = goal;
+        this.heuristic = heuristic;
+        this.costModel = null;
+    }
+
+    /**
+     * Creates a new SearchQuery that measures costs with a cost model that isn't one of the built-in heuristics
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param costModel cost model that measures the cost of each link and estimates the cost to the goal
+     */
+    public SearchQuery(int start, int goal, CostModel costModel) {
+        this.start = start;
+        this.goal = goal;
+        this.heuristic = null;
+        this.costModel = costModel;
+    }
+
+    /**
+     * Creates a SearchQuery between two points that don't have to be on the network, such as locations picked on a map.
+     * Each point is snapped to the closest enabled node of the graph with SpatialIndex.snap().
+     * @param index spatial index of the nodes of the graph
+     * @param graph graph that will be searched
+     * @param startX X coordinate of the start point
+     * @param startY Y coordinate of the start point
+     * @param goalX X coordinate of the goal point
+     * @param goalY Y coordinate of the goal point
+     * @param heuristic heuristic to use to measure costs
+     * @return a SearchQuery from the node closest to the start point to the node closest to the goal point
+     * @throws IllegalArgumentException if the graph has no enabled nodes
+     */
+    public static SearchQuery between(SpatialIndex index, CsrGraph graph, double startX, double startY, double goalX, double goalY, Heuristic heuristic) {
+        int start = index.snap(graph, startX, startY);
+        int goal = index.snap(graph, goalX, goalY);
+        if (start == -1 || goal == -1) {
+            throw new IllegalArgumentException("Graph has no enabled nodes to snap to");
+        }
+        return new SearchQuery(start, goal, heuristic);
+    }
+
+    /**
+     * Returns the id of the node to start the search from
+     * @return the id of the node to start the search from
+     */
+    public int getStart() {
+        return this.start;
+    }
+
+    /**
+     * Returns the id of the node to find
+     * @return the id of the node to find
+     */
+    public int getGoal() {
+        return this.goal;
+    }
+
+    /**
+     * Returns the heuristic to use to measure costs
+     * @return the heuristic to use to measure costs, or null if the query was created with a cost model
+     */
+    public Heuristic getHeuristic() {
+        return this.heuristic;
+    }
+
+    /**
+     * Returns the cost model to measure costs with on a graph - the cost model of the query, or else that of its heuristic
+     * @param graph graph that will be searched
+     * @return the cost model to measure costs with
+     */
+    public CostModel getCostModel(CsrGraph graph) {
+        return this.costModel != null ? this.costModel : this.heuristic.getCostModel(graph);
+    }
+
+    @Override
+    public String toString() {
+        return this.start + "->" + this.goal + " (" + (this.costModel != null ? this.costModel : this.heuristic) + ")";
+    }
+}
@@ -0,0 +1,267 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * This class holds what one search cost: the work done by the algorithm (nodes expanded, links relaxed, operations on the
+ * available list, estimates computed) and the wall clock and CPU time of each phase.  InstrumentedEngine measures the
+ * SEARCH phase and returns the statistics with the PathResult - callers that prepare the graph first (e.g. AstarSearch,
+ * which takes a CsrGraph snapshot and computes landmarks) add the PREPARE phase with withPhase().
+ *
+ * The available list counters and peak sizes are read from the PriorityQueues of the SearchWorkspaces, so they are
+ * UNAVAILABLE for engines that keep their own lists (IdaStarEngine and SmaStarEngine) - see hasQueueStats().  A
+ * bidirectional search has a peak size for each of its two lists, which are reached at different times.
+ * @author Sean J. Barbeau
+ */
+public class SearchStats {
+
+    /**
+     * The phases of a search that are timed
+     */
+    public enum Phase {
+        PREPARE, //Building the graph and the tables the search needs
+        SEARCH; //Running the search algorithm
+    }
+
+    //Value of the available list counters of a search whose engine doesn't use the SearchWorkspace lists
+    public static final long UNAVAILABLE = -1;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final long nodesExpanded;
+    private final long edgesRelaxed;
+    private final long openPushes;
+    private final long openPops;
+    private final long decreaseKeys;
+    private final long peakOpenSize;
+    private final long peakBackwardOpenSize;
+    private final long reopens;
+    private final long heuristicEvaluations;
+    private final long[] wallNanos;  //Wall clock time of each phase, by Phase.ordinal()
+    private final long[] cpuNanos;  //CPU time of each phase, by Phase.ordinal() (0 if it wasn't measured)
+
+    /**
+     * Creates a new SearchStats
+     * @param nodesExpanded nodes expanded by the search
+     * @param edgesRelaxed links followed from the expanded nodes
+     * @param openPushes nodes added to the available lists, or UNAVAILABLE
+     * @param openPops nodes removed from the available lists, or UNAVAILABLE
+     * @param decreaseKeys nodes moved up the available lists because a cheaper path to them was found, or UNAVAILABLE
+     * @param peakOpenSize most nodes on the (forward) available list at once, or UNAVAILABLE
+     * @param peakBackwardOpenSize most nodes on the backward available list of a bidirectional search at once, or
+     * UNAVAILABLE if the search only has one list
+     * @param reopens visited nodes put back on the available list
+     * @param heuristicEvaluations estimates of the cost to the goal computed
+     * @param searchWallNanos wall clock time of the SEARCH phase
+     * @param searchCpuNanos CPU time of the SEARCH phase, or 0 if it wasn't measured
+     */
+    public SearchStats(long nodesExpanded, long edgesRelaxed, long openPushes, long openPops, long decreaseKeys, long peakOpenSize,
+            long peakBackwardOpenSize, long reopens, long heuristicEvaluations, long searchWallNanos, long searchCpuNanos) {
+        this.nodesExpanded = nodesExpanded;
+        this.edgesRelaxed = edgesRelaxed;
+        this.openPushes = openPushes;
+        this.openPops = openPops;
+        this.decreaseKeys = decreaseKeys;
+        this.peakOpenSize = peakOpenSize;
+        this.peakBackwardOpenSize = peakBackwardOpenSize;
+        this.reopens = reopens;
+        this.heuristicEvaluations = heuristicEvaluations;
+        this.wallNanos = new long[Phase.values().length];
+        this.cpuNanos = new long[Phase.values().length];
+        this.wallNanos[Phase.SEARCH.ordinal()] = searchWallNanos;
+        this.cpuNanos[Phase.SEARCH.ordinal()] = searchCpuNanos;
+    }
+
+    private SearchStats(SearchStats stats) {
+        this.nodesExpanded = stats.nodesExpanded;
+        this.edgesRelaxed = stats.edgesRelaxed;
+        this.openPushes = stats.openPushes;
+        this.openPops = stats.openPops;
+        this.decreaseKeys = stats.decreaseKeys;
+        this.peakOpenSize = stats.peakOpenSize;
+        this.peakBackwardOpenSize = stats.peakBackwardOpenSize;
+        this.reopens = stats.reopens;
+        this.heuristicEvaluations = stats.heuristicEvaluations;
+        this.wallNanos = stats.wallNanos.clone();
+        this.cpuNanos = stats.cpuNanos.clone();
+    }
+
+    /**
+     * Returns the CPU time used by the calling thread so far, to time a phase.  This asks the operating system for the
+     * time of the thread, which takes about a microsecond.
+     * @return the CPU time of the calling thread in nanoseconds, or 0 if the JVM can't measure it
+     */
+    public static long getCurrentThreadCpuNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Returns a copy of these statistics with the time of a phase set
+     * @param phase phase that was timed
+     * @param wallNanos wall clock time of the phase
+     * @param cpuNanos CPU time of the phase, or 0 if it wasn't measured
+     * @return a copy of these statistics with the time of the phase set
+     */
+    public SearchStats withPhase(Phase phase, long wallNanos, long cpuNanos) {
+        SearchStats stats = new SearchStats(this);
+        stats.wallNanos[phase.ordinal()] = wallNanos;
+        stats.cpuNanos[phase.ordinal()] = cpuNanos;
+        return stats;
+    }
+
+    /**
+     * Returns the number of nodes expanded by the search
+     * @return the number of nodes expanded
+     */
+    public long getNodesExpanded() {
+        return this.nodesExpanded;
+    }
+
+    /**
+     * Returns the number of links followed from the expanded nodes
+     * @return the number of links relaxed
+     */
+    public long getEdgesRelaxed() {
+        return this.edgesRelaxed;
+    }
+
+    /**
+     * Returns true if the engine used the SearchWorkspace lists, so the available list counters were measured
+     * @return true if the available list counters were measured, false if they are UNAVAILABLE
+     */
+    public boolean hasQueueStats() {
+        return this.openPushes != UNAVAILABLE;
+    }
+
+    /**
+     * Returns the number of nodes added to the available list
+     * @return the number of nodes added to the available list, or UNAVAILABLE
+     */
+    public long getOpenPushes() {
+        return this.openPushes;
+    }
+
+    /**
+     * Returns the number of nodes removed from the available list
+     * @return the number of nodes removed from the available list, or UNAVAILABLE
+     */
+    public long getOpenPops() {
+        return this.openPops;
+    }
+
+    /**
+     * Returns the number of times a node was moved up the available list because a cheaper path to it was found
+     * @return the number of decrease-key operations, or UNAVAILABLE
+     */
+    public long getDecreaseKeys() {
+        return this.decreaseKeys;
+    }
+
+    /**
+     * Returns the most nodes on the available list at once (on the forward list for a bidirectional search)
+     * @return the most nodes on the available list at once, or UNAVAILABLE
+     */
+    public long getPeakOpenSize() {
+        return this.peakOpenSize;
+    }
+
+    /**
+     * Returns the most nodes on the backward available list of a bidirectional search at once
+     * @return the most nodes on the backward available list at once, or UNAVAILABLE if the search only has one list
+     */
+    public long getPeakBackwardOpenSize() {
+        return this.peakBackwardOpenSize;
+    }
+
+    /**
+     * Returns the number of visited nodes put back on the available list because a cheaper path to them was found
+     * @return the number of nodes reopened
+     */
+    public long getReopens() {
+        return this.reopens;
+    }
+
+    /**
+     * Returns the number of estimates of the cost to the goal computed, counted as the engine asks its cost model for
+     * them (see CountingCostModel)
+     * @return the number of estimates computed
+     */
+    public long getHeuristicEvaluations() {
+        return this.heuristicEvaluations;
+    }
+
+    /**
+     * Returns the wall clock time of a phase
+     * @param phase phase of the search
+     * @return the wall clock time of the phase in nanoseconds, or 0 if it wasn't timed
+     */
+    public long getWallNanos(Phase phase) {
+        return this.wallNanos[phase.ordinal()];
+    }
+
+    /**
+     * Returns the CPU time of a phase
+     * @param phase phase of the search
+     * @return the CPU time of the phase in nanoseconds, or 0 if it wasn't measured
+     */
+    public long getCpuNanos(Phase phase) {
+        return this.cpuNanos[phase.ordinal()];
+    }
+
+    /**
+     * Returns the wall clock time of all phases
+     * @return the wall clock time of all phases in nanoseconds
+     */
+    public long getTotalWallNanos() {
+        long total = 0;
+        for (int i = 0; i < this.wallNanos.length; i++) {
+            total += this.wallNanos[i];
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append("expanded = ").append(this.nodesExpanded)
+            .append(", relaxed = ").append(this.edgesRelaxed);
+        if (hasQueueStats()) {
+            text.append(", pushes = ").append(this.openPushes)
+                .append(", pops = ").append(this.openPops)
+                .append(", decrease-keys = ").append(this.decreaseKeys)
+                .append(", peak available = ").append(this.peakOpenSize);
+            if (this.peakBackwardOpenSize != UNAVAILABLE) {
+                text.append(", peak backward available = ").append(this.peakBackwardOpenSize);
+            }
+        }
+        else {
+            text.append(", available list not measured");
+        }
+        text.append(", reopened = ").append(this.reopens)
+            .append(", estimates = ").append(this.heuristicEvaluations);
+        for (Phase phase : Phase.values()) {
+            text.append(", ").append(phase.name().toLowerCase()).append(" = ")
+                .append(this.wallNanos[phase.ordinal()] / 1000).append(" us wall/")
+                .append(this.cpuNanos[phase.ordinal()] / 1000).append(" us CPU");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,307 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class reads a trace of a search recorded by a TraceRecorder, so the search can be replayed (e.g. by the map)
+ * at any speed and from any point without running it again.  A trace file holds a header followed by one fixed-size
+ * record per search event:
+ *
+ *   header - magic number, version, number of events, fingerprint (CsrGraph.getFingerprint()) and number of nodes of the
+ *            graph searched, and flags (TRUNCATED)
+ *   events - kind, node, other node, cost and estimate of each event (28 bytes each)
+ *
+ * All values are little-endian.  The meaning of the node, other node, cost and estimate of each kind of event is
+ * described with the kinds below.  open() maps the events into memory with FileChannel.map(), so opening a trace is O(1)
+ * and any event can be read directly.
+ * @author Sean J. Barbeau
+ */
+public class SearchTrace {
+
+    //Kinds of events
+    public static final int EXPANDED = 0;  //node was expanded - cost from start and estimated cost to goal
+    public static final int TRAVELED = 1;  //the link from node to the other node was traveled (relaxed)
+    public static final int ADDED = 2;  //node was added to the available list - cost from start and estimated cost to goal
+    public static final int IMPROVED = 3;  //a cheaper path to node was found - cost from start and estimated cost to goal
+    public static final int REOPENED = 4;  //visited node was reopened - cost from start and estimated cost to goal
+    public static final int REJECTED = 5;  //node was not improved
+    public static final int DISABLED = 6;  //the other node can't be reached from node because it is disabled
+    public static final int CLOSED = 7;  //node was put on the visited list
+    public static final int PATH = 8;  //node is the next node of the path of the event that follows - cost is the cost of the path
+    public static final int SOLUTION = 9;  //an anytime search found a path (the PATH events before it) - node is the number of iterations, other node the peak nodes, cost the weight and estimate the suboptimality bound
+    public static final int FINISHED = 10;  //the search finished with the path of the PATH events before it (none if no path was found) - node is the number of iterations and other node the peak nodes
+
+    //Identifies trace files, and the version of their format
+    static final int FILE_MAGIC = 0x54524331;  //"TRC1"
+    static final int FILE_VERSION = 2;
+
+    static final int HEADER_SIZE = 32;  //Bytes before the first event
+    static final int RECORD_SIZE = 28;  //Bytes of each event
+
+    //Most events a trace can hold, since they are mapped into one buffer
+    static final int MAX_EVENTS = Integer.MAX_VALUE / RECORD_SIZE;
+
+    //Flags of the header
+    static final int TRUNCATED = 1;  //The trace was full, so events before the final path of the search are missing
+
+    private final ByteBuffer events;
+    private final int eventCount;
+    private final long graphFingerprint;
+    private final int nodeCount;
+    private final int flags;
+
+    private SearchTrace(ByteBuffer events, int eventCount, long graphFingerprint, int nodeCount, int flags) {
+        this.events = events;
+        this.eventCount = eventCount;
+        this.graphFingerprint = graphFingerprint;
+        this.nodeCount = nodeCount;
+        this.flags = flags;
+    }
+
+    /**
+     * Opens a trace file by mapping its events into memory
+     * @param file file to open
+     * @return the trace held in the file
+     * @throws IOException if the file can't be read or is not a trace file
+     */
+    public static SearchTrace open(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = in.getChannel();
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file + " is not a trace file");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != FILE_MAGIC) {
+                throw new IOException(file + " is not a trace file");
+            }
+            int version = header.getInt();
+            if (version != FILE_VERSION) {
+                throw new IOException(file + " is a trace file of version " + version + ", which can't be read (the version read is " + FILE_VERSION + ")");
+            }
+            long eventCount = header.getLong();
+            long graphFingerprint = header.getLong();
+            int nodeCount = header.getInt();
+            int flags = header.getInt();
+            if (eventCount < 0 || eventCount > MAX_EVENTS || nodeCount < 0) {
+                throw new IOException(file + " has a corrupt header");
+            }
+            long size = eventCount * RECORD_SIZE;
+            if (channel.size() < HEADER_SIZE + size) {
+                throw new IOException(file + " is truncated - it has " + channel.size() + " bytes, but should have " + (HEADER_SIZE + size));
+            }
+
+            //The mapping stays valid after the file is closed
+            ByteBuffer events = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, size).order(ByteOrder.LITTLE_ENDIAN);
+            return new SearchTrace(events, (int) eventCount, graphFingerprint, nodeCount, flags);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns true if a file is a trace file (it starts with the magic number of trace files)
+     * @param file file to check
+     * @return true if the file is a trace file, false if it isn't or can't be read
+     */
+    public static boolean isTraceFile(File file) {
+        if (file.isFile() == false || file.length() < HEADER_SIZE) {
+            return false;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new FileInputStream(file));
+            try {
+                return Integer.reverseBytes(in.readInt()) == FILE_MAGIC;
+            }
+            finally {
+                in.close();
+            }
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of events in the trace
+     * @return the number of events in the trace
+     */
+    public int getEventCount() {
+        return this.eventCount;
+    }
+
+    /**
+     * Returns the fingerprint of the graph the search was run on
+     * @return the fingerprint of the graph (see CsrGraph.getFingerprint())
+     */
+    public long getGraphFingerprint() {
+        return this.graphFingerprint;
+    }
+
+    /**
+     * Returns the number of nodes of the graph the search was run on
+     * @return the number of nodes of the graph
+     */
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * Returns true if the search was recorded on a graph with the same nodes and links as the given graph, so its node ids
+     * and links can be found in it
+     * @param graph graph to check
+     * @return true if the trace can be replayed on the graph
+     */
+    public boolean isFor(CsrGraph graph) {
+        return this.nodeCount == graph.getNodeSize() && this.graphFingerprint == graph.getFingerprint();
+    }
+
+    /**
+     * Returns true if the trace was full before the search finished, so some of its events are missing - the events up to
+     * the limit and the final path of the search are kept
+     * @return true if events are missing from the trace
+     */
+    public boolean isTruncated() {
+        return (this.flags & TRUNCATED) != 0;
+    }
+
+    /**
+     * Returns the kind of an event (e.g. EXPANDED)
+     * @param event index of the event
+     * @return the kind of the event
+     */
+    public int getKind(int event) {
+        return this.events.getInt(event * RECORD_SIZE);
+    }
+
+    /**
+     * Returns the node of an event
+     * @param event index of the event
+     * @return the node of the event
+     */
+    public int getNode(int event) {
+        return this.events.getInt(event * RECORD_SIZE + 4);
+    }
+
+    /**
+     * Returns the other node of an event (the node at the end of the link for TRAVELED and DISABLED events)
+     * @param event index of the event
+     * @return the other node of the event
+     */
+    public int getOtherNode(int event) {
+        return this.events.getInt(event * RECORD_SIZE + 8);
+    }
+
+    /**
+     * Returns the cost of an event (the cost from the start for the events of a node)
+     * @param event index of the event
+     * @return the cost of the event
+     */
+    public double getCost(int event) {
+        return this.events.getDouble(event * RECORD_SIZE + 12);
+    }
+
+    /**
+     * Returns the estimate of an event (the estimated cost to the goal for the events of a node)
+     * @param event index of the event
+     * @return the estimate of the event
+     */
+    public double getEstimate(int event) {
+        return this.events.getDouble(event * RECORD_SIZE + 20);
+    }
+
+    /**
+     * Sends the events from one index up to (but not including) another to a listener, as if the search was run again.
+     * PATH events are not sent - they are part of the result of the SOLUTION or FINISHED event that follows them.
+     * @param from index of the first event to send
+     * @param to index after the last event to send
+     * @param listener listener to send the events to
+     */
+    public void replay(int from, int to, SearchListener listener) {
+        if (from < 0 || to > this.eventCount || from > to) {
+            throw new IndexOutOfBoundsException("Can't replay events " + from + " to " + to + " of " + this.eventCount);
+        }
+        for (int i = from; i < to; i++) {
+            int node = getNode(i);
+            switch (getKind(i)) {
+                case EXPANDED:
+                    listener.nodeExpanded(node, getCost(i), getEstimate(i));
+                    break;
+                case TRAVELED:
+                    listener.linkTraveled(node, getOtherNode(i));
+                    break;
+                case ADDED:
+                    listener.nodeAdded(node, getCost(i), getEstimate(i));
+                    break;
+                case IMPROVED:
+                    listener.nodeImproved(node, getCost(i), getEstimate(i));
+                    break;
+                case REOPENED:
+                    listener.nodeReopened(node, getCost(i), getEstimate(i));
+                    break;
+                case REJECTED:
+                    listener.nodeRejected(node);
+                    break;
+                case DISABLED:
+                    listener.nodeDisabled(node, getOtherNode(i));
+                    break;
+                case CLOSED:
+                    listener.nodeClosed(node);
+                    break;
+                case SOLUTION:
+                    listener.solutionImproved(getResult(i), getCost(i), getEstimate(i));
+                    break;
+                case FINISHED:
+                    listener.searchFinished(getResult(i));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the result of a SOLUTION or FINISHED event, from the PATH events before it
+     */
+    private PathResult getResult(int event) {
+        int first = event;
+        while (first > 0 && getKind(first - 1) == PATH) {
+            first--;
+        }
+        int numIterations = getNode(event);
+        int peakNodes = getOtherNode(event);
+        if (first == event) {
+            return PathResult.notFound(numIterations, peakNodes);
+        }
+        int[] path = new int[event - first];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = getNode(first + i);
+        }
+        return new PathResult(path, getCost(first), numIterations, peakNodes);
+    }
+}
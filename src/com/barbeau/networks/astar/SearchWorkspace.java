@@ -0,0 +1,165 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import com.barbeau.networks.NodeSet;
+
+/**
+ * This class holds the per-search state of the nodes (cost from start, estimated cost to goal and path parent) in
+ * primitive arrays indexed by node id, so the nodes of the search space don't have to be modified by a search.
+ * The values of a node are only valid once it has been reached in the current search (isReached()), which lets
+ * reset() start a new search in O(1) instead of clearing every node.
+ * Each thread gets its own workspaces from forCurrentThread(), so many searches can run at the same time on one search space.
+ * A thread has one workspace per slot, so a search that needs two (e.g. the forward and backward halves of a bidirectional
+ * search) uses the PRIMARY and SECONDARY slots.
+ * @author Sean J. Barbeau
+ */
+public class SearchWorkspace {
+
+    public static final int PRIMARY = 0;  //Slot used by one-directional searches and the forward half of bidirectional searches
+    public static final int SECONDARY = 1;  //Slot used by the backward half of bidirectional searches
+    private static final int NUM_SLOTS = 2;
+
+    //Workspaces of each thread (one per slot), reused by every search that thread runs
+    private static final ThreadLocal<SearchWorkspace[]> POOL = ThreadLocal.withInitial(() -> new SearchWorkspace[NUM_SLOTS]);
+
+    public double[] costFromStart;  //g(n) - cost of the best path found from the start node to each node
+    public double[] estCostToGoal;  //h(n) - estimated cost from each node to the goal
+    public int[] pathParent;  //Id of the node before each node on the best path found from the start (-1 for the start node)
+    public final NodeSet reached;  //Nodes that have been reached in the current search - the arrays above are only valid for these
+    public final NodeSet visited;  //Nodes that have already been explored
+    public final PriorityQueue available;  //Nodes still to be searched, sorted by total heuristic cost f(n) = g(n) + h(n)
+    private long numSearches = 0;  //Number of times the workspace was reset for a search
+
+    /**
+     * Creates a new SearchWorkspace for node ids from 0 to numNodes - 1
+     * @param numNodes number of nodes in the search space
+     */
+    public SearchWorkspace(int numNodes) {
+        numNodes = Math.max(numNodes, 1);
+        this.costFromStart = new double[numNodes];
+        this.estCostToGoal = new double[numNodes];
+        this.pathParent = new int[numNodes];
+        this.reached = new NodeSet(numNodes);
+        this.visited = new NodeSet(numNodes);
+        this.available = new PriorityQueue(numNodes);
+    }
+
+    /**
+     * Returns the PRIMARY workspace of the calling thread, reset and large enough for a search space of numNodes nodes
+     * NOTE:  a thread only has one workspace per slot, so a search must not start another search on the same thread before it finishes.
+     * @param numNodes number of nodes in the search space
+     * @return the reset workspace of the calling thread
+     */
+    public static SearchWorkspace forCurrentThread(int numNodes) {
+        return forCurrentThread(numNodes, PRIMARY);
+    }
+
+    /**
+     * Returns a workspace of the calling thread, reset and large enough for a search space of numNodes nodes
+     * @param numNodes number of nodes in the search space
+     * @param slot PRIMARY or SECONDARY
+     * @return the reset workspace of the calling thread
+     */
+    public static SearchWorkspace forCurrentThread(int numNodes, int slot) {
+        SearchWorkspace[] workspaces = POOL.get();
+        SearchWorkspace workspace = workspaces[slot];
+        if (workspace == null) {
+            workspace = new SearchWorkspace(numNodes);
+            workspaces[slot] = workspace;
+        }
+        workspace.reset(numNodes);
+        return workspace;
+    }
+
+    /**
+     * Returns a workspace of the calling thread as it is, without resetting it
+     * @param slot PRIMARY or SECONDARY
+     * @return the workspace, or null if the thread hasn't used this slot yet
+     */
+    public static SearchWorkspace peekCurrentThread(int slot) {
+        return POOL.get()[slot];
+    }
+
+    /**
+     * Prepares the workspace for a new search on a search space of numNodes nodes.  This is O(1) unless the arrays have to grow.
+     * @param numNodes number of nodes in the search space
+     */
+    public void reset(int numNodes) {
+        if (numNodes > this.costFromStart.length) {
+            this.costFromStart = new double[numNodes];
+            this.estCostToGoal = new double[numNodes];
+            this.pathParent = new int[numNodes];
+            this.available.ensureCapacity(numNodes);
+        }
+        this.reached.clear();
+        this.visited.clear();
+        this.available.clear();
+        this.numSearches++;
+    }
+
+    /**
+     * Returns the number of searches that have used the workspace, so a caller can tell whether a search used it
+     * @return the number of times the workspace was reset for a search
+     */
+    public long getNumSearches() {
+        return this.numSearches;
+    }
+
+    /**
+     * Returns true if the node has been reached in the current search
+     * @param node id of the node
+     * @return true if the node has been reached in the current search
+     */
+    public boolean isReached(int node) {
+        return this.reached.contains(node);
+    }
+
+    /**
+     * Records the best path found so far to a node
+     * @param node id of the node
+     * @param costFromStart cost of the path from the start node to this node
+     * @param estCostToGoal estimated cost from this node to the goal
+     * @param pathParent id of the node before this one on the path, or -1 for the start node
+     */
+    public void setNode(int node, double costFromStart, double estCostToGoal, int pathParent) {
+        this.costFromStart[node] = costFromStart;
+        this.estCostToGoal[node] = estCostToGoal;
+        this.pathParent[node] = pathParent;
+        this.reached.add(node);
+    }
+
+    /**
+     * Follows the path parents back from the goal to build the path from the start to the goal
+     * @param goal id of the goal node, which must have been reached
+     * @return ids of the nodes on the path, in order from the start to the goal
+     */
+    public int[] getPath(int goal) {
+        int length = 1;
+        for (int node = goal; this.pathParent[node] != -1; node = this.pathParent[node]) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        int node = goal;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = node;
+            node = this.pathParent[node];
+        }
+        return path;
+    }
+}
@@ -0,0 +1,419 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * This class is the simplified memory-bounded A* (SMA*) routing engine.  It searches like A*, but never holds more than
+ * maxNodes search nodes in memory.  When memory is full and a new node is needed, the leaf with the highest total cost
+ * f(n) = g(n) + h(n) (the shallowest one, if there is a tie) is forgotten, and its parent remembers the lowest f(n) of
+ * its forgotten children, so the search returns to them (generating them again) if they turn out to be the best choice.
+ * The f(n) of a node is also backed up from its children as they are expanded, so a forgotten subtree keeps the best
+ * estimate found for it.  As long as maxNodes is larger than the number of nodes on the path, the path found is the least
+ * expensive one - a smaller budget just means more nodes are generated again.
+ * Search nodes are paths from the start, so no memory the size of the graph is needed.  A graph node can be reached by
+ * more than one of them, but a new path to a node is dropped if a path to it that is no more expensive is in memory.
+ * NOTE:  if the goal can't be reached, every path has to be tried before the search gives up, which can take a very long
+ * time on a large graph.
+ * @author Sean J. Barbeau
+ */
+public class SmaStarEngine implements RoutingEngine {
+
+    //Default number of search nodes the search may hold in memory
+    public static final int DEFAULT_MAX_NODES = 10000;
+
+    //Listener used when the caller doesn't want to receive search events
+    private static final SearchListener NO_LISTENER = new SearchAdapter() {};
+
+    private final int maxNodes;  //Number of search nodes the search may hold in memory
+
+    /**
+     * Creates a new SmaStarEngine that holds at most DEFAULT_MAX_NODES search nodes in memory
+     */
+    public SmaStarEngine() {
+        this(DEFAULT_MAX_NODES);
+    }
+
+    /**
+     * Creates a new SmaStarEngine
+     * @param maxNodes number of search nodes the search may hold in memory (at least 2)
+     */
+    public SmaStarEngine(int maxNodes) {
+        if (maxNodes < 2) {
+            throw new IllegalArgumentException("SMA* needs memory for at least 2 nodes, not " + maxNodes);
+        }
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Returns the number of search nodes the search may hold in memory
+     * @return the number of search nodes the search may hold in memory
+     */
+    public int getMaxNodes() {
+        return this.maxNodes;
+    }
+
+    /**
+     * Searches for the least expensive path from start to goal, reporting progress to a listener
+     * @param graph graph to run the search on
+     * @param start id of the node to start the search from
+     * @param goal id of the node to find
+     * @param costModel cost model that measures the cost of each link and estimates the cost to the goal
+     * @param listener listener that receives the progress of the search, or null
+     * @return the result of the search
+     */
+    @Override
+    public PathResult search(CsrGraph graph, int start, int goal, CostModel costModel, SearchListener listener) {
+        if (listener == null) {
+            listener = NO_LISTENER;
+        }
+        return new Search(graph, goal, costModel, listener, this.maxNodes).run(start);
+    }
+
+    /**
+     * The state of one search.  Search nodes are held in slots of primitive arrays, and form a tree of paths from the start.
+     */
+    private static class Search {
+
+        private final CsrGraph graph;
+        private final int goal;
+        private final CostModel costModel;
+        private final SearchListener listener;
+        private final int maxNodes;
+
+        private final int[] node;  //Graph node of each slot
+        private final int[] parent;  //Slot of the parent of each slot (-1 for the start)
+        private final int[] depth;  //Number of links from the start to each slot
+        private final double[] costFromStart;  //g(n) of each slot
+        private final double[] totalCost;  //f(n) of each slot, backed up from its children once it is expanded
+        private final double[] forgottenCost;  //Lowest f(n) of the forgotten children of each slot (infinity if none)
+        private final int[] firstChild;  //First child of each slot in memory (-1 if none)
+        private final int[] nextSibling;  //Next child of the same parent (-1 if none)
+        private final int[] previousSibling;  //Previous child of the same parent (-1 if none)
+        private final boolean[] expanded;  //True once the children of a slot have been generated
+        private final int[] freeSlots;  //Stack of unused slots
+        private int numFree;
+        private int root = -1;  //Slot of the start node
+        private int expanding = -1;  //Slot being expanded, which must not be forgotten while its children are added
+
+        private final TreeSet<Integer> available;  //Slots with children still to generate, sorted by lowest cost, then deepest
+        private final TreeSet<Integer> leaves;  //Slots without children in memory (except the root), sorted the same way
+        private final HashMap<Integer, Integer> bestSlots = new HashMap<Integer, Integer>();  //Least expensive slot in memory for each graph node
+
+        private int numIterations = 0;
+        private int peakNodes = 0;
+
+        Search(CsrGraph graph, int goal, CostModel costModel, SearchListener listener, int maxNodes) {
+            this.graph = graph;
+            this.goal = goal;
+            this.costModel = costModel;
+            this.listener = listener;
+            this.maxNodes = maxNodes;
+
+            int capacity = maxNodes;
+            this.node = new int[capacity];
+            this.parent = new int[capacity];
+            this.depth = new int[capacity];
+            this.costFromStart = new double[capacity];
+            this.totalCost = new double[capacity];
+            this.forgottenCost = new double[capacity];
+            this.firstChild = new int[capacity];
+            this.nextSibling = new int[capacity];
+            this.previousSibling = new int[capacity];
+            this.expanded = new boolean[capacity];
+            this.freeSlots = new int[capacity];
+            for (int i = 0; i < capacity; i++) {
+                this.freeSlots[i] = capacity - 1 - i;
+            }
+            this.numFree = capacity;
+
+            this.available = new TreeSet<Integer>(new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return compareSlots(key(a), key(b), a, b);
+                }
+            });
+            this.leaves = new TreeSet<Integer>(new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return compareSlots(Search.this.totalCost[a], Search.this.totalCost[b], a, b);
+                }
+            });
+        }
+
+        PathResult run(int start) {
+            if (start != this.goal && this.graph.isEnabled(this.goal) == false) {
+                //The goal has been DISABLED, so no path can reach it
+                PathResult result = PathResult.notFound(0, 0);
+                this.listener.searchFinished(result);
+                return result;
+            }
+
+            this.root = allocate(start, -1, 0, this.costModel.getEstimatedCostToGoal(this.graph, start, this.goal));
+            this.available.add(this.root);
+
+            while (!this.available.isEmpty()) {
+                int n = this.available.first();
+                if (key(n) == Double.POSITIVE_INFINITY) {
+                    //No path within the memory limit is left
+                    break;
+                }
+                this.available.remove(n);
+                this.numIterations++;
+
+                if (this.node[n] == this.goal && this.expanded[n] == false) {
+                    PathResult result = new PathResult(getPath(n), this.costFromStart[n], this.numIterations, this.peakNodes);
+                    this.listener.searchFinished(result);
+                    return result;
+                }
+
+                expand(n);
+            }
+
+            PathResult result = PathResult.notFound(this.numIterations, this.peakNodes);
+            this.listener.searchFinished(result);
+            return result;
+        }
+
+        /**
+         * Generates the children of a slot that aren't in memory, then backs up its cost
+         */
+        private void expand(int n) {
+            int a = this.node[n];
+            boolean regenerate = this.expanded[n];
+            this.expanding = n;
+            this.leaves.remove(n);
+            this.expanded[n] = true;
+            this.forgottenCost[n] = Double.POSITIVE_INFINITY;
+
+            this.listener.nodeExpanded(a, this.costFromStart[n], this.totalCost[n] - this.costFromStart[n]);
+
+            int lastEdge = this.graph.getFirstEdge(a + 1);
+            for (int e = this.graph.getFirstEdge(a); e < lastEdge; e++) {
+                int b = this.graph.getTarget(e);
+                this.listener.linkTraveled(a, b);
+
+                if (this.graph.isEnabled(b) == false) {
+                    //Node has been DISABLED, so it cannot be part of the path
+                    this.listener.nodeDisabled(a, b);
+                    continue;
+                }
+                if (isOnPath(n, b) || (regenerate && hasChild(n, b))) {
+                    //Going back to a node already on the path can't lead to a cheaper path, and children in memory are kept
+                    this.listener.nodeRejected(b);
+                    continue;
+                }
+
+                double g = this.costFromStart[n] + this.costModel.getCost(this.graph, a, e);
+                Integer best = this.bestSlots.get(b);
+                if (best != null && this.costFromStart[best] <= g) {
+                    //A path to b that is no more expensive is already in memory
+                    this.listener.nodeRejected(b);
+                    continue;
+                }
+                double h = this.costModel.getEstimatedCostToGoal(this.graph, b, this.goal);
+                //The cost of a child is never lower than the cost of its parent (the parent's cost may have been backed up)
+                double f = Math.max(this.totalCost[n], g + h);
+                if (b != this.goal && this.depth[n] + 2 >= this.maxNodes) {
+                    //The path can't be extended past this node without running out of memory
+                    f = Double.POSITIVE_INFINITY;
+                }
+                addChild(n, b, g, f);
+            }
+
+            this.listener.nodeClosed(a);
+            this.expanding = -1;
+
+            //Back up the cost of n and its ancestors from their children, and put n back in the right lists
+            backup(n);
+            if (this.firstChild[n] == -1 && n != this.root) {
+                this.leaves.add(n);
+            }
+            if (isAvailable(n)) {
+                this.available.add(n);
+            }
+        }
+
+        /**
+         * Adds a child to a slot, forgetting the worst leaf if memory is full
+         */
+        private void addChild(int n, int b, double g, double f) {
+            if (this.numFree == 0) {
+                Integer worst = this.leaves.isEmpty() ? null : this.leaves.last();
+                if (worst == null || f > this.totalCost[worst]) {
+                    //The child would be the worst leaf, so forget it right away
+                    forget(n, f);
+                    return;
+                }
+                remove(worst);
+            }
+
+            int child = allocate(b, n, g, f);
+            this.nextSibling[child] = this.firstChild[n];
+            if (this.firstChild[n] != -1) {
+                this.previousSibling[this.firstChild[n]] = child;
+            }
+            this.firstChild[n] = child;
+            this.leaves.add(child);
+            this.available.add(child);
+            this.listener.nodeAdded(b, g, f - g);
+        }
+
+        /**
+         * Forgets a leaf, remembering its cost in its parent
+         */
+        private void remove(int slot) {
+            int p = this.parent[slot];
+            this.leaves.remove(slot);
+            this.available.remove(slot);
+
+            //Unlink the slot from the children of its parent
+            if (this.previousSibling[slot] != -1) {
+                this.nextSibling[this.previousSibling[slot]] = this.nextSibling[slot];
+            }
+            else {
+                this.firstChild[p] = this.nextSibling[slot];
+            }
+            if (this.nextSibling[slot] != -1) {
+                this.previousSibling[this.nextSibling[slot]] = this.previousSibling[slot];
+            }
+            this.freeSlots[this.numFree++] = slot;
+            this.bestSlots.remove(this.node[slot], slot);
+
+            forget(p, this.totalCost[slot]);
+            if (this.firstChild[p] == -1 && p != this.root && p != this.expanding) {
+                this.leaves.add(p);
+            }
+        }
+
+        /**
+         * Remembers the cost of a forgotten child of a slot
+         */
+        private void forget(int p, double f) {
+            boolean wasAvailable = this.available.remove(p);
+            this.forgottenCost[p] = Math.min(this.forgottenCost[p], f);
+            if (wasAvailable || isAvailable(p)) {
+                this.available.add(p);
+            }
+        }
+
+        /**
+         * Sets the cost of each slot from n up to the root to the lowest cost of its children (in memory or forgotten)
+         */
+        private void backup(int n) {
+            for (int slot = n; slot != -1; slot = this.parent[slot]) {
+                double best = this.forgottenCost[slot];
+                for (int child = this.firstChild[slot]; child != -1; child = this.nextSibling[child]) {
+                    best = Math.min(best, this.totalCost[child]);
+                }
+                if (best == this.totalCost[slot]) {
+                    break;
+                }
+                //The cost orders the leaves, so a leaf has to be taken out while it changes
+                boolean wasLeaf = this.leaves.remove(slot);
+                this.totalCost[slot] = best;
+                if (wasLeaf) {
+                    this.leaves.add(slot);
+                }
+            }
+        }
+
+        /**
+         * Takes an unused slot and fills it in
+         */
+        private int allocate(int b, int p, double g, double f) {
+            int slot = this.freeSlots[--this.numFree];
+            this.node[slot] = b;
+            this.parent[slot] = p;
+            this.depth[slot] = p == -1 ? 0 : this.depth[p] + 1;
+            this.costFromStart[slot] = g;
+            this.totalCost[slot] = f;
+            this.forgottenCost[slot] = Double.POSITIVE_INFINITY;
+            this.firstChild[slot] = -1;
+            this.nextSibling[slot] = -1;
+            this.previousSibling[slot] = -1;
+            this.expanded[slot] = false;
+            this.peakNodes = Math.max(this.peakNodes, this.maxNodes - this.numFree);
+            this.bestSlots.put(b, slot);
+            return slot;
+        }
+
+        /**
+         * Returns the cost a slot is chosen by: its own cost until it is expanded, then the lowest cost of its forgotten children
+         */
+        private double key(int slot) {
+            return this.expanded[slot] ? this.forgottenCost[slot] : this.totalCost[slot];
+        }
+
+        /**
+         * Returns true if a slot has children still to generate
+         */
+        private boolean isAvailable(int slot) {
+            return this.expanded[slot] == false || this.forgottenCost[slot] != Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Orders slots by lowest cost, then deepest (closest to the goal), then slot number
+         */
+        private int compareSlots(double costA, double costB, int a, int b) {
+            int result = Double.compare(costA, costB);
+            if (result == 0) {
+                result = this.depth[b] - this.depth[a];
+            }
+            return result != 0 ? result : a - b;
+        }
+
+        /**
+         * Returns true if a graph node is on the path from the start to a slot
+         */
+        private boolean isOnPath(int slot, int b) {
+            for (; slot != -1; slot = this.parent[slot]) {
+                if (this.node[slot] == b) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns true if a slot has a child in memory for a graph node
+         */
+        private boolean hasChild(int slot, int b) {
+            for (int child = this.firstChild[slot]; child != -1; child = this.nextSibling[child]) {
+                if (this.node[child] == b) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Follows the parents from a slot back to the start to build the path
+         */
+        private int[] getPath(int slot) {
+            int[] path = new int[this.depth[slot] + 1];
+            for (int i = path.length - 1; i >= 0; i--) {
+                path[i] = this.node[slot];
+                slot = this.parent[slot];
+            }
+            return path;
+        }
+    }
+}
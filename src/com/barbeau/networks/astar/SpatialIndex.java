@@ -0,0 +1,307 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import com.barbeau.networks.SearchSpace;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * This class is a spatial index of the locations of the nodes of a network, used to find the node closest to a point
+ * (e.g. a mouse click on the map, or a coordinate to snap to the network before routing) and the nodes in a rectangle
+ * without looking at every node.  The area of the nodes is divided into a uniform grid of square buckets sized so each
+ * bucket holds about BUCKET_SIZE nodes, and the nodes of each bucket are kept in a linked list held in int arrays.
+ *
+ * A nearest-node search looks at the bucket of the point and then at rings of buckets around it, and stops once no
+ * bucket further out can hold a closer node, so it only looks at a few buckets unless the nodes are very unevenly
+ * spread.  Nodes can be moved with move(), which is O(1).  Nodes moved outside the area the grid was created for are
+ * kept in the buckets on its edge, so searches stay correct, but get slower if many nodes are moved far outside it.
+ * Nodes can't be added or removed - create a new index instead.
+ * @author Sean J. Barbeau
+ */
+public class SpatialIndex {
+
+    //Average number of nodes in each bucket
+    private static final int BUCKET_SIZE = 2;
+
+    private final int[] x;  //X coordinate of each node
+    private final int[] y;  //Y coordinate of each node
+    private final double minX;  //X coordinate of the left edge of the grid
+    private final double minY;  //Y coordinate of the top edge of the grid
+    private final double bucketSize;  //Width and height of each bucket
+    private final int columns;  //Number of columns of buckets
+    private final int rows;  //Number of rows of buckets
+    private final int[] firstNode;  //First node in each bucket, or -1 if the bucket is empty
+    private final int[] nextNode;  //Next node in the bucket of each node, or -1
+    private final int[] previousNode;  //Previous node in the bucket of each node, or -1
+    private final int[] nodeBucket;  //Bucket of each node
+
+    /**
+     * Creates a new SpatialIndex of node locations.  The arrays are copied.
+     * @param x X coordinate of each node
+     * @param y Y coordinate of each node
+     */
+    public SpatialIndex(int[] x, int[] y) {
+        int numNodes = x.length;
+        this.x = Arrays.copyOf(x, numNodes);
+        this.y = Arrays.copyOf(y, numNodes);
+
+        //Size the grid to the area of the nodes
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        for (int i = 0; i < numNodes; i++) {
+            left = Math.min(left, x[i]);
+            top = Math.min(top, y[i]);
+            right = Math.max(right, x[i]);
+            bottom = Math.max(bottom, y[i]);
+        }
+        if (numNodes == 0) {
+            left = top = right = bottom = 0;
+        }
+        double width = (double) right - left + 1;
+        double height = (double) bottom - top + 1;
+        int numBuckets = Math.max(1, numNodes / BUCKET_SIZE);
+        this.minX = left;
+        this.minY = top;
+        //Buckets are square, but at least 1/numBuckets of the width and height so nodes along a line don't need too many
+        this.bucketSize = Math.max(1, Math.max(Math.sqrt(width * height / numBuckets), Math.max(width, height) / numBuckets));
+        this.columns = (int) Math.ceil(width / this.bucketSize);
+        this.rows = (int) Math.ceil(height / this.bucketSize);
+
+        this.firstNode = new int[this.columns * this.rows];
+        Arrays.fill(this.firstNode, -1);
+        this.nextNode = new int[numNodes];
+        this.previousNode = new int[numNodes];
+        this.nodeBucket = new int[numNodes];
+        for (int i = numNodes - 1; i >= 0; i--) {
+            insert(i);
+        }
+    }
+
+    /**
+     * Creates a SpatialIndex of the current locations of the nodes of a search space, by node id (Node.id)
+     * @param searchSpace search space of NodeXY nodes
+     * @return the index of the nodes
+     */
+    public static SpatialIndex fromSearchSpace(SearchSpace searchSpace) {
+        int numNodes = searchSpace.getNodeSize();
+        int[] x = new int[numNodes];
+        int[] y = new int[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            NodeXY node = (NodeXY) searchSpace.getNode(i);
+            x[i] = node.location.x;
+            y[i] = node.location.y;
+        }
+        return new SpatialIndex(x, y);
+    }
+
+    /**
+     * Creates a SpatialIndex of the locations of the nodes of a graph, by node id
+     * @param graph graph to index
+     * @return the index of the nodes
+     */
+    public static SpatialIndex fromCsrGraph(CsrGraph graph) {
+        int numNodes = graph.getNodeSize();
+        int[] x = new int[numNodes];
+        int[] y = new int[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            x[i] = graph.getX(i);
+            y[i] = graph.getY(i);
+        }
+        return new SpatialIndex(x, y);
+    }
+
+    /**
+     * Returns the number of nodes in the index
+     * @return the number of nodes in the index
+     */
+    public int getNodeSize() {
+        return this.x.length;
+    }
+
+    /**
+     * Moves a node to a new location
+     * @param node id of the node
+     * @param newX new X coordinate of the node
+     * @param newY new Y coordinate of the node
+     */
+    public void move(int node, int newX, int newY) {
+        remove(node);
+        this.x[node] = newX;
+        this.y[node] = newY;
+        insert(node);
+    }
+
+    /**
+     * Finds the node closest to a point
+     * @param pointX X coordinate of the point
+     * @param pointY Y coordinate of the point
+     * @return id of the closest node, or -1 if the index has no nodes
+     */
+    public int findNearest(double pointX, double pointY) {
+        return findNearest(pointX, pointY, null);
+    }
+
+    /**
+     * Finds the node closest to a point out of the nodes accepted by a filter
+     * @param pointX X coordinate of the point
+     * @param pointY Y coordinate of the point
+     * @param filter returns true for the ids of the nodes that may be returned, or null to accept every node
+     * @return id of the closest accepted node, or -1 if no node is accepted
+     */
+    public int findNearest(double pointX, double pointY, IntPredicate filter) {
+        int column = getColumn(pointX);
+        int row = getRow(pointY);
+        int nearest = -1;
+        double nearestDistance = Double.POSITIVE_INFINITY;  //Squared distance to the nearest node found
+
+        for (int ring = 0; ; ring++) {
+            //Look at the buckets ring buckets away from the bucket of the point
+            int left = column - ring;
+            int right = column + ring;
+            int top = row - ring;
+            int bottom = row + ring;
+            for (int r = Math.max(top, 0); r <= Math.min(bottom, this.rows - 1); r++) {
+                boolean isEdgeRow = r == top || r == bottom;
+                for (int c = Math.max(left, 0); c <= Math.min(right, this.columns - 1); c++) {
+                    if (isEdgeRow == false && c != left && c != right) {
+                        //Inside the ring - already looked at
+                        c = right - 1;
+                        continue;
+                    }
+                    for (int node = this.firstNode[r * this.columns + c]; node != -1; node = this.nextNode[node]) {
+                        double dx = this.x[node] - pointX;
+                        double dy = this.y[node] - pointY;
+                        double distance = dx * dx + dy * dy;
+                        if (distance < nearestDistance && (filter == null || filter.test(node))) {
+                            nearest = node;
+                            nearestDistance = distance;
+                        }
+                    }
+                }
+            }
+
+            //Stop when every bucket has been looked at, or no bucket outside the ring can hold a closer node
+            double outside = Double.POSITIVE_INFINITY;  //Smallest distance from the point to a bucket outside the ring
+            if (left > 0) {
+                outside = Math.min(outside, pointX - (this.minX + left * this.bucketSize));
+            }
+            if (right < this.columns - 1) {
+                outside = Math.min(outside, this.minX + (right + 1) * this.bucketSize - pointX);
+            }
+            if (top > 0) {
+                outside = Math.min(outside, pointY - (this.minY + top * this.bucketSize));
+            }
+            if (bottom < this.rows - 1) {
+                outside = Math.min(outside, this.minY + (bottom + 1) * this.bucketSize - pointY);
+            }
+            if (outside == Double.POSITIVE_INFINITY || (outside > 0 && outside * outside >= nearestDistance)) {
+                return nearest;
+            }
+        }
+    }
+
+    /**
+     * Finds the nodes in a rectangle (including its edges)
+     * @param left X coordinate of the left edge of the rectangle
+     * @param top Y coordinate of the top edge of the rectangle
+     * @param right X coordinate of the right edge of the rectangle
+     * @param bottom Y coordinate of the bottom edge of the rectangle
+     * @return ids of the nodes in the rectangle, in no particular order
+     */
+    public int[] findInRange(double left, double top, double right, double bottom) {
+        int[] nodes = new int[16];
+        int numNodes = 0;
+        for (int r = getRow(top); r <= getRow(bottom); r++) {
+            for (int c = getColumn(left); c <= getColumn(right); c++) {
+                for (int node = this.firstNode[r * this.columns + c]; node != -1; node = this.nextNode[node]) {
+                    if (this.x[node] >= left && this.x[node] <= right && this.y[node] >= top && this.y[node] <= bottom) {
+                        if (numNodes == nodes.length) {
+                            nodes = Arrays.copyOf(nodes, numNodes * 2);
+                        }
+                        nodes[numNodes++] = node;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(nodes, numNodes);
+    }
+
+    /**
+     * Snaps a point to the network - finds the enabled node of a graph closest to it, e.g. to start or end a route
+     * at an arbitrary location.  The index must have been created for the graph's nodes (e.g. with fromCsrGraph()).
+     * @param graph graph whose enabled states are used
+     * @param pointX X coordinate of the point
+     * @param pointY Y coordinate of the point
+     * @return id of the closest enabled node, or -1 if there is none
+     */
+    public int snap(final CsrGraph graph, double pointX, double pointY) {
+        return findNearest(pointX, pointY, new IntPredicate() {
+            @Override
+            public boolean test(int node) {
+                return graph.isEnabled(node);
+            }
+        });
+    }
+
+    /**
+     * Returns the column of buckets a point is in, or the nearest column if it is outside the grid
+     */
+    private int getColumn(double pointX) {
+        double column = Math.floor((pointX - this.minX) / this.bucketSize);
+        return (int) Math.max(0, Math.min(this.columns - 1, column));
+    }
+
+    /**
+     * Returns the row of buckets a point is in, or the nearest row if it is outside the grid
+     */
+    private int getRow(double pointY) {
+        double row = Math.floor((pointY - this.minY) / this.bucketSize);
+        return (int) Math.max(0, Math.min(this.rows - 1, row));
+    }
+
+    /**
+     * Adds a node to the front of the list of its bucket
+     */
+    private void insert(int node) {
+        int bucket = getRow(this.y[node]) * this.columns + getColumn(this.x[node]);
+        this.nodeBucket[node] = bucket;
+        this.previousNode[node] = -1;
+        this.nextNode[node] = this.firstNode[bucket];
+        if (this.firstNode[bucket] != -1) {
+            this.previousNode[this.firstNode[bucket]] = node;
+        }
+        this.firstNode[bucket] = node;
+    }
+
+    /**
+     * Takes a node out of the list of its bucket
+     */
+    private void remove(int node) {
+        if (this.previousNode[node] != -1) {
+            this.nextNode[this.previousNode[node]] = this.nextNode[node];
+        }
+        else {
+            this.firstNode[this.nodeBucket[node]] = this.nextNode[node];
+        }
+        if (this.nextNode[node] != -1) {
+            this.previousNode[this.nextNode[node]] = this.previousNode[node];
+        }
+    }
+}
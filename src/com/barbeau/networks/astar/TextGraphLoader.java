@@ -0,0 +1,580 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * This class loads a graph from the location ("label x y" on each line) and connection ("label count neighbour1
+ * neighbour2 ..." on each line) text files quickly enough for networks with millions of nodes.  Each file is read in
+ * chunks of whole lines through a FileChannel, and the chunks are parsed in parallel on a ForkJoinPool while the next
+ * ones are read.  Lines are tokenized in place in the bytes of the chunk, without String.split() or a String per line.
+ *
+ * The graph is built in two passes.  The first parses the locations and interns the labels - every node gets the next
+ * id in file order, and its label goes into a hash table of label bytes (if two nodes share a label the first one is
+ * found, as with SearchSpace.findNode()).  The second parses the connections, looking up each label in the table
+ * from many threads at once, and fills in the CSR adjacency in file order.  The labels are kept as UTF-8 bytes in the
+ * CsrGraph, so no String is created for them until they are asked for.
+ *
+ * Blank lines and the "END" line the sample files finish with are skipped.  Malformed lines (missing values, numbers
+ * that can't be read, connections to unknown nodes) don't stop the load: the line (or the bad connection) is skipped and a ParseError naming the file and line number is added to getErrors().
+ * A TextGraphLoader keeps the errors of the last load, so it should only be used by one thread at a time.
+ * @author Sean J. Barbeau
+ */
+public class TextGraphLoader {
+
+    //Number of bytes read from a file for each chunk
+    private static final int CHUNK_SIZE = 1 << 22;
+
+    private final ForkJoinPool pool;  //Pool that parses the chunks
+    private final List<ParseError> errors = new ArrayList<ParseError>();  //Malformed lines found by the last load
+
+    /**
+     * Creates a new TextGraphLoader that parses on the common ForkJoinPool
+     */
+    public TextGraphLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new TextGraphLoader that parses on the given pool
+     * @param pool pool that parses the chunks of the files
+     */
+    public TextGraphLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the malformed lines found by the last load, in file and line order
+     * @return the malformed lines found by the last load
+     */
+    public List<ParseError> getErrors() {
+        return Collections.unmodifiableList(this.errors);
+    }
+
+    /**
+     * Loads a graph from a location file and a connection file.  All nodes are enabled, and the length of each link is
+     * the straight line distance between its nodes, as in CsrGraph.fromSearchSpace().
+     * @param locationFile file with a "label x y" line for each node
+     * @param connectionFile file with a "label count neighbour1 neighbour2 ..." line for the links leaving a node
+     * @return the graph
+     * @throws IOException if a file can't be read
+     */
+    public CsrGraph load(File locationFile, File connectionFile) throws IOException {
+        this.errors.clear();
+
+        //First pass - parse the locations and intern the labels
+        List<LocationChunk> locations = parse(locationFile, new Parser<LocationChunk>() {
+            @Override
+            public LocationChunk parse(byte[] data, int length) {
+                return new LocationChunk(data, length);
+            }
+        });
+        final LabelTable labels = new LabelTable(locations);
+        addErrors(locationFile, locations);
+
+        //Second pass - parse the connections, then fill in the links of each node in file order
+        List<ConnectionChunk> connections = parse(connectionFile, new Parser<ConnectionChunk>() {
+            @Override
+            public ConnectionChunk parse(byte[] data, int length) {
+                return new ConnectionChunk(data, length, labels);
+            }
+        });
+        addErrors(connectionFile, connections);
+
+        int numNodes = labels.size();
+        int[] offsets = new int[numNodes + 1];
+        for (ConnectionChunk chunk : connections) {
+            for (int i = 0; i < chunk.numLinks; i++) {
+                offsets[chunk.sources[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < numNodes; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = Arrays.copyOf(offsets, numNodes);
+        int[] targets = new int[offsets[numNodes]];
+        float[] weights = new float[offsets[numNodes]];
+        for (ConnectionChunk chunk : connections) {
+            for (int i = 0; i < chunk.numLinks; i++) {
+                int source = chunk.sources[i];
+                int target = chunk.targets[i];
+                int edge = next[source]++;
+                targets[edge] = target;
+                double dx = labels.x[source] - labels.x[target];
+                double dy = labels.y[source] - labels.y[target];
+                weights[edge] = (float) Math.sqrt(dx * dx + dy * dy);
+            }
+        }
+
+        byte[] enabled = new byte[numNodes];
+        Arrays.fill(enabled, (byte) 1);
+        return new CsrGraph(IntBuffer.wrap(offsets), IntBuffer.wrap(targets), FloatBuffer.wrap(weights), IntBuffer.wrap(labels.x),
+                            IntBuffer.wrap(labels.y), ByteBuffer.wrap(enabled), IntBuffer.wrap(labels.offsets), ByteBuffer.wrap(labels.bytes));
+    }
+
+    /**
+     * Reads a file in chunks of whole lines and parses each chunk on the pool while the next one is read
+     * @return the parsed chunks, in file order
+     */
+    private <T extends Chunk> List<T> parse(File file, final Parser<T> parser) throws IOException {
+        List<Future<T>> tasks = new ArrayList<Future<T>>();
+        FileInputStream in = new FileInputStream(file);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            byte[] carry = new byte[0];  //Start of a line that continues in the next chunk
+            boolean isEnd = false;
+            while (isEnd == false) {
+                buffer.clear();
+                while (buffer.hasRemaining() && isEnd == false) {
+                    isEnd = in.getChannel().read(buffer) == -1;
+                }
+
+                final byte[] data = Arrays.copyOf(carry, carry.length + buffer.position());
+                System.arraycopy(buffer.array(), 0, data, carry.length, buffer.position());
+
+                //The chunk ends after its last line break, and the rest is carried over to the next chunk
+                int end = data.length;
+                if (isEnd == false) {
+                    end = data.length - 1;
+                    while (end >= 0 && data[end] != '\n') {
+                        end--;
+                    }
+                    end++;
+                }
+                carry = Arrays.copyOfRange(data, end, data.length);
+                if (end > 0) {
+                    final int length = end;
+                    tasks.add(this.pool.submit(new Callable<T>() {
+                        @Override
+                        public T call() {
+                            return parser.parse(data, length);
+                        }
+                    }));
+                }
+            }
+        }
+        finally {
+            in.close();
+        }
+
+        List<T> chunks = new ArrayList<T>(tasks.size());
+        for (Future<T> task : tasks) {
+            try {
+                chunks.add(task.get());
+            }
+            catch (Exception e) {
+                throw new IOException("Error parsing " + file + ": " + e, e);
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Adds the errors of each chunk to the errors of the load, turning their line numbers within the chunk into line numbers in the file
+     */
+    private void addErrors(File file, List<? extends Chunk> chunks) {
+        int firstLine = 1;
+        for (Chunk chunk : chunks) {
+            for (int i = 0; i < chunk.numErrors; i++) {
+                this.errors.add(new ParseError(file.getName(), firstLine + chunk.errorLines[i], chunk.errorMessages.get(i)));
+            }
+            firstLine += chunk.numLines;
+        }
+    }
+
+    /**
+     * A malformed line of a text file
+     */
+    public static class ParseError {
+
+        private final String fileName;  //Name of the file the line is in
+        private final int lineNumber;  //Number of the line, starting at 1
+        private final String message;  //What is wrong with the line
+
+        ParseError(String fileName, int lineNumber, String message) {
+            this.fileName = fileName;
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+
+        /**
+         * Returns the name of the file the line is in
+         * @return the name of the file
+         */
+        public String getFileName() {
+            return this.fileName;
+        }
+
+        /**
+         * Returns the number of the line, starting at 1
+         * @return the number of the line
+         */
+        public int getLineNumber() {
+            return this.lineNumber;
+        }
+
+        /**
+         * Returns what is wrong with the line
+         * @return what is wrong with the line
+         */
+        public String getMessage() {
+            return this.message;
+        }
+
+        @Override
+        public String toString() {
+            return this.fileName + ", line " + this.lineNumber + ": " + this.message;
+        }
+    }
+
+    /**
+     * Parses one chunk of a file
+     */
+    private interface Parser<T extends Chunk> {
+        T parse(byte[] data, int length);
+    }
+
+    /**
+     * The lines of one chunk of a file.  Subclasses parse each line with the tokens found by the constructor of the chunk.
+     */
+    private abstract static class Chunk {
+
+        byte[] data;  //Bytes of the chunk
+        int numLines = 0;  //Number of lines in the chunk
+        int numErrors = 0;  //Number of malformed lines in the chunk
+        int[] errorLines = new int[4];  //Line of each error, counted from 0 at the start of the chunk
+        final List<String> errorMessages = new ArrayList<String>();  //Message of each error
+
+        int numTokens = 0;  //Number of tokens on the current line
+        int[] tokenStarts = new int[16];  //First byte of each token on the current line
+        int[] tokenEnds = new int[16];  //One past the last byte of each token on the current line
+
+        Chunk(byte[] data) {
+            this.data = data;
+        }
+
+        /**
+         * Splits the chunk into lines and each line into tokens separated by spaces or tabs, and parses each line that has tokens
+         */
+        void parseLines(int length) {
+            int position = 0;
+            while (position < length) {
+                this.numTokens = 0;
+                while (position < length && this.data[position] != '\n') {
+                    byte b = this.data[position];
+                    if (b == ' ' || b == '\t' || b == '\r') {
+                        position++;
+                        continue;
+                    }
+                    if (this.numTokens == this.tokenStarts.length) {
+                        this.tokenStarts = Arrays.copyOf(this.tokenStarts, this.numTokens * 2);
+                        this.tokenEnds = Arrays.copyOf(this.tokenEnds, this.numTokens * 2);
+                    }
+                    this.tokenStarts[this.numTokens] = position;
+                    while (position < length && (b = this.data[position]) != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                        position++;
+                    }
+                    this.tokenEnds[this.numTokens] = position;
+                    this.numTokens++;
+                }
+                if (this.numTokens > 0 && isEndMarker() == false) {
+                    parseLine();
+                }
+                this.numLines++;
+                position++;
+            }
+        }
+
+        /**
+         * Returns true if the current line is the "END" line the sample files finish with
+         */
+        private boolean isEndMarker() {
+            int start = this.tokenStarts[0];
+            return this.numTokens == 1 && this.tokenEnds[0] - start == 3
+                    && this.data[start] == 'E' && this.data[start + 1] == 'N' && this.data[start + 2] == 'D';
+        }
+
+        /**
+         * Parses the tokens of the current line
+         */
+        abstract void parseLine();
+
+        /**
+         * Reads token i of the current line as an int
+         * @throws NumberFormatException if the token isn't an int
+         */
+        int getInt(int i) {
+            int position = this.tokenStarts[i];
+            int end = this.tokenEnds[i];
+            boolean isNegative = this.data[position] == '-';
+            if (isNegative || this.data[position] == '+') {
+                position++;
+            }
+            if (position == end) {
+                throw new NumberFormatException("'" + getToken(i) + "' is not a number");
+            }
+            long value = 0;
+            for (; position < end; position++) {
+                int digit = this.data[position] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("'" + getToken(i) + "' is not a number");
+                }
+                value = value * 10 + digit;
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    throw new NumberFormatException("'" + getToken(i) + "' is too large");
+                }
+            }
+            value = isNegative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("'" + getToken(i) + "' is too large");
+            }
+            return (int) value;
+        }
+
+        /**
+         * Returns token i of the current line as a String, for error messages
+         */
+        String getToken(int i) {
+            return new String(this.data, this.tokenStarts[i], this.tokenEnds[i] - this.tokenStarts[i], StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Records that the current line is malformed
+         */
+        void addError(String message) {
+            if (this.numErrors == this.errorLines.length) {
+                this.errorLines = Arrays.copyOf(this.errorLines, this.numErrors * 2);
+            }
+            this.errorLines[this.numErrors++] = this.numLines;
+            this.errorMessages.add(message);
+        }
+    }
+
+    /**
+     * The nodes of one chunk of a location file
+     */
+    private static class LocationChunk extends Chunk {
+
+        int numNodes = 0;
+        int[] x = new int[1024];  //X coordinate of each node
+        int[] y = new int[1024];  //Y coordinate of each node
+        int[] labelStarts = new int[1024];  //First byte of the label of each node in the chunk
+        int[] labelEnds = new int[1024];  //One past the last byte of the label of each node in the chunk
+
+        LocationChunk(byte[] data, int length) {
+            super(data);
+            parseLines(length);
+        }
+
+        @Override
+        void parseLine() {
+            if (this.numTokens < 3) {
+                addError("Expected 'label x y', but found " + this.numTokens + " value(s)");
+                return;
+            }
+            int nodeX;
+            int nodeY;
+            try {
+                nodeX = getInt(1);
+                nodeY = getInt(2);
+            }
+            catch (NumberFormatException e) {
+                addError("Bad location - " + e.getMessage());
+                return;
+            }
+            if (this.numNodes == this.x.length) {
+                this.x = Arrays.copyOf(this.x, this.numNodes * 2);
+                this.y = Arrays.copyOf(this.y, this.numNodes * 2);
+                this.labelStarts = Arrays.copyOf(this.labelStarts, this.numNodes * 2);
+                this.labelEnds = Arrays.copyOf(this.labelEnds, this.numNodes * 2);
+            }
+            this.x[this.numNodes] = nodeX;
+            this.y[this.numNodes] = nodeY;
+            this.labelStarts[this.numNodes] = this.tokenStarts[0];
+            this.labelEnds[this.numNodes] = this.tokenEnds[0];
+            this.numNodes++;
+        }
+    }
+
+    /**
+     * The links of one chunk of a connection file
+     */
+    private static class ConnectionChunk extends Chunk {
+
+        private final LabelTable labels;  //Interned labels of the nodes
+        int numLinks = 0;
+        int[] sources = new int[1024];  //Node each link starts at
+        int[] targets = new int[1024];  //Node each link ends at
+
+        ConnectionChunk(byte[] data, int length, LabelTable labels) {
+            super(data);
+            this.labels = labels;
+            parseLines(length);
+            //The links have been taken out of the bytes, so they can be freed while the other chunks are parsed
+            this.data = null;
+        }
+
+        @Override
+        void parseLine() {
+            if (this.numTokens < 2) {
+                addError("Expected 'label count neighbour1 neighbour2 ...', but found 1 value");
+                return;
+            }
+            int source = this.labels.find(this.data, this.tokenStarts[0], this.tokenEnds[0]);
+            if (source == -1) {
+                addError("Unknown node '" + getToken(0) + "'");
+                return;
+            }
+            int numConnections;
+            try {
+                numConnections = getInt(1);
+            }
+            catch (NumberFormatException e) {
+                addError("Bad number of connections - " + e.getMessage());
+                return;
+            }
+            if (numConnections != this.numTokens - 2) {
+                addError("Node '" + getToken(0) + "' should have " + numConnections + " connection(s), but " + (this.numTokens - 2) + " are listed");
+            }
+            int last = Math.min(this.numTokens, numConnections + 2);
+            for (int i = 2; i < last; i++) {
+                int target = this.labels.find(this.data, this.tokenStarts[i], this.tokenEnds[i]);
+                if (target == -1) {
+                    addError("Connection from '" + getToken(0) + "' to unknown node '" + getToken(i) + "'");
+                    continue;
+                }
+                if (this.numLinks == this.sources.length) {
+                    this.sources = Arrays.copyOf(this.sources, this.numLinks * 2);
+                    this.targets = Arrays.copyOf(this.targets, this.numLinks * 2);
+                }
+                this.sources[this.numLinks] = source;
+                this.targets[this.numLinks] = target;
+                this.numLinks++;
+            }
+        }
+    }
+
+    /**
+     * The labels, locations and ids of all nodes, with an open addressing hash table to find a node by the bytes of
+     * its label.  It isn't changed once it has been created, so many threads can look up labels at the same time.
+     */
+    private static class LabelTable {
+
+        final int[] x;  //X coordinate of each node
+        final int[] y;  //Y coordinate of each node
+        final int[] offsets;  //First byte of the label of each node in bytes, with one extra entry at the end
+        final byte[] bytes;  //UTF-8 bytes of the labels, one after the other
+        private final int[] slots;  //Id + 1 of the node in each slot of the hash table, or 0 for an empty slot
+
+        LabelTable(List<LocationChunk> chunks) {
+            int numNodes = 0;
+            int numBytes = 0;
+            for (LocationChunk chunk : chunks) {
+                numNodes += chunk.numNodes;
+                for (int i = 0; i < chunk.numNodes; i++) {
+                    numBytes += chunk.labelEnds[i] - chunk.labelStarts[i];
+                }
+            }
+
+            //Copy the locations and labels of the nodes in file order, so the ids follow the order of the file
+            this.x = new int[numNodes];
+            this.y = new int[numNodes];
+            this.offsets = new int[numNodes + 1];
+            this.bytes = new byte[numBytes];
+            int node = 0;
+            for (LocationChunk chunk : chunks) {
+                System.arraycopy(chunk.x, 0, this.x, node, chunk.numNodes);
+                System.arraycopy(chunk.y, 0, this.y, node, chunk.numNodes);
+                for (int i = 0; i < chunk.numNodes; i++) {
+                    int length = chunk.labelEnds[i] - chunk.labelStarts[i];
+                    System.arraycopy(chunk.data, chunk.labelStarts[i], this.bytes, this.offsets[node], length);
+                    this.offsets[node + 1] = this.offsets[node] + length;
+                    node++;
+                }
+            }
+
+            //Intern the labels - a label that is already in the table keeps the first node that had it
+            this.slots = new int[Integer.highestOneBit(Math.max(numNodes, 1) * 2 - 1) * 2];
+            for (int i = 0; i < numNodes; i++) {
+                if (find(this.bytes, this.offsets[i], this.offsets[i + 1]) == -1) {
+                    int slot = hash(this.bytes, this.offsets[i], this.offsets[i + 1]) & (this.slots.length - 1);
+                    while (this.slots[slot] != 0) {
+                        slot = (slot + 1) & (this.slots.length - 1);
+                    }
+                    this.slots[slot] = i + 1;
+                }
+            }
+        }
+
+        int size() {
+            return this.x.length;
+        }
+
+        /**
+         * Returns the id of the node whose label is the bytes from start to end, or -1 if there is none
+         */
+        int find(byte[] data, int start, int end) {
+            int slot = hash(data, start, end) & (this.slots.length - 1);
+            while (this.slots[slot] != 0) {
+                int node = this.slots[slot] - 1;
+                if (isLabel(node, data, start, end)) {
+                    return node;
+                }
+                slot = (slot + 1) & (this.slots.length - 1);
+            }
+            return -1;
+        }
+
+        /**
+         * Returns true if the label of a node is the bytes from start to end
+         */
+        private boolean isLabel(int node, byte[] data, int start, int end) {
+            int first = this.offsets[node];
+            if (this.offsets[node + 1] - first != end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (this.bytes[first + i - start] != data[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hash(byte[] data, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + data[i];
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class records the events of a search to a trace file (see SearchTrace for the format) and passes them on to
+ * another listener.  The events are written straight into a memory-mapped part of the file, which is extended one chunk
+ * at a time as the search goes on, so recording doesn't slow the search down.  The number of events is written to the
+ * header by close(), and the file can then be opened with SearchTrace.open().  The header also identifies the graph
+ * searched, so the trace isn't replayed on another one.
+ *
+ * A trace holds at most SearchTrace.MAX_EVENTS events.  Room for the final path of the search (a PATH event per node
+ * and the FINISHED event) is always kept, so if a search has more events the ones that don't fit are left out, the
+ * trace is marked as truncated (SearchTrace.isTruncated()) and the search still ends with its path.
+ *
+ * A TraceRecorder records one search, from one thread.
+ * @author Sean J. Barbeau
+ */
+public class TraceRecorder implements SearchListener {
+
+    //Events mapped into memory at a time
+    private static final int CHUNK_EVENTS = 1 << 17;
+
+    //Listener used when the caller doesn't want to pass the events on
+    private static final SearchListener NO_LISTENER = new SearchAdapter() {};
+
+    private final File file;
+    private final RandomAccessFile out;
+    private final FileChannel channel;
+    private final SearchListener listener;
+    private final long graphFingerprint;  //Fingerprint of the graph searched
+    private final int nodeCount;  //Number of nodes of the graph searched
+    private final int maxEvents;  //Most events the trace may hold
+    private MappedByteBuffer chunk = null;  //Part of the file the next events are written to
+    private long eventCount = 0;
+    private boolean truncated = false;  //True once an event was left out because the trace was full
+    private boolean closed = false;
+
+    /**
+     * Creates a new TraceRecorder, replacing the contents of the file
+     * @param file file to record the events to
+     * @param graph graph the search is run on
+     * @param listener listener the events are passed on to, or null
+     * @throws IOException if the file can't be written
+     */
+    public TraceRecorder(File file, CsrGraph graph, SearchListener listener) throws IOException {
+        this(file, graph, listener, SearchTrace.MAX_EVENTS);
+    }
+
+    /**
+     * Creates a new TraceRecorder that records at most maxEvents events (to test what happens when a trace is full)
+     */
+    TraceRecorder(File file, CsrGraph graph, SearchListener listener, int maxEvents) throws IOException {
+        if (graph.getNodeSize() + 1 > maxEvents) {
+            throw new IllegalArgumentException("A trace of at most " + maxEvents + " events can't hold the path of a search of " + graph.getNodeSize() + " nodes");
+        }
+        this.file = file;
+        this.graphFingerprint = graph.getFingerprint();
+        this.nodeCount = graph.getNodeSize();
+        this.maxEvents = maxEvents;
+        this.out = new RandomAccessFile(file, "rw");
+        this.channel = this.out.getChannel();
+        this.channel.truncate(0);
+        this.listener = listener != null ? listener : NO_LISTENER;
+        writeHeader();
+    }
+
+    /**
+     * Returns the file the events are recorded to
+     * @return the file the events are recorded to
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns the number of events recorded so far
+     * @return the number of events recorded so far
+     */
+    public long getEventCount() {
+        return this.eventCount;
+    }
+
+    /**
+     * Returns true if events were left out because the trace was full
+     * @return true if events were left out
+     */
+    public boolean isTruncated() {
+        return this.truncated;
+    }
+
+    public void nodeExpanded(int node, double costFromStart, double estCostToGoal) {
+        record(SearchTrace.EXPANDED, node, -1, costFromStart, estCostToGoal);
+        this.listener.nodeExpanded(node, costFromStart, estCostToGoal);
+    }
+
+    public void linkTraveled(int nodeA, int nodeB) {
+        record(SearchTrace.TRAVELED, nodeA, nodeB, 0, 0);
+        this.listener.linkTraveled(nodeA, nodeB);
+    }
+
+    public void nodeAdded(int node, double costFromStart, double estCostToGoal) {
+        record(SearchTrace.ADDED, node, -1, costFromStart, estCostToGoal);
+        this.listener.nodeAdded(node, costFromStart, estCostToGoal);
+    }
+
+    public void nodeImproved(int node, double costFromStart, double estCostToGoal) {
+        record(SearchTrace.IMPROVED, node, -1, costFromStart, estCostToGoal);
+        this.listener.nodeImproved(node, costFromStart, estCostToGoal);
+    }
+
+    public void nodeReopened(int node, double costFromStart, double estCostToGoal) {
+        record(SearchTrace.REOPENED, node, -1, costFromStart, estCostToGoal);
+        this.listener.nodeReopened(node, costFromStart, estCostToGoal);
+    }
+
+    public void nodeRejected(int node) {
+        record(SearchTrace.REJECTED, node, -1, 0, 0);
+        this.listener.nodeRejected(node);
+    }
+
+    public void nodeDisabled(int nodeA, int nodeB) {
+        record(SearchTrace.DISABLED, nodeA, nodeB, 0, 0);
+        this.listener.nodeDisabled(nodeA, nodeB);
+    }
+
+    public void nodeClosed(int node) {
+        record(SearchTrace.CLOSED, node, -1, 0, 0);
+        this.listener.nodeClosed(node);
+    }
+
+    public void solutionImproved(PathResult result, double weight, double suboptimalityBound) {
+        if (fits(result.getNodeIds().length + 1) == true) {
+            recordPath(result);
+            record(SearchTrace.SOLUTION, result.getNumIterations(), result.getPeakNodes(), weight, suboptimalityBound);
+        }
+        this.listener.solutionImproved(result, weight, suboptimalityBound);
+    }
+
+    public void searchFinished(PathResult result) {
+        //The room kept for the final path is always enough (a path visits each node at most once)
+        recordPath(result);
+        write(SearchTrace.FINISHED, result.getNumIterations(), result.getPeakNodes(), result.getTotalCost(), 0);
+        this.listener.searchFinished(result);
+    }
+
+    /**
+     * Writes the number of events to the header, cuts off the part of the last chunk no events were written to, and
+     * closes the file.  Events received afterwards are only passed on.
+     * @throws IOException if the file can't be written
+     */
+    public void close() throws IOException {
+        if (this.closed == true) {
+            return;
+        }
+        this.closed = true;
+        try {
+            if (this.chunk != null) {
+                this.chunk.force();
+                this.chunk = null;
+            }
+            writeHeader();
+            try {
+                this.channel.truncate(SearchTrace.HEADER_SIZE + this.eventCount * SearchTrace.RECORD_SIZE);
+            }
+            catch (IOException e) {
+                //Some systems (Windows) don't let a file be shortened while a chunk of it is still mapped, which lasts until
+                //the chunk is garbage collected - the file can still be opened, since the header says where the events end
+            }
+        }
+        finally {
+            this.out.close();
+        }
+    }
+
+    /**
+     * Records a PATH event for each node of the path of a result
+     */
+    private void recordPath(PathResult result) {
+        if (result.isFound()) {
+            int[] path = result.getNodeIds();
+            for (int i = 0; i < path.length; i++) {
+                write(SearchTrace.PATH, path[i], i, result.getTotalCost(), 0);
+            }
+        }
+    }
+
+    /**
+     * Returns true if a number of events fit in the trace and still leave room for the final path of the search, and
+     * marks the trace as truncated if they don't
+     */
+    private boolean fits(int numEvents) {
+        if (this.eventCount + numEvents + this.nodeCount + 1 <= this.maxEvents) {
+            return true;
+        }
+        this.truncated = true;
+        return false;
+    }
+
+    /**
+     * Writes an event to the next record of the file, if it leaves room for the final path of the search
+     */
+    private void record(int kind, int node, int otherNode, double cost, double estimate) {
+        if (fits(1) == true) {
+            write(kind, node, otherNode, cost, estimate);
+        }
+    }
+
+    /**
+     * Writes an event to the next record of the file
+     */
+    private void write(int kind, int node, int otherNode, double cost, double estimate) {
+        if (this.closed == true) {
+            return;
+        }
+        if (this.eventCount >= this.maxEvents) {
+            //Only possible if more than one path is sent after the trace is full, which the engines don't do
+            throw new IllegalStateException("The trace file " + this.file + " is full (" + this.maxEvents + " events)");
+        }
+        if (this.chunk == null || this.chunk.remaining() < SearchTrace.RECORD_SIZE) {
+            try {
+                //The last chunk may reach past the most events a trace can hold, but no events are written there
+                this.chunk = this.channel.map(FileChannel.MapMode.READ_WRITE, SearchTrace.HEADER_SIZE + this.eventCount * SearchTrace.RECORD_SIZE,
+                        (long) CHUNK_EVENTS * SearchTrace.RECORD_SIZE);
+                this.chunk.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            catch (IOException e) {
+                throw new IllegalStateException("Can't extend the trace file " + this.file + ": " + e, e);
+            }
+        }
+        this.chunk.putInt(kind);
+        this.chunk.putInt(node);
+        this.chunk.putInt(otherNode);
+        this.chunk.putDouble(cost);
+        this.chunk.putDouble(estimate);
+        this.eventCount++;
+    }
+
+    /**
+     * Writes the header with the number of events recorded so far
+     */
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SearchTrace.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(SearchTrace.FILE_MAGIC);
+        header.putInt(SearchTrace.FILE_VERSION);
+        header.putLong(this.eventCount);
+        header.putLong(this.graphFingerprint);
+        header.putInt(this.nodeCount);
+        header.putInt(this.truncated == true ? SearchTrace.TRUNCATED : 0);
+        header.flip();
+        while (header.hasRemaining()) {
+            this.channel.write(header, header.position());
+        }
+    }
+}
@@ -40,6 +40,16 @@ public class mainWindowAstar extends javax.swing.JFrame {
     public HeuristicsNode localStartNode;  //Start node for search algorithm
     public HeuristicsNode localGoalNode;  //Goal node for search algorithm
     public Heuristic selectedHeuristic = Heuristic.FEWEST_LINKS;  //Variable that holds which heuristic is selected by the user (e.g., Fewest # of links, Shortest distance).  Fewest links is default.
+    //*** Search settings chosen with the controls in the right column of the window ***
+    private SearchMode selectedSearchMode = SearchMode.UNIDIRECTIONAL;  //Variable that holds how the path is searched for (e.g., from the start only, from the start and goal at the same time).  Unidirectional is default.
+    private int selectedMaxNodes = SmaStarEngine.DEFAULT_MAX_NODES;  //Variable that holds the number of nodes the memory-bounded search mode (SMA*) may hold in memory
+    private double selectedWeight = AraStarEngine.DEFAULT_INITIAL_WEIGHT;  //Variable that holds the inflation factor of the estimates in the weighted and anytime search modes
+    private long selectedTimeLimit = 0;  //Variable that holds the time in milliseconds the anytime search mode (ARA*) may take to improve its path.  No limit (0) is default.
+    private LogLevel selectedLogLevel = LogLevel.EDGES;  //Variable that holds how much of the search is printed to the log.  Every neighbor examined is default.
+    private boolean selectedRecordTrace = true;  //Variable that holds whether the search is recorded so it can be replayed on the map.  Recording is default.
+    //*** Landmark table of the LANDMARKS heuristic, kept between searches so it is only computed once per graph ***
+    private LandmarkTable landmarkTable = null;
+    private File landmarkFile = null;  //File next to the loaded graph that the landmark table is saved to
     //*** Variables used to graphically display the nodes and search space ***
     //MapDisplay to show a map of the nodes in the GUI
     public MapDisplay map;
@@ -77,6 +87,10 @@ public class mainWindowAstar extends javax.swing.JFrame {
             //Has the first heuristic "Fewest links" selected as default
             this.jRadioButton1.doClick();
 
+            //Show the default search mode and log level
+            this.jComboBox3.setSelectedItem(this.selectedSearchMode);
+            this.jComboBox4.setSelectedItem(this.selectedLogLevel);
+
             //Create map to display nodes to user             
             createMap();
 
@@ -106,6 +120,7 @@ public class mainWindowAstar extends javax.swing.JFrame {
         jPanel2 = new javax.swing.JPanel();
         jRadioButton1 = new javax.swing.JRadioButton();
         jRadioButton2 = new javax.swing.JRadioButton();
+        jRadioButton7 = new javax.swing.JRadioButton();
         jScrollPane1 = new javax.swing.JScrollPane();
         jTextArea2 = new javax.swing.JTextArea();
         jComboBox1 = new javax.swing.JComboBox();
@@ -133,6 +148,17 @@ public class mainWindowAstar extends javax.swing.JFrame {
         jLabel12 = new javax.swing.JLabel();
         jLabel13 = new javax.swing.JLabel();
         jLabel14 = new javax.swing.JLabel();
+        jLabel15 = new javax.swing.JLabel();
+        jComboBox3 = new javax.swing.JComboBox();
+        jLabel16 = new javax.swing.JLabel();
+        jSpinner1 = new javax.swing.JSpinner();
+        jLabel17 = new javax.swing.JLabel();
+        jSpinner2 = new javax.swing.JSpinner();
+        jLabel18 = new javax.swing.JLabel();
+        jSpinner3 = new javax.swing.JSpinner();
+        jLabel19 = new javax.swing.JLabel();
+        jComboBox4 = new javax.swing.JComboBox();
+        jCheckBox1 = new javax.swing.JCheckBox();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
         setTitle("A* Algorithm");
@@ -198,8 +224,19 @@ public class mainWindowAstar extends javax.swing.JFrame {
         jPanel2.add(jRadioButton2);
         jRadioButton2.setBounds(10, 20, 130, 21);
 
+        buttonGroup1.add(jRadioButton7);
+        jRadioButton7.setText("Landmarks");
+        jRadioButton7.setMargin(new java.awt.Insets(1, 2, 2, 2));
+        jRadioButton7.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jRadioButton7ActionPerformed(evt);
+            }
+        });
+        jPanel2.add(jRadioButton7);
+        jRadioButton7.setBounds(10, 40, 130, 21);
+
         getContentPane().add(jPanel2);
-        jPanel2.setBounds(580, 290, 160, 50);
+        jPanel2.setBounds(580, 290, 160, 70);
 
         jScrollPane1.setBorder(javax.swing.BorderFactory.createTitledBorder("A* algorithm log"));
 
@@ -213,7 +250,7 @@ public class mainWindowAstar extends javax.swing.JFrame {
         jScrollPane1.setViewportView(jTextArea2);
 
         getContentPane().add(jScrollPane1);
-        jScrollPane1.setBounds(10, 30, 730, 140);
+        jScrollPane1.setBounds(10, 30, 900, 140);
 
         jComboBox1.setEnabled(false);
         getContentPane().add(jComboBox1);
@@ -336,7 +373,7 @@ public class mainWindowAstar extends javax.swing.JFrame {
         jLabel10.setHorizontalAlignment(javax.swing.SwingConstants.CENTER);
         jLabel10.setText("On mouse click:");
         getContentPane().add(jLabel10);
-        jLabel10.setBounds(590, 350, 120, 20);
+        jLabel10.setBounds(590, 370, 120, 20);
 
         jPanel3.setBorder(javax.swing.BorderFactory.createEtchedBorder());
         jPanel3.setLayout(null);
@@ -363,7 +400,7 @@ public class mainWindowAstar extends javax.swing.JFrame {
         jRadioButton4.setBounds(10, 20, 130, 21);
 
         getContentPane().add(jPanel3);
-        jPanel3.setBounds(580, 370, 160, 50);
+        jPanel3.setBounds(580, 390, 160, 50);
 
         buttonGroup1.add(jRadioButton5);
         jRadioButton5.setText("Fewest Links");
@@ -379,25 +416,105 @@ public class mainWindowAstar extends javax.swing.JFrame {
         jLabel11.setHorizontalAlignment(javax.swing.SwingConstants.RIGHT);
         jLabel11.setText("Node Key:");
         getContentPane().add(jLabel11);
-        jLabel11.setBounds(580, 430, 60, 14);
+        jLabel11.setBounds(580, 450, 60, 14);
 
         jLabel12.setForeground(new java.awt.Color(0, 0, 255));
         jLabel12.setText("Start and Goal");
         getContentPane().add(jLabel12);
-        jLabel12.setBounds(650, 430, 90, 14);
+        jLabel12.setBounds(650, 450, 90, 14);
 
         jLabel13.setForeground(new java.awt.Color(255, 0, 51));
         jLabel13.setText("Disabled");
         getContentPane().add(jLabel13);
-        jLabel13.setBounds(650, 450, 70, 14);
+        jLabel13.setBounds(650, 470, 70, 14);
 
         jLabel14.setForeground(new java.awt.Color(51, 255, 0));
         jLabel14.setText("Current");
         getContentPane().add(jLabel14);
-        jLabel14.setBounds(650, 470, 70, 14);
+        jLabel14.setBounds(650, 490, 70, 14);
+
+        jLabel15.setHorizontalAlignment(javax.swing.SwingConstants.CENTER);
+        jLabel15.setText("Search Mode:");
+        getContentPane().add(jLabel15);
+        jLabel15.setBounds(760, 170, 150, 20);
+
+        jComboBox3.setModel(new javax.swing.DefaultComboBoxModel(SearchMode.values()));
+        jComboBox3.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jComboBox3ActionPerformed(evt);
+            }
+        });
+        getContentPane().add(jComboBox3);
+        jComboBox3.setBounds(760, 190, 150, 20);
+
+        jLabel16.setHorizontalAlignment(javax.swing.SwingConstants.CENTER);
+        jLabel16.setText("Max Nodes (SMA*):");
+        getContentPane().add(jLabel16);
+        jLabel16.setBounds(760, 220, 150, 20);
+
+        jSpinner1.setModel(new javax.swing.SpinnerNumberModel(SmaStarEngine.DEFAULT_MAX_NODES, 1, Integer.MAX_VALUE, 1000));
+        jSpinner1.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                jSpinner1StateChanged(evt);
+            }
+        });
+        getContentPane().add(jSpinner1);
+        jSpinner1.setBounds(760, 240, 150, 20);
+
+        jLabel17.setHorizontalAlignment(javax.swing.SwingConstants.CENTER);
+        jLabel17.setText("Weight (Weighted, ARA*):");
+        getContentPane().add(jLabel17);
+        jLabel17.setBounds(760, 270, 150, 20);
+
+        jSpinner2.setModel(new javax.swing.SpinnerNumberModel(AraStarEngine.DEFAULT_INITIAL_WEIGHT, 1.0, 100.0, 0.5));
+        jSpinner2.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                jSpinner2StateChanged(evt);
+            }
+        });
+        getContentPane().add(jSpinner2);
+        jSpinner2.setBounds(760, 290, 150, 20);
+
+        jLabel18.setHorizontalAlignment(javax.swing.SwingConstants.CENTER);
+        jLabel18.setText("Time Limit (ms, ARA*):");
+        getContentPane().add(jLabel18);
+        jLabel18.setBounds(760, 320, 150, 20);
+
+        jSpinner3.setModel(new javax.swing.SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 100));
+        jSpinner3.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                jSpinner3StateChanged(evt);
+            }
+        });
+        getContentPane().add(jSpinner3);
+        jSpinner3.setBounds(760, 340, 150, 20);
+
+        jLabel19.setHorizontalAlignment(javax.swing.SwingConstants.CENTER);
+        jLabel19.setText("Log Level:");
+        getContentPane().add(jLabel19);
+        jLabel19.setBounds(760, 370, 150, 20);
+
+        jComboBox4.setModel(new javax.swing.DefaultComboBoxModel(LogLevel.values()));
+        jComboBox4.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jComboBox4ActionPerformed(evt);
+            }
+        });
+        getContentPane().add(jComboBox4);
+        jComboBox4.setBounds(760, 390, 150, 20);
+
+        jCheckBox1.setSelected(true);
+        jCheckBox1.setText("Record Search");
+        jCheckBox1.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jCheckBox1ActionPerformed(evt);
+            }
+        });
+        getContentPane().add(jCheckBox1);
+        jCheckBox1.setBounds(760, 420, 150, 23);
 
         java.awt.Dimension screenSize = java.awt.Toolkit.getDefaultToolkit().getScreenSize();
-        setBounds((screenSize.width-753)/2, (screenSize.height-765)/2, 753, 765);
+        setBounds((screenSize.width-925)/2, (screenSize.height-765)/2, 925, 765);
     }// </editor-fold>//GEN-END:initComponents
 
     /**
@@ -565,6 +682,90 @@ public class mainWindowAstar extends javax.swing.JFrame {
 
         this.printToLog("Heuristic " + this.selectedHeuristic + " - 'Fewest Links' has been selected");
     }//GEN-LAST:event_jRadioButton1ActionPerformed
+    /**
+     * Set the selected heuristic to Landmarks when the user selects this
+     * radio button
+     *
+     * @param evt
+     */
+    private void jRadioButton7ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jRadioButton7ActionPerformed
+
+        this.selectedHeuristic = Heuristic.LANDMARKS;
+
+        this.printToLog("Heuristic " + this.selectedHeuristic + " - 'Landmarks' has been selected (the landmark distances are computed before the first search of a graph, and saved next to its files)");
+    }//GEN-LAST:event_jRadioButton7ActionPerformed
+    /**
+     * Set the selected search mode when the user selects it in the list
+     *
+     * @param evt
+     */
+    private void jComboBox3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jComboBox3ActionPerformed
+
+        this.selectedSearchMode = (SearchMode) this.jComboBox3.getSelectedItem();
+
+        this.printToLog("Search mode " + this.selectedSearchMode + " has been selected");
+    }//GEN-LAST:event_jComboBox3ActionPerformed
+    /**
+     * Set the number of nodes the memory-bounded search mode (SMA*) may hold
+     * when the user changes it
+     *
+     * @param evt
+     */
+    private void jSpinner1StateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_jSpinner1StateChanged
+        this.selectedMaxNodes = ((Number) this.jSpinner1.getValue()).intValue();
+    }//GEN-LAST:event_jSpinner1StateChanged
+    /**
+     * Set the weight of the weighted and anytime search modes when the user
+     * changes it
+     *
+     * @param evt
+     */
+    private void jSpinner2StateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_jSpinner2StateChanged
+        this.selectedWeight = ((Number) this.jSpinner2.getValue()).doubleValue();
+    }//GEN-LAST:event_jSpinner2StateChanged
+    /**
+     * Set the time the anytime search mode (ARA*) may take when the user
+     * changes it (0 for no limit)
+     *
+     * @param evt
+     */
+    private void jSpinner3StateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_jSpinner3StateChanged
+        this.selectedTimeLimit = ((Number) this.jSpinner3.getValue()).longValue();
+    }//GEN-LAST:event_jSpinner3StateChanged
+    /**
+     * Set how much of the search is printed to the log when the user selects
+     * a level in the list
+     *
+     * @param evt
+     */
+    private void jComboBox4ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jComboBox4ActionPerformed
+
+        this.selectedLogLevel = (LogLevel) this.jComboBox4.getSelectedItem();
+
+        this.printToLog("Log level " + this.selectedLogLevel + " has been selected");
+    }//GEN-LAST:event_jComboBox4ActionPerformed
+    /**
+     * Set whether the search is recorded so it can be replayed on the map
+     *
+     * @param evt
+     */
+    private void jCheckBox1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jCheckBox1ActionPerformed
+        this.selectedRecordTrace = this.jCheckBox1.isSelected();
+    }//GEN-LAST:event_jCheckBox1ActionPerformed
+    /**
+     * Enables or disables the controls of the search settings (they can't be
+     * changed while a search runs)
+     *
+     * @param enabled true to let the user change the settings
+     */
+    private void setSearchSettingsEnabled(boolean enabled) {
+        this.jComboBox3.setEnabled(enabled);
+        this.jSpinner1.setEnabled(enabled);
+        this.jSpinner2.setEnabled(enabled);
+        this.jSpinner3.setEnabled(enabled);
+        this.jComboBox4.setEnabled(enabled);
+        this.jCheckBox1.setEnabled(enabled);
+    }
     /**
      * Load files and create nodes and fills their properties
      *
@@ -585,11 +786,18 @@ public class mainWindowAstar extends javax.swing.JFrame {
 
             this.printToLog("Loading files.....");
 
-            //Load nodes with their locations from file
-            this.loadNodeLocations(locFilename);
+            //Forget the landmark table of the last graph, and keep the table of this one next to its files
+            this.landmarkTable = null;
+            this.landmarkFile = new File(locFilename + ".landmarks");
 
-            //Load node connections from file
-            this.loadNodeConn(connFilename);
+            if (GraphFile.isGraphFile(new File(locFilename))) {
+                //Load nodes, their locations and their connections from a binary graph file
+                this.loadGraphFile(locFilename);
+            }
+            else {
+                //Load nodes with their locations and their connections from the text files, in parallel
+                this.loadTextFiles(locFilename, connFilename);
+            }
 
             //Clear combo boxes in case some items exist from previous executions of algorithm
             this.jComboBox1.removeAllItems();
@@ -615,6 +823,8 @@ public class mainWindowAstar extends javax.swing.JFrame {
             //Enabled radio buttons for selection of the heuristic
             this.jRadioButton1.setEnabled(true);
             this.jRadioButton2.setEnabled(true);
+            this.jRadioButton7.setEnabled(true);
+            this.setSearchSettingsEnabled(true);
 
             //Enable clicking on map
             this.map.setAllowClicks(true);
@@ -691,9 +901,34 @@ public class mainWindowAstar extends javax.swing.JFrame {
                 //Change colors for the start and goal nodes
                 this.paintStartAndGoal();
 
+                //Keep the landmark table the last search used, so it isn't computed again
+                if (aStarProcess != null && aStarProcess.getLandmarkTable() != null) {
+                    this.landmarkTable = aStarProcess.getLandmarkTable();
+                }
+
                 //Instatiate the AstarSearch process
                 aStarProcess = new AstarSearch(this.localSearchSpace, this.localStartNode, this.localGoalNode, this.selectedHeuristic, this.jTextArea2, this.map);
 
+                //Set search mode
+                aStarProcess.setMaxNodes(this.selectedMaxNodes);
+                aStarProcess.setWeight(this.selectedWeight);
+                aStarProcess.setTimeLimitNanos(this.selectedTimeLimit > 0 ? this.selectedTimeLimit * 1000000 : Long.MAX_VALUE);
+                aStarProcess.setSearchMode(this.selectedSearchMode);
+                aStarProcess.setLogLevel(this.selectedLogLevel);
+                aStarProcess.setLandmarkTable(this.landmarkTable);
+                aStarProcess.setLandmarkFile(this.landmarkFile);
+
+                //Record the search to a temporary file so it can be replayed on the map
+                if (this.selectedRecordTrace == true) {
+                    try {
+                        File traceFile = File.createTempFile("search", ".trace");
+                        traceFile.deleteOnExit();
+                        aStarProcess.setTraceFile(traceFile);
+                    } catch (IOException e) {
+                        this.printToLog("Warning - the search can't be recorded: " + e);
+                    }
+                }
+
                 //Set step-by-step value
                 aStarProcess.setStepByStep(this.stepByStep);
 
@@ -721,6 +956,10 @@ public class mainWindowAstar extends javax.swing.JFrame {
                 //Disable heuristics radio buttons
                 this.jRadioButton1.setEnabled(false);
                 this.jRadioButton2.setEnabled(false);
+                this.jRadioButton7.setEnabled(false);
+
+                //Disable search settings
+                this.setSearchSettingsEnabled(false);
 
                 //Disable click radio buttons
                 this.jRadioButton3.setEnabled(false);
@@ -755,14 +994,22 @@ public class mainWindowAstar extends javax.swing.JFrame {
     private javax.swing.JButton jButton3;
     private javax.swing.JButton jButton4;
     private javax.swing.JButton jButton5;
+    private javax.swing.JCheckBox jCheckBox1;
     private javax.swing.JComboBox jComboBox1;
     private javax.swing.JComboBox jComboBox2;
+    private javax.swing.JComboBox jComboBox3;
+    private javax.swing.JComboBox jComboBox4;
     private javax.swing.JLabel jLabel1;
     private javax.swing.JLabel jLabel10;
     private javax.swing.JLabel jLabel11;
     private javax.swing.JLabel jLabel12;
     private javax.swing.JLabel jLabel13;
     private javax.swing.JLabel jLabel14;
+    private javax.swing.JLabel jLabel15;
+    private javax.swing.JLabel jLabel16;
+    private javax.swing.JLabel jLabel17;
+    private javax.swing.JLabel jLabel18;
+    private javax.swing.JLabel jLabel19;
     private javax.swing.JLabel jLabel2;
     private javax.swing.JLabel jLabel3;
     private javax.swing.JLabel jLabel4;
@@ -779,8 +1026,12 @@ public class mainWindowAstar extends javax.swing.JFrame {
     private javax.swing.JRadioButton jRadioButton4;
     private javax.swing.JRadioButton jRadioButton5;
     private javax.swing.JRadioButton jRadioButton6;
+    private javax.swing.JRadioButton jRadioButton7;
     private javax.swing.JScrollPane jScrollPane1;
     private javax.swing.JSlider jSlider1;
+    private javax.swing.JSpinner jSpinner1;
+    private javax.swing.JSpinner jSpinner2;
+    private javax.swing.JSpinner jSpinner3;
     private javax.swing.JTextArea jTextArea2;
     private javax.swing.JTextField jTextField1;
     private javax.swing.JTextField jTextField2;
@@ -788,151 +1039,57 @@ public class mainWindowAstar extends javax.swing.JFrame {
     // End of variables declaration//GEN-END:variables
 
     /**
-     * This function loads the initial file that creates the nodes and sets
-     * their location
+     * This function loads the nodes, their locations and enabled states and
+     * their connections from a binary graph file (see GraphFile)
      *
-     * @param locFilename name of file that contains the nodes and their
-     * locations
+     * @param graphFilename name of the graph file
+     * @throws IOException if the file can't be read or is not a graph file
      */
-    public void loadNodeLocations(String locFilename) {
-
-        System.out.println("Creating nodes and their locations...");
-
-        //Create buffered file reader
-        BufferedReader input = null;
-
-        try {
-            //Set file input variables
-            input = new BufferedReader(new FileReader(locFilename));
-
-            //Initialize string to read in lines from file
-            String line = null;
-
-            //Loop to read file line-by-line
-            while ((line = input.readLine()) != null) {
-                //Process each line of text file
-
-                //System.out.println(line); //Test read file by printing the entire line
-
-                //PARSING CODE for Location of nodes text file "locsamp.txt"
-                String nodeInfo[] = line.split(" ");
-                if ((nodeInfo != null) && (nodeInfo.length > 1)) {
-                    //Create new node with parsed information (label, x, y)    
-                    HeuristicsNode newNode = new HeuristicsNode(nodeInfo[0], Integer.parseInt(nodeInfo[1]), Integer.parseInt(nodeInfo[2]));
-
-                    //Add new node to search space list
-                    this.localSearchSpace.add(newNode);
-
-                    //Print node info to output screen
-                    System.out.println("Created new node '" + newNode.label + "', x = " + newNode.location.x + ", y = " + newNode.location.y + " and added it to the search space");
-                }
-            }
+    public void loadGraphFile(String graphFilename) throws IOException {
 
-        } catch (Exception e) {
-            System.out.println(e);
-            showError(e);
-        }
-
-        try {
-            //Close input file
-            input.close();
+        System.out.println("Creating nodes and connections from graph file...");
 
-        } catch (java.io.IOException e) {
-            System.out.println(e);
-        }
+        this.loadGraph(GraphFile.open(new File(graphFilename)));
 
+        this.printToLog("Graph file was successfully loaded.");
     }
 
     /**
-     * This function loads the connections file that sets up how each node is
-     * connected to its neighbors
+     * This function loads the nodes and their locations and connections from
+     * the text files with TextGraphLoader, which parses them in parallel.
+     * Malformed lines are skipped and listed in the log with their line numbers.
      *
+     * @param locFilename name of file that contains the nodes and their
+     * locations
      * @param connFilename name of the file that contains the connections
      * between each node in the network
+     * @throws IOException if a file can't be read
      */
-    public void loadNodeConn(String connFilename) {
-
-        System.out.println("Creating node connections...");
-
-        //Create buffered file reader
-        BufferedReader input = null;
-
-        try {
-            //Set file input variables
-            input = new BufferedReader(new FileReader(connFilename));
-
-            //Initialize string to read in lines from file
-            String line = null;
-
-            //Loop to read file line-by-line
-            while ((line = input.readLine()) != null) {
-                //Process each line of text file
-
-                //System.out.println("File line: " + line); //Test read file by printing the entire line
-
-                //PARSING CODE for Location of nodes text file "locsamp.txt"
-                String nodeInfo[] = line.split(" ");
-                if ((nodeInfo != null) && (nodeInfo.length > 1)) {
-
-                    //System.out.println("Searching for Node '" + node_info[0] + "' to form connections from....");
+    public void loadTextFiles(String locFilename, String connFilename) throws IOException {
 
-                    //Get nodeA to add connections to 
-                    NodeXY nodeA = (NodeXY) this.localSearchSpace.findNode(nodeInfo[0]);
+        System.out.println("Creating nodes and connections from text files...");
 
-                    //System.out.println("Got node '" + nodeInfo[0] + "'.");
+        TextGraphLoader loader = new TextGraphLoader();
+        this.loadGraph(loader.load(new File(locFilename), new File(connFilename)));
 
-                    //Get # of nodes that node_A is connected to
-                    int numConn = Integer.parseInt(nodeInfo[1]);
-
-                    //Print node info                    
-                    //System.out.println("Node '" + nodeInfo[0] + "' has " + numConn + " initial connections:");
-                    //Get each connection
-                    for (int i = 2; i < (numConn + 2); i++) {
-
-                        //System.out.println("Searching for Node '" + nodeInfo[i] + "' to form connection to....");
-
-                        //Get each node to connect to
-                        NodeXY nodeB = (NodeXY) this.localSearchSpace.findNode(nodeInfo[i]);
-
-                        //System.out.println("Got node '" + nodeInfo[i] + "'.");
-
-                        if (nodeB != null && nodeA != null) {
-                            //Add one-way connection from nodeA to nodeB
-                            nodeA.addConnToChild(nodeB);
-
-                            //Add link to search space
-                            LinkXY link = new LinkXY(nodeA, nodeB);
-                            this.localSearchSpace.add(link);
-
-                        } else {
-                            System.out.println("Error:  Tried to form connection to or from a node that does not exist in search space.");
-                        }
-                        //Prints the label for each node that will be connected to
-                        //System.out.println(nodeInfo[i]);
-                    }
-
-                }
-
-            }
-            this.printToLog("Files were successfully loaded.");
-
-            //JOptionPane.showMessageDialog(this, "Files successfully loaded.  Please choose the start and goal nodes and click 'Start'","Files loaded", JOptionPane.INFORMATION_MESSAGE);
-
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, e, "Error", JOptionPane.ERROR_MESSAGE);
-            System.out.println(e);
+        for (TextGraphLoader.ParseError error : loader.getErrors()) {
+            this.printToLog("Warning - skipped malformed line in " + error);
         }
+        this.printToLog("Files were successfully loaded.");
+    }
 
-        System.out.println("Finished creating node connections.");
-
-        try {
-            //Close input file
-            input.close();
+    /**
+     * This function creates the search space (nodes, their locations and
+     * enabled states and their connections) from a graph, and lets the map
+     * draw the links straight from the graph
+     *
+     * @param graph graph to copy into the search space
+     */
+    private void loadGraph(CsrGraph graph) {
 
-        } catch (java.io.IOException e) {
-            System.out.println(e);
-            showError(e);
-        }
+        this.localSearchSpace = graph.toSearchSpace();
+        this.map.setSearchSpace(this.localSearchSpace, this.SEARCH_SPACE_WIDTH, this.SEARCH_SPACE_HEIGHT, this.SCALE, this.NORMAL_NODE_SIZE, this.EXPANDED_NODE_SIZE);
+        this.map.setGraph(graph);
     }
 
     /**
@@ -967,19 +1124,7 @@ public class mainWindowAstar extends javax.swing.JFrame {
      */
     public void initializeAlgorithm() {
 
-        NodeXY tempNode;  //Temp node to loop through search space
-
-        Iterator i = this.localSearchSpace.getNodeIterator();  //Get iterator to loop through search_space
-
-        while (i.hasNext()) {
-            //Get next node
-            tempNode = (NodeXY) i.next();
-            //Clear node attributes used for search (allows multiple searches)
-            tempNode.costFromStart = 0;
-            //temp_node.enabled = true;  //Commented out to allow nodes to be disabled
-            tempNode.estCostToGoal = 0;
-            tempNode.pathParent = null;
-        }
+        //NOTE:  nodes don't need to be cleared between searches, since the search keeps its own per-node state
 
         //Get names of selected start and goal nodes
         String startNodeLabel = (String) jComboBox1.getSelectedItem();
@@ -1056,8 +1201,11 @@ public class mainWindowAstar extends javax.swing.JFrame {
         while (i.hasNext()) {
             tempNode = (HeuristicsNode) i.next();  //Get next node
 
-            tempNode.drawNode(map, tempNode.color, NORMAL_NODE_SIZE);  //Draw node on map            
+            tempNode.setAppearance(tempNode.color, NORMAL_NODE_SIZE);  //Set size of node
         }
+
+        //Let the map draw them all at once (from its static layer) instead of drawing each node on the screen
+        this.map.repaint();
     }
 
     /**
@@ -1109,7 +1257,7 @@ public class mainWindowAstar extends javax.swing.JFrame {
 
         Color color = Color.LIGHT_GRAY;  //Color for link
 
-        //*** Draw all links on map ***
+        //*** Set the color of all links ***
         Iterator i2 = this.localSearchSpace.getLinkIterator();
 
         LinkXY tempLink; //Variable to loop through search space
@@ -1117,8 +1265,11 @@ public class mainWindowAstar extends javax.swing.JFrame {
         while (i2.hasNext()) {
             tempLink = (LinkXY) i2.next();  //Get next link
 
-            tempLink.drawLink(this.map, color);  //Draw link on map                            
+            tempLink.setColor(color);  //Set color of link
         }
+
+        //Let the map draw them all at once (from its static layer) instead of drawing each link on the screen
+        this.map.repaint();
     }
 
     /**
@@ -1137,12 +1288,22 @@ public class mainWindowAstar extends javax.swing.JFrame {
         //this.jComboBox1.removeAllItems();
         //this.jComboBox2.removeAllItems();
 
+        //Stop drawing the last search, so changes it hasn't drawn yet don't show up on the reset map
+        if (this.aStarProcess != null) {
+            this.aStarProcess.stopAnimation();
+            this.aStarProcess.stopLog();
+        }
+
         try {
             this.aStarProcess.suspend();
         } catch (Exception e) {
             System.out.println(e);
         }
 
+        //Stop repairing and replaying the last search
+        this.map.setReplanner(null);
+        this.map.setTracePlayer(null);
+
         //Reset link traveled status and colors
         resetLinkStatus();
 
@@ -1161,6 +1322,8 @@ public class mainWindowAstar extends javax.swing.JFrame {
         this.jComboBox2.setEnabled(true);
         this.jRadioButton1.setEnabled(true);
         this.jRadioButton2.setEnabled(true);
+        this.jRadioButton7.setEnabled(true);
+        this.setSearchSettingsEnabled(true);
         this.jRadioButton3.setEnabled(true);
         this.jRadioButton4.setEnabled(true);
         this.jButton1.setEnabled(true);
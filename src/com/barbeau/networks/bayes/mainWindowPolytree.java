@@ -821,19 +821,7 @@ public class mainWindowPolytree extends javax.swing.JFrame {
      */
     public void initializeAlgorithm() {
 
-        NodeXY tempNode;  //Temp node to loop through search space
-
-        Iterator i = this.searchSpace.getNodeIterator();  //Get iterator to loop through search_space
-
-        while (i.hasNext()) {
-            //Get next node
-            tempNode = (NodeXY) i.next();
-            //Clear node attributes used for search (allows multiple searches)
-            tempNode.costFromStart = 0;
-            //temp_node.enabled = true;  //Commented out to allow nodes to be disabled
-            tempNode.estCostToGoal = 0;
-            tempNode.pathParent = null;
-        }
+        //NOTE:  nodes don't need to be cleared between searches, since the search keeps its own per-node state
 
         //Get names of selected start and goal nodes
         String startNodeLabel = (String) jComboNodes.getSelectedItem();
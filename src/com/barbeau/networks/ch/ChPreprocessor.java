@@ -0,0 +1,424 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.ch;
+
+import com.barbeau.networks.astar.CsrGraph;
+import com.barbeau.networks.astar.CostModel;
+import com.barbeau.networks.astar.Heuristic;
+import com.barbeau.networks.astar.SearchWorkspace;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * This class builds the ContractionHierarchy of a network.  Nodes are "contracted" (removed from the network) one at a
+ * time, from the least important to the most important.  When a node v is removed, a shortcut link from u to w is added
+ * for each pair of neighbors u -> v -> w unless a "witness" path from u to w that avoids v costs no more, so the cost of
+ * the cheapest path between the remaining nodes never changes.
+ *
+ * The order is chosen by the edge difference (shortcuts added minus links removed) plus the number of neighbors already
+ * contracted plus the level of the node (how many contracted nodes are stacked below it), which keeps the number of
+ * shortcuts low and spreads the contraction evenly over the network.
+ * The work is done in rounds: each round contracts every node whose priority is lower than that of all its neighbors.
+ * These nodes are independent of each other (no two are neighbors), so their witness searches are run in parallel on
+ * a ForkJoinPool.  Priorities are updated lazily: when a neighbor is contracted only the cheap parts of a priority are
+ * updated, and the edge difference is computed again (also in parallel) once the node is a candidate for contraction.  The witness searches of a round avoid all nodes of
+ * the round, so nodes contracted together can't act as witnesses for each other.
+ *
+ * Disabled nodes are left out of the hierarchy, so it has to be built again after nodes are enabled or disabled (or
+ * nodes and links are changed).
+ * @author Sean J. Barbeau
+ */
+public class ChPreprocessor {
+
+    //Maximum number of nodes a witness search explores before giving up and adding the shortcut.  Priorities only need an
+    //estimate of the number of shortcuts, so they use a smaller limit than the contraction itself.
+    private static final int WITNESS_SEARCH_LIMIT = 500;
+    private static final int PRIORITY_SEARCH_LIMIT = 20;
+
+    //Number of nodes a worker handles before the rest of its range is split off for other workers
+    private static final int SPLIT_THRESHOLD = 64;
+
+    private final int numNodes;
+    private final EdgeList[] outLinks;  //Links leaving each node that has not been contracted yet
+    private final EdgeList[] inLinks;  //Links entering each node that has not been contracted yet
+    private final boolean[] inRound;  //Nodes being contracted in the current round
+    private final int[] contractedNeighbors;  //Number of neighbors of each node that have been contracted
+    private final int[] level;  //Number of levels of contracted nodes below each node
+    private final int[] edgeDifference;  //Number of shortcuts minus the number of links removed if each node was contracted
+    private final int[] priority;  //Priority of each node - the node with the lowest priority is contracted first
+    private final boolean[] outdated;  //True for nodes whose edge difference may have changed since it was computed
+    private final ForkJoinPool pool;
+
+    /**
+     * Builds the contraction hierarchy of a graph, running the preprocessing on the common ForkJoinPool
+     * @param graph graph to build the hierarchy for
+     * @param heuristic heuristic used to measure the cost of the links
+     * @return the contraction hierarchy of the graph
+     */
+    public static ContractionHierarchy build(CsrGraph graph, Heuristic heuristic) {
+        return build(graph, heuristic, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds the contraction hierarchy of a graph
+     * @param graph graph to build the hierarchy for
+     * @param heuristic heuristic used to measure the cost of the links
+     * @param pool pool that runs the preprocessing
+     * @return the contraction hierarchy of the graph
+     */
+    public static ContractionHierarchy build(CsrGraph graph, Heuristic heuristic, ForkJoinPool pool) {
+        return build(graph, heuristic.getCostModel(graph), pool);
+    }
+
+    /**
+     * Builds the contraction hierarchy of a graph
+     * @param graph graph to build the hierarchy for
+     * @param costModel cost model that measures the cost of the links
+     * @param pool pool that runs the preprocessing
+     * @return the contraction hierarchy of the graph
+     */
+    public static ContractionHierarchy build(CsrGraph graph, CostModel costModel, ForkJoinPool pool) {
+        return new ChPreprocessor(graph, costModel, pool).contract();
+    }
+
+    private ChPreprocessor(CsrGraph graph, CostModel costModel, ForkJoinPool pool) {
+        this.numNodes = graph.getNodeSize();
+        this.outLinks = new EdgeList[this.numNodes];
+        this.inLinks = new EdgeList[this.numNodes];
+        this.inRound = new boolean[this.numNodes];
+        this.contractedNeighbors = new int[this.numNodes];
+        this.level = new int[this.numNodes];
+        this.edgeDifference = new int[this.numNodes];
+        this.priority = new int[this.numNodes];
+        this.outdated = new boolean[this.numNodes];
+        this.pool = pool;
+
+        for (int v = 0; v < this.numNodes; v++) {
+            this.outLinks[v] = new EdgeList();
+            this.inLinks[v] = new EdgeList();
+        }
+
+        //Copy the links between enabled nodes, keeping the cheapest if there are several between the same nodes
+        for (int v = 0; v < this.numNodes; v++) {
+            if (graph.isEnabled(v) == false) {
+                continue;
+            }
+            for (int e = graph.getFirstEdge(v); e < graph.getFirstEdge(v + 1); e++) {
+                int w = graph.getTarget(e);
+                if (w != v && graph.isEnabled(w)) {
+                    addLink(v, w, costModel.getCost(graph, v, e), -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Contracts all nodes and builds the hierarchy
+     */
+    private ContractionHierarchy contract() {
+        int[] rank = new int[this.numNodes];
+        EdgeList[] upLinks = new EdgeList[this.numNodes];
+        EdgeList[] downLinks = new EdgeList[this.numNodes];
+        int nextRank = 0;
+
+        int[] remaining = new int[this.numNodes];
+        for (int v = 0; v < this.numNodes; v++) {
+            remaining[v] = v;
+        }
+        final int[] allNodes = remaining;
+        parallelFor(this.numNodes, i -> updatePriority(allNodes[i]));
+
+        int[] candidates = new int[this.numNodes];
+        int[] outdated = new int[this.numNodes];
+        int numRemaining = this.numNodes;
+        while (numRemaining > 0) {
+            //Find the nodes whose priority is lower than that of all their neighbors
+            int numCandidates = 0;
+            int numOutdated = 0;
+            for (int i = 0; i < numRemaining; i++) {
+                int v = remaining[i];
+                if (isLocalMinimum(v)) {
+                    candidates[numCandidates++] = v;
+                    if (this.outdated[v]) {
+                        outdated[numOutdated++] = v;
+                    }
+                }
+            }
+
+            //Update the priorities of the candidates whose neighbors have been contracted since they were computed, in parallel
+            final int[] outdatedNodes = outdated;
+            parallelFor(numOutdated, i -> updatePriority(outdatedNodes[i]));
+
+            //Contract the candidates that are still lower than all their neighbors (they are never neighbors of each other)
+            int numRound = 0;
+            for (int i = 0; i < numCandidates; i++) {
+                if (isLocalMinimum(candidates[i])) {
+                    candidates[numRound++] = candidates[i];
+                    this.inRound[candidates[i]] = true;
+                }
+            }
+
+            //Find the shortcuts needed by each node of the round, in parallel
+            final int[] round = candidates;
+            final ShortcutList[] shortcuts = new ShortcutList[numRound];
+            parallelFor(numRound, i -> shortcuts[i] = findShortcuts(round[i], WITNESS_SEARCH_LIMIT));
+
+            //Contract the nodes - the links left at each node become its links in the hierarchy
+            for (int i = 0; i < numRound; i++) {
+                int v = round[i];
+                rank[v] = nextRank++;
+                upLinks[v] = this.outLinks[v];
+                downLinks[v] = this.inLinks[v];
+                removeNode(v);
+                this.inRound[v] = false;
+            }
+            for (int i = 0; i < numRound; i++) {
+                ShortcutList list = shortcuts[i];
+                for (int j = 0; j < list.size; j++) {
+                    addLink(list.from[j], list.to[j], list.cost[j], round[i]);
+                }
+            }
+
+            //Keep the nodes that haven't been contracted yet
+            int kept = 0;
+            for (int i = 0; i < numRemaining; i++) {
+                if (upLinks[remaining[i]] == null) {
+                    remaining[kept++] = remaining[i];
+                }
+            }
+            numRemaining = kept;
+        }
+
+        return new ContractionHierarchy(rank, upLinks, downLinks);
+    }
+
+    /**
+     * Returns true if the priority of a node is lower than that of all its neighbors (ties are broken by id)
+     */
+    private boolean isLocalMinimum(int v) {
+        return isLowerThanAll(v, this.outLinks[v]) && isLowerThanAll(v, this.inLinks[v]);
+    }
+
+    private boolean isLowerThanAll(int v, EdgeList links) {
+        for (int i = 0; i < links.size; i++) {
+            int w = links.nodes[i];
+            if (this.priority[w] < this.priority[v] || (this.priority[w] == this.priority[v] && w < v)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Recomputes the priority of a node from the shortcuts it would need if it were contracted now
+     */
+    private void updatePriority(int v) {
+        this.edgeDifference[v] = findShortcuts(v, PRIORITY_SEARCH_LIMIT).size - this.outLinks[v].size - this.inLinks[v].size;
+        this.priority[v] = this.edgeDifference[v] + this.contractedNeighbors[v] + this.level[v];
+        this.outdated[v] = false;
+    }
+
+    /**
+     * Finds the shortcuts needed to keep the costs between the neighbors of node v the same once v is removed
+     * @param v node to contract
+     * @param searchLimit maximum number of nodes each witness search explores
+     * @return the shortcuts needed
+     */
+    private ShortcutList findShortcuts(int v, int searchLimit) {
+        ShortcutList shortcuts = new ShortcutList();
+        EdgeList in = this.inLinks[v];
+        EdgeList out = this.outLinks[v];
+        if (in.size == 0 || out.size == 0) {
+            return shortcuts;
+        }
+
+        double maxOutCost = 0;
+        for (int j = 0; j < out.size; j++) {
+            maxOutCost = Math.max(maxOutCost, out.costs[j]);
+        }
+
+        SearchWorkspace workspace = SearchWorkspace.forCurrentThread(this.numNodes);
+        for (int i = 0; i < in.size; i++) {
+            int u = in.nodes[i];
+            double costToV = in.costs[i];
+
+            //Witness search - find the cheapest paths from u that don't go through v, up to the cost of the longest path via v
+            witnessSearch(workspace, u, v, costToV + maxOutCost, searchLimit);
+
+            for (int j = 0; j < out.size; j++) {
+                int w = out.nodes[j];
+                double costViaV = costToV + out.costs[j];
+                if (w != u && (workspace.isReached(w) == false || workspace.costFromStart[w] > costViaV)) {
+                    shortcuts.add(u, w, costViaV);
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Runs a limited Dijkstra search from u that avoids v and the other nodes being contracted in this round
+     */
+    private void witnessSearch(SearchWorkspace workspace, int u, int v, double maxCost, int searchLimit) {
+        EdgeList targets = this.outLinks[v];
+        //u itself isn't a target (it needs no shortcut to itself), so it isn't counted here or when it is settled below
+        int numTargets = targets.indexOf(u) == -1 ? targets.size : targets.size - 1;
+        workspace.reset(this.numNodes);
+        if (numTargets == 0) {
+            return;
+        }
+        workspace.setNode(u, 0, 0, -1);
+        workspace.available.add(u, 0);
+        int numSettled = 0;
+        while (!workspace.available.isEmpty() && numSettled < searchLimit) {
+            if (workspace.available.peekCost() > maxCost) {
+                break;
+            }
+            int a = workspace.available.removeFirst();
+            numSettled++;
+            if (a != u && targets.indexOf(a) != -1 && --numTargets == 0) {
+                //The cheapest paths to all neighbors of v have been found
+                break;
+            }
+            EdgeList links = this.outLinks[a];
+            for (int j = 0; j < links.size; j++) {
+                int b = links.nodes[j];
+                if (b == v || this.inRound[b]) {
+                    continue;
+                }
+                double cost = workspace.costFromStart[a] + links.costs[j];
+                if (workspace.isReached(b) == false) {
+                    workspace.setNode(b, cost, 0, a);
+                    workspace.available.add(b, cost);
+                }
+                else if (cost < workspace.costFromStart[b]) {
+                    workspace.costFromStart[b] = cost;
+                    workspace.available.decreaseKey(b, cost);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a link (or shortcut) from u to w, or lowers the cost of the existing one if it is cheaper
+     */
+    private void addLink(int u, int w, double cost, int middle) {
+        EdgeList out = this.outLinks[u];
+        int i = out.indexOf(w);
+        if (i == -1) {
+            out.add(w, cost, middle);
+            this.inLinks[w].add(u, cost, middle);
+        }
+        else if (cost < out.costs[i]) {
+            out.costs[i] = cost;
+            out.middles[i] = middle;
+            EdgeList in = this.inLinks[w];
+            int j = in.indexOf(u);
+            in.costs[j] = cost;
+            in.middles[j] = middle;
+        }
+    }
+
+    /**
+     * Removes the links between a contracted node and its neighbors, and updates the priorities of the neighbors.
+     * Only the parts of the priorities that are cheap to update are changed - the edge differences are marked as
+     * outdated and computed again when the neighbors are about to be contracted.
+     */
+    private void removeNode(int v) {
+        EdgeList out = this.outLinks[v];
+        for (int i = 0; i < out.size; i++) {
+            int w = out.nodes[i];
+            this.inLinks[w].remove(v);
+            updateNeighbor(v, w);
+        }
+        EdgeList in = this.inLinks[v];
+        for (int i = 0; i < in.size; i++) {
+            int u = in.nodes[i];
+            this.outLinks[u].remove(v);
+            updateNeighbor(v, u);
+        }
+        this.outLinks[v] = new EdgeList();
+        this.inLinks[v] = new EdgeList();
+    }
+
+    private void updateNeighbor(int v, int w) {
+        this.contractedNeighbors[w]++;
+        this.level[w] = Math.max(this.level[w], this.level[v] + 1);
+        this.priority[w] = this.edgeDifference[w] + this.contractedNeighbors[w] + this.level[w];
+        this.outdated[w] = true;
+    }
+
+    /**
+     * Runs action(i) for each i from 0 to count - 1 on the pool, and waits for them to finish
+     */
+    private void parallelFor(int count, IntConsumer action) {
+        this.pool.invoke(new ForRange(action, 0, count));
+    }
+
+    /**
+     * Task that runs an action for a range of indexes, splitting it in half for other workers while it is large
+     */
+    private static class ForRange extends RecursiveAction {
+
+        private final IntConsumer action;
+        private final int from;  //First index of the range
+        private final int to;  //One past the last index of the range
+
+        ForRange(IntConsumer action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= SPLIT_THRESHOLD) {
+                for (int i = this.from; i < this.to; i++) {
+                    this.action.accept(i);
+                }
+            }
+            else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ForRange(this.action, this.from, middle), new ForRange(this.action, middle, this.to));
+            }
+        }
+    }
+
+    /**
+     * Growable list of the shortcuts needed to contract one node
+     */
+    private static class ShortcutList {
+
+        int size = 0;
+        int[] from = new int[4];  //Node each shortcut starts at
+        int[] to = new int[4];  //Node each shortcut ends at
+        double[] cost = new double[4];  //Cost of each shortcut
+
+        void add(int u, int w, double c) {
+            if (this.size == this.from.length) {
+                this.from = java.util.Arrays.copyOf(this.from, this.size * 2);
+                this.to = java.util.Arrays.copyOf(this.to, this.size * 2);
+                this.cost = java.util.Arrays.copyOf(this.cost, this.size * 2);
+            }
+            this.from[this.size] = u;
+            this.to[this.size] = w;
+            this.cost[this.size] = c;
+            this.size++;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.ch;
+
+import com.barbeau.networks.Node;
+import com.barbeau.networks.SearchSpace;
+import com.barbeau.networks.astar.PathResult;
+import com.barbeau.networks.astar.SearchWorkspace;
+import java.util.ArrayDeque;
+import java.util.LinkedList;
+
+/**
+ * This class is a contraction hierarchy of a network, built by ChPreprocessor, and runs queries on it.
+ * Every node has a rank (the order it was contracted in), and the links and shortcuts of the network are split into an
+ * upward overlay (links to higher ranked nodes, searched forward from the start) and a downward overlay (links from higher
+ * ranked nodes, searched backward from the goal).  Both are held in compressed sparse row form like CsrGraph.
+ * Since every cheapest path goes up and then down the ranks, a query only has to search "up" from both ends, which
+ * expands a tiny part of the network compared with A*
+ * (even less with "stall-on-demand", which skips nodes that can be reached more cheaply from above).  The shortcuts on the path found are then unpacked into the
+ * links of the original network.
+ * Nodes keep their ids (Node.id), and the hierarchy is read-only, so many threads can run queries at the same time.
+ * @author Sean J. Barbeau
+ */
+public class ContractionHierarchy {
+
+    private final int[] rank;  //Order each node was contracted in
+
+    private final int[] upOffsets;  //First upward link of each node, with upOffsets[numNodes] = number of upward links
+    private final int[] upTargets;  //Higher ranked node at the end of each upward link
+    private final double[] upCosts;  //Cost of each upward link
+    private final int[] upMiddles;  //Node each upward shortcut skips over, or -1 for a link of the original network
+
+    private final int[] downOffsets;  //First downward link entering each node, with downOffsets[numNodes] = number of downward links
+    private final int[] downSources;  //Higher ranked node at the start of each downward link
+    private final double[] downCosts;  //Cost of each downward link
+    private final int[] downMiddles;  //Node each downward shortcut skips over, or -1 for a link of the original network
+
+    /**
+     * Creates a ContractionHierarchy from the links left at each node when it was contracted
+     * @param rank order each node was contracted in
+     * @param upLinks links leaving each node to higher ranked nodes
+     * @param downLinks links entering each node from higher ranked nodes
+     */
+    ContractionHierarchy(int[] rank, EdgeList[] upLinks, EdgeList[] downLinks) {
+        int numNodes = rank.length;
+        this.rank = rank;
+
+        this.upOffsets = new int[numNodes + 1];
+        this.downOffsets = new int[numNodes + 1];
+        for (int v = 0; v < numNodes; v++) {
+            this.upOffsets[v + 1] = this.upOffsets[v] + upLinks[v].size;
+            this.downOffsets[v + 1] = this.downOffsets[v] + downLinks[v].size;
+        }
+
+        this.upTargets = new int[this.upOffsets[numNodes]];
+        this.upCosts = new double[this.upOffsets[numNodes]];
+        this.upMiddles = new int[this.upOffsets[numNodes]];
+        this.downSources = new int[this.downOffsets[numNodes]];
+        this.downCosts = new double[this.downOffsets[numNodes]];
+        this.downMiddles = new int[this.downOffsets[numNodes]];
+        for (int v = 0; v < numNodes; v++) {
+            EdgeList up = upLinks[v];
+            System.arraycopy(up.nodes, 0, this.upTargets, this.upOffsets[v], up.size);
+            System.arraycopy(up.costs, 0, this.upCosts, this.upOffsets[v], up.size);
+            System.arraycopy(up.middles, 0, this.upMiddles, this.upOffsets[v], up.size);
+            EdgeList down = downLinks[v];
+            System.arraycopy(down.nodes, 0, this.downSources, this.downOffsets[v], down.size);
+            System.arraycopy(down.costs, 0, this.downCosts, this.downOffsets[v], down.size);
+            System.arraycopy(down.middles, 0, this.downMiddles, this.downOffsets[v], down.size);
+        }
+    }
+
+    /**
+     * Returns the number of nodes in the hierarchy
+     * @return the number of nodes
+     */
+    public int getNodeSize() {
+        return this.rank.length;
+    }
+
+    /**
+     * Returns the number of links and shortcuts in the hierarchy
+     * @return the number of upward plus downward links
+     */
+    public int getEdgeSize() {
+        return this.upTargets.length + this.downSources.length;
+    }
+
+    /**
+     * Returns the order a node was contracted in - nodes with a higher rank are more important
+     * @param node id of the node
+     * @return the rank of the node
+     */
+    public int getRank(int node) {
+        return this.rank[node];
+    }
+
+    /**
+     * Finds the least expensive path from start to goal and returns it as the list of nodes from the start to the goal,
+     * like AstarSearch.getPath()
+     * @param searchSpace search space the hierarchy was built from
+     * @param startNode node to start from
+     * @param goalNode node to find
+     * @return the path from the start to the goal node, or null if there is no path
+     */
+    public LinkedList<Node> getPath(SearchSpace searchSpace, Node startNode, Node goalNode) {
+        return search(startNode.id, goalNode.id).getPath(searchSpace);
+    }
+
+    /**
+     * Finds the least expensive path from start to goal.  A Dijkstra search runs up the hierarchy from each end, and each
+     * one stops once its cheapest available node costs at least as much as the best path found where they meet.
+     * @param start id of the node to start from
+     * @param goal id of the node to find
+     * @return the result of the search, with the nodes of the original network on the path
+     */
+    public PathResult search(int start, int goal) {
+        //The upward search from the start uses the PRIMARY workspace, and the search from the goal the SECONDARY one
+        SearchWorkspace forward = SearchWorkspace.forCurrentThread(getNodeSize(), SearchWorkspace.PRIMARY);
+        SearchWorkspace backward = SearchWorkspace.forCurrentThread(getNodeSize(), SearchWorkspace.SECONDARY);
+        forward.setNode(start, 0, 0, -1);
+        forward.available.add(start, 0);
+        backward.setNode(goal, 0, 0, -1);
+        backward.available.add(goal, 0);
+
+        double bestCost = Double.POSITIVE_INFINITY;  //Cost of the best path found from the start to the goal
+        int meetingNode = -1;  //Highest node on the best path found
+        int numIterations = 0;
+
+        while (true) {
+            boolean forwardOpen = !forward.available.isEmpty() && forward.available.peekCost() < bestCost;
+            boolean backwardOpen = !backward.available.isEmpty() && backward.available.peekCost() < bestCost;
+            if (forwardOpen == false && backwardOpen == false) {
+                break;
+            }
+
+            //Expand the cheaper of the two searches
+            boolean isForward = forwardOpen && (backwardOpen == false || forward.available.peekCost() <= backward.available.peekCost());
+            SearchWorkspace own = isForward ? forward : backward;
+            SearchWorkspace other = isForward ? backward : forward;
+            int a = own.available.removeFirst();
+            numIterations++;
+
+            if (other.isReached(a) && own.costFromStart[a] + other.costFromStart[a] < bestCost) {
+                bestCost = own.costFromStart[a] + other.costFromStart[a];
+                meetingNode = a;
+            }
+
+            if (isStalled(a, own, isForward)) {
+                //A cheaper path to a comes down from a higher node, so a can't be on the best path through this search
+                continue;
+            }
+
+            int first = isForward ? this.upOffsets[a] : this.downOffsets[a];
+            int last = isForward ? this.upOffsets[a + 1] : this.downOffsets[a + 1];
+            for (int i = first; i < last; i++) {
+                int b = isForward ? this.upTargets[i] : this.downSources[i];
+                double cost = own.costFromStart[a] + (isForward ? this.upCosts[i] : this.downCosts[i]);
+                if (own.isReached(b) == false) {
+                    own.setNode(b, cost, 0, a);
+                    own.available.add(b, cost);
+                }
+                else if (cost < own.costFromStart[b]) {
+                    own.costFromStart[b] = cost;
+                    own.pathParent[b] = a;
+                    own.available.decreaseKey(b, cost);
+                }
+                else {
+                    continue;
+                }
+
+                if (other.isReached(b) && cost + other.costFromStart[b] < bestCost) {
+                    bestCost = cost + other.costFromStart[b];
+                    meetingNode = b;
+                }
+            }
+        }
+
+        if (meetingNode == -1) {
+            return PathResult.notFound(numIterations);
+        }
+        return new PathResult(unpackPath(forward, backward, meetingNode), bestCost, numIterations);
+    }
+
+    /**
+     * Returns true if a cheaper path to node a is known through a higher ranked node the search can't follow down to a
+     * ("stall-on-demand"), using the links in the other overlay.  Nodes that are stalled don't need to be expanded.
+     */
+    private boolean isStalled(int a, SearchWorkspace own, boolean isForward) {
+        double cost = own.costFromStart[a];
+        int first = isForward ? this.downOffsets[a] : this.upOffsets[a];
+        int last = isForward ? this.downOffsets[a + 1] : this.upOffsets[a + 1];
+        for (int i = first; i < last; i++) {
+            int b = isForward ? this.downSources[i] : this.upTargets[i];
+            if (own.isReached(b) && own.costFromStart[b] + (isForward ? this.downCosts[i] : this.upCosts[i]) < cost) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Joins the paths from the start and from the goal at the meeting node and unpacks their shortcuts
+     */
+    private int[] unpackPath(SearchWorkspace forward, SearchWorkspace backward, int meetingNode) {
+        ArrayDeque<Integer> nodes = new ArrayDeque<Integer>();
+        int[] up = forward.getPath(meetingNode);
+        nodes.add(up[0]);
+        for (int i = 1; i < up.length; i++) {
+            unpack(up[i - 1], up[i], nodes);
+        }
+        for (int node = meetingNode; backward.pathParent[node] != -1; node = backward.pathParent[node]) {
+            unpack(node, backward.pathParent[node], nodes);
+        }
+
+        int[] path = new int[nodes.size()];
+        int i = 0;
+        for (int node : nodes) {
+            path[i++] = node;
+        }
+        return path;
+    }
+
+    /**
+     * Adds the nodes of the link from a to b to the path, after a.  If the link is a shortcut, the two links it skips
+     * (a to the middle node, and the middle node to b) are unpacked in turn.
+     */
+    private void unpack(int a, int b, ArrayDeque<Integer> nodes) {
+        int middle = findMiddle(a, b);
+        if (middle == -1) {
+            nodes.add(b);
+        }
+        else {
+            unpack(a, middle, nodes);
+            unpack(middle, b, nodes);
+        }
+    }
+
+    /**
+     * Finds the node the link from a to b skips over
+     * @return the middle node of the shortcut, or -1 if the link is a link of the original network
+     */
+    private int findMiddle(int a, int b) {
+        if (this.rank[a] < this.rank[b]) {
+            //Upward link, stored at a
+            for (int i = this.upOffsets[a]; i < this.upOffsets[a + 1]; i++) {
+                if (this.upTargets[i] == b) {
+                    return this.upMiddles[i];
+                }
+            }
+        }
+        else {
+            //Downward link, stored at b
+            for (int i = this.downOffsets[b]; i < this.downOffsets[b + 1]; i++) {
+                if (this.downSources[i] == a) {
+                    return this.downMiddles[i];
+                }
+            }
+        }
+        throw new IllegalStateException("No link from " + a + " to " + b + " in the contraction hierarchy");
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.ch;
+
+/**
+ * This class is a growable list of the links leaving (or entering) one node while the network is being contracted.
+ * Each entry holds the node at the other end of the link, its cost, and the node it skips over if it is a
+ * shortcut (-1 for a link of the original network).
+ * @author Sean J. Barbeau
+ */
+class EdgeList {
+
+    int size = 0;  //Number of entries in the list
+    int[] nodes = new int[4];  //Node at the other end of each link
+    double[] costs = new double[4];  //Cost of each link
+    int[] middles = new int[4];  //Node each shortcut skips over, or -1 for a link of the original network
+
+    /**
+     * Adds a link to the list
+     * @param node node at the other end of the link
+     * @param cost cost of the link
+     * @param middle node the shortcut skips over, or -1
+     */
+    void add(int node, double cost, int middle) {
+        if (this.size == this.nodes.length) {
+            this.nodes = java.util.Arrays.copyOf(this.nodes, this.size * 2);
+            this.costs = java.util.Arrays.copyOf(this.costs, this.size * 2);
+            this.middles = java.util.Arrays.copyOf(this.middles, this.size * 2);
+        }
+        this.nodes[this.size] = node;
+        this.costs[this.size] = cost;
+        this.middles[this.size] = middle;
+        this.size++;
+    }
+
+    /**
+     * Removes the link to (or from) a node.  The last entry is moved into its place, so the order of the entries changes.
+     * @param node node at the other end of the link
+     */
+    void remove(int node) {
+        int i = indexOf(node);
+        if (i != -1) {
+            this.size--;
+            this.nodes[i] = this.nodes[this.size];
+            this.costs[i] = this.costs[this.size];
+            this.middles[i] = this.middles[this.size];
+        }
+    }
+
+    /**
+     * Finds the entry of the link to (or from) a node
+     * @param node node at the other end of the link
+     * @return index of the entry, or -1 if there is no link to the node
+     */
+    int indexOf(int node) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.nodes[i] == node) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,369 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.visualization;
+
+import com.barbeau.networks.astar.LinkXY;
+import com.barbeau.networks.astar.NodeXY;
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import javax.swing.Timer;
+
+/**
+ * This class animates a search on the map.  The search thread publishes changes to the colors of the nodes and links
+ * to the animator instead of drawing them itself, and a Swing Timer applies them on the Event Dispatch Thread once per
+ * frame and repaints the map once.
+ * Changes are coalesced - the animator keeps the latest published look of each node and link and a list of the ones
+ * that changed since the last frame, so however many events the search sends, a frame applies at most one change per
+ * node and link, the memory used is bounded by the size of the map, and each frame shows the state of the search at
+ * that time instead of replaying old events after the search has ended.
+ * @author Sean J. Barbeau
+ */
+public class MapAnimator implements ActionListener {
+
+    //Time between frames of the animation (in milliseconds)
+    public static final int FRAME_DELAY = 1000 / 60;
+
+    private final MapDisplay map;
+    private final Timer timer;
+    private volatile boolean stopped = false;  //True once the animation was stopped, after which changes are ignored
+
+    //Latest published look of each node the search changed, by node id (guarded by this object)
+    private NodeXY[] nodes = new NodeXY[0];
+    private Color[] nodeColors = new Color[0];
+    private Color[] nodePreviousColors = new Color[0];
+    private int[] nodeSizes = new int[0];
+    private int[] nodePreviousSizes = new int[0];
+    private boolean[] nodeDirty = new boolean[0];  //True if the node changed since the last frame
+    private int[] dirtyNodes = new int[16];  //Ids of the nodes that changed since the last frame
+    private int numDirtyNodes = 0;
+
+    //Latest published look of each link the search changed, by an index given to each link the first time it changes
+    private final IdentityHashMap<LinkXY, Integer> linkIndexes = new IdentityHashMap<LinkXY, Integer>();
+    private LinkXY[] links = new LinkXY[16];
+    private Color[] linkColors = new Color[16];
+    private boolean[] linkTraveled = new boolean[16];
+    private boolean[] linkEnabled = new boolean[16];
+    private boolean[] linkDirty = new boolean[16];
+    private int[] dirtyLinks = new int[16];
+    private int numDirtyLinks = 0;
+
+    //Changes waiting to be applied in the order they were published, each followed by a task to run after it (or null)
+    private final ArrayDeque<Batch> batches = new ArrayDeque<Batch>();
+
+    /**
+     * Creates a new MapAnimator
+     * @param map map to animate the search on
+     */
+    public MapAnimator(MapDisplay map) {
+        this.map = map;
+        this.timer = new Timer(FRAME_DELAY, this);
+        this.timer.setCoalesce(true);
+    }
+
+    /**
+     * Starts drawing frames of the animation.  This can be called from any thread.
+     */
+    public void start() {
+        this.timer.start();
+    }
+
+    /**
+     * Sets the color and size a node is drawn in
+     * @param node node to change
+     * @param color color to draw the node in, or null to keep its color
+     * @param size size to draw the node in
+     */
+    public synchronized void setNode(NodeXY node, Color color, int size) {
+        if (this.stopped == true) {
+            return;
+        }
+        int id = touchNode(node);
+        //Same as NodeXY.setAppearance()
+        this.nodePreviousColors[id] = this.nodeColors[id];
+        this.nodePreviousSizes[id] = this.nodeSizes[id];
+        if (color != null) {
+            this.nodeColors[id] = color;
+        }
+        this.nodeSizes[id] = size;
+    }
+
+    /**
+     * Sets the color of a node back to the one it had before it was the current node (see NodeXY.restoreAppearance())
+     * @param node node to change
+     * @param size size to draw the node in
+     */
+    public synchronized void restoreNode(NodeXY node, int size) {
+        if (this.stopped == true) {
+            return;
+        }
+        int id = touchNode(node);
+        this.nodeColors[id] = NodeXY.restoredColor(this.nodePreviousColors[id], node.enabled);
+        this.nodeSizes[id] = size;
+    }
+
+    /**
+     * Sets the color a link is drawn in
+     * @param link link to change
+     * @param color color to draw the link in
+     */
+    public synchronized void setLink(LinkXY link, Color color) {
+        if (this.stopped == true) {
+            return;
+        }
+        this.linkColors[touchLink(link)] = color;
+    }
+
+    /**
+     * Marks a link as traveled by the search and sets the color it is drawn in
+     * @param link link to change
+     * @param color color to draw the link in
+     */
+    public synchronized void setLinkTraveled(LinkXY link, Color color) {
+        if (this.stopped == true) {
+            return;
+        }
+        int index = touchLink(link);
+        this.linkTraveled[index] = true;
+        this.linkColors[index] = color;
+    }
+
+    /**
+     * Marks a link as disabled (it leads to a disabled node) and sets the color it is drawn in
+     * @param link link to change
+     * @param color color to draw the link in
+     */
+    public synchronized void setLinkDisabled(LinkXY link, Color color) {
+        if (this.stopped == true) {
+            return;
+        }
+        int index = touchLink(link);
+        this.linkEnabled[index] = false;
+        this.linkColors[index] = color;
+    }
+
+    /**
+     * Runs a task on the Event Dispatch Thread after the changes published before it have been applied (e.g. to show
+     * the path once the animation of the search has caught up)
+     * @param task task to run
+     */
+    public synchronized void post(Runnable task) {
+        if (this.stopped == false) {
+            this.batches.add(takeChanges(task));
+        }
+    }
+
+    /**
+     * Stops drawing frames once the changes published so far have been applied
+     */
+    public void finish() {
+        post(new Runnable() {
+            public void run() {
+                timer.stop();
+            }
+        });
+    }
+
+    /**
+     * Stops the animation right away, dropping the changes that haven't been applied yet.  Changes published after this
+     * are ignored.  This must be called from the Event Dispatch Thread (e.g. when the search is reset).
+     */
+    public void stop() {
+        this.stopped = true;
+        this.timer.stop();
+        synchronized (this) {
+            this.batches.clear();
+            takeChanges(null);
+        }
+    }
+
+    /**
+     * Draws a frame of the animation - applies the changes published since the last frame and repaints the map once
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        boolean applied = false;
+        while (this.stopped == false && this.timer.isRunning() == true) {
+            Batch batch;
+            synchronized (this) {
+                batch = this.batches.poll();
+                if (batch == null) {
+                    if (this.numDirtyNodes == 0 && this.numDirtyLinks == 0) {
+                        break;
+                    }
+                    batch = takeChanges(null);
+                }
+            }
+            //The batch holds copies of the published looks, so it is applied without holding up the search thread
+            batch.apply();
+            applied = true;
+            if (batch.task != null) {
+                batch.task.run();
+            }
+        }
+        if (applied == true) {
+            this.map.repaint();
+        }
+    }
+
+    /**
+     * Returns the id of a node that is about to change, marking it as changed since the last frame and starting from
+     * its current look if the search hasn't changed it before
+     */
+    private int touchNode(NodeXY node) {
+        int id = node.id;
+        if (id >= this.nodes.length) {
+            int length = Math.max(id + 1, this.nodes.length * 2);
+            this.nodes = Arrays.copyOf(this.nodes, length);
+            this.nodeColors = Arrays.copyOf(this.nodeColors, length);
+            this.nodePreviousColors = Arrays.copyOf(this.nodePreviousColors, length);
+            this.nodeSizes = Arrays.copyOf(this.nodeSizes, length);
+            this.nodePreviousSizes = Arrays.copyOf(this.nodePreviousSizes, length);
+            this.nodeDirty = Arrays.copyOf(this.nodeDirty, length);
+        }
+        if (this.nodes[id] == null) {
+            //Only the animator changes the node while the search runs, so its fields are its latest look
+            this.nodes[id] = node;
+            this.nodeColors[id] = node.color;
+            this.nodePreviousColors[id] = node.previousColor;
+            this.nodeSizes[id] = node.size;
+            this.nodePreviousSizes[id] = node.previous_size;
+        }
+        if (this.nodeDirty[id] == false) {
+            this.nodeDirty[id] = true;
+            if (this.numDirtyNodes == this.dirtyNodes.length) {
+                this.dirtyNodes = Arrays.copyOf(this.dirtyNodes, this.numDirtyNodes * 2);
+            }
+            this.dirtyNodes[this.numDirtyNodes++] = id;
+        }
+        return id;
+    }
+
+    /**
+     * Returns the index of a link that is about to change, marking it as changed since the last frame and starting from
+     * its current look if the search hasn't changed it before
+     */
+    private int touchLink(LinkXY link) {
+        Integer known = this.linkIndexes.get(link);
+        int index;
+        if (known == null) {
+            index = this.linkIndexes.size();
+            if (index == this.links.length) {
+                int length = index * 2;
+                this.links = Arrays.copyOf(this.links, length);
+                this.linkColors = Arrays.copyOf(this.linkColors, length);
+                this.linkTraveled = Arrays.copyOf(this.linkTraveled, length);
+                this.linkEnabled = Arrays.copyOf(this.linkEnabled, length);
+                this.linkDirty = Arrays.copyOf(this.linkDirty, length);
+            }
+            this.linkIndexes.put(link, index);
+            this.links[index] = link;
+            this.linkColors[index] = link.getColor();
+            this.linkTraveled[index] = link.traveled;
+            this.linkEnabled[index] = link.enabled;
+        }
+        else {
+            index = known;
+        }
+        if (this.linkDirty[index] == false) {
+            this.linkDirty[index] = true;
+            if (this.numDirtyLinks == this.dirtyLinks.length) {
+                this.dirtyLinks = Arrays.copyOf(this.dirtyLinks, this.numDirtyLinks * 2);
+            }
+            this.dirtyLinks[this.numDirtyLinks++] = index;
+        }
+        return index;
+    }
+
+    /**
+     * Copies the looks of the nodes and links that changed since the last frame into a batch, and starts a new frame
+     * (must be called holding the lock of this object)
+     */
+    private Batch takeChanges(Runnable task) {
+        Batch batch = new Batch(this.numDirtyNodes, this.numDirtyLinks, task);
+        for (int i = 0; i < this.numDirtyNodes; i++) {
+            int id = this.dirtyNodes[i];
+            this.nodeDirty[id] = false;
+            batch.nodes[i] = this.nodes[id];
+            batch.nodeColors[i] = this.nodeColors[id];
+            batch.nodePreviousColors[i] = this.nodePreviousColors[id];
+            batch.nodeSizes[i] = this.nodeSizes[id];
+            batch.nodePreviousSizes[i] = this.nodePreviousSizes[id];
+        }
+        for (int i = 0; i < this.numDirtyLinks; i++) {
+            int index = this.dirtyLinks[i];
+            this.linkDirty[index] = false;
+            batch.links[i] = this.links[index];
+            batch.linkColors[i] = this.linkColors[index];
+            batch.linkTraveled[i] = this.linkTraveled[index];
+            batch.linkEnabled[i] = this.linkEnabled[index];
+        }
+        this.numDirtyNodes = 0;
+        this.numDirtyLinks = 0;
+        return batch;
+    }
+
+    /**
+     * The looks of the nodes and links that changed between two frames (or before a task), and the task to run after
+     * they are applied
+     */
+    private static final class Batch {
+
+        final NodeXY[] nodes;
+        final Color[] nodeColors;
+        final Color[] nodePreviousColors;
+        final int[] nodeSizes;
+        final int[] nodePreviousSizes;
+        final LinkXY[] links;
+        final Color[] linkColors;
+        final boolean[] linkTraveled;
+        final boolean[] linkEnabled;
+        final Runnable task;
+
+        Batch(int numNodes, int numLinks, Runnable task) {
+            this.nodes = new NodeXY[numNodes];
+            this.nodeColors = new Color[numNodes];
+            this.nodePreviousColors = new Color[numNodes];
+            this.nodeSizes = new int[numNodes];
+            this.nodePreviousSizes = new int[numNodes];
+            this.links = new LinkXY[numLinks];
+            this.linkColors = new Color[numLinks];
+            this.linkTraveled = new boolean[numLinks];
+            this.linkEnabled = new boolean[numLinks];
+            this.task = task;
+        }
+
+        /**
+         * Gives the nodes and links their published looks
+         */
+        void apply() {
+            for (int i = 0; i < this.nodes.length; i++) {
+                this.nodes[i].setAppearance(this.nodeColors[i], this.nodePreviousColors[i], this.nodeSizes[i], this.nodePreviousSizes[i]);
+            }
+            for (int i = 0; i < this.links.length; i++) {
+                LinkXY link = this.links[i];
+                link.traveled = this.linkTraveled[i];
+                link.enabled = this.linkEnabled[i];
+                link.setColor(this.linkColors[i]);
+            }
+        }
+    }
+}
@@ -2,20 +2,24 @@ package com.barbeau.networks.visualization;
 
 import com.barbeau.networks.Node;
 import com.barbeau.networks.SearchSpace;
-import com.barbeau.networks.astar.HeuristicsNode;
+import com.barbeau.networks.astar.CsrGraph;
+import com.barbeau.networks.astar.DStarLitePlanner;
 import com.barbeau.networks.astar.LinkXY;
 import com.barbeau.networks.Location;
 import com.barbeau.networks.astar.NodeXY;
+import com.barbeau.networks.astar.PathResult;
+import com.barbeau.networks.astar.SpatialIndex;
 import java.util.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
 import javax.swing.*;
 
 /**
  * This class defines the GUI elements used to display a search space, nodes, and links
  * @author Sean Barbeau
  */
-public class MapDisplay extends JPanel implements MouseListener, MouseMotionListener {
+public class MapDisplay extends JPanel implements MouseListener, MouseMotionListener, MouseWheelListener {
     
     //Variable that contains the search space and all the nodes
     private SearchSpace search_space = new SearchSpace();  //Search space for algorithm
@@ -23,6 +27,23 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
     //private HeuristicsNode goal_node;  //Goal node for search algorithm
     private LinkedList path = null; //Variable that holds the path if the goal node is found
     private NodeXY node_being_moved = null; //Variable that holds the node being moved by clicking and dragging mouse
+    private DStarLitePlanner replanner = null; //Planner that repairs the path when nodes are enabled or disabled after a search (null if none)
+    private CsrGraph graph = null; //Graph the search space was loaded from, whose links are drawn into the static layer (null to draw the links of the search space)
+    private SpatialIndex node_index = null; //Index of the node locations used to find the node closest to a click (null until it is needed)
+    private TracePlayer trace_player = null; //Player of the trace of the last search, stepped with the mouse wheel and played with the middle button (null if the search wasn't recorded)
+    
+    //The links and nodes in their default colors are drawn once into the static layer, which is copied to the screen on each
+    //repaint - only links and nodes drawn in other colors by the algorithm (traveled, disabled, path, current node) are drawn on top
+    private BufferedImage static_layer = null; //Cached image of the map, or null if it has to be drawn again
+    private int static_layer_nodes = 0; //Number of nodes in the search space when the static layer was drawn
+    private int static_layer_links = 0; //Number of links in the search space when the static layer was drawn
+    private NodeXY static_layer_skipped = null; //Node left out of the static layer (with its links) while it is dragged, or null
+    private ArrayList static_layer_skipped_links = new ArrayList(); //Links of the node left out of the static layer
+    
+    //The nodes and links tell the map when they are drawn in other colors (see addOverlayNode() and addOverlayLink()), so a
+    //repaint only looks at these instead of all nodes and links.  Ones back in their default look are dropped on the next repaint
+    private LinkedHashSet overlay_links = new LinkedHashSet(); //Links that may not be in their default color
+    private LinkedHashSet overlay_nodes = new LinkedHashSet(); //Nodes that may not be in their default color or size
     
     //Size of search space
     private int SEARCH_SPACE_WIDTH;
@@ -59,6 +80,7 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
         //Add listeners to detect mouse clicks and drags
         addMouseListener(this);
         addMouseMotionListener(this);
+        addMouseWheelListener(this);
     }
   
     @Override
@@ -83,40 +105,67 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
         //* Draw the current contents of the map (nodes and lines) *
         //**********************************************************
        
-       //*** Draw all links on map ***
-       Iterator i2 = this.search_space.getLinkIterator();
-                        
-       LinkXY temp_link; //Variable to loop through search space
+       //*** Copy all links and nodes in their default colors from the static layer ***
+       g.drawImage(this.get_static_layer(), 0, 0, null);
+       
+       //Nodes at the end of links drawn on top of the static layer, which are drawn again so they stay on top
+       LinkedHashSet link_ends = new LinkedHashSet();
+       
+       LinkXY temp_link; //Variable to loop through the links drawn on top
+       
+       //*** Draw the links of the node left out of the static layer ***
+       Iterator i1 = this.static_layer_skipped_links.iterator();
+       
+            while (i1.hasNext()) {
+                temp_link = (LinkXY)i1.next();  //Get next link
+                
+                if(temp_link.getColor() == LinkXY.DEFAULT_COLOR) {
+                    temp_link.draw_Link(g, this);  //Draw link on map
+                    link_ends.add(temp_link.getNodeA());
+                    link_ends.add(temp_link.getNodeB());
+                }
+            }
+       
+       //*** Draw links that aren't in their default color on top of the static layer ***
+       Iterator i2 = this.overlay_links.iterator();
         
             while (i2.hasNext()) {
                 temp_link = (LinkXY)i2.next();  //Get next link
                 
-                //System.out.println("Redrawing map - link " + temp_link.label);
-            
-                temp_link.draw_Link(g, this);  //Draw link on map                            
+                if(temp_link.getColor() == LinkXY.DEFAULT_COLOR) {
+                    //The link is back in its default color, so it is already in the static layer
+                    i2.remove();
+                }
+                else {
+                    link_ends.add(temp_link.getNodeA());
+                    link_ends.add(temp_link.getNodeB());
+                    if(temp_link.traveled == false && temp_link.enabled == true) {
+                        temp_link.draw_Link(g, this);  //Draw link on map
+                    }
+                }
             }
        
        //*** Emphasize traveled links by drawing them on top of previous links on map ***
-       Iterator i4 = this.search_space.getLinkIterator();
+       Iterator i4 = this.overlay_links.iterator();
                         
             while (i4.hasNext()) {
                 temp_link = (LinkXY)i4.next();  //Get next link
                 
                 if(temp_link.traveled == true) {
-                    //System.out.println("Redrawing map - traveled link " + temp_link.label);
+                    //System.out.println("Redrawing map - traveled link " + temp_link.getLabel());
             
                     temp_link.draw_Link(g, this);  //Draw link on map                            
                 }               
             }
 
         //*** Emphasize disabled links by drawing them on top of previous links on map ***
-       Iterator i3 = this.search_space.getLinkIterator();
+       Iterator i3 = this.overlay_links.iterator();
                         
             while (i3.hasNext()) {
                 temp_link = (LinkXY)i3.next();  //Get next link
                 
                 if(temp_link.enabled ==false) {
-                    //System.out.println("Redrawing map - disabled link " + temp_link.label);
+                    //System.out.println("Redrawing map - disabled link " + temp_link.getLabel());
             
                     temp_link.draw_Link(g, this);  //Draw link on map                            
                 }               
@@ -149,8 +198,10 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
                         temp_link = (LinkXY) this.search_space.findLink(previous_node, temp_node);
                                         
                         if(temp_link != null) {
-                            //System.out.println("Redrawing map - path link " + temp_link.label);
+                            //System.out.println("Redrawing map - path link " + temp_link.getLabel());
                             temp_link.draw_Link(g, this);                
+                            link_ends.add(previous_node);
+                            link_ends.add(temp_node);
                         }
                     }
                     catch(Exception e) {
@@ -164,25 +215,143 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
             }
         }
        
-       //*** Draw nodes on the map ***
-       Iterator i = this.search_space.getNodeIterator();
+       //*** Draw nodes that aren't in their default color or size on top ***
+       Iterator i = this.overlay_nodes.iterator();
                         
-       HeuristicsNode temp_node2; //Variable to loop through search space
+       NodeXY temp_node2; //Variable to loop through the nodes drawn on top
         
             while (i.hasNext()) {
-                temp_node2 = (HeuristicsNode)i.next();  //Get next node
-//                temp_node2 = (Node) i.next();
-//                if(temp_node2 instanceof HeuristicsNode){
-//                    ((HeuristicsNode)temp_node2).drawNode(g, this);  //Draw node on map
-//                }
+                temp_node2 = (NodeXY)i.next();  //Get next node
 
-                 temp_node2.drawNode(g, this);  //Draw node on map
-                //System.out.println("Redrawing map - node " + temp_node2.label);
-            
-                                            
-            }      
+                if (temp_node2.color == NodeXY.DEFAULT_COLOR && temp_node2.size == this.NORMAL_NODE_SIZE) {
+                    //The node is back in its default look, so it is already in the static layer
+                    i.remove();
+                }
+                else {
+                    temp_node2.drawNode(g, this);  //Draw node on map
+                    link_ends.remove(temp_node2);
+                }
+            }
+       
+       //*** Draw the nodes that links were drawn over, and the node left out of the static layer, on top ***
+       if(this.static_layer_skipped != null) {
+           link_ends.add(this.static_layer_skipped);
+       }
+       Iterator i5 = link_ends.iterator();
+       
+            while (i5.hasNext()) {
+                ((NodeXY)i5.next()).drawNode(g, this);  //Draw node on map
+            }
         
     }
+    
+    /**
+     * Makes the map draw a link on top of its static layer until it is back in its default color.  This is called by the
+     * link whenever its color changes (see LinkXY.setMap()), and must be called from the Event Dispatch Thread.
+     * @param link link that may no longer be in its default color
+     */
+    public void addOverlayLink(LinkXY link) {
+        this.overlay_links.add(link);
+    }
+    
+    /**
+     * Makes the map draw a node on top of its static layer until it is back in its default color and size.  This is
+     * called by the node whenever its appearance changes (see NodeXY.setMap()), and must be called from the Event Dispatch
+     * Thread.
+     * @param node node that may no longer be in its default color and size
+     */
+    public void addOverlayNode(NodeXY node) {
+        this.overlay_nodes.add(node);
+    }
+    
+    /**
+     * Returns the static layer - an image of all links and nodes (except a node being dragged) in their default colors,
+     * drawing it first if it was invalidated or the map was resized, or nodes or links were added or removed.  Drawing it
+     * also tells all nodes and links to report their changes to this map, and finds the ones already drawn in other colors
+     */
+    private BufferedImage get_static_layer() {
+        int width = Math.max(1, this.getWidth());
+        int height = Math.max(1, this.getHeight());
+        if (this.static_layer != null && this.static_layer.getWidth() == width && this.static_layer.getHeight() == height
+                && this.static_layer_nodes == this.search_space.getNodeSize() && this.static_layer_links == this.search_space.getLinkSize()) {
+            return this.static_layer;
+        }
+        
+        //Use an image in the format of the screen, so copying it to the screen is fast
+        GraphicsConfiguration configuration = this.getGraphicsConfiguration();
+        BufferedImage image;
+        if (configuration != null) {
+            image = configuration.createCompatibleImage(width, height, Transparency.OPAQUE);
+        }
+        else {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        
+        Graphics g = image.getGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setFont(this.getFont());
+        
+        if (this.graph != null && this.graph.getNodeSize() == this.search_space.getNodeSize()
+                && this.graph.getEdgeSize() == this.search_space.getLinkSize()) {
+            //Draw the links from the graph the search space was loaded from (at the current locations of their nodes)
+            for (int a = 0; a < this.graph.getNodeSize(); a++) {
+                NodeXY node_a = (NodeXY) this.search_space.getNode(a);
+                if (node_a == this.static_layer_skipped) {
+                    continue;
+                }
+                for (int e = this.graph.getFirstEdge(a); e < this.graph.getFirstEdge(a + 1); e++) {
+                    NodeXY node_b = (NodeXY) this.search_space.getNode(this.graph.getTarget(e));
+                    if (node_b != this.static_layer_skipped) {
+                        LinkXY.drawArrow(g, this, node_a, node_b, LinkXY.DEFAULT_COLOR);
+                    }
+                }
+            }
+        }
+        //The links are drawn from the search space if there is no graph with the same nodes and links to draw them from
+        boolean draw_links = this.graph == null || this.graph.getNodeSize() != this.search_space.getNodeSize()
+                || this.graph.getEdgeSize() != this.search_space.getLinkSize();
+        this.static_layer_skipped_links = new ArrayList();
+        Iterator i2 = this.search_space.getLinkIterator();
+        while (i2.hasNext()) {
+            LinkXY temp_link = (LinkXY) i2.next();
+            temp_link.setMap(this);
+            if (temp_link.getColor() != LinkXY.DEFAULT_COLOR) {
+                this.overlay_links.add(temp_link);
+            }
+            if (temp_link.getNodeA() == this.static_layer_skipped || temp_link.getNodeB() == this.static_layer_skipped) {
+                this.static_layer_skipped_links.add(temp_link);
+            }
+            else if (draw_links == true) {
+                temp_link.draw_Link(g, this, LinkXY.DEFAULT_COLOR);
+            }
+        }
+        Iterator i = this.search_space.getNodeIterator();
+        while (i.hasNext()) {
+            NodeXY temp_node = (NodeXY) i.next();
+            temp_node.setMap(this);
+            if (temp_node.color != NodeXY.DEFAULT_COLOR || temp_node.size != this.NORMAL_NODE_SIZE) {
+                this.overlay_nodes.add(temp_node);
+            }
+            if (temp_node != this.static_layer_skipped) {
+                temp_node.drawNode(g, this, NodeXY.DEFAULT_COLOR, this.NORMAL_NODE_SIZE);
+            }
+        }
+        g.dispose();
+        
+        this.static_layer = image;
+        this.static_layer_nodes = this.search_space.getNodeSize();
+        this.static_layer_links = this.search_space.getLinkSize();
+        return image;
+    }
+    
+    /**
+     * Makes the map draw its static layer again on the next repaint.  Call this after nodes or links are added, removed
+     * or moved other than by dragging them on the map.
+     */
+    public void invalidateStaticLayer() {
+        this.static_layer = null;
+    }
 
     /**
      * This function clears the image of the map to a white background
@@ -200,6 +369,17 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
         //************************************************************
         //* This function sets the search_space variables of the map *
         //************************************************************
+        //The nodes and links of the old search space are no longer shown on this map
+        Iterator i = this.search_space.getNodeIterator();
+        while (i.hasNext()) {
+            ((NodeXY) i.next()).setMap(null);
+        }
+        i = this.search_space.getLinkIterator();
+        while (i.hasNext()) {
+            ((LinkXY) i.next()).setMap(null);
+        }
+        this.overlay_nodes.clear();
+        this.overlay_links.clear();
         this.search_space = search_space;
         
         //Set up dimensions of search space and scale to draw it to
@@ -208,6 +388,23 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
         this.SCALE = SCALE;    
         this.NORMAL_NODE_SIZE = NORMAL_NODE_SIZE;
         this.EXPANDED_NODE_SIZE = EXPANDED_NODE_SIZE;
+        
+        //A graph, planner or trace for the old search space can't be used on the new one
+        this.graph = null;
+        this.setReplanner(null);
+        this.setTracePlayer(null);
+        
+        //Index the locations of the new nodes, and draw them in the static layer on the next repaint
+        this.node_index = SpatialIndex.fromSearchSpace(search_space);
+        this.static_layer = null;
+        this.static_layer_skipped = null;
+    }
+    
+    public void setGraph(CsrGraph graph) {
+        //The search space was loaded from this graph (same node ids and links), so the static layer can be drawn straight
+        //from its arrays instead of from the link objects of the search space (null to draw the links of the search space)
+        this.graph = graph;
+        this.static_layer = null;
     }
     
     public void setPath(LinkedList path) {
@@ -215,6 +412,24 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
         this.path = path;
     }
     
+    public void setReplanner(DStarLitePlanner replanner) {
+        //The path will be repaired by this planner whenever the user enables or disables a node (null to stop repairing it).
+        //The planner should already have planned the path of the search, so each repair only re-expands the nodes the change affects
+        this.replanner = replanner;
+    }
+    
+    public void setTracePlayer(TracePlayer trace_player) {
+        //The recorded search will be replayed by this player when the user turns the mouse wheel over the map or clicks it with the middle button (null to stop replaying it)
+        if(this.trace_player != null) {
+            this.trace_player.pause();
+        }
+        this.trace_player = trace_player;
+    }
+    
+    public TracePlayer getTracePlayer() {
+        return this.trace_player;
+    }
+    
     public void setTextLog(javax.swing.JTextArea text_log) {
         //Sets text log
         this.text_log = text_log;
@@ -264,6 +479,17 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
     //************************************************
     // Handles the event of the user pressing down the mouse button.
     public void mousePressed(MouseEvent e){
+        if(SwingUtilities.isMiddleMouseButton(e) == true && this.trace_player != null && this.trace_player.getTrace() != null) {
+            //The middle button plays the recorded search, or stops playing it
+            if(this.trace_player.isPlaying() == true) {
+                this.trace_player.pause();
+            }
+            else {
+                this.trace_player.play();
+            }
+            node_being_moved = null;
+            return;
+        }
         //Detect if map has been loaded to prevent from null accesses to variables        
         if(this.allow_clicks == true) {
             //Create temp location to hold current mouse click
@@ -296,16 +522,85 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
                     //Print message to user
                     this.print_to_log("Enabled node " + temp_node.label);
                 } 
+                
+                //If a search has finished, repair its path around the change
+                if(this.replanner != null) {
+                    replan(temp_node);
+                }
             }            
         }
     }
+    
+    /**
+     * Repairs the path after a node was enabled or disabled, and shows the new path on the map
+     * @param node node that was enabled or disabled
+     */
+    private void replan(NodeXY node) {
+        this.replanner.setNodeEnabled(node.id, node.enabled);
+        PathResult result = this.replanner.plan();
+        
+        //Draw the links of the old path as normal links again
+        drawPathLinks(Color.LIGHT_GRAY);
+        
+        if(result.isFound() == true) {
+            this.path = result.getPath(this.search_space);
+            drawPathLinks(Color.BLUE);
+            
+            //Print the new path
+            StringBuffer labels = new StringBuffer();
+            Iterator i = this.path.iterator();
+            while (i.hasNext()) {
+                if(labels.length() > 0) {
+                    labels.append("->");
+                }
+                labels.append(((NodeXY) i.next()).label);
+            }
+            this.print_to_log("Repaired PATH " + labels + " (cost = " + result.getTotalCost() + ", " + result.getNumIterations() + " nodes re-expanded)");
+        }
+        else {
+            this.path = null;
+            this.print_to_log("There is no longer a path to the goal (" + result.getNumIterations() + " nodes re-expanded)");
+        }
+        
+        //Repaint map
+        this.repaint();
+    }
+    
+    /**
+     * Draws the links of the current path in a color
+     * @param color color of the links
+     */
+    private void drawPathLinks(Color color) {
+        if(this.path == null) {
+            return;
+        }
+        NodeXY previous_node = null;
+        Iterator i = this.path.iterator();
+        while (i.hasNext()) {
+            NodeXY temp_node = (NodeXY) i.next();
+            if(previous_node != null) {
+                LinkXY temp_link = (LinkXY) this.search_space.findLink(previous_node, temp_node);
+                if(temp_link != null) {
+                    temp_link.drawLink(this, color);
+                }
+            }
+            previous_node = temp_node;
+        }
+    }
     public void mouseReleased(MouseEvent e){
         //System.out.println("Released mouse on map: x = " + e.getX() + ", y = " + e.getY());        
+        if(this.static_layer_skipped != null) {
+            //The node has been dropped, so put it back in the static layer at its new location
+            this.static_layer_skipped = null;
+            this.static_layer = null;
+            this.repaint();
+        }
 	}
     public void mouseDragged(MouseEvent e){
          //System.out.println("Dragging mouse: x = " + e.getX() + ", y = " + e.getY());
          //Used to move a node
-         if(this.allow_clicks == true && this.allow_move_node == true) {
+         //Nodes can't be moved while a path is being repaired, since the planner doesn't know about their new locations
+         if(this.allow_clicks == true && this.allow_move_node == true && this.replanner == null) {
             updateLocation(e);           
          }           
 }
@@ -351,6 +646,13 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
         
         //Set node's new location
         this.node_being_moved.setLocation(location);
+        this.get_node_index().move(this.node_being_moved.id, x, y);
+        
+        if(this.static_layer_skipped != this.node_being_moved) {
+            //Leave the node and its links out of the static layer while it is moved, so the layer isn't drawn again on every move
+            this.static_layer_skipped = this.node_being_moved;
+            this.static_layer = null;
+        }
         
         //Repaint map
         this.repaint();
@@ -358,6 +660,33 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
 }
     
    public void mouseMoved(MouseEvent e){}
+   
+    // Handles the event of the user turning the mouse wheel by stepping through the recorded search (or changing its speed with Ctrl).
+    public void mouseWheelMoved(MouseWheelEvent e){
+        if(this.trace_player != null && this.trace_player.getTrace() != null) {
+            if(e.isControlDown() == true) {
+                //Each notch halves or doubles the speed the search is played at
+                int speed = this.trace_player.getSpeed();
+                if(e.getWheelRotation() < 0) {
+                    speed = (int) Math.min(Integer.MAX_VALUE, 2L * speed);
+                }
+                else {
+                    speed = Math.max(1, speed / 2);
+                }
+                this.trace_player.setSpeed(speed);
+                this.print_to_log("Playing the search at " + speed + " events per second");
+                return;
+            }
+            //Each notch steps one event, or a hundredth of the search if Shift is held down
+            int step = 1;
+            if(e.isShiftDown() == true) {
+                step = Math.max(1, this.trace_player.getTrace().getEventCount() / 100);
+            }
+            this.trace_player.pause();
+            this.trace_player.step(e.getWheelRotation() * step);
+        }
+    }
+
    public void mouseClicked(MouseEvent e){}
    public void mouseExited(MouseEvent e){}
    public void mouseEntered(MouseEvent e){}
@@ -367,41 +696,21 @@ public class MapDisplay extends JPanel implements MouseListener, MouseMotionList
     //* This function gets and returns the node closest to the given location within the search space *
     //*************************************************************************************************
        
-        //Get closest node from Search space
-        Iterator i = this.search_space.getNodeIterator();
-           
-        NodeXY temp_node = null; //Variable to loop through search space
-        NodeXY closest_node = null;  //Variable to hold the closest node
-        
-        double current_min = -1;
-        double temp_min = 0;
-        
-            while (i.hasNext()) {
-                //Get next node
-                temp_node = (NodeXY)i.next();
-                //System.out.println("Checking node " + temp_node.label);
-                if (current_min == -1) {
-                    //Get first node and set initial distance
-                    closest_node = temp_node;
-                    Location temp_loc = new Location ((int)(temp_node.location.x * this.SCALE), (int)(temp_node.location.y * this.SCALE));
-                    current_min = get_Distance(location, temp_loc);
-                    //System.out.println("First node set is " + temp_node.label);
-                }
-                else {
-                    //Compare to see if this node is closer
-                    Location temp_loc2 = new Location ((int)(temp_node.location.x * this.SCALE), (int)(temp_node.location.y * this.SCALE));
-                    temp_min = get_Distance(location, temp_loc2);
-                    //System.out.println("Comparing temp_min = " + temp_min + " to current_min = " + current_min);
-                    if (temp_min < current_min) {
-                        //Get new closest node
-                        closest_node = temp_node;
-                        current_min = temp_min;
-                    }
-                //System.out.println("Current closest node = " + closest_node);
-                }
-            }
-       
-       return closest_node;
+        //The location is on the screen, so convert it to search space coordinates to look it up in the index
+        int closest_id = this.get_node_index().findNearest(location.x / this.SCALE, location.y / this.SCALE);
+        if (closest_id == -1) {
+            //Search space is empty
+            return null;
+        }
+        return (NodeXY) this.search_space.getNode(closest_id);
+   }
+   
+   private SpatialIndex get_node_index() {
+        //Index the node locations again if nodes were added or removed since the index was created
+        if (this.node_index == null || this.node_index.getNodeSize() != this.search_space.getNodeSize()) {
+            this.node_index = SpatialIndex.fromSearchSpace(this.search_space);
+        }
+        return this.node_index;
    }
    
    public double get_Distance(Location A, Location B) {
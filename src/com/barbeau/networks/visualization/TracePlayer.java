@@ -0,0 +1,475 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.visualization;
+
+import com.barbeau.networks.SearchSpace;
+import com.barbeau.networks.astar.CsrGraph;
+import com.barbeau.networks.astar.LinkXY;
+import com.barbeau.networks.astar.NodeXY;
+import com.barbeau.networks.astar.PathResult;
+import com.barbeau.networks.astar.SearchAdapter;
+import com.barbeau.networks.astar.SearchTrace;
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import javax.swing.Timer;
+
+/**
+ * This class replays a recorded SearchTrace on the map, so a search can be looked at again at any speed, and stepped
+ * back and forth, without running it again.  The colors of the nodes and links are saved when the player is created
+ * (before the search runs).  Moving forward applies the events in between to the map like AstarSearch does.  Events
+ * can't be undone, so the first time the player passes a checkpoint (every so many events) it saves the colors of the
+ * nodes and links the trace has changed; moving back puts back the colors of the last checkpoint before the position
+ * and applies the events from there, so a step back costs about the same however long the trace is.
+ *
+ * All methods must be called from the Event Dispatch Thread.
+ * @author Sean J. Barbeau
+ */
+public class TracePlayer extends SearchAdapter implements ActionListener {
+
+    //Events played per second by default
+    public static final int DEFAULT_SPEED = 50;
+
+    //Fewest events between two checkpoints
+    public static final int CHECKPOINT_INTERVAL = 1000;
+
+    //Most checkpoints saved for a trace (longer traces get checkpoints further apart, so they don't use up the memory)
+    public static final int MAX_CHECKPOINTS = 100;
+
+    private final MapDisplay map;
+    private final SearchSpace searchSpace;
+    private final Timer timer;
+    private final int numNodes;  //Number of nodes of the search space
+    private final long graphFingerprint;  //Fingerprint of the nodes and links of the search space (see CsrGraph.getFingerprint())
+
+    //Colors and sizes of the nodes (by id) and links before the search
+    private final Color[] nodeColors;
+    private final Color[] nodePreviousColors;
+    private final int[] nodeSizes;
+    private final int[] nodePreviousSizes;
+    private final LinkXY[] links;
+    private final Color[] linkColors;
+    private final boolean[] linkTraveled;
+    private final boolean[] linkEnabled;
+
+    //Nodes and links changed by the trace since it was set, in the order they were first changed, with the colors the
+    //links had before that (the colors the nodes had are in the arrays above)
+    private final boolean[] nodeChanged;
+    private int[] changedNodes = new int[16];
+    private int numChangedNodes = 0;
+    private final IdentityHashMap<LinkXY, Integer> linkChanged = new IdentityHashMap<LinkXY, Integer>();
+    private final ArrayList<LinkXY> changedLinks = new ArrayList<LinkXY>();
+    private final ArrayList<Color> changedLinkColors = new ArrayList<Color>();
+    private final ArrayList<Boolean> changedLinkTraveled = new ArrayList<Boolean>();
+    private final ArrayList<Boolean> changedLinkEnabled = new ArrayList<Boolean>();
+
+    private SearchTrace trace = null;
+    private int position = 0;  //Number of events of the trace applied to the map
+    private LinkedList path = null;  //Path shown on the map by the trace, or null
+    private int interval = CHECKPOINT_INTERVAL;  //Events between two checkpoints
+    private Checkpoint[] checkpoints = new Checkpoint[1];  //Checkpoint after each interval of events, or null until it is passed
+    private int speed = DEFAULT_SPEED;  //Events played per second
+    private double pending = 0;  //Events due to be played that didn't make up a whole event in the last frame
+
+    /**
+     * Creates a new TracePlayer, saving the current colors of the nodes and links of the search space
+     * @param map map to replay the trace on
+     * @param searchSpace search space the trace was recorded on
+     */
+    public TracePlayer(MapDisplay map, SearchSpace searchSpace) {
+        this.map = map;
+        this.searchSpace = searchSpace;
+        this.timer = new Timer(MapAnimator.FRAME_DELAY, this);
+
+        int numNodes = searchSpace.getNodeSize();
+        this.numNodes = numNodes;
+        this.graphFingerprint = CsrGraph.fromSearchSpace(searchSpace).getFingerprint();
+        this.nodeChanged = new boolean[numNodes];
+        this.nodeColors = new Color[numNodes];
+        this.nodePreviousColors = new Color[numNodes];
+        this.nodeSizes = new int[numNodes];
+        this.nodePreviousSizes = new int[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            NodeXY node = (NodeXY) searchSpace.getNode(i);
+            this.nodeColors[i] = node.color;
+            this.nodePreviousColors[i] = node.previousColor;
+            this.nodeSizes[i] = node.size;
+            this.nodePreviousSizes[i] = node.previous_size;
+        }
+
+        int numLinks = searchSpace.getLinkSize();
+        this.links = new LinkXY[numLinks];
+        this.linkColors = new Color[numLinks];
+        this.linkTraveled = new boolean[numLinks];
+        this.linkEnabled = new boolean[numLinks];
+        Iterator i = searchSpace.getLinkIterator();
+        for (int l = 0; l < numLinks; l++) {
+            this.links[l] = (LinkXY) i.next();
+            this.linkColors[l] = this.links[l].getColor();
+            this.linkTraveled[l] = this.links[l].traveled;
+            this.linkEnabled[l] = this.links[l].enabled;
+        }
+    }
+
+    /**
+     * Sets the trace to replay, and shows the end of it on the map
+     * @param trace trace recorded on the search space of this player
+     * @throws IllegalArgumentException if the trace was recorded on a graph with other nodes or links
+     */
+    public void setTrace(SearchTrace trace) {
+        if (trace.getNodeCount() != this.numNodes || trace.getGraphFingerprint() != this.graphFingerprint) {
+            throw new IllegalArgumentException("The trace was recorded on another graph (" + trace.getNodeCount() + " nodes, fingerprint "
+                    + Long.toHexString(trace.getGraphFingerprint()) + ") than the map (" + this.numNodes + " nodes, fingerprint "
+                    + Long.toHexString(this.graphFingerprint) + ")");
+        }
+        pause();
+        this.trace = trace;
+        restore();
+        this.interval = Math.max(CHECKPOINT_INTERVAL, trace.getEventCount() / MAX_CHECKPOINTS + 1);
+        this.checkpoints = new Checkpoint[trace.getEventCount() / this.interval + 1];
+        seek(trace.getEventCount());
+    }
+
+    /**
+     * Returns the trace being replayed
+     * @return the trace being replayed, or null if none was set
+     */
+    public SearchTrace getTrace() {
+        return this.trace;
+    }
+
+    /**
+     * Returns the number of events of the trace shown on the map
+     * @return the number of events of the trace shown on the map
+     */
+    public int getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Shows the map as it was after a number of events of the trace
+     * @param position number of events to show (limited to 0 and the number of events of the trace)
+     */
+    public void seek(int position) {
+        if (this.trace == null) {
+            return;
+        }
+        position = Math.max(0, Math.min(position, this.trace.getEventCount()));
+        if (position < this.position) {
+            //Events can't be undone, so start again from the last checkpoint before the position
+            int c = position / this.interval;
+            while (c > 0 && this.checkpoints[c] == null) {
+                c--;
+            }
+            restoreCheckpoint(c);
+        }
+        while (this.position < position) {
+            //Apply the events up to the next checkpoint (or the position), and save the checkpoint if it hasn't been yet
+            int next = Math.min(position, (this.position / this.interval + 1) * this.interval);
+            this.trace.replay(this.position, next, this);
+            this.position = next;
+            if (next % this.interval == 0 && this.checkpoints[next / this.interval] == null) {
+                this.checkpoints[next / this.interval] = new Checkpoint();
+            }
+        }
+        this.map.repaint();
+    }
+
+    /**
+     * Moves forward or back through the trace
+     * @param events number of events to move forward (negative to move back)
+     */
+    public void step(int events) {
+        seek((int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, (long) this.position + events)));
+    }
+
+    /**
+     * Starts playing the trace from the current position at the current speed
+     */
+    public void play() {
+        if (this.trace != null) {
+            if (this.position == this.trace.getEventCount()) {
+                seek(0);
+            }
+            this.pending = 0;
+            this.timer.start();
+        }
+    }
+
+    /**
+     * Stops playing the trace
+     */
+    public void pause() {
+        this.timer.stop();
+    }
+
+    /**
+     * Returns true if the trace is playing
+     * @return true if the trace is playing
+     */
+    public boolean isPlaying() {
+        return this.timer.isRunning();
+    }
+
+    /**
+     * Returns the number of events played per second
+     * @return the number of events played per second
+     */
+    public int getSpeed() {
+        return this.speed;
+    }
+
+    /**
+     * Sets the number of events played per second
+     * @param speed number of events to play per second (at least 1)
+     */
+    public void setSpeed(int speed) {
+        if (speed < 1) {
+            throw new IllegalArgumentException("Speed must be at least 1 event per second, not " + speed);
+        }
+        this.speed = speed;
+    }
+
+    /**
+     * Plays the events due in one frame
+     */
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        this.pending += this.speed * (MapAnimator.FRAME_DELAY / 1000.0);
+        int events = (int) this.pending;
+        this.pending -= events;
+        if (events > 0) {
+            step(events);
+        }
+        if (this.position == this.trace.getEventCount()) {
+            pause();
+        }
+    }
+
+    /**
+     * Puts back the colors of all the nodes and links from before the search, and forgets the checkpoints
+     */
+    private void restore() {
+        for (int i = 0; i < this.nodeColors.length; i++) {
+            restoreNode(i);
+            this.nodeChanged[i] = false;
+        }
+        for (int l = 0; l < this.links.length; l++) {
+            this.links[l].setColor(this.linkColors[l]);
+            this.links[l].traveled = this.linkTraveled[l];
+            this.links[l].enabled = this.linkEnabled[l];
+        }
+        this.numChangedNodes = 0;
+        this.linkChanged.clear();
+        this.changedLinks.clear();
+        this.changedLinkColors.clear();
+        this.changedLinkTraveled.clear();
+        this.changedLinkEnabled.clear();
+        Arrays.fill(this.checkpoints, null);
+        setPath(null);
+        this.position = 0;
+    }
+
+    /**
+     * Puts back the colors of the nodes and links changed by the trace as they were at a checkpoint
+     * @param c number of the checkpoint (0 for the start of the trace)
+     */
+    private void restoreCheckpoint(int c) {
+        //Only the nodes and links changed by the trace since it was set can be different from before the search
+        for (int i = 0; i < this.numChangedNodes; i++) {
+            restoreNode(this.changedNodes[i]);
+        }
+        for (int l = 0; l < this.changedLinks.size(); l++) {
+            LinkXY link = this.changedLinks.get(l);
+            link.setColor(this.changedLinkColors.get(l));
+            link.traveled = this.changedLinkTraveled.get(l);
+            link.enabled = this.changedLinkEnabled.get(l);
+        }
+        setPath(null);
+        this.position = 0;
+        if (c > 0) {
+            this.checkpoints[c].restore();
+            this.position = c * this.interval;
+        }
+    }
+
+    /**
+     * Puts back the color and size a node had before the search
+     */
+    private void restoreNode(int i) {
+        NodeXY node = (NodeXY) this.searchSpace.getNode(i);
+        node.setAppearance(this.nodeColors[i], this.nodePreviousColors[i], this.nodeSizes[i], this.nodePreviousSizes[i]);
+    }
+
+    /**
+     * Returns a node the trace is about to change, remembering that it was changed
+     */
+    private NodeXY changeNode(int i) {
+        if (this.nodeChanged[i] == false) {
+            this.nodeChanged[i] = true;
+            if (this.numChangedNodes == this.changedNodes.length) {
+                this.changedNodes = Arrays.copyOf(this.changedNodes, this.changedNodes.length * 2);
+            }
+            this.changedNodes[this.numChangedNodes++] = i;
+        }
+        return (NodeXY) this.searchSpace.getNode(i);
+    }
+
+    /**
+     * Returns a link the trace is about to change, remembering that it was changed and its colors before that
+     */
+    private LinkXY changeLink(LinkXY link) {
+        if (this.linkChanged.containsKey(link) == false) {
+            this.linkChanged.put(link, this.changedLinks.size());
+            this.changedLinks.add(link);
+            this.changedLinkColors.add(link.getColor());
+            this.changedLinkTraveled.add(link.traveled);
+            this.changedLinkEnabled.add(link.enabled);
+        }
+        return link;
+    }
+
+    /**
+     * Shows a path on the map
+     */
+    private void setPath(LinkedList path) {
+        this.path = path;
+        this.map.setPath(path);
+    }
+
+    //**********************************************************************
+    //* SearchListener methods that apply the events of the trace to the map *
+    //**********************************************************************
+
+    @Override
+    public void nodeExpanded(int node, double costFromStart, double estCostToGoal) {
+        changeNode(node).setAppearance(Color.GREEN, this.map.getExpandedNodeSize());
+    }
+
+    @Override
+    public void linkTraveled(int nodeA, int nodeB) {
+        LinkXY link = changeLink((LinkXY) this.searchSpace.findLink(this.searchSpace.getNode(nodeA), this.searchSpace.getNode(nodeB)));
+        link.traveled = true;
+        link.setColor(Color.CYAN);
+    }
+
+    @Override
+    public void nodeDisabled(int nodeA, int nodeB) {
+        //The link runs from nodeB to nodeA when searching back from the goal
+        LinkXY link = (LinkXY) this.searchSpace.findLink(this.searchSpace.getNode(nodeA), this.searchSpace.getNode(nodeB));
+        if (link == null) {
+            link = (LinkXY) this.searchSpace.findLink(this.searchSpace.getNode(nodeB), this.searchSpace.getNode(nodeA));
+        }
+        changeLink(link);
+        link.enabled = false;
+        link.setColor(Color.RED);
+    }
+
+    @Override
+    public void nodeClosed(int node) {
+        changeNode(node).restoreAppearance(this.map.getExpandedNodeSize());
+    }
+
+    @Override
+    public void searchFinished(PathResult result) {
+        if (result.isFound()) {
+            int[] path = result.getNodeIds();
+            NodeXY goal = changeNode(path[path.length - 1]);
+            goal.setAppearance(Color.GREEN, this.map.getExpandedNodeSize());
+            goal.restoreAppearance(this.map.getExpandedNodeSize());
+            for (int i = 0; i < path.length; i++) {
+                NodeXY node = changeNode(path[i]);
+                if (i > 0) {
+                    changeLink((LinkXY) this.searchSpace.findLink(this.searchSpace.getNode(path[i - 1]), node)).setColor(Color.BLUE);
+                }
+                node.setAppearance(node.color, this.map.getNormalNodeSize());
+            }
+            setPath(result.getPath(this.searchSpace));
+        }
+    }
+
+    /**
+     * The colors and sizes of the nodes and links changed by the trace, and the path shown, at a position of the trace
+     */
+    private class Checkpoint {
+
+        //Values of the first numNodes changed nodes and first numLinks changed links
+        private final int numNodes;
+        private final Color[] colors;
+        private final Color[] previousColors;
+        private final int[] sizes;
+        private final int[] previousSizes;
+        private final int numLinks;
+        private final Color[] linkColors;
+        private final boolean[] linkTraveled;
+        private final boolean[] linkEnabled;
+        private final LinkedList path;
+
+        /**
+         * Saves the nodes and links as they are now
+         */
+        Checkpoint() {
+            this.numNodes = numChangedNodes;
+            this.colors = new Color[this.numNodes];
+            this.previousColors = new Color[this.numNodes];
+            this.sizes = new int[this.numNodes];
+            this.previousSizes = new int[this.numNodes];
+            for (int i = 0; i < this.numNodes; i++) {
+                NodeXY node = (NodeXY) searchSpace.getNode(changedNodes[i]);
+                this.colors[i] = node.color;
+                this.previousColors[i] = node.previousColor;
+                this.sizes[i] = node.size;
+                this.previousSizes[i] = node.previous_size;
+            }
+            this.numLinks = changedLinks.size();
+            this.linkColors = new Color[this.numLinks];
+            this.linkTraveled = new boolean[this.numLinks];
+            this.linkEnabled = new boolean[this.numLinks];
+            for (int l = 0; l < this.numLinks; l++) {
+                LinkXY link = changedLinks.get(l);
+                this.linkColors[l] = link.getColor();
+                this.linkTraveled[l] = link.traveled;
+                this.linkEnabled[l] = link.enabled;
+            }
+            this.path = TracePlayer.this.path;
+        }
+
+        /**
+         * Puts the saved nodes and links back as they were (the ones changed after the checkpoint must have been put
+         * back as they were before the search)
+         */
+        void restore() {
+            for (int i = 0; i < this.numNodes; i++) {
+                NodeXY node = (NodeXY) searchSpace.getNode(changedNodes[i]);
+                node.setAppearance(this.colors[i], this.previousColors[i], this.sizes[i], this.previousSizes[i]);
+            }
+            for (int l = 0; l < this.numLinks; l++) {
+                LinkXY link = changedLinks.get(l);
+                link.setColor(this.linkColors[l]);
+                link.traveled = this.linkTraveled[l];
+                link.enabled = this.linkEnabled[l];
+            }
+            setPath(this.path);
+        }
+    }
+}
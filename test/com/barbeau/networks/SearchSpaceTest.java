@@ -0,0 +1,58 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the label index of SearchSpace finds the same nodes as a search of the node list would
+ * @author Sean J. Barbeau
+ */
+public class SearchSpaceTest {
+
+    @Test
+    public void findNodeFindsTheNodeLeftWithALabel() {
+        SearchSpace searchSpace = new SearchSpace();
+        Node a = new Node("A");
+        Node b1 = new Node("B");
+        Node c = new Node("C");
+        Node b2 = new Node("B");
+        Node b3 = new Node("B");
+        searchSpace.add(a);
+        searchSpace.add(b1);
+        searchSpace.add(c);
+        searchSpace.add(b2);
+        searchSpace.add(b3);
+        assertSame(b1, searchSpace.findNode("B"));
+
+        searchSpace.remove(b1);
+        Node found = searchSpace.findNode("B");
+        assertTrue(found == b2 || found == b3);
+        searchSpace.remove(found);
+        assertSame(found == b2 ? b3 : b2, searchSpace.findNode("B"));
+        searchSpace.remove(searchSpace.findNode("B"));
+        assertNull(searchSpace.findNode("B"));
+
+        assertSame(a, searchSpace.findNode("A"));
+        assertSame(c, searchSpace.findNode("C"));
+        searchSpace.remove(a);
+        assertNull(searchSpace.findNode("A"));
+        assertSame(c, searchSpace.findNode("C"));
+        assertEquals(1, searchSpace.getNodeSize());
+    }
+}
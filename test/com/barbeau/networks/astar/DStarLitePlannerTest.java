@@ -0,0 +1,137 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the paths DStarLitePlanner repairs after nodes are disabled and enabled again cost the same as a new search
+ * of the changed graph (TestGraphs.shortestCost())
+ * @author Sean J. Barbeau
+ */
+public class DStarLitePlannerTest {
+
+    private static final long[] SEEDS = {1, 2, 3};
+    private static final int NUM_QUERIES = 20;
+    private static final int NUM_CHANGES = 6;
+
+    @Test
+    public void repairedPathsMatchANewSearchOnGeometricGraphs() {
+        for (long seed : SEEDS) {
+            checkRepairs(TestGraphs.geometric(100, 6, seed), seed);
+        }
+    }
+
+    @Test
+    public void repairedPathsMatchANewSearchOnGrids() {
+        for (long seed : SEEDS) {
+            checkRepairs(TestGraphs.grid(15, 15, 0.2, seed), seed);
+        }
+    }
+
+    @Test
+    public void linksThatCostNothingDontMakeThePathLoop() {
+        //Nodes 1 and 2 share a location, so the links between them cost nothing
+        int[] offsets = {0, 1, 3, 5, 6};
+        int[] targets = {1, 0, 2, 1, 3, 2};
+        float[] weights = {10, 10, 0, 0, 10, 10};
+        int[] x = {0, 10, 10, 20};
+        int[] y = {0, 0, 0, 0};
+        boolean[] enabled = {true, true, true, true};
+        String[] labels = {"A", "B", "C", "D"};
+        CsrGraph graph = new CsrGraph(offsets, targets, weights, x, y, enabled, labels);
+        CostModel costModel = new EuclideanCostModel();
+
+        DStarLitePlanner planner = new DStarLitePlanner(graph, 0, 3, costModel);
+        PathResult result = planner.plan();
+        assertArrayEquals(new int[]{0, 1, 2, 3}, result.getNodeIds());
+        assertEquals(20, result.getTotalCost(), TestGraphs.TOLERANCE);
+
+        planner.setNodeEnabled(2, false);
+        assertFalse(planner.plan().isFound());
+
+        planner.setNodeEnabled(2, true);
+        result = planner.plan();
+        assertArrayEquals(new int[]{0, 1, 2, 3}, result.getNodeIds());
+        assertEquals(20, result.getTotalCost(), TestGraphs.TOLERANCE);
+    }
+
+    /**
+     * Plans paths between random nodes, then disables nodes (most of them on the current path) and enables them again,
+     * checking each repaired path against a new search of a copy of the graph with the same nodes enabled
+     */
+    private void checkRepairs(CsrGraph graph, long seed) {
+        CostModel[] costModels = {new EuclideanCostModel(), new FewestLinksCostModel(),
+            new LandmarkCostModel(LandmarkTable.create(graph))};
+        Random random = new Random(seed);
+        for (CostModel costModel : costModels) {
+            for (int[] query : TestGraphs.queries(graph, NUM_QUERIES, seed)) {
+                DStarLitePlanner planner = new DStarLitePlanner(graph, query[0], query[1], costModel);
+                CsrGraph changed = graph;
+                PathResult result = check(planner, changed, costModel);
+                int[] disabled = new int[NUM_CHANGES];
+                for (int i = 0; i < NUM_CHANGES; i++) {
+                    disabled[i] = pickNode(changed, result, query, random);
+                    changed = TestGraphs.withEnabled(changed, disabled[i], false);
+                    planner.setNodeEnabled(disabled[i], false);
+                    result = check(planner, changed, costModel);
+                }
+                for (int i = NUM_CHANGES - 1; i >= 0; i--) {
+                    changed = TestGraphs.withEnabled(changed, disabled[i], true);
+                    planner.setNodeEnabled(disabled[i], true);
+                    result = check(planner, changed, costModel);
+                }
+                assertEquals(TestGraphs.shortestCost(graph, query[0], query[1], costModel), result.getTotalCost(), TestGraphs.TOLERANCE);
+            }
+        }
+    }
+
+    /**
+     * Repairs the path and checks it against a new search of the graph with the planner's enabled nodes
+     */
+    private PathResult check(DStarLitePlanner planner, CsrGraph graph, CostModel costModel) {
+        int start = planner.getStart();
+        int goal = planner.getGoal();
+        double expected = TestGraphs.shortestCost(graph, start, goal, costModel);
+        PathResult result = planner.plan();
+        assertEquals(expected != Double.POSITIVE_INFINITY, result.isFound());
+        if (result.isFound()) {
+            double cost = TestGraphs.pathCost(graph, result.getNodeIds(), start, goal, costModel);
+            assertEquals(expected, result.getTotalCost(), TestGraphs.TOLERANCE);
+            assertEquals(result.getTotalCost(), cost, TestGraphs.TOLERANCE);
+        }
+        return result;
+    }
+
+    /**
+     * Picks an enabled node other than the start and goal to disable, on the path if there is one most of the time
+     */
+    private int pickNode(CsrGraph graph, PathResult result, int[] query, Random random) {
+        if (result.isFound() && result.getNodeIds().length > 2 && random.nextInt(4) != 0) {
+            int[] path = result.getNodeIds();
+            return path[1 + random.nextInt(path.length - 2)];
+        }
+        int node;
+        do {
+            node = random.nextInt(graph.getNodeSize());
+        } while (node == query[0] || node == query[1] || graph.isEnabled(node) == false);
+        return node;
+    }
+}
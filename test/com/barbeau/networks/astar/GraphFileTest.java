@@ -0,0 +1,117 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import com.barbeau.networks.SearchSpace;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that a graph comes back unchanged from a graph file (GraphFile) and from the search space the GUI shows
+ * (CsrGraph.toSearchSpace())
+ * @author Sean J. Barbeau
+ */
+public class GraphFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeAndOpenKeepTheGraph() throws IOException {
+        for (CsrGraph graph : new CsrGraph[] {TestGraphs.geometric(200, 6, 1), TestGraphs.grid(15, 15, 0.2, 1)}) {
+            File file = folder.newFile();
+            GraphFile.write(graph, file);
+            assertTrue(GraphFile.isGraphFile(file));
+            assertSameGraph(graph, GraphFile.open(file));
+        }
+    }
+
+    @Test
+    public void openRejectsFilesThatAreNotGraphFiles() throws IOException {
+        File file = folder.newFile("nodes.txt");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write("N0 10 20\nN1 30 40\nN2 50 60\n".getBytes("UTF-8"));
+        }
+        finally {
+            out.close();
+        }
+        assertFalse(GraphFile.isGraphFile(file));
+        try {
+            GraphFile.open(file);
+            fail("Opened a text file as a graph file");
+        }
+        catch (IOException e) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void openRejectsTruncatedFiles() throws IOException {
+        File file = folder.newFile();
+        GraphFile.write(TestGraphs.geometric(200, 6, 1), file);
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.setLength(out.length() / 2);
+        }
+        finally {
+            out.close();
+        }
+        try {
+            GraphFile.open(file);
+            fail("Opened a truncated graph file");
+        }
+        catch (IOException e) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void searchSpaceKeepsTheGraph() {
+        CsrGraph graph = TestGraphs.grid(15, 15, 0.2, 1);
+        SearchSpace searchSpace = graph.toSearchSpace();
+        assertEquals(graph.getNodeSize(), searchSpace.getNodeSize());
+        assertEquals(graph.getEdgeSize(), searchSpace.getLinkSize());
+        assertSameGraph(graph, CsrGraph.fromSearchSpace(searchSpace));
+    }
+
+    /**
+     * Checks that two graphs have the same nodes, locations, enabled states, names and links
+     */
+    private static void assertSameGraph(CsrGraph expected, CsrGraph actual) {
+        assertEquals(expected.getNodeSize(), actual.getNodeSize());
+        assertEquals(expected.getEdgeSize(), actual.getEdgeSize());
+        for (int i = 0; i < expected.getNodeSize(); i++) {
+            assertEquals(expected.getX(i), actual.getX(i));
+            assertEquals(expected.getY(i), actual.getY(i));
+            assertEquals(expected.isEnabled(i), actual.isEnabled(i));
+            assertEquals(expected.getLabel(i), actual.getLabel(i));
+            assertEquals(expected.getFirstEdge(i + 1), actual.getFirstEdge(i + 1));
+        }
+        for (int e = 0; e < expected.getEdgeSize(); e++) {
+            assertEquals(expected.getTarget(e), actual.getTarget(e));
+            assertEquals(expected.getWeight(e), actual.getWeight(e), 0);
+        }
+        assertEquals(expected.getFingerprint(), actual.getFingerprint());
+    }
+}
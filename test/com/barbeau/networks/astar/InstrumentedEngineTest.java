@@ -0,0 +1,116 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that InstrumentedEngine counts what its engines really do, and reports the available list counters as
+ * unavailable for the engines that keep their own lists
+ * @author Sean J. Barbeau
+ */
+public class InstrumentedEngineTest {
+
+    @Test
+    public void heuristicEvaluationsAreCounted() {
+        CsrGraph graph = TestGraphs.geometric(300, 6, 1);
+        RoutingEngine[] engines = {new AstarEngine(), new BidirectionalAstarEngine(), new AraStarEngine(), new SmaStarEngine(),
+            new IdaStarEngine()};
+        for (RoutingEngine engine : engines) {
+            for (int[] query : TestGraphs.queries(graph, 10, 1)) {
+                EstimateCounter costModel = new EstimateCounter(new EuclideanCostModel());
+                PathResult result = new InstrumentedEngine(engine, null, false).search(graph, query[0], query[1], costModel, null);
+                assertEquals(engine.toString(), costModel.numEstimates, result.getStats().getHeuristicEvaluations());
+            }
+        }
+    }
+
+    @Test
+    public void jumpPointSearchCountsItsOwnEstimates() {
+        CsrGraph graph = TestGraphs.grid(20, 20, 0.2, 1);
+        for (int[] query : TestGraphs.queries(graph, 10, 1)) {
+            PathResult result = new InstrumentedEngine(new JumpPointEngine(), null, false).search(graph, query[0], query[1],
+                    new OctileCostModel(), null);
+            assertTrue(result.getStats().getHeuristicEvaluations() >= 1);
+            assertTrue(result.getStats().getHeuristicEvaluations() <= result.getStats().getNodesExpanded() + result.getStats().getOpenPushes());
+        }
+    }
+
+    @Test
+    public void queueStatsAreOnlyReportedForEnginesThatUseTheWorkspaces() {
+        CsrGraph graph = TestGraphs.geometric(300, 6, 2);
+        int[] query = TestGraphs.queries(graph, 1, 2)[0];
+        SearchMetrics metrics = new SearchMetrics();
+
+        //A bidirectional search first, so both workspaces of the thread hold the counts of an earlier search
+        SearchStats bidirectional = new InstrumentedEngine(new BidirectionalAstarEngine(), metrics, false)
+                .search(graph, query[0], query[1], new EuclideanCostModel(), null).getStats();
+        assertTrue(bidirectional.hasQueueStats());
+        assertTrue(bidirectional.getOpenPushes() >= 2);
+        assertTrue(bidirectional.getPeakOpenSize() >= 1);
+        assertTrue(bidirectional.getPeakBackwardOpenSize() >= 1);
+
+        SearchStats astar = new InstrumentedEngine(new AstarEngine(), metrics, false)
+                .search(graph, query[0], query[1], new EuclideanCostModel(), null).getStats();
+        assertTrue(astar.hasQueueStats());
+        assertTrue(astar.getOpenPops() >= 1);
+        assertTrue(astar.getPeakOpenSize() >= 1);
+        assertEquals(SearchStats.UNAVAILABLE, astar.getPeakBackwardOpenSize());
+
+        for (RoutingEngine engine : new RoutingEngine[] {new IdaStarEngine(), new SmaStarEngine()}) {
+            SearchStats stats = new InstrumentedEngine(engine, metrics, false)
+                    .search(graph, query[0], query[1], new EuclideanCostModel(), null).getStats();
+            assertFalse(stats.hasQueueStats());
+            assertEquals(SearchStats.UNAVAILABLE, stats.getOpenPushes());
+            assertEquals(SearchStats.UNAVAILABLE, stats.getOpenPops());
+            assertEquals(SearchStats.UNAVAILABLE, stats.getDecreaseKeys());
+            assertEquals(SearchStats.UNAVAILABLE, stats.getPeakOpenSize());
+            assertEquals(SearchStats.UNAVAILABLE, stats.getPeakBackwardOpenSize());
+            assertTrue(stats.getNodesExpanded() >= 1);
+        }
+
+        //The totals only add up the searches that measured the lists
+        assertEquals(4, metrics.getSearchCount());
+        assertEquals(2, metrics.getQueueSearchCount());
+        assertEquals(bidirectional.getOpenPushes() + astar.getOpenPushes(), metrics.getOpenPushes());
+        assertEquals(Math.max(bidirectional.getPeakOpenSize(), astar.getPeakOpenSize()), metrics.getMaxPeakOpenSize());
+        assertEquals(bidirectional.getPeakBackwardOpenSize(), metrics.getMaxPeakBackwardOpenSize());
+    }
+
+    /**
+     * Cost model that counts the estimates it is asked for
+     */
+    private static class EstimateCounter implements CostModel {
+
+        private final CostModel costModel;
+        long numEstimates = 0;
+
+        EstimateCounter(CostModel costModel) {
+            this.costModel = costModel;
+        }
+
+        public double getCost(CsrGraph graph, int node, int edge) {
+            return this.costModel.getCost(graph, node, edge);
+        }
+
+        public double getEstimatedCostToGoal(CsrGraph graph, int node, int goal) {
+            this.numEstimates++;
+            return this.costModel.getEstimatedCostToGoal(graph, node, goal);
+        }
+    }
+}
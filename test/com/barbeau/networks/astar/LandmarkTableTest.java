@@ -0,0 +1,99 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of LandmarkTable - the estimates never overestimate, and a saved table is only loaded for the graph it was
+ * computed for
+ * @author Sean J. Barbeau
+ */
+public class LandmarkTableTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void estimatesNeverOverestimate() {
+        CsrGraph graph = TestGraphs.geometric(200, 6, 1);
+        LandmarkTable table = LandmarkTable.create(graph);
+        CostModel costModel = new EuclideanCostModel();
+        for (int[] query : TestGraphs.queries(graph, 50, 2)) {
+            double cost = TestGraphs.shortestCost(graph, query[0], query[1], costModel);
+            if (cost != Double.POSITIVE_INFINITY) {
+                assertTrue(table.getEstimatedCost(query[0], query[1]) <= cost + 1e-3);
+            }
+        }
+    }
+
+    @Test
+    public void saveAndLoadKeepTheTable() throws IOException {
+        CsrGraph graph = TestGraphs.geometric(200, 6, 1);
+        LandmarkTable table = LandmarkTable.create(graph);
+        File file = folder.newFile("graph.landmarks");
+        table.save(file);
+
+        LandmarkTable loaded = LandmarkTable.load(file, graph);
+        assertTrue(loaded.isFor(graph));
+        assertEquals(graph.getFingerprint(), loaded.getGraphFingerprint());
+        assertArrayEquals(table.getLandmarks(), loaded.getLandmarks());
+        for (int n = 0; n < graph.getNodeSize(); n++) {
+            assertEquals(table.getEstimatedCost(n, 7), loaded.getEstimatedCost(n, 7), 0);
+            assertEquals(table.getEstimatedCost(7, n), loaded.getEstimatedCost(7, n), 0);
+        }
+    }
+
+    @Test
+    public void loadRejectsTheTableOfAnotherGraph() throws IOException {
+        //Same number of nodes, but different links
+        CsrGraph graph = TestGraphs.geometric(200, 6, 1);
+        CsrGraph other = TestGraphs.geometric(200, 6, 2);
+        assertNotEquals(graph.getFingerprint(), other.getFingerprint());
+
+        File file = folder.newFile("graph.landmarks");
+        LandmarkTable.create(graph).save(file);
+        try {
+            LandmarkTable.load(file, other);
+            fail("The table of another graph was loaded");
+        }
+        catch (IOException e) {
+            //Expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withLandmarksRejectsTheTableOfAnotherGraph() {
+        CsrGraph graph = TestGraphs.geometric(200, 6, 1);
+        TestGraphs.geometric(200, 6, 2).withLandmarks(LandmarkTable.create(graph));
+    }
+
+    @Test
+    public void fingerprintIgnoresEnabledStates() {
+        //Disabling nodes doesn't change the landmark distances, so a table stays valid
+        CsrGraph graph = TestGraphs.grid(10, 10, 0, 1);
+        CsrGraph obstacles = TestGraphs.grid(10, 10, 0.2, 1);
+        assertEquals(graph.getFingerprint(), obstacles.getFingerprint());
+        assertTrue(LandmarkTable.create(graph).isFor(obstacles));
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import com.barbeau.networks.ch.ChPreprocessor;
+import com.barbeau.networks.ch.ContractionHierarchy;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the routing engines find paths as cheap as a plain Dijkstra search (TestGraphs.shortestCost()), on random
+ * geometric graphs and on grids with obstacles, and that the paths they return are real paths of the graph that cost
+ * what the engine says
+ * @author Sean J. Barbeau
+ */
+public class RoutingEngineTest {
+
+    private static final long[] SEEDS = {1, 2, 3};
+    private static final int NUM_QUERIES = 20;
+
+    @Test
+    public void astarFindsTheLeastExpensivePath() {
+        checkOptimal(new AstarEngine());
+    }
+
+    @Test
+    public void bidirectionalFindsTheLeastExpensivePath() {
+        checkOptimal(new BidirectionalAstarEngine());
+    }
+
+    @Test
+    public void smaStarFindsTheLeastExpensivePathWhenTheGraphFits() {
+        checkOptimal(new SmaStarEngine(SmaStarEngine.DEFAULT_MAX_NODES));
+    }
+
+    @Test
+    public void araStarEndsWithTheLeastExpensivePath() {
+        //Without a time limit the weight is lowered all the way to 1
+        checkOptimal(new AraStarEngine(AraStarEngine.DEFAULT_INITIAL_WEIGHT, AraStarEngine.DEFAULT_WEIGHT_STEP, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void araStarFromTheSearchModeKeepsItsTimeLimit() {
+        //With no time to improve its path, ARA* returns the path of its first (weighted) search, which is often more expensive
+        CsrGraph graph = TestGraphs.geometric(2000, 6, 1);
+        RoutingEngine limited = SearchMode.ARA_STAR.createEngine(SmaStarEngine.DEFAULT_MAX_NODES, 5, 1);
+        RoutingEngine unlimited = SearchMode.ARA_STAR.createEngine(SmaStarEngine.DEFAULT_MAX_NODES, 5, Long.MAX_VALUE);
+        CostModel costModel = new EuclideanCostModel();
+        double limitedCost = 0;
+        double unlimitedCost = 0;
+        for (int[] query : TestGraphs.queries(graph, NUM_QUERIES, 1)) {
+            PathResult result = unlimited.search(graph, query[0], query[1], costModel, null);
+            if (result.isFound()) {
+                assertEquals(TestGraphs.shortestCost(graph, query[0], query[1], costModel), result.getTotalCost(), TestGraphs.TOLERANCE);
+                unlimitedCost += result.getTotalCost();
+                limitedCost += limited.search(graph, query[0], query[1], costModel, null).getTotalCost();
+            }
+        }
+        assertTrue(limitedCost > unlimitedCost + TestGraphs.TOLERANCE);
+    }
+
+    @Test
+    public void idaStarFindsTheLeastExpensivePathOrGivesUp() {
+        int maxExpansions = 100000;
+        RoutingEngine engine = new IdaStarEngine(IdaStarEngine.DEFAULT_BOUND_GROWTH, Double.POSITIVE_INFINITY, maxExpansions);
+        int numFound = 0;
+        for (long seed : SEEDS) {
+            CsrGraph[] graphs = {TestGraphs.geometric(300, 6, seed), TestGraphs.grid(15, 15, 0.2, seed)};
+            for (CsrGraph graph : graphs) {
+                for (CostModel costModel : new CostModel[] {new EuclideanCostModel(), new FewestLinksCostModel()}) {
+                    for (int[] query : TestGraphs.queries(graph, NUM_QUERIES, seed)) {
+                        PathResult result = engine.search(graph, query[0], query[1], costModel, null);
+                        assertTrue(result.getNumIterations() <= maxExpansions);
+                        if (result.isFound()) {
+                            check(graph, query, costModel, result, "IDA* " + costModel);
+                            numFound++;
+                        }
+                        else if (result.getNumIterations() < maxExpansions) {
+                            //Only a search that didn't run out of expansions may say there is no path
+                            assertEquals(Double.POSITIVE_INFINITY, TestGraphs.shortestCost(graph, query[0], query[1], costModel), 0);
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(numFound > 0);
+    }
+
+    @Test
+    public void idaStarGivesUpAfterItsExpansions() {
+        CsrGraph graph = TestGraphs.geometric(300, 6, 1);
+        RoutingEngine engine = new IdaStarEngine(IdaStarEngine.DEFAULT_BOUND_GROWTH, Double.POSITIVE_INFINITY, 10);
+        for (int[] query : TestGraphs.queries(graph, NUM_QUERIES, 1)) {
+            PathResult result = engine.search(graph, query[0], query[1], new EuclideanCostModel(), null);
+            assertTrue(result.getNumIterations() <= 10);
+            if (result.isFound()) {
+                check(graph, query, new EuclideanCostModel(), result, "IDA*");
+            }
+        }
+    }
+
+    @Test
+    public void weightedAstarStaysWithinItsWeight() {
+        double weight = 2;
+        RoutingEngine engine = new AstarEngine(weight);
+        for (long seed : SEEDS) {
+            CsrGraph graph = TestGraphs.geometric(300, 6, seed);
+            CostModel costModel = new EuclideanCostModel();
+            for (int[] query : TestGraphs.queries(graph, NUM_QUERIES, seed)) {
+                double expected = TestGraphs.shortestCost(graph, query[0], query[1], costModel);
+                PathResult result = engine.search(graph, query[0], query[1], costModel, null);
+                assertEquals(expected != Double.POSITIVE_INFINITY, result.isFound());
+                if (result.isFound()) {
+                    double cost = TestGraphs.pathCost(graph, result.getNodeIds(), query[0], query[1], costModel);
+                    assertEquals(result.getTotalCost(), cost, TestGraphs.TOLERANCE);
+                    assertTrue(cost <= weight * expected + TestGraphs.TOLERANCE);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void contractionHierarchyFindsTheLeastExpensivePath() {
+        for (long seed : SEEDS) {
+            CsrGraph graph = TestGraphs.geometric(300, 6, seed);
+            for (CostModel costModel : new CostModel[] {new EuclideanCostModel(), new FewestLinksCostModel()}) {
+                ContractionHierarchy hierarchy = ChPreprocessor.build(graph, costModel, ForkJoinPool.commonPool());
+                for (int[] query : TestGraphs.queries(graph, NUM_QUERIES, seed)) {
+                    check(graph, query, costModel, hierarchy.search(query[0], query[1]), "CH " + costModel);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void jumpPointSearchFindsTheLeastExpensivePath() {
+        for (boolean precomputed : new boolean[] {false, true}) {
+            RoutingEngine engine = new JumpPointEngine(precomputed);
+            for (long seed : SEEDS) {
+                CsrGraph graph = TestGraphs.grid(20, 20, 0.2, seed);
+                for (CostModel costModel : new CostModel[] {new EuclideanCostModel(), new FewestLinksCostModel()}) {
+                    for (int[] query : TestGraphs.queries(graph, NUM_QUERIES, seed)) {
+                        check(graph, query, costModel, engine.search(graph, query[0], query[1], costModel, null),
+                              (precomputed ? "JPS+ " : "JPS ") + costModel);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that an engine finds the least expensive path on geometric graphs and grids, with both link costs
+     */
+    private static void checkOptimal(RoutingEngine engine) {
+        for (long seed : SEEDS) {
+            CsrGraph[] graphs = {TestGraphs.geometric(300, 6, seed), TestGraphs.grid(15, 15, 0.2, seed)};
+            for (CsrGraph graph : graphs) {
+                for (CostModel costModel : new CostModel[] {new EuclideanCostModel(), new FewestLinksCostModel()}) {
+                    for (int[] query : TestGraphs.queries(graph, NUM_QUERIES, seed)) {
+                        check(graph, query, costModel, engine.search(graph, query[0], query[1], costModel, null),
+                              engine.getClass().getSimpleName() + " " + costModel);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the result of a search against the cost of the least expensive path
+     */
+    private static void check(CsrGraph graph, int[] query, CostModel costModel, PathResult result, String name) {
+        String message = name + " from " + query[0] + " to " + query[1];
+        double expected = TestGraphs.shortestCost(graph, query[0], query[1], costModel);
+        assertEquals(message, expected != Double.POSITIVE_INFINITY, result.isFound());
+        if (result.isFound()) {
+            double cost = TestGraphs.pathCost(graph, result.getNodeIds(), query[0], query[1], costModel);
+            assertEquals(message, expected, result.getTotalCost(), TestGraphs.TOLERANCE * Math.max(1, expected));
+            assertEquals(message, expected, cost, TestGraphs.TOLERANCE * Math.max(1, expected));
+        }
+    }
+}
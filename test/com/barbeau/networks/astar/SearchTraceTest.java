@@ -0,0 +1,278 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import com.barbeau.networks.SearchSpace;
+import com.barbeau.networks.visualization.MapDisplay;
+import com.barbeau.networks.visualization.TracePlayer;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the events of a search come back unchanged from a trace file (TraceRecorder and SearchTrace), and that a
+ * TracePlayer shows the same map at a position of the trace however it got there
+ * @author Sean J. Barbeau
+ */
+public class SearchTraceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordedEventsComeBackFromTheFile() throws IOException {
+        //ARA* sends every kind of event, and the large grid takes more than one chunk of the file
+        CsrGraph graph = TestGraphs.grid(250, 250, 0.2, 1);
+        int[] query = TestGraphs.queries(graph, 1, 1)[0];
+        EventLog recorded = new EventLog();
+        File file = folder.newFile();
+        TraceRecorder recorder = new TraceRecorder(file, graph, recorded);
+        new AraStarEngine().search(graph, query[0], query[1], new FewestLinksCostModel(), recorder);
+        recorder.close();
+
+        assertTrue(recorder.getEventCount() > 1 << 17);
+        assertEquals(SearchTrace.HEADER_SIZE + recorder.getEventCount() * SearchTrace.RECORD_SIZE, file.length());
+        assertTrue(SearchTrace.isTraceFile(file));
+
+        SearchTrace trace = SearchTrace.open(file);
+        assertEquals(recorder.getEventCount(), trace.getEventCount());
+        assertTrue(trace.isFor(graph));
+        assertFalse(trace.isTruncated());
+        EventLog replayed = new EventLog();
+        trace.replay(0, trace.getEventCount(), replayed);
+        assertEquals(recorded.events, replayed.events);
+
+        //Replaying the trace in parts gives the same events, even when a part starts among the PATH events of a result
+        EventLog parts = new EventLog();
+        int[] ends = {0, 1000, 2000, trace.getEventCount() - 2, trace.getEventCount()};
+        for (int i = 1; i < ends.length; i++) {
+            trace.replay(ends[i - 1], ends[i], parts);
+        }
+        assertEquals(recorded.events, parts.events);
+    }
+
+    @Test
+    public void openRejectsTruncatedTraces() throws IOException {
+        File file = folder.newFile();
+        CsrGraph graph = TestGraphs.grid(15, 15, 0.2, 1);
+        TraceRecorder recorder = new TraceRecorder(file, graph, null);
+        int[] query = TestGraphs.queries(graph, 1, 1)[0];
+        new AstarEngine().search(graph, query[0], query[1], new EuclideanCostModel(), recorder);
+        recorder.close();
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.setLength(out.length() - 1);
+        }
+        finally {
+            out.close();
+        }
+        try {
+            SearchTrace.open(file);
+            fail("Opened a truncated trace");
+        }
+        catch (IOException e) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void fullTraceKeepsTheFinalPath() throws IOException {
+        CsrGraph graph = TestGraphs.grid(40, 40, 0.2, 3);
+        int[] query = TestGraphs.queries(graph, 1, 3)[0];
+        EventLog recorded = new EventLog();
+        File file = folder.newFile();
+        int maxEvents = graph.getNodeSize() + 500;
+        TraceRecorder recorder = new TraceRecorder(file, graph, recorded, maxEvents);
+        new AstarEngine().search(graph, query[0], query[1], new EuclideanCostModel(), recorder);
+        recorder.close();
+
+        //The search had more events than fit, so the first ones and the whole final path were kept
+        assertTrue(recorder.isTruncated());
+        assertTrue(recorder.getEventCount() <= maxEvents);
+        SearchTrace trace = SearchTrace.open(file);
+        assertTrue(trace.isTruncated());
+        EventLog replayed = new EventLog();
+        trace.replay(0, trace.getEventCount(), replayed);
+        int kept = replayed.events.size() - 1;
+        assertTrue(kept > 0 && kept < recorded.events.size() - 1);
+        assertTrue(recorded.events.subList(0, kept).equals(replayed.events.subList(0, kept)));
+        String finished = recorded.events.get(recorded.events.size() - 1);
+        assertTrue(finished.startsWith("finished ["));
+        assertEquals(finished, replayed.events.get(kept));
+    }
+
+    @Test
+    public void playerRejectsTracesOfOtherGraphs() throws IOException {
+        CsrGraph graph = TestGraphs.grid(20, 20, 0.2, 4);
+        int[] query = TestGraphs.queries(graph, 1, 4)[0];
+        File file = folder.newFile();
+        TraceRecorder recorder = new TraceRecorder(file, graph, null);
+        new AstarEngine().search(graph, query[0], query[1], new EuclideanCostModel(), recorder);
+        recorder.close();
+        SearchTrace trace = SearchTrace.open(file);
+
+        //A map with the same number of nodes but other links, and a map with other nodes
+        CsrGraph[] others = {TestGraphs.grid(10, 40, 0.2, 4), TestGraphs.grid(20, 21, 0.2, 4)};
+        for (CsrGraph other : others) {
+            assertFalse(trace.isFor(other));
+            SearchSpace searchSpace = other.toSearchSpace();
+            MapDisplay map = new MapDisplay();
+            map.setSearchSpace(searchSpace, 40 * TestGraphs.SPACING, 40 * TestGraphs.SPACING, 1, 3, 7);
+            TracePlayer player = new TracePlayer(map, searchSpace);
+            try {
+                player.setTrace(trace);
+                fail("Replayed a trace of another graph");
+            }
+            catch (IllegalArgumentException e) {
+                //Expected
+            }
+            assertNull(player.getTrace());
+        }
+    }
+
+    @Test
+    public void playerShowsTheSameMapWhicheverWayItGetsThere() throws IOException {
+        CsrGraph graph = TestGraphs.grid(60, 60, 0.2, 2);
+        int[] query = TestGraphs.queries(graph, 1, 2)[0];
+        SearchSpace searchSpace = graph.toSearchSpace();
+        MapDisplay map = new MapDisplay();
+        map.setSearchSpace(searchSpace, 60 * TestGraphs.SPACING, 60 * TestGraphs.SPACING, 1, 3, 7);
+        TracePlayer player = new TracePlayer(map, searchSpace);
+        List<Object> before = appearance(searchSpace);
+
+        File file = folder.newFile();
+        TraceRecorder recorder = new TraceRecorder(file, graph, null);
+        new AstarEngine().search(graph, query[0], query[1], new FewestLinksCostModel(), recorder);
+        recorder.close();
+        SearchTrace trace = SearchTrace.open(file);
+        assertTrue(trace.getEventCount() > 5 * TracePlayer.CHECKPOINT_INTERVAL);
+
+        //Play the trace forward one piece at a time, noting how the map looks
+        player.setTrace(trace);
+        assertEquals(trace.getEventCount(), player.getPosition());
+        List<Object> end = appearance(searchSpace);
+        player.seek(0);
+        assertEquals(before, appearance(searchSpace));
+        int[] positions = new int[40];
+        List<List<Object>> appearances = new ArrayList<List<Object>>();
+        Random random = new Random(2);
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextInt(trace.getEventCount() + 1);
+        }
+        Arrays.sort(positions);
+        for (int position : positions) {
+            player.seek(position);
+            appearances.add(appearance(searchSpace));
+        }
+        player.seek(trace.getEventCount());
+        assertEquals(end, appearance(searchSpace));
+
+        //Jumping back and forth (from checkpoints) must give the same map
+        for (int n = 0; n < 200; n++) {
+            int i = random.nextInt(positions.length);
+            player.seek(positions[i]);
+            assertEquals(positions[i], player.getPosition());
+            assertTrue("The map at position " + positions[i] + " changed", appearances.get(i).equals(appearance(searchSpace)));
+        }
+        player.seek(0);
+        assertEquals(before, appearance(searchSpace));
+    }
+
+    /**
+     * Returns the colors and sizes of all the nodes and links of a search space, and whether each link was traveled or
+     * disabled
+     */
+    private static List<Object> appearance(SearchSpace searchSpace) {
+        List<Object> appearance = new ArrayList<Object>();
+        for (int i = 0; i < searchSpace.getNodeSize(); i++) {
+            NodeXY node = (NodeXY) searchSpace.getNode(i);
+            appearance.add(node.color);
+            appearance.add(node.previousColor);
+            appearance.add(node.size);
+            appearance.add(node.previous_size);
+        }
+        Iterator<?> links = searchSpace.getLinkIterator();
+        while (links.hasNext()) {
+            LinkXY link = (LinkXY) links.next();
+            appearance.add(link.getColor());
+            appearance.add(link.traveled);
+            appearance.add(link.enabled);
+        }
+        return appearance;
+    }
+
+    /**
+     * Listener that writes down each event it gets
+     */
+    private static class EventLog implements SearchListener {
+
+        final List<String> events = new ArrayList<String>();
+
+        public void nodeExpanded(int node, double costFromStart, double estCostToGoal) {
+            this.events.add("expanded " + node + " " + costFromStart + " " + estCostToGoal);
+        }
+
+        public void linkTraveled(int nodeA, int nodeB) {
+            this.events.add("traveled " + nodeA + " " + nodeB);
+        }
+
+        public void nodeAdded(int node, double costFromStart, double estCostToGoal) {
+            this.events.add("added " + node + " " + costFromStart + " " + estCostToGoal);
+        }
+
+        public void nodeImproved(int node, double costFromStart, double estCostToGoal) {
+            this.events.add("improved " + node + " " + costFromStart + " " + estCostToGoal);
+        }
+
+        public void nodeReopened(int node, double costFromStart, double estCostToGoal) {
+            this.events.add("reopened " + node + " " + costFromStart + " " + estCostToGoal);
+        }
+
+        public void nodeRejected(int node) {
+            this.events.add("rejected " + node);
+        }
+
+        public void nodeDisabled(int nodeA, int nodeB) {
+            this.events.add("disabled " + nodeA + " " + nodeB);
+        }
+
+        public void nodeClosed(int node) {
+            this.events.add("closed " + node);
+        }
+
+        public void solutionImproved(PathResult result, double weight, double suboptimalityBound) {
+            this.events.add("solution " + describe(result) + " " + weight + " " + suboptimalityBound);
+        }
+
+        public void searchFinished(PathResult result) {
+            this.events.add("finished " + describe(result));
+        }
+
+        private static String describe(PathResult result) {
+            return Arrays.toString(result.getNodeIds()) + " " + result.getTotalCost() + " " + result.getNumIterations() + " " + result.getPeakNodes();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+
+package com.barbeau.networks.astar;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class builds the small graphs the tests search, and finds the costs of their least expensive paths with a plain
+ * Dijkstra search that doesn't share any code with the engines, so the engines can be checked against it.
+ * Each link has the straight line distance between its nodes as its length, like the graphs of the application.
+ * @author Sean J. Barbeau
+ */
+final class TestGraphs {
+
+    //Distance between neighbouring nodes of a grid, and about the mean distance between the nodes of the other graphs
+    static final int SPACING = 10;
+
+    //Largest difference allowed between two costs of the same path, which may add up the lengths in a different order
+    static final double TOLERANCE = 1e-6;
+
+    private TestGraphs() {
+    }
+
+    /**
+     * Creates a grid of nodes SPACING apart, each connected both ways to its horizontal, vertical and diagonal neighbours
+     * @param width number of columns
+     * @param height number of rows
+     * @param obstacles fraction of the nodes that are disabled
+     * @param seed seed of the random numbers
+     * @return the grid
+     */
+    static CsrGraph grid(int width, int height, double obstacles, long seed) {
+        Random random = new Random(seed);
+        int numNodes = width * height;
+        int[] x = new int[numNodes];
+        int[] y = new int[numNodes];
+        boolean[] enabled = new boolean[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            x[i] = (i % width) * SPACING;
+            y[i] = (i / width) * SPACING;
+            enabled[i] = random.nextDouble() >= obstacles;
+        }
+
+        int[] offsets = new int[numNodes + 1];
+        int[] targets = new int[numNodes * 8];
+        int numEdges = 0;
+        for (int i = 0; i < numNodes; i++) {
+            offsets[i] = numEdges;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int c = i % width + dx;
+                    int r = i / width + dy;
+                    if ((dx != 0 || dy != 0) && c >= 0 && c < width && r >= 0 && r < height) {
+                        targets[numEdges++] = r * width + c;
+                    }
+                }
+            }
+        }
+        offsets[numNodes] = numEdges;
+        return build(offsets, Arrays.copyOf(targets, numEdges), x, y, enabled);
+    }
+
+    /**
+     * Creates a random geometric graph - nodes are placed at random on whole coordinates (so some nodes can share a
+     * location, and the links between them cost nothing), and every pair of nodes within a fixed distance is connected
+     * both ways.  The distance is chosen so each node has degree links on average.
+     * @param numNodes number of nodes
+     * @param degree mean number of links leaving a node
+     * @param seed seed of the random numbers
+     * @return the graph
+     */
+    static CsrGraph geometric(int numNodes, double degree, long seed) {
+        Random random = new Random(seed);
+        int extent = (int) Math.ceil(Math.sqrt(numNodes)) * SPACING;
+        int[] x = new int[numNodes];
+        int[] y = new int[numNodes];
+        boolean[] enabled = new boolean[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            x[i] = random.nextInt(extent);
+            y[i] = random.nextInt(extent);
+            enabled[i] = true;
+        }
+
+        double radius = extent * Math.sqrt(degree / (Math.PI * numNodes));
+        int[] offsets = new int[numNodes + 1];
+        int[] targets = new int[numNodes * 4];
+        int numEdges = 0;
+        for (int i = 0; i < numNodes; i++) {
+            offsets[i] = numEdges;
+            for (int j = 0; j < numNodes; j++) {
+                double dx = x[j] - x[i];
+                double dy = y[j] - y[i];
+                if (j != i && dx * dx + dy * dy <= radius * radius) {
+                    if (numEdges == targets.length) {
+                        targets = Arrays.copyOf(targets, numEdges * 2);
+                    }
+                    targets[numEdges++] = j;
+                }
+            }
+        }
+        offsets[numNodes] = numEdges;
+        return build(offsets, Arrays.copyOf(targets, numEdges), x, y, enabled);
+    }
+
+    /**
+     * Returns a copy of a graph with one node enabled or disabled
+     * @param graph graph to copy
+     * @param node id of the node to change
+     * @param enabled new enabled state of the node
+     * @return the copy of the graph
+     */
+    static CsrGraph withEnabled(CsrGraph graph, int node, boolean enabled) {
+        int numNodes = graph.getNodeSize();
+        int[] offsets = new int[numNodes + 1];
+        int[] targets = new int[graph.getEdgeSize()];
+        int[] x = new int[numNodes];
+        int[] y = new int[numNodes];
+        boolean[] states = new boolean[numNodes];
+        for (int i = 0; i <= numNodes; i++) {
+            offsets[i] = graph.getFirstEdge(i);
+        }
+        for (int e = 0; e < targets.length; e++) {
+            targets[e] = graph.getTarget(e);
+        }
+        for (int i = 0; i < numNodes; i++) {
+            x[i] = graph.getX(i);
+            y[i] = graph.getY(i);
+            states[i] = graph.isEnabled(i);
+        }
+        states[node] = enabled;
+        return build(offsets, targets, x, y, states);
+    }
+
+    /**
+     * Creates the graph, with the straight line distance between its nodes as the length of each link
+     */
+    private static CsrGraph build(int[] offsets, int[] targets, int[] x, int[] y, boolean[] enabled) {
+        int numNodes = x.length;
+        float[] weights = new float[targets.length];
+        String[] labels = new String[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            labels[i] = "N" + i;
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                double dx = x[targets[e]] - x[i];
+                double dy = y[targets[e]] - y[i];
+                weights[e] = (float) Math.sqrt(dx * dx + dy * dy);
+            }
+        }
+        return new CsrGraph(offsets, targets, weights, x, y, enabled, labels);
+    }
+
+    /**
+     * Finds the cost of the least expensive path from start to goal that only goes through enabled nodes (Dijkstra's algorithm)
+     * @param graph graph to search
+     * @param start id of the start node
+     * @param goal id of the goal node
+     * @param costModel cost model that measures the cost of each link (its estimates are not used)
+     * @return the cost of the least expensive path, or infinity if there is no path
+     */
+    static double shortestCost(CsrGraph graph, int start, int goal, CostModel costModel) {
+        int numNodes = graph.getNodeSize();
+        double[] costs = new double[numNodes];
+        boolean[] done = new boolean[numNodes];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        costs[start] = 0;
+        while (true) {
+            //Pick the cheapest node that isn't done yet - O(nodes^2), which is fine for the small test graphs
+            int a = -1;
+            for (int n = 0; n < numNodes; n++) {
+                if (done[n] == false && costs[n] != Double.POSITIVE_INFINITY && (a == -1 || costs[n] < costs[a])) {
+                    a = n;
+                }
+            }
+            if (a == -1 || a == goal) {
+                return costs[goal];
+            }
+            done[a] = true;
+            for (int e = graph.getFirstEdge(a); e < graph.getFirstEdge(a + 1); e++) {
+                int b = graph.getTarget(e);
+                if (graph.isEnabled(b) && costs[a] + costModel.getCost(graph, a, e) < costs[b]) {
+                    costs[b] = costs[a] + costModel.getCost(graph, a, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Measures the cost of a path, checking that it goes from start to goal over links of the graph and enabled nodes only
+     * @param graph graph the path was found in
+     * @param path ids of the nodes on the path
+     * @param start id of the start node
+     * @param goal id of the goal node
+     * @param costModel cost model that measures the cost of each link
+     * @return the cost of the path
+     * @throws AssertionError if the path is not a path from start to goal in the graph
+     */
+    static double pathCost(CsrGraph graph, int[] path, int start, int goal, CostModel costModel) {
+        if (path.length == 0 || path[0] != start || path[path.length - 1] != goal) {
+            throw new AssertionError("Path " + Arrays.toString(path) + " doesn't go from " + start + " to " + goal);
+        }
+        double cost = 0;
+        for (int i = 1; i < path.length; i++) {
+            int e = graph.findEdge(path[i - 1], path[i]);
+            if (e == -1 || graph.isEnabled(path[i]) == false) {
+                throw new AssertionError("Path " + Arrays.toString(path) + " can't go from " + path[i - 1] + " to " + path[i]);
+            }
+            cost += costModel.getCost(graph, path[i - 1], e);
+        }
+        return cost;
+    }
+
+    /**
+     * Picks start and goal nodes among the enabled nodes of a graph
+     * @param graph graph to pick the nodes from
+     * @param numQueries number of pairs to pick
+     * @param seed seed of the random numbers
+     * @return the start node of query i at [i][0] and its goal node at [i][1]
+     */
+    static int[][] queries(CsrGraph graph, int numQueries, long seed) {
+        Random random = new Random(seed);
+        int[][] queries = new int[numQueries][2];
+        for (int i = 0; i < numQueries; i++) {
+            for (int j = 0; j < 2; j++) {
+                do {
+                    queries[i][j] = random.nextInt(graph.getNodeSize());
+                } while (graph.isEnabled(queries[i][j]) == false);
+            }
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.astar;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that TextGraphLoader reads the graph written to the location and connection text files, and skips and reports
+ * malformed lines
+ * @author Sean J. Barbeau
+ */
+public class TextGraphLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadsTheGraphOfTheTextFiles() throws IOException {
+        CsrGraph graph = TestGraphs.geometric(200, 6, 1);
+        StringBuilder locations = new StringBuilder();
+        StringBuilder connections = new StringBuilder();
+        for (int i = 0; i < graph.getNodeSize(); i++) {
+            locations.append(graph.getLabel(i)).append(' ').append(graph.getX(i)).append(' ').append(graph.getY(i)).append('\n');
+            connections.append(graph.getLabel(i)).append(' ').append(graph.getFirstEdge(i + 1) - graph.getFirstEdge(i));
+            for (int e = graph.getFirstEdge(i); e < graph.getFirstEdge(i + 1); e++) {
+                connections.append(' ').append(graph.getLabel(graph.getTarget(e)));
+            }
+            connections.append('\n');
+        }
+        locations.append("END\n");
+        connections.append("END\n");
+
+        TextGraphLoader loader = new TextGraphLoader();
+        CsrGraph loaded = loader.load(write("locations.txt", locations), write("connections.txt", connections));
+        assertTrue(loader.getErrors().isEmpty());
+        assertEquals(graph.getNodeSize(), loaded.getNodeSize());
+        assertEquals(graph.getEdgeSize(), loaded.getEdgeSize());
+        for (int i = 0; i < graph.getNodeSize(); i++) {
+            assertEquals(graph.getLabel(i), loaded.getLabel(i));
+            assertEquals(graph.getX(i), loaded.getX(i));
+            assertEquals(graph.getY(i), loaded.getY(i));
+            assertEquals(graph.getFirstEdge(i + 1), loaded.getFirstEdge(i + 1));
+        }
+        for (int e = 0; e < graph.getEdgeSize(); e++) {
+            assertEquals(graph.getTarget(e), loaded.getTarget(e));
+            assertEquals(graph.getWeight(e), loaded.getWeight(e), 0);
+        }
+        assertEquals(graph.getFingerprint(), loaded.getFingerprint());
+    }
+
+    @Test
+    public void malformedLinesAreSkippedAndReported() throws IOException {
+        File locations = write("locations.txt", "A 0 0\nB ten 0\nC 30 40\n\nD 60 80\n");
+        File connections = write("connections.txt", "A 2 C X\nC 1\nD 1 A\n");
+
+        TextGraphLoader loader = new TextGraphLoader();
+        CsrGraph graph = loader.load(locations, connections);
+        assertEquals(3, graph.getNodeSize());
+        assertEquals("D", graph.getLabel(2));
+        assertEquals(2, graph.getEdgeSize());
+        assertEquals(50, graph.getWeight(graph.findEdge(0, 1)), 0);
+        assertEquals(100, graph.getWeight(graph.findEdge(2, 0)), 0);
+
+        //B's coordinate, the unknown node X and C's missing neighbour
+        List<TextGraphLoader.ParseError> errors = loader.getErrors();
+        assertEquals(3, errors.size());
+        assertEquals("locations.txt", errors.get(0).getFileName());
+        assertEquals(2, errors.get(0).getLineNumber());
+        assertEquals("connections.txt", errors.get(1).getFileName());
+        assertEquals(1, errors.get(1).getLineNumber());
+        assertEquals(2, errors.get(2).getLineNumber());
+    }
+
+    /**
+     * Writes text to a new file in the temporary folder
+     */
+    private File write(String name, CharSequence text) throws IOException {
+        File file = folder.newFile(name);
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.append(text);
+        }
+        finally {
+            out.close();
+        }
+        return file;
+    }
+}
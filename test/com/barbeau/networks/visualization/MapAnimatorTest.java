@@ -0,0 +1,100 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.visualization;
+
+import com.barbeau.networks.SearchSpace;
+import com.barbeau.networks.astar.HeuristicsNode;
+import com.barbeau.networks.astar.LinkXY;
+import com.barbeau.networks.astar.NodeXY;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that MapAnimator leaves the nodes and links looking as if each published change had been applied in turn, and
+ * runs posted tasks after the changes published before them
+ * @author Sean J. Barbeau
+ */
+public class MapAnimatorTest {
+
+    @Test
+    public void coalescedChangesGiveTheSameLookAsEachChange() {
+        SearchSpace searchSpace = new SearchSpace();
+        NodeXY[] nodes = new NodeXY[3];
+        NodeXY[] expected = new NodeXY[3];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new HeuristicsNode("N" + i, i * 10, 0) {};
+            expected[i] = new HeuristicsNode("N" + i, i * 10, 0) {};
+            searchSpace.add(nodes[i]);
+        }
+        nodes[2].enabled = false;
+        expected[2].enabled = false;
+        LinkXY link = new LinkXY(nodes[0], nodes[1]);
+        searchSpace.add(link);
+        MapDisplay map = new MapDisplay();
+        map.setSearchSpace(searchSpace, 100, 100, 1, 3, 7);
+        MapAnimator animator = new MapAnimator(map);
+        animator.start();
+
+        //The same changes as a search sends, many times over between two frames
+        for (int n = 0; n < 1000; n++) {
+            for (int i = 0; i < nodes.length; i++) {
+                animator.setNode(nodes[i], Color.GREEN, 12);
+                expected[i].setAppearance(Color.GREEN, 12);
+                animator.restoreNode(nodes[i], 9);
+                expected[i].restoreAppearance(9);
+            }
+            animator.setLinkTraveled(link, Color.CYAN);
+        }
+        animator.setNode(nodes[0], null, 7);
+        expected[0].setAppearance(expected[0].color, 7);
+        animator.setLink(link, Color.BLUE);
+
+        //A task sees the changes published before it, but not the ones published after it
+        final List<Color> seen = new ArrayList<Color>();
+        final LinkXY seenLink = link;
+        animator.post(new Runnable() {
+            public void run() {
+                seen.add(seenLink.getColor());
+            }
+        });
+        animator.setLinkDisabled(link, Color.RED);
+        assertEquals(LinkXY.DEFAULT_COLOR, link.getColor());
+
+        animator.actionPerformed(null);
+        assertEquals(1, seen.size());
+        assertEquals(Color.BLUE, seen.get(0));
+        for (int i = 0; i < nodes.length; i++) {
+            assertEquals(expected[i].color, nodes[i].color);
+            assertEquals(expected[i].previousColor, nodes[i].previousColor);
+            assertEquals(expected[i].size, nodes[i].size);
+            assertEquals(expected[i].previous_size, nodes[i].previous_size);
+        }
+        assertTrue(link.traveled);
+        assertFalse(link.enabled);
+        assertEquals(Color.RED, link.getColor());
+
+        //Once finished, no more frames are drawn
+        animator.finish();
+        animator.actionPerformed(null);
+        animator.setLink(link, Color.BLUE);
+        animator.actionPerformed(null);
+        assertEquals(Color.RED, link.getColor());
+    }
+}
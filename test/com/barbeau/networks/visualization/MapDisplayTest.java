@@ -0,0 +1,74 @@
+/**
+ * Copyright 2005 Sean J. Barbeau
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.barbeau.networks.visualization;
+
+import com.barbeau.networks.SearchSpace;
+import com.barbeau.networks.astar.HeuristicsNode;
+import com.barbeau.networks.astar.LinkXY;
+import com.barbeau.networks.astar.NodeXY;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the map draws the nodes and links that were changed after its static layer was drawn in their new look,
+ * and in their default look again once they are changed back
+ * @author Sean J. Barbeau
+ */
+public class MapDisplayTest {
+
+    @Test
+    public void changedLinksAndNodesAreDrawnOnTopOfTheStaticLayer() {
+        SearchSpace searchSpace = new SearchSpace();
+        NodeXY a = new HeuristicsNode("A", 10, 50) {};
+        NodeXY b = new HeuristicsNode("B", 190, 50) {};
+        searchSpace.add(a);
+        searchSpace.add(b);
+        LinkXY link = new LinkXY(a, b);
+        searchSpace.add(link);
+        MapDisplay map = new MapDisplay();
+        map.setSearchSpace(searchSpace, 200, 100, 1, 7, 12);
+        map.setSize(200, 100);
+
+        //Middle of the link, and a point inside node A
+        assertEquals(LinkXY.DEFAULT_COLOR, colorAt(map, 100, 53));
+        assertEquals(NodeXY.DEFAULT_COLOR, colorAt(map, 13, 53));
+
+        link.setColor(Color.RED);
+        a.setAppearance(Color.GREEN, 7);
+        assertEquals(Color.RED, colorAt(map, 100, 53));
+        assertEquals(Color.GREEN, colorAt(map, 13, 53));
+
+        link.setColor(LinkXY.DEFAULT_COLOR);
+        a.setAppearance(NodeXY.DEFAULT_COLOR, 7);
+        assertEquals(LinkXY.DEFAULT_COLOR, colorAt(map, 100, 53));
+        assertEquals(NodeXY.DEFAULT_COLOR, colorAt(map, 13, 53));
+    }
+
+    /**
+     * Returns the color of a pixel of the map after it is painted
+     */
+    private static Color colorAt(MapDisplay map, int x, int y) {
+        BufferedImage image = new BufferedImage(map.getWidth(), map.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics g = image.getGraphics();
+        map.paintContents(g);
+        g.dispose();
+        return new Color(image.getRGB(x, y));
+    }
+}